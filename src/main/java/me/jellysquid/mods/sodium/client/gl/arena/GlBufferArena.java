@@ -9,16 +9,28 @@ import me.jellysquid.mods.sodium.client.gl.device.CommandList;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.TreeSet;
 
+
+/**
+ * Sub-allocates segments of a single buffer object. The segments (both used and free) form a linked list in the order
+ * of their offsets, which is used to merge adjacent free segments. The free segments are also kept in a tree ordered
+ * by their length, so that the best fit for an allocation can be found in logarithmic time regardless of how
+ * fragmented the arena has become.
+ */
 public class GlBufferArena {
     static final boolean CHECK_ASSERTIONS = false;
 
     private static final GlBufferUsage BUFFER_USAGE = GlBufferUsage.STATIC_DRAW;
 
+    // The arena is shrunk once less than this fraction of its capacity is used
+    private static final int SHRINK_OCCUPANCY_DIVISOR = 4;
+
+    // The arena is compacted once the free space outside the largest free segment exceeds this fraction of its capacity
+    private static final int FRAGMENTATION_DIVISOR = 16;
+
+    private final int initialCapacity;
     private final int resizeIncrement;
 
     private final StagingBuffer stagingBuffer;
@@ -26,6 +38,12 @@ public class GlBufferArena {
 
     private GlBufferSegment head;
 
+    // The free segments, ordered by their length and then by their offset
+    private final TreeSet<GlBufferSegment> freeSegments = new TreeSet<>(GlBufferArena::compareFreeSegments);
+
+    // The key which is used to search the free segments for the best fit of a given length
+    private final GlBufferSegment searchKey = new GlBufferSegment(this, Integer.MIN_VALUE, 0);
+
     private int capacity;
     private int used;
 
@@ -33,6 +51,7 @@ public class GlBufferArena {
 
     public GlBufferArena(CommandList commands, int initialCapacity, int stride, StagingBuffer stagingBuffer) {
         this.capacity = initialCapacity;
+        this.initialCapacity = initialCapacity;
         this.resizeIncrement = initialCapacity / 16;
 
         this.stride = stride;
@@ -40,6 +59,8 @@ public class GlBufferArena {
         this.head = new GlBufferSegment(this, 0, initialCapacity);
         this.head.setFree(true);
 
+        this.freeSegments.add(this.head);
+
         this.arenaBuffer = commands.createMutableBuffer();
         commands.allocateStorage(this.arenaBuffer, this.capacity * stride, BUFFER_USAGE);
 
@@ -63,6 +84,10 @@ public class GlBufferArena {
         this.head = new GlBufferSegment(this, 0, tail);
         this.head.setFree(true);
 
+        // After compaction, the only free space is at the start of the buffer
+        this.freeSegments.clear();
+        this.freeSegments.add(this.head);
+
         if (usedSegments.isEmpty()) {
             this.head.setNext(null);
         } else {
@@ -161,6 +186,13 @@ public class GlBufferArena {
         return this.capacity * this.stride;
     }
 
+    /**
+     * @return The amount of free memory (in bytes) which is not part of the largest free segment
+     */
+    public int getDeviceFragmentedMemory() {
+        return this.getFragmentedElements() * this.stride;
+    }
+
     private GlBufferSegment alloc(int size) {
         GlBufferSegment a = this.findFree(size);
 
@@ -168,6 +200,9 @@ public class GlBufferArena {
             return null;
         }
 
+        // The segment must be removed from the tree before its length changes
+        this.freeSegments.remove(a);
+
         GlBufferSegment result;
 
         if (a.getLength() == size) {
@@ -187,6 +222,8 @@ public class GlBufferArena {
             a.setLength(a.getLength() - size);
             a.setNext(b);
 
+            this.freeSegments.add(a);
+
             result = b;
         }
 
@@ -196,25 +233,24 @@ public class GlBufferArena {
         return result;
     }
 
+    /**
+     * @return The smallest free segment which can hold the given number of elements, preferring the segment with the
+     * lowest offset when there are several of the same length, or null if there is none
+     */
     private GlBufferSegment findFree(int size) {
-        GlBufferSegment entry = this.head;
-        GlBufferSegment best = null;
-
-        while (entry != null) {
-            if (entry.isFree()) {
-                if (entry.getLength() == size) {
-                    return entry;
-                } else if (entry.getLength() >= size) {
-                    if (best == null || best.getLength() > entry.getLength()) {
-                        best = entry;
-                    }
-                }
-            }
+        this.searchKey.setSearchLength(size);
 
-            entry = entry.getNext();
+        return this.freeSegments.ceiling(this.searchKey);
+    }
+
+    private static int compareFreeSegments(GlBufferSegment a, GlBufferSegment b) {
+        int result = Integer.compare(a.getLength(), b.getLength());
+
+        if (result == 0) {
+            result = Integer.compare(a.getOffset(), b.getOffset());
         }
 
-        return best;
+        return result;
     }
 
     public void free(GlBufferSegment entry) {
@@ -226,19 +262,210 @@ public class GlBufferArena {
 
         this.used -= entry.getLength();
 
+        this.coalesce(entry);
+
+        this.checkAssertions();
+    }
+
+    /**
+     * Merges a free segment (which is not yet tracked as free) with any free segments next to it, and tracks the result.
+     * @return The free segment which now contains the given segment
+     */
+    private GlBufferSegment coalesce(GlBufferSegment entry) {
         GlBufferSegment next = entry.getNext();
 
         if (next != null && next.isFree()) {
+            this.freeSegments.remove(next);
             entry.mergeInto(next);
         }
 
         GlBufferSegment prev = entry.getPrev();
 
         if (prev != null && prev.isFree()) {
+            this.freeSegments.remove(prev);
             prev.mergeInto(entry);
+
+            entry = prev;
+        }
+
+        this.freeSegments.add(entry);
+
+        return entry;
+    }
+
+    /**
+     * Performs a bounded amount of work towards returning unused memory. If the arena has grown well beyond what it
+     * is using, it is shrunk into a smaller buffer. Otherwise, if the free space is spread over many small segments,
+     * the used segments closest to the end of the buffer are moved into free segments before them, so that the free
+     * space gradually collects into one segment at the end.
+     *
+     * <p>This changes the offsets of the segments which are moved, and if the arena is shrunk, the buffer object. The
+     * caller is responsible for updating anything which depends on them when this returns a non-zero value, or when
+     * {@link #getBufferObject()} changes. An empty arena can be shrunk without copying anything.</p>
+     *
+     * @param maxBytes The maximum number of bytes which should be copied
+     * @return The number of bytes which were copied
+     */
+    public int compact(CommandList commandList, int maxBytes) {
+        int maxElements = maxBytes / this.stride;
+
+        if (this.shouldShrink() && this.used <= maxElements) {
+            this.resize(commandList, Math.max(this.initialCapacity, this.used + (this.used / 2)));
+
+            return this.used * this.stride;
+        }
+
+        if (!this.isFragmented()) {
+            return 0;
+        }
+
+        int moved = 0;
+
+        GlBufferSegment segment = this.getLastUsedSegment();
+
+        while (segment != null) {
+            if (!segment.isFree()) {
+                int length = segment.getLength();
+
+                if (moved + length > maxElements) {
+                    break;
+                }
+
+                GlBufferSegment hole = this.findFreeBefore(length, segment.getOffset());
+
+                if (hole != null) {
+                    segment = this.moveSegment(commandList, segment, hole);
+                    moved += length;
+                }
+            }
+
+            segment = segment.getPrev();
         }
 
         this.checkAssertions();
+
+        return moved * this.stride;
+    }
+
+    private boolean shouldShrink() {
+        return this.capacity > this.initialCapacity && this.used < (this.capacity / SHRINK_OCCUPANCY_DIVISOR);
+    }
+
+    private boolean isFragmented() {
+        if (this.freeSegments.size() <= 1) {
+            return false;
+        }
+
+        return this.getFragmentedElements() > (this.capacity / FRAGMENTATION_DIVISOR);
+    }
+
+    private int getFragmentedElements() {
+        if (this.freeSegments.isEmpty()) {
+            return 0;
+        }
+
+        return (this.capacity - this.used) - this.freeSegments.last().getLength();
+    }
+
+    private GlBufferSegment getLastUsedSegment() {
+        GlBufferSegment seg = this.head;
+        GlBufferSegment last = null;
+
+        while (seg != null) {
+            if (!seg.isFree()) {
+                last = seg;
+            }
+
+            seg = seg.getNext();
+        }
+
+        return last;
+    }
+
+    /**
+     * @return The smallest free segment which can hold the given number of elements and which starts before the given
+     * offset, or null if there is none
+     */
+    private GlBufferSegment findFreeBefore(int size, int offset) {
+        this.searchKey.setSearchLength(size);
+
+        for (GlBufferSegment segment : this.freeSegments.tailSet(this.searchKey, false)) {
+            if (segment.getOffset() < offset) {
+                return segment;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Copies the contents of a used segment to the start of a free segment, and moves the segment there.
+     * @return The free segment which now contains the previous location of the moved segment
+     */
+    private GlBufferSegment moveSegment(CommandList commandList, GlBufferSegment segment, GlBufferSegment hole) {
+        int length = segment.getLength();
+        int offset = hole.getOffset();
+
+        commandList.copyBufferSubData(this.arenaBuffer, this.arenaBuffer,
+                segment.getOffset() * this.stride,
+                offset * this.stride,
+                length * this.stride);
+
+        // Leave a free segment in place of the one being moved
+        GlBufferSegment vacated = new GlBufferSegment(this, segment.getOffset(), length);
+        vacated.setFree(true);
+
+        this.replace(segment, vacated);
+
+        // The segment must be removed from the tree before its offset or length changes
+        this.freeSegments.remove(hole);
+
+        if (hole.getLength() == length) {
+            this.replace(hole, segment);
+        } else {
+            hole.setOffset(offset + length);
+            hole.setLength(hole.getLength() - length);
+
+            this.insertBefore(hole, segment);
+            this.freeSegments.add(hole);
+        }
+
+        segment.setOffset(offset);
+
+        return this.coalesce(vacated);
+    }
+
+    private void replace(GlBufferSegment existing, GlBufferSegment replacement) {
+        GlBufferSegment prev = existing.getPrev();
+        GlBufferSegment next = existing.getNext();
+
+        replacement.setPrev(prev);
+        replacement.setNext(next);
+
+        if (prev != null) {
+            prev.setNext(replacement);
+        } else {
+            this.head = replacement;
+        }
+
+        if (next != null) {
+            next.setPrev(replacement);
+        }
+    }
+
+    private void insertBefore(GlBufferSegment existing, GlBufferSegment segment) {
+        GlBufferSegment prev = existing.getPrev();
+
+        segment.setPrev(prev);
+        segment.setNext(existing);
+
+        if (prev != null) {
+            prev.setNext(segment);
+        } else {
+            this.head = segment;
+        }
+
+        existing.setPrev(segment);
     }
 
     public void delete(CommandList commands) {
@@ -253,13 +480,12 @@ public class GlBufferArena {
         return this.arenaBuffer;
     }
 
-    public boolean upload(CommandList commandList, Stream<PendingUpload> stream) {
+    public boolean upload(CommandList commandList, List<PendingUpload> uploads) {
         // Record the buffer object before we start any work
         // If the arena needs to re-allocate a buffer, this will allow us to check and return an appropriate flag
         GlBuffer buffer = this.arenaBuffer;
 
-        // A linked list is used as we'll be randomly removing elements and want O(1) performance
-        List<PendingUpload> queue = stream.collect(Collectors.toCollection(LinkedList::new));
+        List<PendingUpload> queue = new ArrayList<>(uploads);
 
         // Try to upload all of the data into free segments first
         this.tryUploads(commandList, queue);
@@ -267,9 +493,11 @@ public class GlBufferArena {
         // If we weren't able to upload some buffers, they will have been left behind in the queue
         if (!queue.isEmpty()) {
             // Calculate the amount of memory needed for the remaining uploads
-            int remainingElements = queue.stream()
-                    .mapToInt(upload -> upload.getDataBuffer().getLength())
-                    .sum();
+            int remainingElements = 0;
+
+            for (PendingUpload upload : queue) {
+                remainingElements += upload.getLength() / this.stride;
+            }
 
             // Ask the arena to grow to accommodate the remaining uploads
             // This will force a re-allocation and compaction, which will leave us a continuous free segment
@@ -289,7 +517,21 @@ public class GlBufferArena {
     }
 
     private void tryUploads(CommandList commandList, List<PendingUpload> queue) {
-        queue.removeIf(upload -> this.tryUpload(commandList, upload));
+        // Compact the uploads which failed towards the start of the list, rather than removing each upload which
+        // succeeded individually
+        int remaining = 0;
+
+        for (int i = 0; i < queue.size(); i++) {
+            PendingUpload upload = queue.get(i);
+
+            if (!this.tryUpload(commandList, upload)) {
+                queue.set(remaining++, upload);
+            }
+        }
+
+        queue.subList(remaining, queue.size())
+                .clear();
+
         this.stagingBuffer.flush(commandList);
     }
 
@@ -329,9 +571,11 @@ public class GlBufferArena {
         }
     }
 
-    private void checkAssertions0() {
+    // Also called directly by the tests, which check the arena's invariants after every operation
+    void checkAssertions0() {
         GlBufferSegment seg = this.head;
         int used = 0;
+        int freeCount = 0;
 
         while (seg != null) {
             if (seg.getOffset() < 0) {
@@ -342,6 +586,12 @@ public class GlBufferArena {
 
             if (!seg.isFree()) {
                 used += seg.getLength();
+            } else {
+                if (!this.freeSegments.contains(seg)) {
+                    throw new IllegalStateException("segment.free && !arena.freeSegments.contains(segment): untracked free segment");
+                }
+
+                freeCount++;
             }
 
             GlBufferSegment next = seg.getNext();
@@ -388,6 +638,10 @@ public class GlBufferArena {
         if (this.used != used) {
             throw new IllegalStateException("arena.used is invalid");
         }
+
+        if (this.freeSegments.size() != freeCount) {
+            throw new IllegalStateException("arena.freeSegments contains segments which are not free");
+        }
     }
 
 }
@@ -49,6 +49,14 @@ public class GlBufferSegment {
         this.offset = offset;
     }
 
+    /**
+     * Sets the length of a segment which is only used as a key for searching the arena's free segments, bypassing the
+     * validation of {@link #setLength(int)}.
+     */
+    void setSearchLength(int length) {
+        this.length = length;
+    }
+
     protected void setFree(boolean free) {
         this.free = free;
     }
@@ -12,8 +12,16 @@ import me.jellysquid.mods.sodium.client.util.MathUtil;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
+/**
+ * A staging buffer which writes data into persistently mapped ring buffers. Memory in a ring can only be re-used once
+ * the graphics card has finished the copies which read from it, so when uploads arrive faster than the copies finish,
+ * additional rings are created (sized from the amount of data which has recently been uploaded in a frame) instead of
+ * falling back to the slower synchronous path. Additional rings are released again once they have been idle for a
+ * while.
+ */
 public class MappedStagingBuffer implements StagingBuffer {
     private static final EnumBitField<GlBufferStorageFlags> STORAGE_FLAGS =
             EnumBitField.of(GlBufferStorageFlags.PERSISTENT, GlBufferStorageFlags.CLIENT_STORAGE, GlBufferStorageFlags.MAP_WRITE);
@@ -21,30 +29,38 @@ public class MappedStagingBuffer implements StagingBuffer {
     private static final EnumBitField<GlBufferMapFlags> MAP_FLAGS =
             EnumBitField.of(GlBufferMapFlags.PERSISTENT, GlBufferMapFlags.INVALIDATE_BUFFER, GlBufferMapFlags.WRITE, GlBufferMapFlags.EXPLICIT_FLUSH);
 
+    // The maximum amount of memory which all rings can use together, after which uploads use the fallback path
+    private static final int MAX_TOTAL_CAPACITY = 1024 * 1024 * 128; /* 128 MB */
+
+    // The number of frames which an additional ring must go unused for before it is released
+    private static final int RING_IDLE_FRAMES = 600;
+
+    // The weight of each new sample in the average fence latency
+    private static final double LATENCY_SMOOTHING_FACTOR = 0.05;
+
     private final FallbackStagingBuffer fallbackStagingBuffer;
 
-    private final MappedBuffer mappedBuffer;
-    private final PriorityQueue<CopyCommand> pendingCopies = new ObjectArrayFIFOQueue<>();
-    private final PriorityQueue<FencedMemoryRegion> fencedRegions = new ObjectArrayFIFOQueue<>();
+    // The first ring is always kept, and any others are only created when it is full
+    private final List<Ring> rings = new ArrayList<>();
+    private final int initialCapacity;
+    private int totalCapacity;
 
-    private int start = 0;
-    private int pos = 0;
+    // The number of bytes which have been staged since the last frame, and the (slowly decaying) peak of that value
+    private int frameBytes;
+    private int peakFrameBytes;
 
-    private final int capacity;
-    private int remaining;
+    private long fallbackCount;
+    private double averageFenceLatency;
 
     public MappedStagingBuffer(CommandList commandList) {
         this(commandList, 1024 * 1024 * 16 /* 16 MB */);
     }
 
     public MappedStagingBuffer(CommandList commandList, int capacity) {
-        GlImmutableBuffer buffer = commandList.createImmutableBuffer(capacity, STORAGE_FLAGS);
-        GlBufferMapping map = commandList.mapBuffer(buffer, 0, capacity, MAP_FLAGS);
-
-        this.mappedBuffer = new MappedBuffer(buffer, map);
         this.fallbackStagingBuffer = new FallbackStagingBuffer(commandList);
-        this.capacity = capacity;
-        this.remaining = this.capacity;
+        this.initialCapacity = capacity;
+
+        this.addRing(commandList, capacity);
     }
 
     public static boolean isSupported(RenderDevice instance) {
@@ -55,59 +71,210 @@ public class MappedStagingBuffer implements StagingBuffer {
     public void enqueueCopy(CommandList commandList, ByteBuffer data, GlBuffer dst, long writeOffset) {
         int length = data.remaining();
 
-        if (length > this.remaining) {
+        Ring ring = this.findRing(commandList, length);
+
+        if (ring == null) {
             this.fallbackStagingBuffer.enqueueCopy(commandList, data, dst, writeOffset);
+            this.fallbackCount++;
 
             return;
         }
 
-        int remaining = this.capacity - this.pos;
+        ring.enqueueCopy(data, dst, writeOffset);
+
+        this.frameBytes += length;
+    }
 
-        // Split the transfer in two if we have enough available memory at the end and start of the buffer
-        if (length > remaining) {
-            int split = length - remaining;
+    private Ring findRing(CommandList commandList, int length) {
+        for (Ring ring : this.rings) {
+            if (length <= ring.remaining) {
+                return ring;
+            }
+        }
 
-            this.addTransfer(data.slice(0, remaining), dst, this.pos, writeOffset);
-            this.addTransfer(data.slice(remaining, split), dst, 0, writeOffset + remaining);
+        // Every ring is still waiting on the graphics card, so add another which can hold at least what is usually
+        // uploaded in a frame
+        int capacity = Math.max(this.initialCapacity, Math.max(length, this.peakFrameBytes));
+        capacity = Math.min(roundUpToPowerOfTwo(capacity), MAX_TOTAL_CAPACITY - this.totalCapacity);
 
-            this.pos = split;
-        } else {
-            this.addTransfer(data, dst, this.pos, writeOffset);
-            this.pos += length;
+        if (capacity < length) {
+            return null;
         }
 
-        this.remaining -= length;
+        return this.addRing(commandList, capacity);
     }
 
-    private void addTransfer(ByteBuffer data, GlBuffer dst, long readOffset, long writeOffset) {
-        this.mappedBuffer.map.write(data, (int) readOffset);
-        this.pendingCopies.enqueue(new CopyCommand(dst, readOffset, writeOffset, data.remaining()));
+    private Ring addRing(CommandList commandList, int capacity) {
+        GlImmutableBuffer buffer = commandList.createImmutableBuffer(capacity, STORAGE_FLAGS);
+        GlBufferMapping map = commandList.mapBuffer(buffer, 0, capacity, MAP_FLAGS);
+
+        Ring ring = new Ring(new MappedBuffer(buffer, map), capacity);
+
+        this.rings.add(ring);
+        this.totalCapacity += capacity;
+
+        return ring;
+    }
+
+    private static int roundUpToPowerOfTwo(int value) {
+        return MathUtil.isPowerOfTwo(value) ? value : Integer.highestOneBit(value) << 1;
     }
 
     @Override
     public void flush(CommandList commandList) {
-        if (this.pendingCopies.isEmpty()) {
-            return;
+        for (Ring ring : this.rings) {
+            ring.flush(commandList);
         }
+    }
 
-        if (this.pos < this.start) {
-            commandList.flushMappedRange(this.mappedBuffer.map, this.start, this.capacity - this.start);
-            commandList.flushMappedRange(this.mappedBuffer.map, 0, this.pos);
-        } else {
-            commandList.flushMappedRange(this.mappedBuffer.map, this.start, this.pos - this.start);
+    @Override
+    public void delete(CommandList commandList) {
+        for (Ring ring : this.rings) {
+            ring.delete(commandList);
         }
 
-        int bytes = 0;
+        this.rings.clear();
+        this.totalCapacity = 0;
 
-        for (CopyCommand command : consolidateCopies(this.pendingCopies)) {
-            bytes += command.bytes;
+        this.fallbackStagingBuffer.delete(commandList);
+    }
+
+    @Override
+    public void flip(CommandList commandList) {
+        long now = System.nanoTime();
 
-            commandList.copyBufferSubData(this.mappedBuffer.buffer, command.buffer, command.readOffset, command.writeOffset, command.bytes);
+        for (Ring ring : this.rings) {
+            ring.retireCompletedRegions(this, now);
         }
 
-        this.fencedRegions.enqueue(new FencedMemoryRegion(commandList.createFence(), bytes));
+        this.peakFrameBytes = Math.max(this.frameBytes, this.peakFrameBytes - (this.peakFrameBytes >> 6));
+        this.frameBytes = 0;
+
+        Iterator<Ring> it = this.rings.listIterator(1);
+
+        while (it.hasNext()) {
+            Ring ring = it.next();
+
+            if (ring.isIdle()) {
+                ring.idleFrames++;
+            } else {
+                ring.idleFrames = 0;
+            }
+
+            if (ring.idleFrames >= RING_IDLE_FRAMES) {
+                ring.delete(commandList);
+                it.remove();
+
+                this.totalCapacity -= ring.capacity;
+            }
+        }
+    }
 
-        this.start = this.pos;
+    private void addFenceLatency(long nanos) {
+        this.averageFenceLatency += LATENCY_SMOOTHING_FACTOR * (nanos - this.averageFenceLatency);
+    }
+
+    private static final class Ring {
+        private final MappedBuffer mappedBuffer;
+        private final PriorityQueue<CopyCommand> pendingCopies = new ObjectArrayFIFOQueue<>();
+        private final PriorityQueue<FencedMemoryRegion> fencedRegions = new ObjectArrayFIFOQueue<>();
+
+        private int start = 0;
+        private int pos = 0;
+
+        private final int capacity;
+        private int remaining;
+
+        private int idleFrames;
+
+        private Ring(MappedBuffer mappedBuffer, int capacity) {
+            this.mappedBuffer = mappedBuffer;
+            this.capacity = capacity;
+            this.remaining = capacity;
+        }
+
+        private void enqueueCopy(ByteBuffer data, GlBuffer dst, long writeOffset) {
+            int length = data.remaining();
+            int remaining = this.capacity - this.pos;
+
+            // Split the transfer in two if we have enough available memory at the end and start of the buffer
+            if (length > remaining) {
+                int split = length - remaining;
+
+                this.addTransfer(data.slice(0, remaining), dst, this.pos, writeOffset);
+                this.addTransfer(data.slice(remaining, split), dst, 0, writeOffset + remaining);
+
+                this.pos = split;
+            } else {
+                this.addTransfer(data, dst, this.pos, writeOffset);
+                this.pos += length;
+            }
+
+            this.remaining -= length;
+        }
+
+        private void addTransfer(ByteBuffer data, GlBuffer dst, long readOffset, long writeOffset) {
+            this.mappedBuffer.map.write(data, (int) readOffset);
+            this.pendingCopies.enqueue(new CopyCommand(dst, readOffset, writeOffset, data.remaining()));
+        }
+
+        private void flush(CommandList commandList) {
+            if (this.pendingCopies.isEmpty()) {
+                return;
+            }
+
+            if (this.pos < this.start) {
+                commandList.flushMappedRange(this.mappedBuffer.map, this.start, this.capacity - this.start);
+                commandList.flushMappedRange(this.mappedBuffer.map, 0, this.pos);
+            } else {
+                commandList.flushMappedRange(this.mappedBuffer.map, this.start, this.pos - this.start);
+            }
+
+            int bytes = 0;
+
+            for (CopyCommand command : consolidateCopies(this.pendingCopies)) {
+                bytes += command.bytes;
+
+                commandList.copyBufferSubData(this.mappedBuffer.buffer, command.buffer, command.readOffset, command.writeOffset, command.bytes);
+            }
+
+            this.fencedRegions.enqueue(new FencedMemoryRegion(commandList.createFence(), bytes, System.nanoTime()));
+
+            this.start = this.pos;
+        }
+
+        private void retireCompletedRegions(MappedStagingBuffer owner, long now) {
+            while (!this.fencedRegions.isEmpty()) {
+                var region = this.fencedRegions.first();
+                var fence = region.fence();
+
+                if (!fence.isCompleted()) {
+                    break;
+                }
+
+                fence.delete();
+
+                this.fencedRegions.dequeue();
+                this.remaining += region.length();
+
+                owner.addFenceLatency(now - region.creationTime());
+            }
+        }
+
+        private boolean isIdle() {
+            return this.remaining == this.capacity && this.pendingCopies.isEmpty();
+        }
+
+        private void delete(CommandList commandList) {
+            while (!this.fencedRegions.isEmpty()) {
+                this.fencedRegions.dequeue()
+                        .fence()
+                        .delete();
+            }
+
+            this.mappedBuffer.delete(commandList);
+            this.pendingCopies.clear();
+        }
     }
 
     private static List<CopyCommand> consolidateCopies(PriorityQueue<CopyCommand> queue) {
@@ -132,30 +299,6 @@ public class MappedStagingBuffer implements StagingBuffer {
         return merged;
     }
 
-    @Override
-    public void delete(CommandList commandList) {
-        this.mappedBuffer.delete(commandList);
-        this.fallbackStagingBuffer.delete(commandList);
-        this.pendingCopies.clear();
-    }
-
-    @Override
-    public void flip() {
-        while (!this.fencedRegions.isEmpty()) {
-            var region = this.fencedRegions.first();
-            var fence = region.fence();
-
-            if (!fence.isCompleted()) {
-                break;
-            }
-
-            fence.delete();
-
-            this.fencedRegions.dequeue();
-            this.remaining += region.length();
-        }
-    }
-
     private static final class CopyCommand {
         private final GlBuffer buffer;
         private final long readOffset;
@@ -186,12 +329,20 @@ public class MappedStagingBuffer implements StagingBuffer {
         }
     }
 
-    private record FencedMemoryRegion(GlFence fence, int length) {
+    private record FencedMemoryRegion(GlFence fence, int length, long creationTime) {
 
     }
 
     @Override
     public String toString() {
-        return "Mapped (%s/%s MiB)".formatted(MathUtil.toMib(this.remaining), MathUtil.toMib(this.capacity));
+        int remaining = 0;
+
+        for (Ring ring : this.rings) {
+            remaining += ring.remaining;
+        }
+
+        return "Mapped (%s/%s MiB, %d rings | Fallbacks=%d | Fence Latency=%.1f ms)".formatted(
+                MathUtil.toMib(remaining), MathUtil.toMib(this.totalCapacity), this.rings.size(),
+                this.fallbackCount, this.averageFenceLatency / 1_000_000.0);
     }
 }
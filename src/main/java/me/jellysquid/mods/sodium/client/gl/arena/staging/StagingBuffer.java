@@ -12,5 +12,5 @@ public interface StagingBuffer {
 
     void delete(CommandList commandList);
 
-    void flip();
+    void flip(CommandList commandList);
 }
@@ -1,10 +1,21 @@
 package me.jellysquid.mods.sodium.client.gl.device;
 
+import me.jellysquid.mods.sodium.client.gl.buffer.GlBuffer;
 import me.jellysquid.mods.sodium.client.gl.tessellation.GlIndexType;
 
 public interface DrawCommandList extends AutoCloseable {
     void multiDrawElementsBaseVertex(MultiDrawBatch batch, GlIndexType indexType);
 
+    /**
+     * Executes the draw commands stored in the given buffer, which must be laid out as described by
+     * {@link IndirectDrawBatch}.
+     *
+     * @param commandBuffer The buffer containing the draw commands
+     * @param commandOffset The index of the first draw command to execute
+     * @param commandCount The number of draw commands to execute
+     */
+    void multiDrawElementsIndirect(GlBuffer commandBuffer, int commandOffset, int commandCount, GlIndexType indexType);
+
     void endTessellating();
 
     void flush();
@@ -279,6 +279,19 @@ public class GLRenderDevice implements RenderDevice {
                     batch.pBaseVertex);
         }
 
+        @Override
+        public void multiDrawElementsIndirect(GlBuffer commandBuffer, int commandOffset, int commandCount, GlIndexType indexType) {
+            GlPrimitiveType primitiveType = GLRenderDevice.this.activeTessellation.getPrimitiveType();
+
+            GLRenderDevice.this.commandList.bindBuffer(GlBufferTarget.DRAW_INDIRECT_BUFFER, commandBuffer);
+            GLRenderDevice.this.functions.getIndirectDrawFunctions()
+                    .multiDrawElementsIndirect(primitiveType.getId(),
+                            indexType.getFormatId(),
+                            (long) commandOffset * IndirectDrawBatch.COMMAND_STRIDE,
+                            commandCount,
+                            IndirectDrawBatch.COMMAND_STRIDE);
+        }
+
         @Override
         public void endTessellating() {
             GLRenderDevice.this.activeTessellation.unbind(GLRenderDevice.this.commandList);
@@ -0,0 +1,97 @@
+package me.jellysquid.mods.sodium.client.gl.device;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Provides a growable queue of draw commands which can be uploaded to a buffer object and then executed with
+ * {@link org.lwjgl.opengl.GL43C#glMultiDrawElementsIndirect(int, int, long, int, int)}. Each command is laid out as
+ * the {@code DrawElementsIndirectCommand} structure defined by the specification.
+ */
+public final class IndirectDrawBatch {
+    public static final int COMMAND_STRIDE = 5 * Integer.BYTES;
+
+    private static final int OFFSET_COUNT = 0;
+    private static final int OFFSET_INSTANCE_COUNT = 4;
+    private static final int OFFSET_FIRST_INDEX = 8;
+    private static final int OFFSET_BASE_VERTEX = 12;
+    private static final int OFFSET_BASE_INSTANCE = 16;
+
+    private long pCommands;
+    private int capacity;
+
+    private int size;
+    private int maxElementCount;
+
+    public IndirectDrawBatch(int capacity) {
+        this.pCommands = MemoryUtil.nmemAlignedAlloc(32, (long) capacity * COMMAND_STRIDE);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds a command which draws a single instance of the given range of the element buffer.
+     *
+     * @param baseInstance The instance index of the command, which can be used to fetch per-draw data from an
+     *                     instanced vertex attribute
+     */
+    public void add(int elementCount, int baseVertex, int baseInstance) {
+        this.add(elementCount, 0, baseVertex, baseInstance);
+    }
+
+    /**
+     * @param firstIndex The offset (in elements) of the first index within the element buffer
+     */
+    public void add(int elementCount, int firstIndex, int baseVertex, int baseInstance) {
+        if (this.size >= this.capacity) {
+            this.grow(this.capacity * 2);
+        }
+
+        long pCommand = this.pCommands + ((long) this.size * COMMAND_STRIDE);
+        MemoryUtil.memPutInt(pCommand + OFFSET_COUNT, elementCount);
+        MemoryUtil.memPutInt(pCommand + OFFSET_INSTANCE_COUNT, 1);
+        MemoryUtil.memPutInt(pCommand + OFFSET_FIRST_INDEX, firstIndex);
+        MemoryUtil.memPutInt(pCommand + OFFSET_BASE_VERTEX, baseVertex);
+        MemoryUtil.memPutInt(pCommand + OFFSET_BASE_INSTANCE, baseInstance);
+
+        this.size++;
+        this.maxElementCount = Math.max(this.maxElementCount, elementCount);
+    }
+
+    private void grow(int capacity) {
+        long pCommands = MemoryUtil.nmemAlignedAlloc(32, (long) capacity * COMMAND_STRIDE);
+        MemoryUtil.memCopy(this.pCommands, pCommands, (long) this.size * COMMAND_STRIDE);
+        MemoryUtil.nmemAlignedFree(this.pCommands);
+
+        this.pCommands = pCommands;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return A view of the commands in this batch, which is only valid until the batch is modified
+     */
+    public ByteBuffer getBuffer() {
+        return MemoryUtil.memByteBuffer(this.pCommands, this.size * COMMAND_STRIDE);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void clear() {
+        this.size = 0;
+        this.maxElementCount = 0;
+    }
+
+    public void delete() {
+        MemoryUtil.nmemAlignedFree(this.pCommands);
+    }
+
+    public boolean isEmpty() {
+        return this.size <= 0;
+    }
+
+    public int getIndexBufferSize() {
+        return this.maxElementCount;
+    }
+}
@@ -0,0 +1,45 @@
+package me.jellysquid.mods.sodium.client.gl.functions;
+
+import me.jellysquid.mods.sodium.client.gl.device.RenderDevice;
+import org.lwjgl.opengl.ARBMultiDrawIndirect;
+import org.lwjgl.opengl.GL43C;
+import org.lwjgl.opengl.GLCapabilities;
+
+public enum IndirectDrawFunctions {
+    NONE {
+        @Override
+        public void multiDrawElementsIndirect(int mode, int type, long indirect, int drawCount, int stride) {
+            throw new UnsupportedOperationException();
+        }
+    },
+    CORE {
+        @Override
+        public void multiDrawElementsIndirect(int mode, int type, long indirect, int drawCount, int stride) {
+            GL43C.nglMultiDrawElementsIndirect(mode, type, indirect, drawCount, stride);
+        }
+    },
+    ARB {
+        @Override
+        public void multiDrawElementsIndirect(int mode, int type, long indirect, int drawCount, int stride) {
+            ARBMultiDrawIndirect.nglMultiDrawElementsIndirect(mode, type, indirect, drawCount, stride);
+        }
+    };
+
+    public static IndirectDrawFunctions pickBest(RenderDevice device) {
+        GLCapabilities capabilities = device.getCapabilities();
+
+        if (capabilities.OpenGL43) {
+            return CORE;
+        } else if (capabilities.GL_ARB_multi_draw_indirect && capabilities.GL_ARB_base_instance) {
+            // The base instance of each command is only respected when ARB_base_instance is also available
+            return ARB;
+        } else {
+            return NONE;
+        }
+    }
+
+    /**
+     * @param indirect The offset (in bytes) of the first command within the bound draw-indirect buffer
+     */
+    public abstract void multiDrawElementsIndirect(int mode, int type, long indirect, int drawCount, int stride);
+}
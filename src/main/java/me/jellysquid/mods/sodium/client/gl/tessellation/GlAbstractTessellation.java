@@ -4,6 +4,7 @@ import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttributeBinding;
 import me.jellysquid.mods.sodium.client.gl.device.CommandList;
 import org.lwjgl.opengl.GL20C;
 import org.lwjgl.opengl.GL30C;
+import org.lwjgl.opengl.GL33C;
 
 public abstract class GlAbstractTessellation implements GlTessellation {
     protected final GlPrimitiveType primitiveType;
@@ -32,6 +33,10 @@ public abstract class GlAbstractTessellation implements GlTessellation {
                             attrib.getStride(), attrib.getPointer());
                 }
                 GL20C.glEnableVertexAttribArray(attrib.getIndex());
+
+                if (binding.divisor() != 0) {
+                    GL33C.glVertexAttribDivisor(attrib.getIndex(), binding.divisor());
+                }
             }
         }
     }
@@ -4,14 +4,23 @@ import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttributeBinding;
 import me.jellysquid.mods.sodium.client.gl.buffer.GlBuffer;
 import me.jellysquid.mods.sodium.client.gl.buffer.GlBufferTarget;
 
+/**
+ * @param divisor The number of instances which share each element of the attributes, or zero if the attributes are
+ *                fetched for every vertex
+ */
 public record TessellationBinding(GlBufferTarget target,
                                   GlBuffer buffer,
-                                  GlVertexAttributeBinding[] attributeBindings) {
+                                  GlVertexAttributeBinding[] attributeBindings,
+                                  int divisor) {
     public static TessellationBinding forVertexBuffer(GlBuffer buffer, GlVertexAttributeBinding[] attributes) {
-        return new TessellationBinding(GlBufferTarget.ARRAY_BUFFER, buffer, attributes);
+        return new TessellationBinding(GlBufferTarget.ARRAY_BUFFER, buffer, attributes, 0);
+    }
+
+    public static TessellationBinding forInstanceBuffer(GlBuffer buffer, GlVertexAttributeBinding[] attributes) {
+        return new TessellationBinding(GlBufferTarget.ARRAY_BUFFER, buffer, attributes, 1);
     }
 
     public static TessellationBinding forElementBuffer(GlBuffer buffer) {
-        return new TessellationBinding(GlBufferTarget.ELEMENT_BUFFER, buffer, new GlVertexAttributeBinding[0]);
+        return new TessellationBinding(GlBufferTarget.ELEMENT_BUFFER, buffer, new GlVertexAttributeBinding[0], 0);
     }
 }
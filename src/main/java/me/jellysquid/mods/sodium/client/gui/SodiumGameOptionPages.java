@@ -11,6 +11,7 @@ import me.jellysquid.mods.sodium.client.gui.options.control.SliderControl;
 import me.jellysquid.mods.sodium.client.gui.options.control.TickBoxControl;
 import me.jellysquid.mods.sodium.client.gui.options.storage.MinecraftOptionsStorage;
 import me.jellysquid.mods.sodium.client.gui.options.storage.SodiumOptionsStorage;
+import me.jellysquid.mods.sodium.client.render.chunk.IndirectChunkRenderer;
 import me.jellysquid.mods.sodium.client.compatibility.workarounds.Workarounds;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gl.Framebuffer;
@@ -272,6 +273,15 @@ public class SodiumGameOptionPages {
                         .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
                         .build()
                 )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName(Text.translatable("sodium.options.use_greedy_meshing.name"))
+                        .setTooltip(Text.translatable("sodium.options.use_greedy_meshing.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.performance.useGreedyMeshing = value, opts -> opts.performance.useGreedyMeshing)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
                 .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
                         .setName(Text.translatable("sodium.options.use_fog_occlusion.name"))
                         .setTooltip(Text.translatable("sodium.options.use_fog_occlusion.tooltip"))
@@ -281,6 +291,15 @@ public class SodiumGameOptionPages {
                         .setFlags(OptionFlag.REQUIRES_RENDERER_UPDATE)
                         .build()
                 )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName(Text.translatable("sodium.options.use_software_occlusion_culling.name"))
+                        .setTooltip(Text.translatable("sodium.options.use_software_occlusion_culling.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setBinding((opts, value) -> opts.performance.useSoftwareOcclusionCulling = value, opts -> opts.performance.useSoftwareOcclusionCulling)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_UPDATE)
+                        .build()
+                )
                 .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
                         .setName(Text.translatable("sodium.options.use_entity_culling.name"))
                         .setTooltip(Text.translatable("sodium.options.use_entity_culling.tooltip"))
@@ -332,6 +351,42 @@ public class SodiumGameOptionPages {
                         .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
                         .build()
                 )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName(Text.translatable("sodium.options.use_multi_draw_indirect.name"))
+                        .setTooltip(Text.translatable("sodium.options.use_multi_draw_indirect.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setEnabled(IndirectChunkRenderer.isSupported(RenderDevice.INSTANCE))
+                        .setBinding((opts, value) -> opts.advanced.useMultiDrawIndirect = value, opts -> opts.advanced.useMultiDrawIndirect)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName(Text.translatable("sodium.options.use_dense_vertex_format.name"))
+                        .setTooltip(Text.translatable("sodium.options.use_dense_vertex_format.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.advanced.useDenseVertexFormat = value, opts -> opts.advanced.useDenseVertexFormat)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName(Text.translatable("sodium.options.use_mesh_disk_cache.name"))
+                        .setTooltip(Text.translatable("sodium.options.use_mesh_disk_cache.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.advanced.useMeshDiskCache = value, opts -> opts.advanced.useMeshDiskCache)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(int.class, sodiumOpts)
+                        .setName(Text.translatable("sodium.options.geometry_memory_budget.name"))
+                        .setTooltip(Text.translatable("sodium.options.geometry_memory_budget.tooltip"))
+                        .setControl(opt -> new SliderControl(opt, 0, 8192, 256, ControlValueFormatter.quantityOrDisabled("MiB", "Unlimited")))
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.advanced.geometryMemoryBudgetMb = value, opts -> opts.advanced.geometryMemoryBudgetMb)
+                        .build()
+                )
                 .build());
 
         groups.add(OptionGroup.createBuilder()
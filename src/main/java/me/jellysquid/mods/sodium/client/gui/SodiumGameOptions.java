@@ -43,15 +43,27 @@ public class SodiumGameOptions {
         public boolean animateOnlyVisibleTextures = true;
         public boolean useEntityCulling = true;
         public boolean useFogOcclusion = true;
+        public boolean useSoftwareOcclusionCulling = false;
         public boolean useBlockFaceCulling = true;
+        public boolean useGreedyMeshing = true;
         public boolean useNoErrorGLContext = true;
     }
 
     public static class AdvancedSettings {
         public boolean enableMemoryTracing = false;
         public boolean useAdvancedStagingBuffers = true;
+        public boolean useMultiDrawIndirect = false;
+        public boolean useDenseVertexFormat = false;
 
         public int cpuRenderAheadLimit = 3;
+
+        public boolean useMeshDiskCache = false;
+        public int meshDiskCacheSizeMb = 1024;
+
+        public int geometryMemoryBudgetMb = 0;
+
+        public int chunkUploadBudgetMb = 32;
+        public int chunkUploadBudgetMs = 4;
     }
 
     public static class QualitySettings {
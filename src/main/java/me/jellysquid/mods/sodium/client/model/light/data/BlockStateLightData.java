@@ -0,0 +1,86 @@
+package me.jellysquid.mods.sodium.client.model.light.data;
+
+import me.jellysquid.mods.sodium.client.util.BlockStateTable;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.EmptyBlockView;
+
+/**
+ * A global table of the light data properties of each block state, indexed by the state's raw ID. The properties are
+ * packed in the same format as {@link LightDataAccess}, but without the world's light levels, and are computed once for
+ * each state the first time it is needed.
+ *
+ * <p>The properties of a block with dynamic bounds can depend on its position, so they are never stored in the table,
+ * and must be computed for every block. For other blocks, vanilla already computes its shape properties once for each
+ * state, without a world or position, and this table extends that to the rest of the light data properties.</p>
+ *
+ * <p>The properties of a state never change between resource reloads, so the table is shared by every thread, and is
+ * only reset when a reload finishes.</p>
+ */
+public final class BlockStateLightData {
+    /**
+     * The value returned by {@link #get(BlockState)} for states whose properties depend on their position. This can
+     * never be a valid set of properties, since the world light level fields are never set.
+     */
+    public static final int DYNAMIC = -1;
+
+    // The world light level fields are never set in the table, so their bits are used to mark the state of each entry
+    private static final int FLAG_COMPUTED = 0b01;
+    private static final int FLAG_DYNAMIC = 0b10;
+
+    private static final int PROPERTIES_MASK = ~0xFF;
+
+    private static final BlockStateTable TABLE = new BlockStateTable(BlockStateLightData::createEntry,
+            FLAG_COMPUTED | FLAG_DYNAMIC);
+
+    /**
+     * @return The packed properties of the given state, or {@link #DYNAMIC} if they depend on the state's position and
+     * must be computed with {@link #compute(BlockState, BlockView, BlockPos)} instead
+     */
+    public static int get(BlockState state) {
+        int entry = TABLE.get(state);
+
+        return (entry & FLAG_DYNAMIC) != 0 ? DYNAMIC : (entry & PROPERTIES_MASK);
+    }
+
+    /**
+     * Computes the packed properties of the given state at a position in the world.
+     */
+    public static int compute(BlockState state, BlockView world, BlockPos pos) {
+        boolean em = state.hasEmissiveLighting(world, pos);
+        boolean op = state.shouldBlockVision(world, pos) && state.getOpacity(world, pos) != 0;
+        boolean fo = state.isOpaqueFullCube(world, pos);
+        boolean fc = state.isFullCube(world, pos);
+
+        int lu = state.getLuminance();
+
+        // FIX: Do not apply AO from blocks that emit light
+        float ao;
+        if (lu == 0) {
+            ao = state.getAmbientOcclusionLightLevel(world, pos);
+        } else {
+            ao = 1.0f;
+        }
+
+        return LightDataAccess.packFC(fc) | LightDataAccess.packFO(fo) | LightDataAccess.packOP(op) |
+                LightDataAccess.packEM(em) | LightDataAccess.packAO(ao) | LightDataAccess.packLU(lu);
+    }
+
+    private static int createEntry(BlockState state) {
+        if (state.getBlock().hasDynamicBounds()) {
+            return FLAG_COMPUTED | FLAG_DYNAMIC;
+        }
+
+        return FLAG_COMPUTED | compute(state, EmptyBlockView.INSTANCE, BlockPos.ORIGIN);
+    }
+
+    /**
+     * Forgets the light data properties of every state, which are computed again as they're next needed. Mods may
+     * change a block's luminance or ambient occlusion in response to a resource reload, so this is called once each
+     * reload has finished.
+     */
+    public static void reset() {
+        TABLE.reset();
+    }
+}
@@ -63,33 +63,19 @@ public abstract class LightDataAccess {
 
         BlockState state = world.getBlockState(pos);
 
-        boolean em = state.hasEmissiveLighting(world, pos);
-        boolean op = state.shouldBlockVision(world, pos) && state.getOpacity(world, pos) != 0;
-        boolean fo = state.isOpaqueFullCube(world, pos);
-        boolean fc = state.isFullCube(world, pos);
+        // Most states have the same properties at every position, so they only need to be computed once
+        int word = BlockStateLightData.get(state);
 
-        int lu = state.getLuminance();
-
-        // OPTIMIZE: Do not calculate light data if the block is full and opaque and does not emit light.
-        int bl;
-        int sl;
-        if (fo && lu == 0) {
-            bl = 0;
-            sl = 0;
-        } else {
-            bl = world.getLightLevel(LightType.BLOCK, pos);
-            sl = world.getLightLevel(LightType.SKY, pos);
+        if (word == BlockStateLightData.DYNAMIC) {
+            word = BlockStateLightData.compute(state, world, pos);
         }
 
-        // FIX: Do not apply AO from blocks that emit light
-        float ao;
-        if (lu == 0) {
-            ao = state.getAmbientOcclusionLightLevel(world, pos);
-        } else {
-            ao = 1.0f;
+        // OPTIMIZE: Do not calculate light data if the block is full and opaque and does not emit light.
+        if (unpackFO(word) && unpackLU(word) == 0) {
+            return word;
         }
 
-        return packFC(fc) | packFO(fo) | packOP(op) | packEM(em) | packAO(ao) | packLU(lu) | packSL(sl) | packBL(bl);
+        return word | packSL(world.getLightLevel(LightType.SKY, pos)) | packBL(world.getLightLevel(LightType.BLOCK, pos));
     }
 
     public static int packBL(int blockLight) {
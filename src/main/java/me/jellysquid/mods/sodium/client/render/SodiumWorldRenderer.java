@@ -7,6 +7,7 @@ import me.jellysquid.mods.sodium.client.gl.device.CommandList;
 import me.jellysquid.mods.sodium.client.gl.device.RenderDevice;
 import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderMatrices;
 import me.jellysquid.mods.sodium.client.render.chunk.RenderSectionManager;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.incremental.DirtyBlockRegion;
 import me.jellysquid.mods.sodium.client.render.chunk.lists.ChunkRenderList;
 import me.jellysquid.mods.sodium.client.render.chunk.lists.SortedRenderLists;
 import me.jellysquid.mods.sodium.client.render.chunk.map.ChunkTracker;
@@ -438,7 +439,16 @@ public class SodiumWorldRenderer {
      * Schedules chunk rebuilds for all chunks in the specified block region.
      */
     public void scheduleRebuildForBlockArea(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, boolean important) {
-        this.scheduleRebuildForChunks(minX >> 4, minY >> 4, minZ >> 4, maxX >> 4, maxY >> 4, maxZ >> 4, important);
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkY = minY >> 4; chunkY <= maxY >> 4; chunkY++) {
+                for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                    // Only the blocks within the area have changed, which allows the section to be re-meshed incrementally
+                    var dirtyRegion = DirtyBlockRegion.clip(chunkX, chunkY, chunkZ, minX, minY, minZ, maxX, maxY, maxZ);
+
+                    this.renderSectionManager.scheduleRebuild(chunkX, chunkY, chunkZ, important, dirtyRegion);
+                }
+            }
+        }
     }
 
     /**
@@ -1,14 +1,16 @@
 package me.jellysquid.mods.sodium.client.render.chunk;
 
 public enum ChunkUpdateType {
-    INITIAL_BUILD(128),
-    REBUILD(Integer.MAX_VALUE),
-    IMPORTANT_REBUILD(Integer.MAX_VALUE);
+    INITIAL_BUILD(128, 2),
+    REBUILD(Integer.MAX_VALUE, 1),
+    IMPORTANT_REBUILD(Integer.MAX_VALUE, 0);
 
     private final int maximumQueueSize;
+    private final int priorityTier;
 
-    ChunkUpdateType(int maximumQueueSize) {
+    ChunkUpdateType(int maximumQueueSize, int priorityTier) {
         this.maximumQueueSize = maximumQueueSize;
+        this.priorityTier = priorityTier;
     }
 
     public static boolean canPromote(ChunkUpdateType prev, ChunkUpdateType next) {
@@ -19,6 +21,14 @@ public enum ChunkUpdateType {
         return this.maximumQueueSize;
     }
 
+    /**
+     * Returns the scheduling tier of this update type. Build tasks in a lower tier are always executed before those
+     * in a higher tier.
+     */
+    public int getPriorityTier() {
+        return this.priorityTier;
+    }
+
     public boolean isImportant() {
         return this == IMPORTANT_REBUILD;
     }
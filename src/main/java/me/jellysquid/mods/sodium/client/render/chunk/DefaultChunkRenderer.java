@@ -24,18 +24,23 @@ import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexTy
 import me.jellysquid.mods.sodium.client.render.viewport.CameraTransform;
 import me.jellysquid.mods.sodium.client.util.BitwiseMath;
 import org.lwjgl.system.MemoryUtil;
+import org.lwjgl.system.Pointer;
 
 import java.util.Iterator;
 
 public class DefaultChunkRenderer extends ShaderChunkRenderer {
     private final MultiDrawBatch batch;
 
+    // Sections with sorted translucent geometry, which are drawn using their own index data
+    private final MultiDrawBatch indexedBatch;
+
     private final SharedQuadIndexBuffer sharedIndexBuffer;
 
     public DefaultChunkRenderer(RenderDevice device, ChunkVertexType vertexType) {
         super(device, vertexType);
 
         this.batch = new MultiDrawBatch((ModelQuadFacing.COUNT * RenderRegion.REGION_SIZE) + 1);
+        this.indexedBatch = new MultiDrawBatch(RenderRegion.REGION_SIZE + 1);
         this.sharedIndexBuffer = new SharedQuadIndexBuffer(device.createCommandList(), SharedQuadIndexBuffer.IndexType.INTEGER);
     }
 
@@ -65,24 +70,29 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
                 continue;
             }
 
-            fillCommandBuffer(this.batch, region, storage, renderList, camera, renderPass, useBlockFaceCulling);
+            fillCommandBuffer(this.batch, this.indexedBatch, region, storage, renderList, camera, renderPass, useBlockFaceCulling);
 
-            if (this.batch.isEmpty()) {
+            if (this.batch.isEmpty() && this.indexedBatch.isEmpty()) {
                 continue;
             }
 
-            this.sharedIndexBuffer.ensureCapacity(commandList, this.batch.getIndexBufferSize());
+            setModelMatrixUniforms(shader, region, camera);
 
-            var tessellation = this.prepareTessellation(commandList, region);
+            if (!this.batch.isEmpty()) {
+                this.sharedIndexBuffer.ensureCapacity(commandList, this.batch.getIndexBufferSize());
+                executeDrawBatch(commandList, this.prepareTessellation(commandList, region), this.batch);
+            }
 
-            setModelMatrixUniforms(shader, region, camera);
-            executeDrawBatch(commandList, tessellation, this.batch);
+            if (!this.indexedBatch.isEmpty()) {
+                executeDrawBatch(commandList, this.prepareIndexedTessellation(commandList, region), this.indexedBatch);
+            }
         }
 
         super.end(renderPass);
     }
 
     private static void fillCommandBuffer(MultiDrawBatch batch,
+                                          MultiDrawBatch indexedBatch,
                                           RenderRegion renderRegion,
                                           SectionRenderDataStorage renderDataStorage,
                                           ChunkRenderList renderList,
@@ -90,6 +100,7 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
                                           TerrainRenderPass pass,
                                           boolean useBlockFaceCulling) {
         batch.clear();
+        indexedBatch.clear();
 
         var iterator = renderList.sectionsWithGeometryIterator(pass.isReverseOrder());
 
@@ -110,10 +121,16 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
 
             var pMeshData = renderDataStorage.getDataPointer(sectionIndex);
 
+            // The index data covers every facing of the section, so it can't be culled by facing
+            if (pass.isSorted() && SectionRenderDataUnsafe.hasIndexData(pMeshData)) {
+                addIndexedDrawCommand(indexedBatch, pMeshData);
+                continue;
+            }
+
             int slices;
 
             if (useBlockFaceCulling) {
-                slices = getVisibleFaces(camera.intX, camera.intY, camera.intZ, chunkX, chunkY, chunkZ);
+                slices = getVisibleFaces(camera.intX, camera.intY, camera.intZ, chunkX, chunkY, chunkZ, pMeshData);
             } else {
                 slices = ModelQuadFacing.ALL;
             }
@@ -143,6 +160,17 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
         batch.size = size;
     }
 
+    private static void addIndexedDrawCommand(MultiDrawBatch batch, long pMeshData) {
+        int size = batch.size;
+
+        MemoryUtil.memPutAddress(batch.pElementPointer + ((long) size * Pointer.POINTER_SIZE),
+                (long) SectionRenderDataUnsafe.getIndexOffset(pMeshData) * Integer.BYTES);
+        MemoryUtil.memPutInt(batch.pBaseVertex + ((long) size << 2), SectionRenderDataUnsafe.getVertexOffset(pMeshData, 0));
+        MemoryUtil.memPutInt(batch.pElementCount + ((long) size << 2), SectionRenderDataUnsafe.getTotalElementCount(pMeshData));
+
+        batch.size = size + 1;
+    }
+
     private static final int MODEL_UNASSIGNED = ModelQuadFacing.UNASSIGNED.ordinal();
     private static final int MODEL_POS_X      = ModelQuadFacing.POS_X.ordinal();
     private static final int MODEL_POS_Y      = ModelQuadFacing.POS_Y.ordinal();
@@ -152,7 +180,7 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
     private static final int MODEL_NEG_Y      = ModelQuadFacing.NEG_Y.ordinal();
     private static final int MODEL_NEG_Z      = ModelQuadFacing.NEG_Z.ordinal();
 
-    private static int getVisibleFaces(int originX, int originY, int originZ, int chunkX, int chunkY, int chunkZ) {
+    static int getVisibleFaces(int originX, int originY, int originZ, int chunkX, int chunkY, int chunkZ, long pMeshData) {
         // This is carefully written so that we can keep everything branch-less.
         //
         // Normally, this would be a ridiculous way to handle the problem. But the Hotspot VM's
@@ -176,9 +204,15 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
         // because it manages to a) correctly evaluate the cost of instructions, and b) go so far
         // as to actually produce vector code.  (https://godbolt.org/z/GaaEx39T9)
 
-        int boundsMinX = (chunkX << 4), boundsMaxX = boundsMinX + 16;
-        int boundsMinY = (chunkY << 4), boundsMaxY = boundsMinY + 16;
-        int boundsMinZ = (chunkZ << 4), boundsMaxZ = boundsMinZ + 16;
+        // Each facing is tested against the plane which bounds its own geometry, rather than the bounds of the whole
+        // section, so that thin layers of geometry (such as floors) are culled when the camera is behind them
+        int boundsMinX = (chunkX << 4) + SectionRenderDataUnsafe.getFacingPlane(pMeshData, MODEL_POS_X);
+        int boundsMinY = (chunkY << 4) + SectionRenderDataUnsafe.getFacingPlane(pMeshData, MODEL_POS_Y);
+        int boundsMinZ = (chunkZ << 4) + SectionRenderDataUnsafe.getFacingPlane(pMeshData, MODEL_POS_Z);
+
+        int boundsMaxX = (chunkX << 4) + SectionRenderDataUnsafe.getFacingPlane(pMeshData, MODEL_NEG_X);
+        int boundsMaxY = (chunkY << 4) + SectionRenderDataUnsafe.getFacingPlane(pMeshData, MODEL_NEG_Y);
+        int boundsMaxZ = (chunkZ << 4) + SectionRenderDataUnsafe.getFacingPlane(pMeshData, MODEL_NEG_Z);
 
         // the "unassigned" plane is always front-facing, since we can't check it
         int planes = (1 << MODEL_UNASSIGNED);
@@ -202,7 +236,7 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
         shader.setRegionOffset(x, y, z);
     }
 
-    private static float getCameraTranslation(int chunkBlockPos, int cameraBlockPos, float cameraPos) {
+    static float getCameraTranslation(int chunkBlockPos, int cameraBlockPos, float cameraPos) {
         return (chunkBlockPos - cameraBlockPos) - cameraPos;
     }
 
@@ -217,6 +251,27 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
         return tessellation;
     }
 
+    private GlTessellation prepareIndexedTessellation(CommandList commandList, RenderRegion region) {
+        var resources = region.getResources();
+        var tessellation = resources.getIndexedTessellation();
+
+        if (tessellation == null) {
+            resources.updateIndexedTessellation(commandList, tessellation = this.createIndexedRegionTessellation(commandList, resources));
+        }
+
+        return tessellation;
+    }
+
+    private GlTessellation createIndexedRegionTessellation(CommandList commandList, RenderRegion.DeviceResources resources) {
+        return commandList.createTessellation(GlPrimitiveType.TRIANGLES, new TessellationBinding[] {
+                TessellationBinding.forVertexBuffer(resources.getVertexBuffer(), new GlVertexAttributeBinding[] {
+                        new GlVertexAttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_PACKED_DATA,
+                                this.vertexFormat.getAttribute(ChunkMeshAttribute.VERTEX_DATA))
+                }),
+                TessellationBinding.forElementBuffer(resources.getIndexBuffer())
+        });
+    }
+
     private GlTessellation createRegionTessellation(CommandList commandList, RenderRegion.DeviceResources resources) {
         return commandList.createTessellation(GlPrimitiveType.TRIANGLES, new TessellationBinding[] {
                 TessellationBinding.forVertexBuffer(resources.getVertexBuffer(), new GlVertexAttributeBinding[] {
@@ -239,5 +294,6 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
 
         this.sharedIndexBuffer.delete(commandList);
         this.batch.delete();
+        this.indexedBatch.delete();
     }
 }
@@ -0,0 +1,332 @@
+package me.jellysquid.mods.sodium.client.render.chunk;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttribute;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttributeBinding;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttributeFormat;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlBuffer;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlBufferUsage;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlMutableBuffer;
+import me.jellysquid.mods.sodium.client.gl.device.CommandList;
+import me.jellysquid.mods.sodium.client.gl.device.DrawCommandList;
+import me.jellysquid.mods.sodium.client.gl.device.IndirectDrawBatch;
+import me.jellysquid.mods.sodium.client.gl.device.RenderDevice;
+import me.jellysquid.mods.sodium.client.gl.functions.IndirectDrawFunctions;
+import me.jellysquid.mods.sodium.client.gl.tessellation.GlIndexType;
+import me.jellysquid.mods.sodium.client.gl.tessellation.GlPrimitiveType;
+import me.jellysquid.mods.sodium.client.gl.tessellation.GlTessellation;
+import me.jellysquid.mods.sodium.client.gl.tessellation.TessellationBinding;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.data.SectionRenderDataStorage;
+import me.jellysquid.mods.sodium.client.render.chunk.data.SectionRenderDataUnsafe;
+import me.jellysquid.mods.sodium.client.render.chunk.lists.ChunkRenderList;
+import me.jellysquid.mods.sodium.client.render.chunk.lists.ChunkRenderListIterable;
+import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
+import me.jellysquid.mods.sodium.client.render.chunk.shader.ChunkFogMode;
+import me.jellysquid.mods.sodium.client.render.chunk.shader.ChunkShaderBindingPoints;
+import me.jellysquid.mods.sodium.client.render.chunk.shader.ChunkShaderInterface;
+import me.jellysquid.mods.sodium.client.render.chunk.shader.ChunkShaderOptions;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkMeshAttribute;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.viewport.CameraTransform;
+import org.lwjgl.system.MemoryUtil;
+
+import java.util.Iterator;
+
+/**
+ * A chunk renderer which records the draw commands for every region in the render pass up-front, and then submits them
+ * with indirect multi-draw calls. The commands and the camera-relative offset of each region are uploaded once per
+ * render pass into buffers which persist between frames, so that no uniforms or client-side arrays need to be updated
+ * between the draw calls of each region.
+ *
+ * <p>Each region still requires its own draw call, since the geometry of each region lives in a separate vertex
+ * buffer. The offset of the region is fetched by the shader from an instanced vertex attribute, which is indexed
+ * using the base instance of each draw command.</p>
+ *
+ * <p>This renderer only interacts with the graphics device through {@link CommandList} and {@link DrawCommandList},
+ * and requires OpenGL 4.3, or the ARB_multi_draw_indirect and ARB_base_instance extensions.</p>
+ */
+public class IndirectChunkRenderer extends ShaderChunkRenderer {
+    private static final int REGION_OFFSET_STRIDE = 3 * Float.BYTES;
+
+    private final IndirectDrawBatch commands;
+
+    // Sections with sorted translucent geometry, which are drawn using their own index data
+    private final IndirectDrawBatch indexedCommands;
+
+    // The camera-relative offset of each region in the current pass, indexed by the base instance of its commands
+    private long pRegionOffsets;
+    private int regionOffsetsCapacity;
+
+    // The regions which have commands in the current pass, and the range of commands which belong to each region
+    private final ReferenceArrayList<RenderRegion> drawRegions = new ReferenceArrayList<>();
+    private final IntArrayList drawCommandOffsets = new IntArrayList();
+    private final IntArrayList drawIndexedCommandOffsets = new IntArrayList();
+
+    private final GlMutableBuffer commandBuffer;
+    private final GlMutableBuffer indexedCommandBuffer;
+    private final GlMutableBuffer regionOffsetBuffer;
+
+    private final SharedQuadIndexBuffer sharedIndexBuffer;
+
+    public IndirectChunkRenderer(RenderDevice device, ChunkVertexType vertexType) {
+        super(device, vertexType);
+
+        this.commands = new IndirectDrawBatch(4096);
+        this.indexedCommands = new IndirectDrawBatch(1024);
+
+        this.regionOffsetsCapacity = 256;
+        this.pRegionOffsets = MemoryUtil.nmemAlloc((long) this.regionOffsetsCapacity * REGION_OFFSET_STRIDE);
+
+        try (CommandList commandList = device.createCommandList()) {
+            this.commandBuffer = commandList.createMutableBuffer();
+            this.indexedCommandBuffer = commandList.createMutableBuffer();
+            this.regionOffsetBuffer = commandList.createMutableBuffer();
+
+            this.sharedIndexBuffer = new SharedQuadIndexBuffer(commandList, SharedQuadIndexBuffer.IndexType.INTEGER);
+        }
+    }
+
+    public static boolean isSupported(RenderDevice device) {
+        return device.getDeviceFunctions().getIndirectDrawFunctions() != IndirectDrawFunctions.NONE;
+    }
+
+    @Override
+    protected ChunkShaderOptions createShaderOptions(TerrainRenderPass pass) {
+        return new ChunkShaderOptions(ChunkFogMode.SMOOTH, pass, this.vertexType, true);
+    }
+
+    @Override
+    public void render(ChunkRenderMatrices matrices,
+                       CommandList commandList,
+                       ChunkRenderListIterable renderLists,
+                       TerrainRenderPass renderPass,
+                       CameraTransform camera) {
+        this.recordCommands(renderLists, renderPass, camera);
+
+        if (this.drawRegions.isEmpty()) {
+            return;
+        }
+
+        super.begin(renderPass);
+
+        ChunkShaderInterface shader = this.activeProgram.getInterface();
+        shader.setProjectionMatrix(matrices.projection());
+        shader.setModelViewMatrix(matrices.modelView());
+
+        if (!this.commands.isEmpty()) {
+            commandList.uploadData(this.commandBuffer, this.commands.getBuffer(), GlBufferUsage.STREAM_DRAW);
+        }
+
+        if (!this.indexedCommands.isEmpty()) {
+            commandList.uploadData(this.indexedCommandBuffer, this.indexedCommands.getBuffer(), GlBufferUsage.STREAM_DRAW);
+        }
+
+        commandList.uploadData(this.regionOffsetBuffer,
+                MemoryUtil.memByteBuffer(this.pRegionOffsets, this.drawRegions.size() * REGION_OFFSET_STRIDE),
+                GlBufferUsage.STREAM_DRAW);
+
+        this.sharedIndexBuffer.ensureCapacity(commandList, this.commands.getIndexBufferSize());
+
+        for (int index = 0; index < this.drawRegions.size(); index++) {
+            var region = this.drawRegions.get(index);
+
+            int commandStart = this.drawCommandOffsets.getInt(index);
+            int commandEnd = this.drawCommandOffsets.getInt(index + 1);
+
+            if (commandEnd > commandStart) {
+                var tessellation = this.prepareTessellation(commandList, region);
+
+                try (DrawCommandList drawCommandList = commandList.beginTessellating(tessellation)) {
+                    drawCommandList.multiDrawElementsIndirect(this.commandBuffer, commandStart, commandEnd - commandStart,
+                            GlIndexType.UNSIGNED_INT);
+                }
+            }
+
+            int indexedCommandStart = this.drawIndexedCommandOffsets.getInt(index);
+            int indexedCommandEnd = this.drawIndexedCommandOffsets.getInt(index + 1);
+
+            if (indexedCommandEnd > indexedCommandStart) {
+                var tessellation = this.prepareIndexedTessellation(commandList, region);
+
+                try (DrawCommandList drawCommandList = commandList.beginTessellating(tessellation)) {
+                    drawCommandList.multiDrawElementsIndirect(this.indexedCommandBuffer, indexedCommandStart,
+                            indexedCommandEnd - indexedCommandStart, GlIndexType.UNSIGNED_INT);
+                }
+            }
+        }
+
+        super.end(renderPass);
+    }
+
+    private void recordCommands(ChunkRenderListIterable renderLists, TerrainRenderPass renderPass, CameraTransform camera) {
+        this.commands.clear();
+        this.indexedCommands.clear();
+        this.drawRegions.clear();
+        this.drawCommandOffsets.clear();
+        this.drawIndexedCommandOffsets.clear();
+
+        boolean useBlockFaceCulling = SodiumClientMod.options().performance.useBlockFaceCulling;
+
+        Iterator<ChunkRenderList> iterator = renderLists.iterator(renderPass.isReverseOrder());
+
+        while (iterator.hasNext()) {
+            ChunkRenderList renderList = iterator.next();
+
+            var region = renderList.getRegion();
+            var storage = region.getStorage(renderPass);
+
+            if (storage == null) {
+                continue;
+            }
+
+            int commandStart = this.commands.size();
+            int indexedCommandStart = this.indexedCommands.size();
+            int drawIndex = this.drawRegions.size();
+
+            addDrawCommands(this.commands, this.indexedCommands, region, storage, renderList, camera, renderPass,
+                    useBlockFaceCulling, drawIndex);
+
+            if (this.commands.size() == commandStart && this.indexedCommands.size() == indexedCommandStart) {
+                continue;
+            }
+
+            this.drawRegions.add(region);
+            this.drawCommandOffsets.add(commandStart);
+            this.drawIndexedCommandOffsets.add(indexedCommandStart);
+
+            this.putRegionOffset(drawIndex, region, camera);
+        }
+
+        // Terminate the last range of commands
+        this.drawCommandOffsets.add(this.commands.size());
+        this.drawIndexedCommandOffsets.add(this.indexedCommands.size());
+    }
+
+    private static void addDrawCommands(IndirectDrawBatch commands,
+                                        IndirectDrawBatch indexedCommands,
+                                        RenderRegion renderRegion,
+                                        SectionRenderDataStorage renderDataStorage,
+                                        ChunkRenderList renderList,
+                                        CameraTransform camera,
+                                        TerrainRenderPass pass,
+                                        boolean useBlockFaceCulling,
+                                        int drawIndex) {
+        var iterator = renderList.sectionsWithGeometryIterator(pass.isReverseOrder());
+
+        if (iterator == null) {
+            return;
+        }
+
+        int originX = renderRegion.getChunkX();
+        int originY = renderRegion.getChunkY();
+        int originZ = renderRegion.getChunkZ();
+
+        while (iterator.hasNext()) {
+            int sectionIndex = iterator.nextByteAsInt();
+
+            int chunkX = originX + LocalSectionIndex.unpackX(sectionIndex);
+            int chunkY = originY + LocalSectionIndex.unpackY(sectionIndex);
+            int chunkZ = originZ + LocalSectionIndex.unpackZ(sectionIndex);
+
+            var pMeshData = renderDataStorage.getDataPointer(sectionIndex);
+
+            // The index data covers every facing of the section, so it can't be culled by facing
+            if (pass.isSorted() && SectionRenderDataUnsafe.hasIndexData(pMeshData)) {
+                indexedCommands.add(SectionRenderDataUnsafe.getTotalElementCount(pMeshData),
+                        SectionRenderDataUnsafe.getIndexOffset(pMeshData),
+                        SectionRenderDataUnsafe.getVertexOffset(pMeshData, 0), drawIndex);
+                continue;
+            }
+
+            int slices;
+
+            if (useBlockFaceCulling) {
+                slices = DefaultChunkRenderer.getVisibleFaces(camera.intX, camera.intY, camera.intZ, chunkX, chunkY, chunkZ, pMeshData);
+            } else {
+                slices = ModelQuadFacing.ALL;
+            }
+
+            slices &= SectionRenderDataUnsafe.getSliceMask(pMeshData);
+
+            for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
+                if ((slices & (1 << facing)) != 0) {
+                    commands.add(SectionRenderDataUnsafe.getElementCount(pMeshData, facing),
+                            SectionRenderDataUnsafe.getVertexOffset(pMeshData, facing), drawIndex);
+                }
+            }
+        }
+    }
+
+    private void putRegionOffset(int drawIndex, RenderRegion region, CameraTransform camera) {
+        if (drawIndex >= this.regionOffsetsCapacity) {
+            this.regionOffsetsCapacity *= 2;
+            this.pRegionOffsets = MemoryUtil.nmemRealloc(this.pRegionOffsets, (long) this.regionOffsetsCapacity * REGION_OFFSET_STRIDE);
+        }
+
+        long pOffset = this.pRegionOffsets + ((long) drawIndex * REGION_OFFSET_STRIDE);
+        MemoryUtil.memPutFloat(pOffset + 0, DefaultChunkRenderer.getCameraTranslation(region.getOriginX(), camera.intX, camera.fracX));
+        MemoryUtil.memPutFloat(pOffset + 4, DefaultChunkRenderer.getCameraTranslation(region.getOriginY(), camera.intY, camera.fracY));
+        MemoryUtil.memPutFloat(pOffset + 8, DefaultChunkRenderer.getCameraTranslation(region.getOriginZ(), camera.intZ, camera.fracZ));
+    }
+
+    private GlTessellation prepareTessellation(CommandList commandList, RenderRegion region) {
+        var resources = region.getResources();
+        var tessellation = resources.getTessellation();
+
+        if (tessellation == null) {
+            resources.updateTessellation(commandList, tessellation = this.createRegionTessellation(commandList, resources));
+        }
+
+        return tessellation;
+    }
+
+    private GlTessellation prepareIndexedTessellation(CommandList commandList, RenderRegion region) {
+        var resources = region.getResources();
+        var tessellation = resources.getIndexedTessellation();
+
+        if (tessellation == null) {
+            resources.updateIndexedTessellation(commandList, tessellation = this.createRegionTessellation(commandList,
+                    resources, resources.getIndexBuffer()));
+        }
+
+        return tessellation;
+    }
+
+    private GlTessellation createRegionTessellation(CommandList commandList, RenderRegion.DeviceResources resources) {
+        return this.createRegionTessellation(commandList, resources, this.sharedIndexBuffer.getBufferObject());
+    }
+
+    private GlTessellation createRegionTessellation(CommandList commandList, RenderRegion.DeviceResources resources,
+                                                    GlBuffer indexBuffer) {
+        return commandList.createTessellation(GlPrimitiveType.TRIANGLES, new TessellationBinding[] {
+                TessellationBinding.forVertexBuffer(resources.getVertexBuffer(), new GlVertexAttributeBinding[] {
+                        new GlVertexAttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_PACKED_DATA,
+                                this.vertexFormat.getAttribute(ChunkMeshAttribute.VERTEX_DATA))
+                }),
+                TessellationBinding.forInstanceBuffer(this.regionOffsetBuffer, new GlVertexAttributeBinding[] {
+                        new GlVertexAttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_REGION_OFFSET,
+                                new GlVertexAttribute(GlVertexAttributeFormat.FLOAT, 3, false, 0, REGION_OFFSET_STRIDE, false))
+                }),
+                TessellationBinding.forElementBuffer(indexBuffer)
+        });
+    }
+
+    @Override
+    public void delete(CommandList commandList) {
+        super.delete(commandList);
+
+        this.sharedIndexBuffer.delete(commandList);
+
+        commandList.deleteBuffer(this.commandBuffer);
+        commandList.deleteBuffer(this.indexedCommandBuffer);
+        commandList.deleteBuffer(this.regionOffsetBuffer);
+
+        this.commands.delete();
+        this.indexedCommands.delete();
+        MemoryUtil.nmemFree(this.pRegionOffsets);
+    }
+}
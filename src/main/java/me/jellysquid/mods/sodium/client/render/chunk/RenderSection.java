@@ -1,10 +1,12 @@
 package me.jellysquid.mods.sodium.client.render.chunk;
 
+import me.jellysquid.mods.sodium.client.render.chunk.compile.incremental.DirtyBlockRegion;
 import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionInfo;
-import me.jellysquid.mods.sodium.client.render.chunk.occlusion.GraphDirection;
-import me.jellysquid.mods.sodium.client.render.chunk.occlusion.GraphDirectionSet;
+import me.jellysquid.mods.sodium.client.render.chunk.data.SectionBounds;
+import me.jellysquid.mods.sodium.client.render.chunk.occlusion.SectionGraph;
 import me.jellysquid.mods.sodium.client.render.chunk.occlusion.VisibilityEncoding;
 import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
+import me.jellysquid.mods.sodium.client.render.chunk.translucent.TranslucentSortState;
 import me.jellysquid.mods.sodium.client.util.task.CancellationToken;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.client.texture.Sprite;
@@ -25,20 +27,9 @@ public class RenderSection {
     // Chunk Section State
     private final int chunkX, chunkY, chunkZ;
 
-    // Occlusion Culling State
-    private long visibilityData = VisibilityEncoding.NULL;
-
-    private int incomingDirections;
-    private int lastVisibleFrame = -1;
-
-    private int adjacentMask;
-    public RenderSection
-            adjacentDown,
-            adjacentUp,
-            adjacentNorth,
-            adjacentSouth,
-            adjacentWest,
-            adjacentEast;
+    // Occlusion Culling State, which is stored in the graph so that it can be searched efficiently
+    private final SectionGraph graph;
+    private int graphNode;
 
 
     // Rendering State
@@ -56,13 +47,26 @@ public class RenderSection {
     @Nullable
     private ChunkUpdateType pendingUpdateType;
 
+    // The blocks which have changed since the last build was submitted, or null if the whole section has changed
+    @Nullable
+    private DirtyBlockRegion dirtyRegion;
+    private boolean hasDirtyBlocks;
+
     private int lastBuiltFrame = -1;
     private int lastSubmittedFrame = -1;
 
+    // The measurements of the section's last build, which are used to estimate the cost of building it again
+    private long lastBuildDuration = -1;
+    private int lastBuildQuadCount = -1;
+
+    // The order of the section's translucent geometry, or null if it has none which needs sorting
+    @Nullable
+    private TranslucentSortState translucentSortState;
+
     // Lifetime state
     private boolean disposed;
 
-    public RenderSection(RenderRegion region, int chunkX, int chunkY, int chunkZ) {
+    public RenderSection(RenderRegion region, SectionGraph graph, int chunkX, int chunkY, int chunkZ) {
         this.chunkX = chunkX;
         this.chunkY = chunkY;
         this.chunkZ = chunkZ;
@@ -74,40 +78,31 @@ public class RenderSection {
         this.sectionIndex = LocalSectionIndex.pack(rX, rY, rZ);
 
         this.region = region;
+
+        this.graph = graph;
+        this.graphNode = graph.add(this);
     }
 
     public RenderSection getAdjacent(int direction) {
-        return switch (direction) {
-            case GraphDirection.DOWN -> this.adjacentDown;
-            case GraphDirection.UP -> this.adjacentUp;
-            case GraphDirection.NORTH -> this.adjacentNorth;
-            case GraphDirection.SOUTH -> this.adjacentSouth;
-            case GraphDirection.WEST -> this.adjacentWest;
-            case GraphDirection.EAST -> this.adjacentEast;
-            default -> null;
-        };
+        int node = this.graph.getAdjacent(this.graphNode, direction);
+
+        return node != SectionGraph.NULL ? this.graph.getSection(node) : null;
     }
 
     public void setAdjacentNode(int direction, RenderSection node) {
-        if (node == null) {
-            this.adjacentMask &= ~GraphDirectionSet.of(direction);
-        } else {
-            this.adjacentMask |= GraphDirectionSet.of(direction);
-        }
-
-        switch (direction) {
-            case GraphDirection.DOWN -> this.adjacentDown = node;
-            case GraphDirection.UP -> this.adjacentUp = node;
-            case GraphDirection.NORTH -> this.adjacentNorth = node;
-            case GraphDirection.SOUTH -> this.adjacentSouth = node;
-            case GraphDirection.WEST -> this.adjacentWest = node;
-            case GraphDirection.EAST -> this.adjacentEast = node;
-            default -> { }
-        }
+        this.graph.setAdjacent(this.graphNode, direction, node != null ? node.graphNode : SectionGraph.NULL);
     }
 
     public int getAdjacentMask() {
-        return this.adjacentMask;
+        return this.graph.getAdjacentMask(this.graphNode);
+    }
+
+    /**
+     * @return The index of this section's node in the visibility graph, or {@link SectionGraph#NULL} if the section
+     * has been deleted
+     */
+    public int getGraphNode() {
+        return this.graphNode;
     }
 
     /**
@@ -121,8 +116,13 @@ public class RenderSection {
             this.buildCancellationToken = null;
         }
 
+        this.setTranslucentSortState(null);
+
         this.clearRenderState();
         this.disposed = true;
+
+        this.graph.remove(this.graphNode);
+        this.graphNode = SectionGraph.NULL;
     }
 
     public void setInfo(@Nullable BuiltSectionInfo info) {
@@ -136,7 +136,9 @@ public class RenderSection {
     private void setRenderState(@NotNull BuiltSectionInfo info) {
         this.built = true;
         this.flags = info.flags;
-        this.visibilityData = info.visibilityData;
+        this.graph.setVisibilityData(this.graphNode, info.visibilityData);
+        this.graph.setBounds(this.graphNode, info.bounds);
+        this.graph.setOccluder(this.graphNode, info.occluderBounds);
         this.globalBlockEntities = info.globalBlockEntities;
         this.culledBlockEntities = info.culledBlockEntities;
         this.animatedSprites = info.animatedSprites;
@@ -145,7 +147,9 @@ public class RenderSection {
     private void clearRenderState() {
         this.built = false;
         this.flags = RenderSectionFlags.NONE;
-        this.visibilityData = VisibilityEncoding.NULL;
+        this.graph.setVisibilityData(this.graphNode, VisibilityEncoding.NULL);
+        this.graph.setBounds(this.graphNode, SectionBounds.EMPTY);
+        this.graph.setOccluder(this.graphNode, SectionBounds.EMPTY);
         this.globalBlockEntities = null;
         this.culledBlockEntities = null;
         this.animatedSprites = null;
@@ -256,23 +260,27 @@ public class RenderSection {
     }
 
     public void setLastVisibleFrame(int frame) {
-        this.lastVisibleFrame = frame;
+        this.graph.setLastVisibleFrame(this.graphNode, frame);
     }
 
     public int getLastVisibleFrame() {
-        return this.lastVisibleFrame;
+        if (this.graphNode == SectionGraph.NULL) {
+            return -1;
+        }
+
+        return this.graph.getLastVisibleFrame(this.graphNode);
     }
 
     public int getIncomingDirections() {
-        return this.incomingDirections;
+        return this.graph.getIncomingDirections(this.graphNode);
     }
 
     public void addIncomingDirections(int directions) {
-        this.incomingDirections |= directions;
+        this.graph.addIncomingDirections(this.graphNode, directions);
     }
 
     public void setIncomingDirections(int directions) {
-        this.incomingDirections = directions;
+        this.graph.setIncomingDirections(this.graphNode, directions);
     }
 
     /**
@@ -286,7 +294,11 @@ public class RenderSection {
      * Returns the occlusion culling data which determines this chunk's connectedness on the visibility graph.
      */
     public long getVisibilityData() {
-        return this.visibilityData;
+        if (this.graphNode == SectionGraph.NULL) {
+            return VisibilityEncoding.NULL;
+        }
+
+        return this.graph.getVisibilityData(this.graphNode);
     }
 
     /**
@@ -311,6 +323,45 @@ public class RenderSection {
         return this.globalBlockEntities;
     }
 
+    /**
+     * @return The time (in nanoseconds) which was spent meshing the section the last time it was built, or -1 if it
+     * has never been meshed
+     */
+    public long getLastBuildDuration() {
+        return this.lastBuildDuration;
+    }
+
+    public void setLastBuildDuration(long duration) {
+        this.lastBuildDuration = duration;
+    }
+
+    /**
+     * @return The number of quads in the section's meshes after it was last built, or -1 if it has never been built
+     */
+    public int getLastBuildQuadCount() {
+        return this.lastBuildQuadCount;
+    }
+
+    public void setLastBuildQuadCount(int quadCount) {
+        this.lastBuildQuadCount = quadCount;
+    }
+
+    public @Nullable TranslucentSortState getTranslucentSortState() {
+        return this.translucentSortState;
+    }
+
+    /**
+     * Replaces the sort state of the section's translucent geometry, cancelling any sort of the previous geometry which
+     * is still pending.
+     */
+    public void setTranslucentSortState(@Nullable TranslucentSortState state) {
+        if (this.translucentSortState != null) {
+            this.translucentSortState.cancelPendingSort();
+        }
+
+        this.translucentSortState = state;
+    }
+
     public @Nullable CancellationToken getBuildCancellationToken() {
         return this.buildCancellationToken;
     }
@@ -327,19 +378,85 @@ public class RenderSection {
         this.pendingUpdateType = type;
     }
 
-    public int getLastBuiltFrame() {
-        return this.lastBuiltFrame;
+    /**
+     * Marks a region of blocks in this section as changed.
+     * @param region The blocks which have changed, or null if the whole section should be considered changed
+     */
+    public void markDirty(@Nullable DirtyBlockRegion region) {
+        if (!this.hasDirtyBlocks) {
+            this.dirtyRegion = region;
+            this.hasDirtyBlocks = true;
+        } else if (this.dirtyRegion != null) {
+            this.dirtyRegion = region != null ? this.dirtyRegion.union(region) : null;
+        }
+    }
+
+    /**
+     * Returns the region of blocks which have changed since the last call, and resets it.
+     * @return The changed blocks, or null if the whole section should be considered changed
+     */
+    public @Nullable DirtyBlockRegion takeDirtyRegion() {
+        var region = this.hasDirtyBlocks ? this.dirtyRegion : null;
+
+        this.dirtyRegion = null;
+        this.hasDirtyBlocks = false;
+
+        return region;
     }
 
-    public void setLastBuiltFrame(int lastBuiltFrame) {
-        this.lastBuiltFrame = lastBuiltFrame;
+    public int getLastBuiltFrame() {
+        return this.lastBuiltFrame;
     }
 
     public int getLastSubmittedFrame() {
         return this.lastSubmittedFrame;
     }
 
-    public void setLastSubmittedFrame(int lastSubmittedFrame) {
-        this.lastSubmittedFrame = lastSubmittedFrame;
+    /**
+     * Returns the time which the next build of this section should be submitted with. This is usually the current
+     * frame, but every build of a section must have a later time than the builds submitted before it, so that the
+     * newest result can always be told apart, even if several builds are submitted before the frame changes.
+     *
+     * @param frame The current frame
+     */
+    public int getNextBuildTime(int frame) {
+        return Math.max(frame, this.lastSubmittedFrame + 1);
+    }
+
+    /**
+     * Records that a new build of this section has been submitted. Any build which was submitted before it is
+     * cancelled, since its result would be discarded in favor of the new build's.
+     *
+     * @param token The token of the new build's job, or null if its result is already available
+     * @param buildTime The time of the new build, which must be from {@link #getNextBuildTime(int)}
+     */
+    public void onBuildSubmitted(@Nullable CancellationToken token, int buildTime) {
+        if (this.buildCancellationToken != null) {
+            this.buildCancellationToken.setCancelled();
+        }
+
+        this.buildCancellationToken = token;
+        this.lastSubmittedFrame = buildTime;
+    }
+
+    /**
+     * Records that the result of a build of this section has been uploaded.
+     *
+     * @param buildTime The time which the build was submitted with
+     */
+    public void onBuildUploaded(int buildTime) {
+        if (buildTime >= this.lastSubmittedFrame) {
+            this.buildCancellationToken = null;
+        }
+
+        this.lastBuiltFrame = buildTime;
+    }
+
+    /**
+     * @return True if a build of this section has been submitted whose result hasn't been uploaded yet, in which case
+     * the section's current geometry is older than its newest build
+     */
+    public boolean hasPendingBuild() {
+        return this.lastBuiltFrame < this.lastSubmittedFrame;
     }
 }
@@ -12,28 +12,47 @@ import me.jellysquid.mods.sodium.client.SodiumClientMod;
 import me.jellysquid.mods.sodium.client.gl.device.CommandList;
 import me.jellysquid.mods.sodium.client.gl.device.RenderDevice;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildOutput;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkSortOutput;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkUploadQueue;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.cache.MeshCacheCodec;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.cache.MeshDiskCache;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.executor.ChunkBuildCostModel;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.executor.ChunkBuilder;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.executor.ChunkJobResult;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.executor.ChunkJobCollector;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.incremental.DirtyBlockRegion;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.incremental.SectionMeshRecord;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline.SharedOcclusionCache;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.tasks.ChunkBuilderMeshingTask;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.tasks.ChunkBuilderSortingTask;
 import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionInfo;
+import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts;
+import me.jellysquid.mods.sodium.client.render.chunk.data.SectionBounds;
 import me.jellysquid.mods.sodium.client.render.chunk.lists.ChunkRenderList;
 import me.jellysquid.mods.sodium.client.render.chunk.lists.SortedRenderLists;
 import me.jellysquid.mods.sodium.client.render.chunk.lists.VisibleChunkCollector;
 import me.jellysquid.mods.sodium.client.render.chunk.occlusion.GraphDirection;
+import me.jellysquid.mods.sodium.client.render.chunk.occlusion.HorizonCuller;
 import me.jellysquid.mods.sodium.client.render.chunk.occlusion.OcclusionCuller;
+import me.jellysquid.mods.sodium.client.render.chunk.occlusion.SectionGraph;
 import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
 import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegionManager;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.DefaultTerrainRenderPasses;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
+import me.jellysquid.mods.sodium.client.render.chunk.translucent.SortType;
+import me.jellysquid.mods.sodium.client.render.chunk.translucent.TranslucentSortState;
 import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkMeshFormats;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
 import me.jellysquid.mods.sodium.client.render.texture.SpriteUtil;
 import me.jellysquid.mods.sodium.client.render.util.RenderAsserts;
 import me.jellysquid.mods.sodium.client.render.viewport.CameraTransform;
 import me.jellysquid.mods.sodium.client.render.viewport.Viewport;
 import me.jellysquid.mods.sodium.client.util.MathUtil;
+import me.jellysquid.mods.sodium.client.util.NativeBuffer;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import me.jellysquid.mods.sodium.client.world.cloned.ChunkRenderContext;
 import me.jellysquid.mods.sodium.client.world.cloned.ClonedChunkSectionCache;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.Camera;
 import net.minecraft.client.texture.Sprite;
@@ -56,18 +75,44 @@ public class RenderSectionManager {
     private final RenderRegionManager regions;
     private final ClonedChunkSectionCache sectionCache;
 
+    private final @Nullable MeshDiskCache meshCache;
+
     private final Long2ReferenceMap<RenderSection> sectionByPosition = new Long2ReferenceOpenHashMap<>();
 
     private final ConcurrentLinkedDeque<ChunkJobResult<ChunkBuildOutput>> buildResults = new ConcurrentLinkedDeque<>();
 
+    // The results of blocking rebuilds, which the main thread has waited on and which are uploaded regardless of the
+    // upload budget
+    private final ConcurrentLinkedDeque<ChunkJobResult<ChunkBuildOutput>> importantBuildResults = new ConcurrentLinkedDeque<>();
+    private final ConcurrentLinkedDeque<ChunkJobResult<ChunkSortOutput>> sortResults = new ConcurrentLinkedDeque<>();
+
+    private final ChunkVertexType vertexType;
     private final ChunkRenderer chunkRenderer;
 
     private final ClientWorld world;
 
     private final ReferenceSet<RenderSection> sectionsWithGlobalEntities = new ReferenceOpenHashSet<>();
 
+    // The sections with translucent geometry which must be sorted again as the camera moves
+    private final ReferenceSet<RenderSection> sectionsWithDynamicSorting = new ReferenceOpenHashSet<>();
+
+    // The maximum number of sections which will have their geometry recorded for incremental re-meshing. Only the
+    // most recently rebuilt sections are kept, since these are the most likely to be modified again.
+    private static final int MAX_MESH_RECORDS = 64;
+
+    private final Reference2ReferenceLinkedOpenHashMap<RenderSection, SectionMeshRecord> meshRecords = new Reference2ReferenceLinkedOpenHashMap<>();
+
+    private final SectionGraph sectionGraph = new SectionGraph();
+    private final HorizonCuller horizonCuller;
     private final OcclusionCuller occlusionCuller;
 
+    private final ChunkBuildCostModel buildCostModel = new ChunkBuildCostModel();
+
+    // The number of results which are uploaded between each check of the upload time budget
+    private static final int UPLOAD_BATCH_SIZE = 16;
+
+    private final ChunkUploadQueue uploadQueue = new ChunkUploadQueue();
+
     private final int renderDistance;
 
     @NotNull
@@ -81,21 +126,27 @@ public class RenderSectionManager {
     private boolean needsUpdate;
 
     private @Nullable BlockPos lastCameraPosition;
+    private float cameraX, cameraY, cameraZ;
+
+    private static final String MESH_CACHE_DIRECTORY = "sodium-mesh-cache";
 
     public RenderSectionManager(ClientWorld world, int renderDistance, CommandList commandList) {
-        this.chunkRenderer = new DefaultChunkRenderer(RenderDevice.INSTANCE, ChunkMeshFormats.COMPACT);
+        this.vertexType = getVertexType();
+        this.chunkRenderer = createChunkRenderer(RenderDevice.INSTANCE, this.vertexType);
 
         this.world = world;
-        this.builder = new ChunkBuilder(world, ChunkMeshFormats.COMPACT);
+        this.builder = new ChunkBuilder(world, this.vertexType);
 
         this.needsUpdate = true;
         this.renderDistance = renderDistance;
 
-        this.regions = new RenderRegionManager(commandList);
+        this.regions = new RenderRegionManager(commandList, this.vertexType);
         this.sectionCache = new ClonedChunkSectionCache(this.world);
+        this.meshCache = createMeshCache(this.vertexType);
 
         this.renderLists = SortedRenderLists.empty();
-        this.occlusionCuller = new OcclusionCuller(Long2ReferenceMaps.unmodifiable(this.sectionByPosition), this.world);
+        this.horizonCuller = new HorizonCuller(this.world);
+        this.occlusionCuller = new OcclusionCuller(Long2ReferenceMaps.unmodifiable(this.sectionByPosition), this.sectionGraph, this.regions, this.horizonCuller, this.world);
 
         this.rebuildLists = new EnumMap<>(ChunkUpdateType.class);
 
@@ -111,6 +162,15 @@ public class RenderSectionManager {
 
         this.needsUpdate = false;
         this.lastUpdatedFrame = frame;
+
+        var cameraPos = camera.getPos();
+
+        this.cameraX = (float) cameraPos.x;
+        this.cameraY = (float) cameraPos.y;
+        this.cameraZ = (float) cameraPos.z;
+
+        // The visible sections and the camera position have changed, so pending build tasks may need re-ordering
+        this.builder.updatePriorities(this.cameraX, this.cameraY, this.cameraZ, frame);
     }
 
     private void createTerrainRenderList(Camera camera, Viewport viewport, int frame, boolean spectator) {
@@ -118,10 +178,11 @@ public class RenderSectionManager {
 
         final var searchDistance = this.getSearchDistance();
         final var useOcclusionCulling = this.shouldUseOcclusionCulling(camera, spectator);
+        final var useOcclusionBuffer = useOcclusionCulling && SodiumClientMod.options().performance.useSoftwareOcclusionCulling;
 
         var visitor = new VisibleChunkCollector(frame);
 
-        this.occlusionCuller.findVisible(visitor, viewport, searchDistance, useOcclusionCulling, frame);
+        this.occlusionCuller.findVisible(visitor, viewport, searchDistance, useOcclusionCulling, useOcclusionBuffer, frame);
 
         this.renderLists = visitor.createRenderLists();
         this.rebuildLists = visitor.getRebuildLists();
@@ -170,7 +231,7 @@ public class RenderSectionManager {
 
         RenderRegion region = this.regions.createForChunk(x, y, z);
 
-        RenderSection renderSection = new RenderSection(region, x, y, z);
+        RenderSection renderSection = new RenderSection(region, this.sectionGraph, x, y, z);
         region.addSection(renderSection);
 
         this.sectionByPosition.put(key, renderSection);
@@ -204,6 +265,8 @@ public class RenderSectionManager {
 
         this.disconnectNeighborNodes(section);
         this.updateSectionInfo(section, null);
+        this.meshRecords.remove(section);
+        this.sectionsWithDynamicSorting.remove(section);
 
         section.delete();
 
@@ -265,54 +328,163 @@ public class RenderSectionManager {
     public void updateChunks(boolean updateImmediately) {
         this.sectionCache.cleanup();
         this.regions.update();
+        this.regions.evictRegions(getGeometryMemoryBudget(), this.lastUpdatedFrame, this.cameraX, this.cameraY, this.cameraZ);
 
-        var blockingRebuilds = new ChunkJobCollector(Integer.MAX_VALUE, this.buildResults::add);
-        var deferredRebuilds = new ChunkJobCollector(this.builder.getSchedulingBudget(), this.buildResults::add);
+        int threadCount = this.builder.getTotalThreadCount();
+
+        // Blocking rebuilds are limited by their estimated cost, so that a burst of expensive sections is spread over
+        // several frames instead of stalling the main thread
+        var blockingRebuilds = new ChunkJobCollector(updateImmediately ? Long.MAX_VALUE : this.buildCostModel.getBlockingBudget(threadCount),
+                this.importantBuildResults::add);
+        var deferredRebuilds = new ChunkJobCollector(this.buildCostModel.getDeferredBudget(threadCount, this.builder.getScheduledJobCount()),
+                this.buildResults::add);
 
         this.submitRebuildTasks(blockingRebuilds, ChunkUpdateType.IMPORTANT_REBUILD);
         this.submitRebuildTasks(updateImmediately ? blockingRebuilds : deferredRebuilds, ChunkUpdateType.REBUILD);
         this.submitRebuildTasks(updateImmediately ? blockingRebuilds : deferredRebuilds, ChunkUpdateType.INITIAL_BUILD);
 
         blockingRebuilds.awaitCompletion(this.builder);
+
+        this.submitSortTasks(this.builder.getSchedulingBudget());
+    }
+
+    /**
+     * Submits tasks which sort the translucent geometry of visible sections again, once the camera has moved far
+     * enough since they were last sorted. The closest sections are sorted first, since their order changes the fastest.
+     */
+    private void submitSortTasks(int budget) {
+        var candidates = new ArrayList<RenderSection>();
+
+        for (var section : this.sectionsWithDynamicSorting) {
+            var state = section.getTranslucentSortState();
+
+            if (state == null || section.getLastVisibleFrame() != this.lastUpdatedFrame) {
+                continue;
+            }
+
+            float distance = (float) Math.sqrt(section.getSquaredDistance(this.cameraX, this.cameraY, this.cameraZ));
+
+            if (state.needsResort(this.cameraX, this.cameraY, this.cameraZ, distance)) {
+                candidates.add(section);
+            }
+        }
+
+        if (candidates.size() > budget) {
+            candidates.sort(Comparator.comparingDouble(section -> section.getSquaredDistance(this.cameraX, this.cameraY, this.cameraZ)));
+        }
+
+        for (int i = 0; i < Math.min(budget, candidates.size()); i++) {
+            var section = candidates.get(i);
+            var state = section.getTranslucentSortState();
+
+            var task = new ChunkBuilderSortingTask(section, state.getGeometry(), this.cameraX, this.cameraY, this.cameraZ,
+                    state.getIncrementalOrder(this.cameraX, this.cameraY, this.cameraZ));
+
+            state.setPendingSort(this.builder.scheduleTask(task, this.sortResults::add));
+        }
     }
 
+    /**
+     * Uploads the results of finished build and sort tasks. The results of blocking rebuilds are always uploaded, and
+     * other build results are uploaded in order of their priority until either the byte or the time budget for this
+     * frame is used up. Any which remain are kept queued for the next frame.
+     */
     public void uploadChunks() {
-        var results = this.collectChunkBuildResults();
+        this.collectChunkBuildResults();
 
-        if (results.isEmpty()) {
+        var sortResults = this.collectChunkSortResults();
+
+        if (this.uploadQueue.size() == 0 && sortResults.isEmpty()) {
             return;
         }
 
-        this.processChunkBuildResults(results);
+        var options = SodiumClientMod.options().advanced;
 
-        for (var result : results) {
-            result.delete();
+        long maxBytes = options.chunkUploadBudgetMb > 0 ? options.chunkUploadBudgetMb * 1024L * 1024L : Long.MAX_VALUE;
+        long maxTime = options.chunkUploadBudgetMs > 0 ? options.chunkUploadBudgetMs * 1_000_000L : Long.MAX_VALUE;
+
+        long startTime = System.nanoTime();
+
+        var importantResults = this.uploadQueue.takeImportant();
+
+        if (!importantResults.isEmpty()) {
+            this.processChunkBuildResults(importantResults);
         }
 
-        this.needsUpdate = true;
+        var results = this.uploadQueue.take(maxBytes, this.lastUpdatedFrame, this.cameraX, this.cameraY, this.cameraZ);
+
+        for (int start = 0; start < results.size(); start += UPLOAD_BATCH_SIZE) {
+            if (System.nanoTime() - startTime >= maxTime) {
+                // Return the results which weren't uploaded in time to the queue
+                for (var result : results.subList(start, results.size())) {
+                    this.uploadQueue.add(result, false);
+                }
+
+                break;
+            }
+
+            this.processChunkBuildResults(results.subList(start, Math.min(start + UPLOAD_BATCH_SIZE, results.size())));
+        }
+
+        // Sort results are processed after the build results, so that results for geometry which has just been
+        // replaced can be discarded
+        if (!sortResults.isEmpty()) {
+            this.processChunkSortResults(sortResults);
+        }
+
+        for (var result : sortResults) {
+            result.delete();
+        }
     }
 
-    private void processChunkBuildResults(ArrayList<ChunkBuildOutput> results) {
-        var filtered = filterChunkBuildResults(results);
+    private void processChunkSortResults(ArrayList<ChunkSortOutput> results) {
+        var filtered = new ArrayList<ChunkSortOutput>();
+
+        for (var result : results) {
+            var state = result.render.getTranslucentSortState();
+
+            if (result.render.isDisposed() || state == null || state.getGeometry() != result.result.geometry()) {
+                continue;
+            }
+
+            state.apply(result.result);
+            state.setPendingSort(null);
 
-        this.regions.uploadMeshes(RenderDevice.INSTANCE.createCommandList(), filtered);
+            filtered.add(result);
+        }
 
-        for (var result : filtered) {
+        this.regions.uploadSortResults(RenderDevice.INSTANCE.createCommandList(), filtered);
+    }
+
+    /**
+     * Uploads the given build results, which must each be for a different section, and deletes them afterwards.
+     */
+    private void processChunkBuildResults(List<ChunkBuildOutput> results) {
+        this.regions.uploadMeshes(RenderDevice.INSTANCE.createCommandList(), results);
+
+        for (var result : results) {
             this.updateSectionInfo(result.render, result.info);
+            this.updateMeshRecord(result.render, result.record);
+            this.updateSortState(result.render, result.getMesh(DefaultTerrainRenderPasses.TRANSLUCENT));
 
-            var job = result.render.getBuildCancellationToken();
+            this.buildCostModel.addSample(result.render, result.getBuildDuration(), result.getQuadCount());
 
-            if (job != null && result.buildTime >= result.render.getLastSubmittedFrame()) {
-                result.render.setBuildCancellationToken(null);
-            }
+            result.render.onBuildUploaded(result.buildTime);
+        }
 
-            result.render.setLastBuiltFrame(result.buildTime);
+        for (var result : results) {
+            result.delete();
         }
+
+        this.needsUpdate = true;
     }
 
     private void updateSectionInfo(RenderSection render, BuiltSectionInfo info) {
         render.setInfo(info);
 
+        this.horizonCuller.setSectionSolid(render.getChunkX(), render.getChunkY(), render.getChunkZ(),
+                info != null && info.occluderBounds == SectionBounds.SECTION);
+
         if (info == null || ArrayUtils.isEmpty(info.globalBlockEntities)) {
             this.sectionsWithGlobalEntities.remove(render);
         } else {
@@ -320,30 +492,60 @@ public class RenderSectionManager {
         }
     }
 
-    private static List<ChunkBuildOutput> filterChunkBuildResults(ArrayList<ChunkBuildOutput> outputs) {
-        var map = new Reference2ReferenceLinkedOpenHashMap<RenderSection, ChunkBuildOutput>();
+    private void updateSortState(RenderSection render, @Nullable BuiltSectionMeshParts translucentMesh) {
+        var sortResult = translucentMesh != null ? translucentMesh.getSortResult() : null;
 
-        for (var output : outputs) {
-            if (output.render.isDisposed() || output.render.getLastBuiltFrame() > output.buildTime) {
-                continue;
-            }
+        if (sortResult == null) {
+            render.setTranslucentSortState(null);
+            this.sectionsWithDynamicSorting.remove(render);
 
-            var render = output.render;
-            var previous = map.get(render);
+            return;
+        }
 
-            if (previous == null || previous.buildTime < output.buildTime) {
-                map.put(render, output);
-            }
+        render.setTranslucentSortState(new TranslucentSortState(sortResult));
+
+        if (sortResult.geometry().getSortType() == SortType.DYNAMIC) {
+            this.sectionsWithDynamicSorting.add(render);
+        } else {
+            this.sectionsWithDynamicSorting.remove(render);
+        }
+    }
+
+    private void updateMeshRecord(RenderSection render, @Nullable SectionMeshRecord record) {
+        // The previous record no longer matches the section's geometry, so it must always be replaced or removed
+        if (record == null) {
+            this.meshRecords.remove(render);
+            return;
         }
 
-        return new ArrayList<>(map.values());
+        this.meshRecords.putAndMoveToLast(render, record);
+
+        while (this.meshRecords.size() > MAX_MESH_RECORDS) {
+            this.meshRecords.removeFirst();
+        }
     }
 
-    private ArrayList<ChunkBuildOutput> collectChunkBuildResults() {
-        ArrayList<ChunkBuildOutput> results = new ArrayList<>();
+    /**
+     * Moves the results of finished build tasks into the upload queue, which discards any results that have been
+     * superseded by newer ones.
+     */
+    private void collectChunkBuildResults() {
         ChunkJobResult<ChunkBuildOutput> result;
 
+        while ((result = this.importantBuildResults.poll()) != null) {
+            this.uploadQueue.add(result.unwrap(), true);
+        }
+
         while ((result = this.buildResults.poll()) != null) {
+            this.uploadQueue.add(result.unwrap(), false);
+        }
+    }
+
+    private ArrayList<ChunkSortOutput> collectChunkSortResults() {
+        ArrayList<ChunkSortOutput> results = new ArrayList<>();
+        ChunkJobResult<ChunkSortOutput> result;
+
+        while ((result = this.sortResults.poll()) != null) {
             results.add(result.unwrap());
         }
 
@@ -360,34 +562,75 @@ public class RenderSectionManager {
                 continue;
             }
 
-            int frame = this.lastUpdatedFrame;
-            ChunkBuilderMeshingTask task = this.createRebuildTask(section, frame);
+            int buildTime = section.getNextBuildTime(this.lastUpdatedFrame);
+            ChunkBuilderMeshingTask task = this.createRebuildTask(section, type, buildTime);
 
             if (task != null) {
-                var job = this.builder.scheduleTask(task, type.isImportant(), collector::onJobFinished);
-                collector.addSubmittedJob(job);
+                var job = this.builder.scheduleTask(task, collector::onJobFinished);
+                collector.addSubmittedJob(job, this.buildCostModel.estimate(section));
 
-                section.setBuildCancellationToken(job);
+                section.onBuildSubmitted(job, buildTime);
             } else {
-                var result = ChunkJobResult.successfully(new ChunkBuildOutput(section, BuiltSectionInfo.EMPTY, Collections.emptyMap(), frame));
+                var result = ChunkJobResult.successfully(new ChunkBuildOutput(section, BuiltSectionInfo.EMPTY, Collections.emptyMap(), buildTime));
                 this.buildResults.add(result);
 
-                section.setBuildCancellationToken(null);
+                section.onBuildSubmitted(null, buildTime);
             }
 
-            section.setLastSubmittedFrame(frame);
             section.setPendingUpdate(null);
         }
     }
 
-    public @Nullable ChunkBuilderMeshingTask createRebuildTask(RenderSection render, int frame) {
+    public @Nullable ChunkBuilderMeshingTask createRebuildTask(RenderSection render, ChunkUpdateType type, int frame) {
+        DirtyBlockRegion dirtyRegion = render.takeDirtyRegion();
         ChunkRenderContext context = WorldSlice.prepare(this.world, render.getPosition(), this.sectionCache);
 
         if (context == null) {
             return null;
         }
 
-        return new ChunkBuilderMeshingTask(render, context, frame);
+        // The previous geometry can only be re-used if it is known which blocks have changed since it was built. The
+        // record is only updated once a build's result is uploaded, so while an earlier build is still running or waiting
+        // to be uploaded, the record is missing the blocks which changed before that build and the section must be
+        // rebuilt entirely.
+        SectionMeshRecord previousMesh = dirtyRegion != null && !render.hasPendingBuild() ? this.meshRecords.get(render) : null;
+
+        var task = new ChunkBuilderMeshingTask(render, context, type, frame, previousMesh, dirtyRegion);
+        task.setCameraPosition(this.cameraX, this.cameraY, this.cameraZ);
+
+        // Sections which are being rebuilt have changed since they were last meshed, and so will never be in the cache
+        if (type == ChunkUpdateType.INITIAL_BUILD) {
+            task.setDiskCache(this.meshCache);
+        }
+
+        return task;
+    }
+
+    private static ChunkVertexType getVertexType() {
+        return SodiumClientMod.options().advanced.useDenseVertexFormat ? ChunkMeshFormats.DENSE : ChunkMeshFormats.COMPACT;
+    }
+
+    private static ChunkRenderer createChunkRenderer(RenderDevice device, ChunkVertexType vertexType) {
+        if (SodiumClientMod.options().advanced.useMultiDrawIndirect && IndirectChunkRenderer.isSupported(device)) {
+            return new IndirectChunkRenderer(device, vertexType);
+        }
+
+        return new DefaultChunkRenderer(device, vertexType);
+    }
+
+    private static long getGeometryMemoryBudget() {
+        return SodiumClientMod.options().advanced.geometryMemoryBudgetMb * 1024L * 1024L;
+    }
+
+    private static @Nullable MeshDiskCache createMeshCache(ChunkVertexType vertexType) {
+        var options = SodiumClientMod.options().advanced;
+
+        if (!options.useMeshDiskCache) {
+            return null;
+        }
+
+        return MeshDiskCache.open(FabricLoader.getInstance().getGameDir().resolve(MESH_CACHE_DIRECTORY),
+                MeshCacheCodec.createFingerprint(vertexType), options.meshDiskCacheSizeMb * 1024L * 1024L);
     }
 
     public void markGraphDirty() {
@@ -405,11 +648,21 @@ public class RenderSectionManager {
     public void destroy() {
         this.builder.shutdown(); // stop all the workers, and cancel any tasks
 
-        for (var result : this.collectChunkBuildResults()) {
-            result.delete(); // delete resources for any pending tasks (including those that were cancelled)
+        // delete resources for any pending tasks (including those that were cancelled)
+        this.collectChunkBuildResults();
+        this.uploadQueue.delete();
+
+        for (var result : this.collectChunkSortResults()) {
+            result.delete();
+        }
+
+        if (this.meshCache != null) {
+            this.meshCache.flush();
         }
 
         this.sectionsWithGlobalEntities.clear();
+        this.sectionsWithDynamicSorting.clear();
+        this.meshRecords.clear();
         this.resetRenderLists();
 
         try (CommandList commandList = RenderDevice.INSTANCE.createCommandList()) {
@@ -435,6 +688,14 @@ public class RenderSectionManager {
     }
 
     public void scheduleRebuild(int x, int y, int z, boolean important) {
+        this.scheduleRebuild(x, y, z, important, null);
+    }
+
+    /**
+     * Schedules a rebuild of the section at the given position.
+     * @param dirtyRegion The blocks within the section which have changed, or null if the whole section has changed
+     */
+    public void scheduleRebuild(int x, int y, int z, boolean important, @Nullable DirtyBlockRegion dirtyRegion) {
         RenderAsserts.validateCurrentThread();
 
         this.sectionCache.invalidate(x, y, z);
@@ -442,6 +703,11 @@ public class RenderSectionManager {
         RenderSection section = this.sectionByPosition.get(ChunkSectionPos.asLong(x, y, z));
 
         if (section != null && section.isBuilt()) {
+            section.markDirty(dirtyRegion);
+
+            // The section may no longer be solid, so it can't hide anything until it has been rebuilt
+            this.horizonCuller.setSectionSolid(x, y, z, false);
+
             ChunkUpdateType pendingUpdate;
 
             if (allowImportantRebuilds() && (important || this.shouldPrioritizeRebuild(section))) {
@@ -521,6 +787,7 @@ public class RenderSectionManager {
 
         long deviceUsed = 0;
         long deviceAllocated = 0;
+        long deviceFragmented = 0;
 
         for (var region : this.regions.getLoadedRegions()) {
             var resources = region.getResources();
@@ -533,24 +800,51 @@ public class RenderSectionManager {
 
             deviceUsed += buffer.getDeviceUsedMemory();
             deviceAllocated += buffer.getDeviceAllocatedMemory();
+            deviceFragmented += buffer.getDeviceFragmentedMemory();
 
             count++;
         }
 
-        list.add(String.format("Geometry Pool: %d/%d MiB (%d buffers)", MathUtil.toMib(deviceUsed), MathUtil.toMib(deviceAllocated), count));
+        list.add(String.format("Geometry Pool: %d/%d MiB (%d buffers | Fragmented=%d MiB | Compacted=%d MiB)",
+                MathUtil.toMib(deviceUsed), MathUtil.toMib(deviceAllocated), count,
+                MathUtil.toMib(deviceFragmented), MathUtil.toMib(this.regions.getCompactedBytes())));
+
+        long budget = getGeometryMemoryBudget();
+
+        if (budget > 0) {
+            list.add(String.format("Geometry Budget: %d/%d MiB (Evicted=%d regions, %d sections)",
+                    MathUtil.toMib(this.regions.getDeviceAllocatedMemory()), MathUtil.toMib(budget),
+                    this.regions.getEvictedRegions(), this.regions.getEvictedSections()));
+        }
+
         list.add(String.format("Transfer Queue: %s", this.regions.getStagingBuffer().toString()));
+        list.add(String.format("Native Buffers: %d MiB (Peak=%d MiB | Pooled=%d MiB)",
+                MathUtil.toMib(NativeBuffer.getTotalAllocated()), MathUtil.toMib(NativeBuffer.getPeakAllocated()),
+                MathUtil.toMib(NativeBuffer.getTotalPooled())));
 
         list.add(String.format("Chunk Builder: Permits=%02d | Busy=%02d | Total=%02d",
                 this.builder.getScheduledJobCount(), this.builder.getBusyThreadCount(), this.builder.getTotalThreadCount())
         );
 
-        list.add(String.format("Chunk Queues: U=%02d (P0=%03d | P1=%03d | P2=%03d)",
-                this.buildResults.size(),
+        list.add(String.format("Chunk Queues: U=%02d, %d MiB (P0=%03d | P1=%03d | P2=%03d)",
+                this.uploadQueue.size(), MathUtil.toMib(this.uploadQueue.getPendingBytes()),
                 this.rebuildLists.get(ChunkUpdateType.IMPORTANT_REBUILD).size(),
                 this.rebuildLists.get(ChunkUpdateType.REBUILD).size(),
                 this.rebuildLists.get(ChunkUpdateType.INITIAL_BUILD).size())
         );
 
+        list.add(String.format("Build Times: %s", this.buildCostModel.getHistogram()));
+        list.add(String.format("Build Cost: %s", this.buildCostModel));
+        list.add(String.format("Occlusion Cache: %.1f%% hits (%d lookups)",
+                SharedOcclusionCache.getHitRate(), SharedOcclusionCache.getLookupCount()));
+
+        if (this.meshCache != null) {
+            list.add(String.format("Mesh Cache: %d entries, %d MiB (Hits=%d | Misses=%d)",
+                    this.meshCache.getEntryCount(), MathUtil.toMib(this.meshCache.getTotalSize()),
+                    this.meshCache.getHits(), this.meshCache.getMisses())
+            );
+        }
+
         return list;
     }
 
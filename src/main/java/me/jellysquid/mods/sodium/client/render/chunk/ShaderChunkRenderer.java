@@ -53,6 +53,7 @@ public abstract class ShaderChunkRenderer implements ChunkRenderer {
                     .attachShader(vertShader)
                     .attachShader(fragShader)
                     .bindAttribute("in_VertexData", ChunkShaderBindingPoints.ATTRIBUTE_PACKED_DATA)
+                    .bindAttribute("in_RegionOffset", ChunkShaderBindingPoints.ATTRIBUTE_REGION_OFFSET)
                     .bindFragmentData("out_FragColor", ChunkShaderBindingPoints.FRAG_COLOR)
                     .link((shader) -> new ChunkShaderInterface(shader, options));
         } finally {
@@ -64,7 +65,7 @@ public abstract class ShaderChunkRenderer implements ChunkRenderer {
     protected void begin(TerrainRenderPass pass) {
         pass.startDrawing();
 
-        ChunkShaderOptions options = new ChunkShaderOptions(ChunkFogMode.SMOOTH, pass);
+        ChunkShaderOptions options = this.createShaderOptions(pass);
 
         this.activeProgram = this.compileProgram(options);
         this.activeProgram.bind();
@@ -72,6 +73,10 @@ public abstract class ShaderChunkRenderer implements ChunkRenderer {
                 .setupState();
     }
 
+    protected ChunkShaderOptions createShaderOptions(TerrainRenderPass pass) {
+        return new ChunkShaderOptions(ChunkFogMode.SMOOTH, pass, this.vertexType);
+    }
+
     protected void end(TerrainRenderPass pass) {
         this.activeProgram.unbind();
         this.activeProgram = null;
@@ -20,8 +20,8 @@ import java.util.List;
 
 /**
  * A collection of temporary buffers for each worker thread which will be used to build chunk meshes for given render
- * passes. This makes a best-effort attempt to pick a suitable size for each scratch buffer, but will never try to
- * shrink a buffer.
+ * passes. The scratch buffers are kept for the lifetime of the worker thread, and start out small enough that most
+ * sections can be built without growing them.
  */
 public class ChunkBuildBuffers {
     private final Reference2ReferenceOpenHashMap<TerrainRenderPass, BakedChunkModelBuilder> builders = new Reference2ReferenceOpenHashMap<>();
@@ -35,7 +35,7 @@ public class ChunkBuildBuffers {
             var vertexBuffers = new ChunkMeshBufferBuilder[ModelQuadFacing.COUNT];
 
             for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
-                vertexBuffers[facing] = new ChunkMeshBufferBuilder(this.vertexType, 128 * 1024);
+                vertexBuffers[facing] = new ChunkMeshBufferBuilder(this.vertexType, 16 * 1024);
             }
 
             this.builders.put(pass, new BakedChunkModelBuilder(vertexBuffers));
@@ -52,6 +52,11 @@ public class ChunkBuildBuffers {
         return this.builders.get(material.pass);
     }
 
+    public ChunkMeshBufferBuilder getVertexBuffer(TerrainRenderPass pass, ModelQuadFacing facing) {
+        return this.builders.get(pass)
+                .getVertexBuffer(facing);
+    }
+
     /**
      * Creates immutable baked chunk meshes from all non-empty scratch buffers. This is used after all blocks
      * have been rendered to pass the finished meshes over to the graphics card. This function can be called multiple
@@ -91,7 +96,11 @@ public class ChunkBuildBuffers {
 
         mergedBufferBuilder.flip();
 
-        return new BuiltSectionMeshParts(mergedBuffer, vertexRanges);
+        return new BuiltSectionMeshParts(mergedBuffer, vertexRanges, this.vertexType);
+    }
+
+    public ChunkVertexType getVertexType() {
+        return this.vertexType;
     }
 
     public void destroy() {
@@ -15,8 +15,16 @@ public class ChunkBuildContext {
         this.cache = new BlockRenderCache(MinecraftClient.getInstance(), world);
     }
 
+    /**
+     * Releases the world data which was used by the last job. The scratch buffers are kept, as they will be re-used by
+     * the next job.
+     */
     public void cleanup() {
-        this.buffers.destroy();
         this.cache.cleanup();
     }
+
+    public void destroy() {
+        this.cleanup();
+        this.buffers.destroy();
+    }
 }
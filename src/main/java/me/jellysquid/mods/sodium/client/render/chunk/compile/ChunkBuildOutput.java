@@ -1,9 +1,12 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile;
 
+import me.jellysquid.mods.sodium.client.gl.util.VertexRange;
 import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
 import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts;
 import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionInfo;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.incremental.SectionMeshRecord;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Map;
 
@@ -20,22 +23,80 @@ public class ChunkBuildOutput {
 
     public final int buildTime;
 
+    /**
+     * The record of the built geometry, which allows the next build of the section to only re-mesh the blocks which
+     * have changed. This is null if the geometry was not recorded.
+     */
+    public final @Nullable SectionMeshRecord record;
+
+    // The time which was spent meshing the section (in nanoseconds), or -1 if it wasn't meshed by the task
+    private long buildDuration = -1;
+
     public ChunkBuildOutput(RenderSection render, BuiltSectionInfo info, Map<TerrainRenderPass, BuiltSectionMeshParts> meshes, int buildTime) {
+        this(render, info, meshes, buildTime, null);
+    }
+
+    public ChunkBuildOutput(RenderSection render, BuiltSectionInfo info, Map<TerrainRenderPass, BuiltSectionMeshParts> meshes, int buildTime,
+                            @Nullable SectionMeshRecord record) {
         this.render = render;
         this.info = info;
         this.meshes = meshes;
 
         this.buildTime = buildTime;
+        this.record = record;
     }
 
     public BuiltSectionMeshParts getMesh(TerrainRenderPass pass) {
         return this.meshes.get(pass);
     }
 
+    /**
+     * @return The total number of quads in all meshes
+     */
+    public int getQuadCount() {
+        int quadCount = 0;
+
+        for (BuiltSectionMeshParts mesh : this.meshes.values()) {
+            for (VertexRange range : mesh.getVertexRanges()) {
+                if (range != null) {
+                    quadCount += range.vertexCount() >> 2;
+                }
+            }
+        }
+
+        return quadCount;
+    }
+
+    /**
+     * @return The total size (in bytes) of the data which will be uploaded for all meshes
+     */
+    public long getUploadSize() {
+        long size = 0;
+
+        for (BuiltSectionMeshParts mesh : this.meshes.values()) {
+            size += mesh.getVertexData().getLength();
+
+            var sortResult = mesh.getSortResult();
+
+            if (sortResult != null) {
+                size += sortResult.indexData().getLength();
+            }
+        }
+
+        return size;
+    }
+
+    public long getBuildDuration() {
+        return this.buildDuration;
+    }
+
+    public void setBuildDuration(long buildDuration) {
+        this.buildDuration = buildDuration;
+    }
+
     public void delete() {
         for (BuiltSectionMeshParts data : this.meshes.values()) {
-            data.getVertexData()
-                    .free();
+            data.free();
         }
     }
 }
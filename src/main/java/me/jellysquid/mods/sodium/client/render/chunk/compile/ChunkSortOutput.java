@@ -0,0 +1,23 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
+import me.jellysquid.mods.sodium.client.render.chunk.translucent.TranslucentSortResult;
+
+/**
+ * The result of a task which sorted the translucent geometry of a section again. The result is discarded if the
+ * section has been rebuilt since the task was created.
+ */
+public class ChunkSortOutput {
+    public final RenderSection render;
+    public final TranslucentSortResult result;
+
+    public ChunkSortOutput(RenderSection render, TranslucentSortResult result) {
+        this.render = render;
+        this.result = result;
+    }
+
+    public void delete() {
+        this.result.indexData()
+                .free();
+    }
+}
@@ -0,0 +1,137 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceLinkedOpenHashMap;
+import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Holds the results of chunk builds which have finished but have not been uploaded yet, so that a burst of results
+ * can be uploaded over several frames. Only the newest result of each section is kept, and results which have been
+ * superseded are deleted as soon as they are known to be.
+ *
+ * <p>Results are marked as important if the main thread is waiting for them to become visible, in which case they
+ * are always uploaded on the next frame regardless of the budget. This is only accessed from the main thread.</p>
+ */
+public class ChunkUploadQueue {
+    private final Reference2ReferenceLinkedOpenHashMap<RenderSection, QueuedOutput> pending = new Reference2ReferenceLinkedOpenHashMap<>();
+
+    private long pendingBytes;
+
+    /**
+     * Adds a result to the queue, replacing any older result for the same section. If the queue already holds a newer
+     * result for the section, or a newer result has already been uploaded, the given result is deleted instead.
+     */
+    public void add(ChunkBuildOutput output, boolean important) {
+        var render = output.render;
+
+        if (render.isDisposed() || render.getLastBuiltFrame() > output.buildTime) {
+            output.delete();
+            return;
+        }
+
+        var previous = this.pending.get(render);
+
+        if (previous != null) {
+            if (previous.output.buildTime >= output.buildTime) {
+                output.delete();
+                return;
+            }
+
+            this.remove(render).delete();
+
+            // The section is still needed as soon as before
+            important |= previous.important;
+        }
+
+        long size = output.getUploadSize();
+
+        this.pending.put(render, new QueuedOutput(output, important, size));
+        this.pendingBytes += size;
+    }
+
+    /**
+     * @return The results which must be uploaded this frame
+     */
+    public List<ChunkBuildOutput> takeImportant() {
+        var results = new ArrayList<ChunkBuildOutput>();
+
+        for (var entry : new ArrayList<>(this.pending.values())) {
+            if (entry.important) {
+                results.add(this.remove(entry.output.render));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Takes the results which should be uploaded next, up to the given number of bytes. Results for visible sections
+     * come first, and then the closest sections to the camera. At least one result is taken if the queue isn't empty,
+     * so that results which are larger than the budget are still uploaded eventually.
+     *
+     * @param maxBytes The maximum size of the results to take
+     * @param frame The frame which the visibility of sections was last updated in
+     * @return The results in the order they should be uploaded
+     */
+    public List<ChunkBuildOutput> take(long maxBytes, int frame, float cameraX, float cameraY, float cameraZ) {
+        var candidates = new ArrayList<QueuedOutput>();
+
+        for (var entry : new ArrayList<>(this.pending.values())) {
+            if (entry.output.render.isDisposed()) {
+                this.remove(entry.output.render).delete();
+            } else {
+                candidates.add(entry);
+            }
+        }
+
+        candidates.sort(Comparator.<QueuedOutput>comparingInt(entry -> entry.output.render.getLastVisibleFrame() == frame ? 0 : 1)
+                .thenComparingDouble(entry -> entry.output.render.getSquaredDistance(cameraX, cameraY, cameraZ)));
+
+        var results = new ArrayList<ChunkBuildOutput>();
+        long bytes = 0;
+
+        for (var entry : candidates) {
+            if (!results.isEmpty() && bytes + entry.size > maxBytes) {
+                break;
+            }
+
+            results.add(this.remove(entry.output.render));
+            bytes += entry.size;
+        }
+
+        return results;
+    }
+
+    private ChunkBuildOutput remove(RenderSection render) {
+        var entry = this.pending.remove(render);
+        this.pendingBytes -= entry.size;
+
+        return entry.output;
+    }
+
+    public int size() {
+        return this.pending.size();
+    }
+
+    /**
+     * @return The total size (in bytes) of the mesh data waiting to be uploaded
+     */
+    public long getPendingBytes() {
+        return this.pendingBytes;
+    }
+
+    public void delete() {
+        for (var entry : this.pending.values()) {
+            entry.output.delete();
+        }
+
+        this.pending.clear();
+        this.pendingBytes = 0;
+    }
+
+    private record QueuedOutput(ChunkBuildOutput output, boolean important, long size) {
+    }
+}
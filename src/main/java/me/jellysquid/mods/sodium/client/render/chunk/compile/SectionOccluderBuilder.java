@@ -0,0 +1,103 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+import me.jellysquid.mods.sodium.client.render.chunk.data.SectionBounds;
+
+/**
+ * Finds a box within a section which is entirely filled by opaque full cubes, so that it can be used as an occluder
+ * by the software occlusion culler. Only slabs which span the whole section on two axes are considered, since these
+ * can be found by counting the opaque blocks in each layer of the section, and are common in natural terrain (such
+ * as the ground below the surface, or the walls of a cliff).
+ */
+public class SectionOccluderBuilder {
+    private static final int LAYER_SIZE = 16 * 16;
+
+    // The number of opaque blocks in each layer along the X, Y, and Z axes
+    private final int[] opaqueBlocksX = new int[16];
+    private final int[] opaqueBlocksY = new int[16];
+    private final int[] opaqueBlocksZ = new int[16];
+
+    private boolean filled;
+
+    /**
+     * Marks the block at the given section-local coordinates as an opaque full cube. Each block must only be marked
+     * once.
+     */
+    public void markOpaque(int x, int y, int z) {
+        this.opaqueBlocksX[x]++;
+        this.opaqueBlocksY[y]++;
+        this.opaqueBlocksZ[z]++;
+    }
+
+    /**
+     * Marks every block in the section as an opaque full cube.
+     */
+    public void markFilled() {
+        this.filled = true;
+    }
+
+    /**
+     * @return The bounds of the thickest opaque slab on any side of the section, or {@link SectionBounds#EMPTY} if no
+     * layer of the section is entirely opaque
+     */
+    public int build() {
+        if (this.filled) {
+            return SectionBounds.SECTION;
+        }
+
+        int best = SectionBounds.EMPTY;
+        int bestThickness = 0;
+
+        int thickness;
+
+        if ((thickness = countFromStart(this.opaqueBlocksY)) > bestThickness) {
+            best = SectionBounds.pack(0, 0, 0, 16, thickness, 16);
+            bestThickness = thickness;
+        }
+
+        if ((thickness = countFromEnd(this.opaqueBlocksY)) > bestThickness) {
+            best = SectionBounds.pack(0, 16 - thickness, 0, 16, 16, 16);
+            bestThickness = thickness;
+        }
+
+        if ((thickness = countFromStart(this.opaqueBlocksX)) > bestThickness) {
+            best = SectionBounds.pack(0, 0, 0, thickness, 16, 16);
+            bestThickness = thickness;
+        }
+
+        if ((thickness = countFromEnd(this.opaqueBlocksX)) > bestThickness) {
+            best = SectionBounds.pack(16 - thickness, 0, 0, 16, 16, 16);
+            bestThickness = thickness;
+        }
+
+        if ((thickness = countFromStart(this.opaqueBlocksZ)) > bestThickness) {
+            best = SectionBounds.pack(0, 0, 0, 16, 16, thickness);
+            bestThickness = thickness;
+        }
+
+        if ((thickness = countFromEnd(this.opaqueBlocksZ)) > bestThickness) {
+            best = SectionBounds.pack(0, 0, 16 - thickness, 16, 16, 16);
+        }
+
+        return best;
+    }
+
+    private static int countFromStart(int[] layers) {
+        int count = 0;
+
+        while (count < 16 && layers[count] == LAYER_SIZE) {
+            count++;
+        }
+
+        return count;
+    }
+
+    private static int countFromEnd(int[] layers) {
+        int count = 0;
+
+        while (count < 16 && layers[15 - count] == LAYER_SIZE) {
+            count++;
+        }
+
+        return count;
+    }
+}
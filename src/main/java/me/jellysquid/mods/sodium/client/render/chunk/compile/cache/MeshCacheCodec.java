@@ -0,0 +1,415 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.cache;
+
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
+import me.jellysquid.mods.sodium.client.gl.util.VertexRange;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildOutput;
+import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionInfo;
+import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.DefaultTerrainRenderPasses;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.util.NativeBuffer;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Converts the output of chunk build tasks to and from the entries which are stored in the {@link MeshDiskCache}.
+ *
+ * <p>Each entry has the following layout, with all values stored in little-endian order:</p>
+ * <ul>
+ *     <li>The magic number, and the key which the entry was stored with (used to detect corruption)</li>
+ *     <li>The CRC32C checksum of everything which follows it in the entry</li>
+ *     <li>The encoded visibility data of the section, and the bounds of its occluder</li>
+ *     <li>For each render pass, the number of vertices, followed by the vertex range of each facing if non-empty</li>
+ *     <li>The identifiers of each animated sprite and the atlas it belongs to</li>
+ *     <li>The vertex data of each non-empty render pass</li>
+ * </ul>
+ *
+ * <p>Block entities are not stored, since they are part of the world and must be fetched again on every build.</p>
+ *
+ * <p>The vertex data of decoded entries is later read through raw pointers, so entries are only used if their
+ * checksum matches and their vertex ranges exactly cover their vertex data. Otherwise, an entry which was torn or
+ * corrupted on disk could cause reads outside of its buffers.</p>
+ */
+public class MeshCacheCodec {
+    private static final int ENTRY_MAGIC = 0x534D4345; // "SMCE"
+
+    // Incremented whenever the layout of entries changes, so that caches in the old layout are discarded
+    private static final int FORMAT_VERSION = 3;
+
+    private static final int HEADER_SIZE = 4 + 16 + 4 + 8 + 4;
+    private static final int PASS_HEADER_SIZE = 4 + (ModelQuadFacing.COUNT * 8);
+
+    // The prefix of the names of resource packs which are loaded from the resource pack directory
+    private static final String FILE_PACK_PREFIX = "file/";
+
+    /**
+     * Creates a string which identifies all the global state that can affect the output of a chunk build task. Resource
+     * packs are only identified by their names and the metadata of their files, so changes to their contents within a
+     * session must instead be handled by invalidating the cache whenever they are reloaded.
+     */
+    public static String createFingerprint(ChunkVertexType vertexType) {
+        var client = MinecraftClient.getInstance();
+        var options = client.options;
+
+        var hasher = new MeshCacheHasher();
+        hasher.putString(SharedConstants.getGameVersion().getName());
+        hasher.putString(SodiumClientMod.getVersion());
+        hasher.putInt(FORMAT_VERSION);
+
+        // Other mods may change how blocks are rendered
+        FabricLoader.getInstance()
+                .getAllMods()
+                .stream()
+                .map(mod -> mod.getMetadata().getId() + "@" + mod.getMetadata().getVersion().getFriendlyString())
+                .sorted(Comparator.naturalOrder())
+                .forEach(hasher::putString);
+
+        for (String pack : client.getResourcePackManager().getEnabledNames()) {
+            hasher.putString(pack);
+
+            // Packs in the resource pack directory can be edited between sessions without being renamed, and the cache
+            // is only invalidated by reloads within a session
+            if (pack.startsWith(FILE_PACK_PREFIX)) {
+                hashPackFiles(hasher, client.getResourcePackDir().resolve(pack.substring(FILE_PACK_PREFIX.length())));
+            }
+        }
+
+        hasher.putInt(Block.STATE_IDS.size());
+        hasher.putInt(options.getAo().getValue() ? 1 : 0);
+        hasher.putInt(options.getBiomeBlendRadius().getValue());
+        hasher.putInt(options.getGraphicsMode().getValue().ordinal());
+        hasher.putInt(SodiumClientMod.options().quality.leavesQuality.ordinal());
+        hasher.putInt(SodiumClientMod.options().performance.useGreedyMeshing ? 1 : 0);
+
+        hasher.putString(vertexType.getClass().getName());
+        hasher.putInt(vertexType.getVertexFormat().getStride());
+
+        var key = hasher.finish();
+
+        return String.format("%016x%016x", key.hi(), key.lo());
+    }
+
+    /**
+     * Adds the size and modification time of the files in a resource pack to the hasher. If the files can't be read, a
+     * random value is added instead, so that a cache which was created with a different version of the pack will never
+     * be used.
+     */
+    private static void hashPackFiles(MeshCacheHasher hasher, Path path) {
+        try {
+            if (Files.isDirectory(path)) {
+                List<Path> files;
+
+                try (Stream<Path> stream = Files.walk(path)) {
+                    files = stream.filter(Files::isRegularFile)
+                            .sorted()
+                            .toList();
+                }
+
+                for (Path file : files) {
+                    hasher.putString(path.relativize(file).toString());
+                    hashFileAttributes(hasher, file);
+                }
+            } else {
+                hashFileAttributes(hasher, path);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            hasher.putLong(ThreadLocalRandom.current().nextLong());
+        }
+    }
+
+    private static void hashFileAttributes(MeshCacheHasher hasher, Path file) throws IOException {
+        hasher.putLong(Files.size(file));
+        hasher.putLong(Files.getLastModifiedTime(file).toMillis());
+    }
+
+    /**
+     * Encodes the output of a build task into a new entry. The caller is responsible for freeing the returned buffer
+     * with {@link MemoryUtil#memFree(java.nio.Buffer)}.
+     */
+    public static ByteBuffer encode(MeshCacheKey key, ChunkBuildOutput output) {
+        var sprites = output.info.animatedSprites;
+        byte[][] spriteNames = encodeSprites(sprites);
+
+        int size = HEADER_SIZE;
+
+        for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
+            var mesh = output.getMesh(pass);
+
+            if (mesh != null) {
+                size += PASS_HEADER_SIZE + mesh.getVertexData().getLength();
+            } else {
+                size += 4;
+            }
+        }
+
+        size += 4;
+
+        for (byte[] name : spriteNames) {
+            size += 2 + name.length;
+        }
+
+        var buffer = MemoryUtil.memAlloc(size)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(ENTRY_MAGIC);
+        buffer.putLong(key.hi());
+        buffer.putLong(key.lo());
+
+        // The checksum is filled in once the rest of the entry has been written
+        int checksumPosition = buffer.position();
+        buffer.putInt(0);
+
+        buffer.putLong(output.info.visibilityData);
+        buffer.putInt(output.info.occluderBounds);
+
+        for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
+            var mesh = output.getMesh(pass);
+
+            if (mesh == null) {
+                buffer.putInt(0);
+                continue;
+            }
+
+            buffer.putInt(mesh.getVertexData().getLength());
+
+            for (VertexRange range : mesh.getVertexRanges()) {
+                buffer.putInt(range != null ? range.vertexStart() : 0);
+                buffer.putInt(range != null ? range.vertexCount() : 0);
+            }
+        }
+
+        buffer.putInt(spriteNames.length);
+
+        for (byte[] name : spriteNames) {
+            buffer.putShort((short) name.length);
+            buffer.put(name);
+        }
+
+        for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
+            var mesh = output.getMesh(pass);
+
+            if (mesh != null) {
+                buffer.put(mesh.getVertexData().getDirectBuffer());
+            }
+        }
+
+        buffer.flip();
+        buffer.putInt(checksumPosition, computeChecksum(buffer, checksumPosition + 4));
+
+        return buffer;
+    }
+
+    /**
+     * Decodes an entry into its meshes, and adds the render passes, animated sprites, and visibility data to the given
+     * render data builder.
+     *
+     * @return The meshes for each render pass, or null if the entry is corrupted
+     */
+    public static @Nullable Map<TerrainRenderPass, BuiltSectionMeshParts> decode(MeshCacheKey key, NativeBuffer entry,
+                                                                                BuiltSectionInfo.Builder renderData,
+                                                                                ChunkVertexType vertexType) {
+        var buffer = entry.getDirectBuffer()
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        var meshes = new Reference2ReferenceOpenHashMap<TerrainRenderPass, BuiltSectionMeshParts>();
+
+        try {
+            if (buffer.getInt() != ENTRY_MAGIC || buffer.getLong() != key.hi() || buffer.getLong() != key.lo()) {
+                return null;
+            }
+
+            int checksum = buffer.getInt();
+
+            if (checksum != computeChecksum(buffer, buffer.position())) {
+                return null;
+            }
+
+            long visibilityData = buffer.getLong();
+            int occluderBounds = buffer.getInt();
+
+            var passes = DefaultTerrainRenderPasses.ALL;
+
+            int[] lengths = new int[passes.length];
+            VertexRange[][] ranges = new VertexRange[passes.length][];
+
+            for (int pass = 0; pass < passes.length; pass++) {
+                lengths[pass] = buffer.getInt();
+
+                if (lengths[pass] < 0) {
+                    return null;
+                }
+
+                if (lengths[pass] == 0) {
+                    continue;
+                }
+
+                ranges[pass] = new VertexRange[ModelQuadFacing.COUNT];
+
+                for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
+                    int start = buffer.getInt();
+                    int count = buffer.getInt();
+
+                    if (count > 0) {
+                        ranges[pass][facing] = new VertexRange(start, count);
+                    }
+                }
+
+                if (!isValidMesh(lengths[pass], ranges[pass], vertexType.getVertexFormat().getStride())) {
+                    return null;
+                }
+            }
+
+            int spriteCount = buffer.getInt();
+
+            if (spriteCount < 0 || spriteCount > buffer.remaining()) {
+                return null;
+            }
+
+            Sprite[] sprites = new Sprite[spriteCount];
+
+            for (int i = 0; i < spriteCount; i++) {
+                sprites[i] = decodeSprite(buffer);
+
+                if (sprites[i] == null) {
+                    return null;
+                }
+            }
+
+            for (int pass = 0; pass < passes.length; pass++) {
+                if (lengths[pass] == 0) {
+                    continue;
+                }
+
+                var data = buffer.slice(buffer.position(), lengths[pass]);
+                buffer.position(buffer.position() + lengths[pass]);
+
+                var mesh = new BuiltSectionMeshParts(NativeBuffer.copy(data), ranges[pass], vertexType);
+
+                meshes.put(passes[pass], mesh);
+                renderData.addRenderPass(passes[pass], mesh);
+            }
+
+            for (Sprite sprite : sprites) {
+                renderData.addSprite(sprite);
+            }
+
+            renderData.setVisibilityData(visibilityData);
+            renderData.setOccluderBounds(occluderBounds);
+        } catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException e) {
+            for (var mesh : meshes.values()) {
+                mesh.getVertexData()
+                        .free();
+            }
+
+            return null;
+        }
+
+        return meshes;
+    }
+
+    /**
+     * Computes the checksum of the bytes in the buffer from the given position to its limit.
+     */
+    static int computeChecksum(ByteBuffer buffer, int position) {
+        var crc = new CRC32C();
+        crc.update(buffer.slice(position, buffer.limit() - position));
+
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Checks that the vertex ranges of a mesh are laid out in the same way as they are by the build buffers, where the
+     * non-empty facings are stored one after another from the start of the vertex data, and together cover all of it.
+     *
+     * @param length The length of the mesh's vertex data in bytes
+     * @param ranges The vertex range of each facing, which is null if the facing is empty
+     * @param stride The size of each vertex in bytes
+     */
+    static boolean isValidMesh(int length, VertexRange[] ranges, int stride) {
+        if (length <= 0 || length % stride != 0) {
+            return false;
+        }
+
+        long vertexCount = 0;
+
+        for (VertexRange range : ranges) {
+            if (range == null) {
+                continue;
+            }
+
+            // Every quad has exactly four vertices, which is relied upon when sorting or measuring the geometry
+            if (range.vertexStart() != vertexCount || range.vertexCount() <= 0 || (range.vertexCount() & 3) != 0) {
+                return false;
+            }
+
+            vertexCount += range.vertexCount();
+        }
+
+        return vertexCount * stride == length;
+    }
+
+    private static byte[][] encodeSprites(Sprite @Nullable[] sprites) {
+        if (sprites == null) {
+            return new byte[0][];
+        }
+
+        byte[][] names = new byte[sprites.length][];
+
+        for (int i = 0; i < sprites.length; i++) {
+            var sprite = sprites[i];
+            var name = sprite.getAtlasId() + " " + sprite.getContents().getId();
+
+            names[i] = name.getBytes(StandardCharsets.UTF_8);
+        }
+
+        return names;
+    }
+
+    private static @Nullable Sprite decodeSprite(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+
+        var name = new String(bytes, StandardCharsets.UTF_8);
+        int separator = name.indexOf(' ');
+
+        if (separator < 0) {
+            return null;
+        }
+
+        var atlasId = Identifier.tryParse(name.substring(0, separator));
+        var spriteId = Identifier.tryParse(name.substring(separator + 1));
+
+        if (atlasId == null || spriteId == null) {
+            return null;
+        }
+
+        return MinecraftClient.getInstance()
+                .getBakedModelManager()
+                .getAtlas(atlasId)
+                .getSprite(spriteId);
+    }
+}
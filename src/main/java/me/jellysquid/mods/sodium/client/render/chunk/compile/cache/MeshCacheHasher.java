@@ -0,0 +1,53 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.cache;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+/**
+ * Computes a {@link MeshCacheKey} from a stream of values. Two independently seeded 64-bit lanes are used so that the
+ * chance of two different inputs producing the same key is negligible, since a collision would result in the wrong
+ * geometry being displayed.
+ *
+ * <p>This is not a cryptographic hash, and only needs to be fast and well-distributed.</p>
+ */
+public class MeshCacheHasher {
+    private static final long PRIME_1 = 0x9E3779B97F4A7C15L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+
+    private long h1 = PRIME_1;
+    private long h2 = PRIME_2;
+
+    private long count;
+
+    public MeshCacheHasher putInt(int value) {
+        return this.putLong(value);
+    }
+
+    public MeshCacheHasher putLong(long value) {
+        long k = HashCommon.murmurHash3(value + PRIME_3);
+
+        this.h1 = (Long.rotateLeft(this.h1 ^ k, 27) * PRIME_1) + PRIME_2;
+        this.h2 = (Long.rotateLeft(this.h2 + (k ^ PRIME_1), 31) * PRIME_2) ^ PRIME_3;
+
+        this.count++;
+
+        return this;
+    }
+
+    public MeshCacheHasher putString(String value) {
+        this.putInt(value.length());
+
+        for (int i = 0; i < value.length(); i++) {
+            this.putInt(value.charAt(i));
+        }
+
+        return this;
+    }
+
+    public MeshCacheKey finish() {
+        long hi = HashCommon.murmurHash3(this.h1 ^ this.count);
+        long lo = HashCommon.murmurHash3(this.h2 + hi);
+
+        return new MeshCacheKey(hi, lo);
+    }
+}
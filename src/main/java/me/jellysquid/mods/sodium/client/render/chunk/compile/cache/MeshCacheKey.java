@@ -0,0 +1,8 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.cache;
+
+/**
+ * A 128-bit hash of all the inputs which were used to build the meshes of a chunk section.
+ */
+public record MeshCacheKey(long hi, long lo) {
+
+}
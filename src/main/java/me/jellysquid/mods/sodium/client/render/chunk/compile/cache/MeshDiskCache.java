@@ -0,0 +1,534 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.cache;
+
+import it.unimi.dsi.fastutil.ints.Int2ReferenceOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ReferenceOpenHashMap;
+import me.jellysquid.mods.sodium.client.util.NativeBuffer;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A persistent cache of built chunk meshes, which is stored on disk as a set of append-only segment files along with an
+ * index of where each entry is located.
+ *
+ * <p>Entries are never modified or removed individually. Instead, once the total size of the cache exceeds its limit,
+ * the least recently used segment is deleted along with every entry it contains. This keeps the on-disk format compact
+ * and avoids the need for any free-space management within the files.</p>
+ *
+ * <p>The index is kept in memory, and is only written to disk when the cache is flushed. If the game exits without
+ * flushing the cache, any segments which were created since the last flush will be deleted the next time the cache is
+ * opened, since they are not known to the index.</p>
+ *
+ * <p>All methods are safe to call from multiple threads at once.</p>
+ */
+public class MeshDiskCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Sodium-MeshDiskCache");
+
+    private static final int INDEX_MAGIC = 0x534D4349; // "SMCI"
+    private static final int INDEX_VERSION = 1;
+
+    private static final String INDEX_FILE_NAME = "index.bin";
+    private static final String SEGMENT_FILE_SUFFIX = ".seg";
+
+    // The size at which a segment is sealed, and a new segment is started for further writes
+    private static final long SEGMENT_SIZE = 32L * 1024L * 1024L;
+
+    private static @Nullable MeshDiskCache INSTANCE;
+
+    private final Path directory;
+    private final String fingerprint;
+
+    private long maxSize;
+
+    private final Object2ReferenceOpenHashMap<MeshCacheKey, Entry> entries = new Object2ReferenceOpenHashMap<>();
+    private final Int2ReferenceOpenHashMap<Segment> segments = new Int2ReferenceOpenHashMap<>();
+
+    private @Nullable Segment currentSegment;
+    private int nextSegmentId;
+
+    private long totalSize;
+    private long clock;
+
+    // Incremented every time the cache is cleared, so that meshes which were built before then are not written back
+    private int generation;
+
+    private boolean closed;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private MeshDiskCache(Path directory, String fingerprint, long maxSize) throws IOException {
+        this.directory = directory;
+        this.fingerprint = fingerprint;
+        this.maxSize = maxSize;
+
+        Files.createDirectories(directory);
+
+        this.readIndex();
+        this.deleteUnknownSegments();
+
+        this.evictSegments();
+    }
+
+    /**
+     * Opens the cache for the given fingerprint, re-using the cache which is already open if it matches. Caches which
+     * were created for any other fingerprint are deleted, since their contents can never be used again.
+     *
+     * @param root The directory which contains the caches for each fingerprint
+     * @param fingerprint A string which uniquely identifies all the global state which affects mesh building
+     * @param maxSize The maximum number of bytes which the cache should occupy on disk
+     * @return The cache, or null if it could not be opened
+     */
+    public static synchronized @Nullable MeshDiskCache open(Path root, String fingerprint, long maxSize) {
+        if (INSTANCE != null) {
+            if (INSTANCE.fingerprint.equals(fingerprint)) {
+                INSTANCE.setMaxSize(maxSize);
+                return INSTANCE;
+            }
+
+            INSTANCE.close();
+            INSTANCE = null;
+        }
+
+        try {
+            deleteOtherCaches(root, fingerprint);
+
+            INSTANCE = new MeshDiskCache(root.resolve(fingerprint), fingerprint, maxSize);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to open mesh cache, chunk meshes will not be cached", e);
+        }
+
+        return INSTANCE;
+    }
+
+    /**
+     * Removes every entry from the cache which is currently open. This must be called whenever any state which affects
+     * mesh building, but which isn't covered by the fingerprint, changes (such as the contents of resource packs).
+     */
+    public static synchronized void invalidateAll() {
+        if (INSTANCE != null) {
+            INSTANCE.clear();
+        }
+    }
+
+    private static void deleteOtherCaches(Path root, String fingerprint) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root)) {
+            for (Path path : stream) {
+                if (Files.isDirectory(path) && !path.getFileName().toString().equals(fingerprint)) {
+                    deleteDirectory(path);
+                }
+            }
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                Files.deleteIfExists(path);
+            }
+        }
+
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Reads the entry for the given key into a new buffer. The caller is responsible for freeing the buffer.
+     * @return The entry's data, or null if the cache does not contain the key
+     */
+    public @Nullable NativeBuffer read(MeshCacheKey key) {
+        Entry entry;
+
+        synchronized (this) {
+            entry = this.closed ? null : this.entries.get(key);
+
+            if (entry == null) {
+                this.misses.incrementAndGet();
+                return null;
+            }
+
+            entry.segment.lastAccess = ++this.clock;
+        }
+
+        var buffer = new NativeBuffer(entry.length);
+
+        try {
+            var dst = buffer.getDirectBuffer();
+            long position = entry.offset;
+
+            while (dst.hasRemaining()) {
+                int read = entry.segment.channel.read(dst, position);
+
+                if (read < 0) {
+                    throw new EOFException("Unexpected end of segment file");
+                }
+
+                position += read;
+            }
+        } catch (IOException e) {
+            // The segment may have been evicted while it was being read from, which is not an error
+            buffer.free();
+
+            synchronized (this) {
+                this.entries.remove(key, entry);
+            }
+
+            this.misses.incrementAndGet();
+
+            return null;
+        }
+
+        this.hits.incrementAndGet();
+
+        return buffer;
+    }
+
+    /**
+     * Writes an entry for the given key, if the cache does not contain it already.
+     * @param generation The generation of the cache at the time the mesh started being built
+     */
+    public void write(MeshCacheKey key, ByteBuffer data, int generation) {
+        Segment segment;
+        long offset;
+
+        int length = data.remaining();
+
+        synchronized (this) {
+            if (this.closed || this.generation != generation || this.entries.containsKey(key)) {
+                return;
+            }
+
+            try {
+                segment = this.getWritableSegment(length);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to create mesh cache segment", e);
+                return;
+            }
+
+            offset = segment.size;
+
+            segment.size += length;
+            segment.lastAccess = ++this.clock;
+
+            this.totalSize += length;
+        }
+
+        try {
+            long position = offset;
+
+            while (data.hasRemaining()) {
+                position += segment.channel.write(data, position);
+            }
+        } catch (IOException e) {
+            // The space which was reserved for the entry is wasted, but will be reclaimed when the segment is evicted
+            return;
+        }
+
+        synchronized (this) {
+            // The segment may have been evicted or cleared while the entry was being written
+            if (this.segments.get(segment.id) != segment) {
+                return;
+            }
+
+            this.entries.put(key, new Entry(segment, offset, length));
+            this.evictSegments();
+        }
+    }
+
+    private Segment getWritableSegment(int length) throws IOException {
+        var segment = this.currentSegment;
+
+        if (segment == null || (segment.size > 0 && segment.size + length > SEGMENT_SIZE)) {
+            int id = this.nextSegmentId++;
+
+            var path = this.getSegmentPath(id);
+            var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            segment = new Segment(id, path, channel, 0L);
+
+            this.segments.put(id, segment);
+            this.currentSegment = segment;
+        }
+
+        return segment;
+    }
+
+    private void evictSegments() {
+        while (this.totalSize > this.maxSize && this.segments.size() > 1) {
+            Segment victim = null;
+
+            for (var segment : this.segments.values()) {
+                if (segment != this.currentSegment && (victim == null || segment.lastAccess < victim.lastAccess)) {
+                    victim = segment;
+                }
+            }
+
+            if (victim == null) {
+                break;
+            }
+
+            this.deleteSegment(victim);
+        }
+    }
+
+    private void deleteSegment(Segment segment) {
+        final var victim = segment;
+
+        this.entries.values().removeIf(entry -> entry.segment == victim);
+        this.segments.remove(segment.id);
+
+        if (this.currentSegment == segment) {
+            this.currentSegment = null;
+        }
+
+        this.totalSize -= segment.size;
+
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete mesh cache segment {}", segment.path, e);
+        }
+    }
+
+    private synchronized void clear() {
+        for (var segment : this.segments.values().toArray(Segment[]::new)) {
+            this.deleteSegment(segment);
+        }
+
+        this.entries.clear();
+        this.totalSize = 0L;
+
+        this.generation++;
+    }
+
+    private synchronized void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+        this.evictSegments();
+    }
+
+    /**
+     * Writes the index to disk, so that the entries which have been written so far can be used after the game restarts.
+     */
+    public synchronized void flush() {
+        if (this.closed) {
+            return;
+        }
+
+        try {
+            this.writeIndex();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write mesh cache index", e);
+        }
+    }
+
+    private synchronized void close() {
+        this.flush();
+
+        for (var segment : this.segments.values()) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to close mesh cache segment {}", segment.path, e);
+            }
+        }
+
+        this.entries.clear();
+        this.segments.clear();
+
+        this.currentSegment = null;
+        this.closed = true;
+    }
+
+    private void writeIndex() throws IOException {
+        var path = this.directory.resolve(INDEX_FILE_NAME);
+        var tempPath = path.resolveSibling(INDEX_FILE_NAME + ".tmp");
+
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+
+            out.writeInt(this.nextSegmentId);
+            out.writeLong(this.clock);
+
+            out.writeInt(this.segments.size());
+
+            for (var segment : this.segments.values()) {
+                out.writeInt(segment.id);
+                out.writeLong(segment.size);
+                out.writeLong(segment.lastAccess);
+            }
+
+            out.writeInt(this.entries.size());
+
+            for (var it : this.entries.object2ReferenceEntrySet()) {
+                var key = it.getKey();
+                var entry = it.getValue();
+
+                out.writeLong(key.hi());
+                out.writeLong(key.lo());
+                out.writeInt(entry.segment.id);
+                out.writeLong(entry.offset);
+                out.writeInt(entry.length);
+            }
+        }
+
+        Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void readIndex() throws IOException {
+        var path = this.directory.resolve(INDEX_FILE_NAME);
+
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                throw new IOException("Unrecognized index format");
+            }
+
+            this.nextSegmentId = in.readInt();
+            this.clock = in.readLong();
+
+            int segmentCount = in.readInt();
+
+            for (int i = 0; i < segmentCount; i++) {
+                int id = in.readInt();
+                long size = in.readLong();
+                long lastAccess = in.readLong();
+
+                var segmentPath = this.getSegmentPath(id);
+
+                // Segments which are missing or have been truncated can't be used, so their entries are dropped
+                if (!Files.exists(segmentPath) || Files.size(segmentPath) < size) {
+                    continue;
+                }
+
+                var channel = FileChannel.open(segmentPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+                var segment = new Segment(id, segmentPath, channel, size);
+                segment.lastAccess = lastAccess;
+
+                this.segments.put(id, segment);
+                this.totalSize += size;
+            }
+
+            int entryCount = in.readInt();
+
+            for (int i = 0; i < entryCount; i++) {
+                var key = new MeshCacheKey(in.readLong(), in.readLong());
+
+                int segmentId = in.readInt();
+                long offset = in.readLong();
+                int length = in.readInt();
+
+                var segment = this.segments.get(segmentId);
+
+                if (segment != null) {
+                    this.entries.put(key, new Entry(segment, offset, length));
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Mesh cache index is corrupted, the cache will be cleared", e);
+
+            for (var segment : this.segments.values()) {
+                segment.channel.close();
+            }
+
+            this.entries.clear();
+            this.segments.clear();
+
+            this.totalSize = 0L;
+        }
+    }
+
+    private void deleteUnknownSegments() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "*" + SEGMENT_FILE_SUFFIX)) {
+            for (Path path : stream) {
+                boolean known = false;
+
+                for (var segment : this.segments.values()) {
+                    if (segment.path.equals(path)) {
+                        known = true;
+                        break;
+                    }
+                }
+
+                if (!known) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+
+        for (var segment : this.segments.values()) {
+            this.nextSegmentId = Math.max(this.nextSegmentId, segment.id + 1);
+        }
+    }
+
+    private Path getSegmentPath(int id) {
+        return this.directory.resolve(String.format("%08x%s", id, SEGMENT_FILE_SUFFIX));
+    }
+
+    /**
+     * Returns the current generation of the cache, which must be passed to {@link MeshDiskCache#write(MeshCacheKey, ByteBuffer, int)}.
+     */
+    public synchronized int getGeneration() {
+        return this.generation;
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    public synchronized long getTotalSize() {
+        return this.totalSize;
+    }
+
+    public synchronized int getEntryCount() {
+        return this.entries.size();
+    }
+
+    private record Entry(Segment segment, long offset, int length) {
+
+    }
+
+    private static class Segment {
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+
+        private long size;
+        private long lastAccess;
+
+        private Segment(int id, Path path, FileChannel channel, long size) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.executor;
+
+/**
+ * A histogram of chunk build durations, using buckets which double in size. This is only accessed from the main
+ * thread.
+ */
+public class BuildTimeHistogram {
+    // The upper bound of the first bucket, every bucket after it covers twice the range of the previous one
+    private static final long FIRST_BUCKET_NANOS = 62_500L; // 62.5 µs
+    private static final int BUCKET_COUNT = 12; // the last bucket holds everything above ~128 ms
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long count;
+
+    public void add(long durationNanos) {
+        this.buckets[getBucket(durationNanos)]++;
+        this.count++;
+    }
+
+    private static int getBucket(long durationNanos) {
+        long units = Math.max(0L, durationNanos - 1) / FIRST_BUCKET_NANOS;
+        int bucket = 64 - Long.numberOfLeadingZeros(units);
+
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * @param percentile The percentile to find, between 0.0 and 1.0
+     * @return The upper bound (in nanoseconds) of the bucket which contains the given percentile, or 0 if no durations
+     * have been recorded
+     */
+    public long getPercentile(double percentile) {
+        if (this.count == 0) {
+            return 0L;
+        }
+
+        long target = (long) Math.ceil(this.count * percentile);
+        long total = 0;
+
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            total += this.buckets[bucket];
+
+            if (total >= target) {
+                return FIRST_BUCKET_NANOS << bucket;
+            }
+        }
+
+        return FIRST_BUCKET_NANOS << (BUCKET_COUNT - 1);
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("P50=%.2fms | P90=%.2fms | P99=%.2fms | N=%d",
+                toMillis(this.getPercentile(0.50)), toMillis(this.getPercentile(0.90)), toMillis(this.getPercentile(0.99)),
+                this.count);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,128 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.executor;
+
+import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
+
+/**
+ * Estimates how long it will take to build each section, so that the number of build tasks which are submitted each
+ * frame can be limited by the amount of work they represent rather than by their count. A section which is mostly air
+ * is far cheaper to build than one which is full of foliage, and treating them the same causes frame-time spikes when
+ * the main thread has to wait for a batch of expensive sections.
+ *
+ * <p>Sections which have been meshed before are estimated using the duration of their last build. Otherwise, the
+ * estimate comes from a linear model of build time against the number of quads in the section's last meshes (such as
+ * for sections which were loaded from the mesh cache), or from the average build time if nothing is known about the
+ * section. The model is fitted with exponentially weighted statistics, so it follows changes in the load on the
+ * system and in the content of the world.</p>
+ *
+ * <p>This is only accessed from the main thread.</p>
+ */
+public class ChunkBuildCostModel {
+    // The estimate which is used before any builds have been measured
+    private static final double DEFAULT_BUILD_COST = 1_000_000.0; // 1 ms
+
+    // The weight of each new sample in the running statistics
+    private static final double SMOOTHING_FACTOR = 0.02;
+
+    // The amount of work which the main thread will wait on each frame for blocking rebuilds, per thread which can
+    // execute them (including the main thread itself)
+    private static final long BLOCKING_BUDGET_PER_THREAD = 2_000_000L; // 2 ms
+
+    // The amount of work which is kept queued for each worker thread
+    private static final long DEFERRED_BUDGET_PER_THREAD = 8_000_000L; // 8 ms
+
+    private final BuildTimeHistogram histogram = new BuildTimeHistogram();
+
+    // Running means of the quad count (x) and build duration (y) of each build, and of their products
+    private double meanQuads = 0.0;
+    private double meanCost = DEFAULT_BUILD_COST;
+    private double meanQuadsSquared = 0.0;
+    private double meanQuadsCost = 0.0;
+
+    /**
+     * Records the measured duration of a build, which is used for the section's next estimate and to update the model.
+     *
+     * @param durationNanos The time spent meshing the section, or a negative value if the section was not meshed
+     *                      (such as when it was loaded from the mesh cache)
+     * @param quadCount The total number of quads in the meshes which were built
+     */
+    public void addSample(RenderSection section, long durationNanos, int quadCount) {
+        section.setLastBuildQuadCount(quadCount);
+
+        if (durationNanos < 0) {
+            return;
+        }
+
+        section.setLastBuildDuration(durationNanos);
+
+        this.histogram.add(durationNanos);
+
+        double a = SMOOTHING_FACTOR;
+
+        this.meanQuads += a * (quadCount - this.meanQuads);
+        this.meanCost += a * (durationNanos - this.meanCost);
+        this.meanQuadsSquared += a * (((double) quadCount * quadCount) - this.meanQuadsSquared);
+        this.meanQuadsCost += a * (((double) quadCount * durationNanos) - this.meanQuadsCost);
+    }
+
+    /**
+     * @return The estimated time (in nanoseconds) which it will take to build the section
+     */
+    public long estimate(RenderSection section) {
+        long duration = section.getLastBuildDuration();
+
+        if (duration >= 0) {
+            return duration;
+        }
+
+        int quadCount = section.getLastBuildQuadCount();
+
+        if (quadCount >= 0) {
+            return (long) (this.getBaseCost() + (this.getCostPerQuad() * quadCount));
+        }
+
+        return (long) this.meanCost;
+    }
+
+    private double getCostPerQuad() {
+        double variance = this.meanQuadsSquared - (this.meanQuads * this.meanQuads);
+
+        if (variance <= 1.0) {
+            return 0.0;
+        }
+
+        double covariance = this.meanQuadsCost - (this.meanQuads * this.meanCost);
+
+        return Math.max(0.0, covariance / variance);
+    }
+
+    private double getBaseCost() {
+        return Math.max(0.0, this.meanCost - (this.getCostPerQuad() * this.meanQuads));
+    }
+
+    /**
+     * @param threadCount The number of worker threads
+     * @return The amount of work (in nanoseconds) which can be submitted for blocking rebuilds this frame
+     */
+    public long getBlockingBudget(int threadCount) {
+        return BLOCKING_BUDGET_PER_THREAD * (threadCount + 1);
+    }
+
+    /**
+     * @param threadCount The number of worker threads
+     * @param queuedJobCount The number of jobs which are still waiting to be executed
+     * @return The amount of work (in nanoseconds) which can be submitted for deferred rebuilds this frame
+     */
+    public long getDeferredBudget(int threadCount, int queuedJobCount) {
+        return Math.max(0L, (DEFERRED_BUDGET_PER_THREAD * threadCount) - (long) (queuedJobCount * this.meanCost));
+    }
+
+    public BuildTimeHistogram getHistogram() {
+        return this.histogram;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.2fms + %.2fµs/quad (Mean=%.2fms)",
+                this.getBaseCost() / 1_000_000.0, this.getCostPerQuad() / 1_000.0, this.meanCost / 1_000_000.0);
+    }
+}
@@ -20,7 +20,12 @@ import java.util.function.Consumer;
 public class ChunkBuilder {
     static final Logger LOGGER = LogManager.getLogger("ChunkBuilder");
 
-    private final ChunkJobQueue queue = new ChunkJobQueue();
+    // The distance (in blocks) which the camera must move before the jobs which are still waiting are re-ordered.
+    // Re-ordering locks every worker queue, and the order of jobs rarely changes until the camera crosses into
+    // another section.
+    private static final float REORDER_DISTANCE = 8.0f;
+
+    private final ChunkJobQueue queue;
 
     private final List<Thread> threads = new ArrayList<>();
 
@@ -28,12 +33,21 @@ public class ChunkBuilder {
 
     private final ChunkBuildContext localContext;
 
+    // The camera state which is used to prioritize newly scheduled jobs
+    private float cameraX, cameraY, cameraZ;
+    private int frame;
+
+    // The camera position at which the waiting jobs were last re-ordered
+    private float reorderX = Float.NaN, reorderY = Float.NaN, reorderZ = Float.NaN;
+
     public ChunkBuilder(ClientWorld world, ChunkVertexType vertexType) {
         int count = getThreadCount();
 
+        this.queue = new ChunkJobQueue(count);
+
         for (int i = 0; i < count; i++) {
             ChunkBuildContext context = new ChunkBuildContext(world, vertexType);
-            WorkerRunnable worker = new WorkerRunnable(context);
+            WorkerRunnable worker = new WorkerRunnable(context, i);
 
             Thread thread = new Thread(worker, "Chunk Render Task Executor #" + i);
             thread.setPriority(Math.max(0, Thread.NORM_PRIORITY - 2));
@@ -76,6 +90,8 @@ public class ChunkBuilder {
         }
 
         this.shutdownThreads();
+
+        this.localContext.destroy();
     }
 
     private void shutdownThreads() {
@@ -91,7 +107,7 @@ public class ChunkBuilder {
         this.threads.clear();
     }
 
-    public <TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT> ChunkJobTyped<TASK, OUTPUT> scheduleTask(TASK task, boolean important,
+    public <TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT> ChunkJobTyped<TASK, OUTPUT> scheduleTask(TASK task,
                                                                                                     Consumer<ChunkJobResult<OUTPUT>> consumer)
     {
         Validate.notNull(task, "Task must be non-null");
@@ -101,12 +117,40 @@ public class ChunkBuilder {
         }
 
         var job = new ChunkJobTyped<>(task, consumer);
+        job.updatePriority(this.cameraX, this.cameraY, this.cameraZ, this.frame);
 
-        this.queue.add(job, important);
+        this.queue.add(job);
 
         return job;
     }
 
+    /**
+     * Updates the camera state used for prioritizing jobs, so that the worker threads pick up the sections which are
+     * closest to (and visible from) the camera first. The jobs which are still waiting to be executed are only
+     * re-ordered once the camera has moved further than {@link #REORDER_DISTANCE} since they were last re-ordered,
+     * and otherwise keep the priority they were given for an earlier frame. This must only be called from the main
+     * thread.
+     */
+    public void updatePriorities(float cameraX, float cameraY, float cameraZ, int frame) {
+        this.cameraX = cameraX;
+        this.cameraY = cameraY;
+        this.cameraZ = cameraZ;
+        this.frame = frame;
+
+        float dx = cameraX - this.reorderX;
+        float dy = cameraY - this.reorderY;
+        float dz = cameraZ - this.reorderZ;
+
+        // The comparison is written so that it also passes when no re-ordering has happened yet (NaN)
+        if (!((dx * dx) + (dy * dy) + (dz * dz) < REORDER_DISTANCE * REORDER_DISTANCE)) {
+            this.reorderX = cameraX;
+            this.reorderY = cameraY;
+            this.reorderZ = cameraZ;
+
+            this.queue.updatePriorities(cameraX, cameraY, cameraZ, frame);
+        }
+    }
+
     /**
      * Returns the "optimal" number of threads to be used for chunk build tasks. This will always return at least one
      * thread.
@@ -159,18 +203,30 @@ public class ChunkBuilder {
         // caches between different CPU cores
         private final ChunkBuildContext context;
 
-        public WorkerRunnable(ChunkBuildContext context) {
+        // The index of the job queue owned by this worker
+        private final int index;
+
+        public WorkerRunnable(ChunkBuildContext context, int index) {
             this.context = context;
+            this.index = index;
         }
 
         @Override
         public void run() {
+            try {
+                this.runJobs();
+            } finally {
+                this.context.destroy();
+            }
+        }
+
+        private void runJobs() {
             // Run until the chunk builder shuts down
             while (ChunkBuilder.this.queue.isRunning()) {
                 ChunkJob job;
 
                 try {
-                    job = ChunkBuilder.this.queue.waitForNextJob();
+                    job = ChunkBuilder.this.queue.waitForNextJob(this.index);
                 } catch (InterruptedException ignored) {
                     continue;
                 }
@@ -7,4 +7,14 @@ public interface ChunkJob extends CancellationToken {
     void execute(ChunkBuildContext context);
 
     boolean isStarted();
+
+    /**
+     * Returns the last computed scheduling priority of this job. Jobs with a lower value are executed first.
+     */
+    float getPriority();
+
+    /**
+     * Re-computes the scheduling priority of this job for the given camera position and frame.
+     */
+    void updatePriority(float cameraX, float cameraY, float cameraZ, int frame);
 }
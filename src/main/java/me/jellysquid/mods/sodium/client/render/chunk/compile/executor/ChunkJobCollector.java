@@ -12,9 +12,11 @@ public class ChunkJobCollector {
     private final Consumer<ChunkJobResult<ChunkBuildOutput>> collector;
     private final List<ChunkJob> submitted = new ArrayList<>();
 
-    private final int budget;
+    // The estimated cost (in nanoseconds) of the jobs which can be submitted to this collector
+    private final long budget;
+    private long submittedCost;
 
-    public ChunkJobCollector(int budget, Consumer<ChunkJobResult<ChunkBuildOutput>> collector) {
+    public ChunkJobCollector(long budget, Consumer<ChunkJobResult<ChunkBuildOutput>> collector) {
         this.budget = budget;
         this.collector = collector;
     }
@@ -40,11 +42,12 @@ public class ChunkJobCollector {
         this.semaphore.acquireUninterruptibly(this.submitted.size());
     }
 
-    public void addSubmittedJob(ChunkJob job) {
+    public void addSubmittedJob(ChunkJob job, long estimatedCost) {
         this.submitted.add(job);
+        this.submittedCost += estimatedCost;
     }
 
     public boolean canOffer() {
-        return (this.budget - this.submitted.size()) > 0;
+        return this.submittedCost < this.budget;
     }
 }
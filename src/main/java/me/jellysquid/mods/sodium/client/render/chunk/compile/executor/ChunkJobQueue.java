@@ -4,65 +4,165 @@ import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.Comparator;
+import java.util.PriorityQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * A work-stealing job queue. Each worker thread owns a priority queue which jobs are distributed into. When a worker
+ * takes a job, it compares the most urgent job in its own queue against the most urgent jobs in the queues of other
+ * workers, and steals from another queue only if that queue holds a more urgent job. This keeps jobs executing in
+ * roughly the same order as they would from a single shared queue, while spreading the contention which would
+ * otherwise occur on that queue when many worker threads are active.
+ *
+ * <p>The order is only approximate, since queues which are locked by another thread are skipped while looking for
+ * a job to steal, and the most urgent job in a queue may be taken by another worker before it can be stolen.</p>
+ *
+ * <p>The total number of jobs across all queues is tracked by a semaphore, so that each permit acquired from it is
+ * guaranteed to correspond to exactly one job which can be taken from one of the queues.</p>
+ */
 class ChunkJobQueue {
-    private final ConcurrentLinkedDeque<ChunkJob> jobs = new ConcurrentLinkedDeque<>();
+    private static final Comparator<ChunkJob> PRIORITY_ORDER = Comparator.comparingDouble(ChunkJob::getPriority);
+
+    private final WorkerQueue[] queues;
 
     private final Semaphore semaphore = new Semaphore(0);
 
     private final AtomicBoolean isRunning = new AtomicBoolean(true);
 
+    private final AtomicInteger nextQueue = new AtomicInteger();
+
+    ChunkJobQueue(int workerCount) {
+        this.queues = new WorkerQueue[Math.max(1, workerCount)];
+
+        for (int i = 0; i < this.queues.length; i++) {
+            this.queues[i] = new WorkerQueue();
+        }
+    }
+
     public boolean isRunning() {
         return this.isRunning.get();
     }
 
-    public void add(ChunkJob job, boolean important) {
+    public void add(ChunkJob job) {
         Validate.isTrue(this.isRunning(), "Queue is no longer running");
 
-        if (important) {
-            this.jobs.addFirst(job);
-        } else {
-            this.jobs.addLast(job);
-        }
+        // Distribute jobs across all worker queues so that they are picked up in parallel without contention
+        var queue = this.queues[Math.floorMod(this.nextQueue.getAndIncrement(), this.queues.length)];
+        queue.add(job);
 
         this.semaphore.release(1);
     }
 
     @Nullable
-    public ChunkJob waitForNextJob() throws InterruptedException {
+    public ChunkJob waitForNextJob(int workerIndex) throws InterruptedException {
         if (!this.isRunning()) {
             return null;
         }
 
         this.semaphore.acquire();
 
-        return this.getNextTask();
+        if (!this.isRunning()) {
+            return null;
+        }
+
+        return this.takeReservedJob(workerIndex);
     }
 
-    public boolean stealJob(ChunkJob job) {
-        if (!this.semaphore.tryAcquire()) {
-            return false;
+    /**
+     * Takes a job after a permit has been acquired from the semaphore. Since every permit corresponds to a job which
+     * has already been placed into one of the queues, this will always find a job eventually, even if other workers
+     * are stealing from the same queues concurrently.
+     */
+    private ChunkJob takeReservedJob(int workerIndex) {
+        var local = this.queues[workerIndex % this.queues.length];
+
+        while (true) {
+            var victim = this.findVictim(workerIndex, local.peekPriority());
+            ChunkJob job = null;
+
+            if (victim != null) {
+                job = victim.poll();
+            }
+
+            if (job == null) {
+                job = local.poll();
+            }
+
+            if (job != null) {
+                return job;
+            }
+
+            // The job may have been taken from the local queue by another worker, so look for it again
+            job = this.steal(workerIndex);
+
+            if (job != null) {
+                return job;
+            }
+
+            Thread.onSpinWait();
         }
+    }
 
-        var success = this.jobs.remove(job);
+    /**
+     * Finds the queue of another worker which holds the most urgent job, if that job is more urgent than the given
+     * priority. Jobs with equal priority are taken from the local queue, as it's less likely to be contended.
+     */
+    @Nullable
+    private WorkerQueue findVictim(int workerIndex, float localPriority) {
+        WorkerQueue victim = null;
+        float victimPriority = localPriority;
 
-        if (!success) {
-            // If we didn't manage to actually steal the task, then we need to release the permit which we did steal
-            this.semaphore.release(1);
+        for (int offset = 1; offset < this.queues.length; offset++) {
+            var queue = this.queues[(workerIndex + offset) % this.queues.length];
+            var priority = queue.tryPeekPriority();
+
+            if (priority < victimPriority) {
+                victim = queue;
+                victimPriority = priority;
+            }
         }
 
-        return success;
+        return victim;
     }
 
     @Nullable
-    private ChunkJob getNextTask() {
-        return this.jobs.poll();
+    private ChunkJob steal(int workerIndex) {
+        var victim = this.findVictim(workerIndex, Float.POSITIVE_INFINITY);
+
+        return victim != null ? victim.poll() : null;
+    }
+
+    public boolean stealJob(ChunkJob job) {
+        if (!this.semaphore.tryAcquire()) {
+            return false;
+        }
+
+        for (var queue : this.queues) {
+            if (queue.remove(job)) {
+                return true;
+            }
+        }
+
+        // If we didn't manage to actually steal the task, then we need to release the permit which we did steal
+        this.semaphore.release(1);
+
+        return false;
     }
 
+    /**
+     * Re-computes the priority of every job which is still waiting in the queues, and re-orders them accordingly.
+     */
+    public void updatePriorities(float cameraX, float cameraY, float cameraZ, int frame) {
+        for (var queue : this.queues) {
+            queue.updatePriorities(cameraX, cameraY, cameraZ, frame);
+        }
+    }
 
     public Collection<ChunkJob> shutdown() {
         var list = new ArrayDeque<ChunkJob>();
@@ -70,15 +170,18 @@ class ChunkJobQueue {
         this.isRunning.set(false);
 
         while (this.semaphore.tryAcquire()) {
-            var task = this.jobs.poll();
+            for (var queue : this.queues) {
+                var task = queue.poll();
 
-            if (task != null) {
-                list.add(task);
+                if (task != null) {
+                    list.add(task);
+                    break;
+                }
             }
         }
 
         // force the worker threads to wake up and exit
-        this.semaphore.release(Runtime.getRuntime().availableProcessors());
+        this.semaphore.release(Math.max(this.queues.length, Runtime.getRuntime().availableProcessors()));
 
         return list;
     }
@@ -90,4 +193,90 @@ class ChunkJobQueue {
     public boolean isEmpty() {
         return this.size() == 0;
     }
+
+    private static class WorkerQueue {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final PriorityQueue<ChunkJob> jobs = new PriorityQueue<>(PRIORITY_ORDER);
+
+        public void add(ChunkJob job) {
+            this.lock.lock();
+
+            try {
+                this.jobs.add(job);
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        @Nullable
+        public ChunkJob poll() {
+            this.lock.lock();
+
+            try {
+                return this.jobs.poll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        public float peekPriority() {
+            this.lock.lock();
+
+            try {
+                return this.getTopPriority();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        public float tryPeekPriority() {
+            // Don't wait on queues which are busy, as another thread is already working with them
+            if (!this.lock.tryLock()) {
+                return Float.POSITIVE_INFINITY;
+            }
+
+            try {
+                return this.getTopPriority();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private float getTopPriority() {
+            var job = this.jobs.peek();
+            return job != null ? job.getPriority() : Float.POSITIVE_INFINITY;
+        }
+
+        public boolean remove(ChunkJob job) {
+            this.lock.lock();
+
+            try {
+                return this.jobs.remove(job);
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        public void updatePriorities(float cameraX, float cameraY, float cameraZ, int frame) {
+            this.lock.lock();
+
+            try {
+                if (this.jobs.isEmpty()) {
+                    return;
+                }
+
+                // The heap must be rebuilt after the priorities change, since its ordering would otherwise be invalid
+                var jobs = new ArrayList<>(this.jobs);
+                this.jobs.clear();
+
+                for (var job : jobs) {
+                    job.updatePriority(cameraX, cameraY, cameraZ, frame);
+                }
+
+                this.jobs.addAll(jobs);
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
 }
@@ -14,6 +14,8 @@ public class ChunkJobTyped<TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT>
     private volatile boolean cancelled;
     private volatile boolean started;
 
+    private float priority;
+
     ChunkJobTyped(TASK task, Consumer<ChunkJobResult<OUTPUT>> consumer) {
         this.task = task;
         this.consumer = consumer;
@@ -65,4 +67,14 @@ public class ChunkJobTyped<TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT>
     public boolean isStarted() {
         return this.started;
     }
+
+    @Override
+    public float getPriority() {
+        return this.priority;
+    }
+
+    @Override
+    public void updatePriority(float cameraX, float cameraY, float cameraZ, int frame) {
+        this.priority = this.task.getPriority(cameraX, cameraY, cameraZ, frame);
+    }
 }
@@ -0,0 +1,65 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.incremental;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An axis-aligned box of blocks (in local section coordinates, with inclusive bounds) which have changed since a
+ * chunk section was last meshed.
+ */
+public record DirtyBlockRegion(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+    private static final int MAX_COORD = 15;
+
+    /**
+     * Returns the part of the given world-space block area (with inclusive bounds) which lies within the chunk section
+     * at the given coordinates, or null if they do not intersect.
+     */
+    public static @Nullable DirtyBlockRegion clip(int sectionX, int sectionY, int sectionZ,
+                                                 int minX, int minY, int minZ,
+                                                 int maxX, int maxY, int maxZ) {
+        int originX = sectionX << 4;
+        int originY = sectionY << 4;
+        int originZ = sectionZ << 4;
+
+        int x0 = Math.max(minX - originX, 0), x1 = Math.min(maxX - originX, MAX_COORD);
+        int y0 = Math.max(minY - originY, 0), y1 = Math.min(maxY - originY, MAX_COORD);
+        int z0 = Math.max(minZ - originZ, 0), z1 = Math.min(maxZ - originZ, MAX_COORD);
+
+        if (x0 > x1 || y0 > y1 || z0 > z1) {
+            return null;
+        }
+
+        return new DirtyBlockRegion(x0, y0, z0, x1, y1, z1);
+    }
+
+    public DirtyBlockRegion union(DirtyBlockRegion other) {
+        return new DirtyBlockRegion(
+                Math.min(this.minX, other.minX), Math.min(this.minY, other.minY), Math.min(this.minZ, other.minZ),
+                Math.max(this.maxX, other.maxX), Math.max(this.maxY, other.maxY), Math.max(this.maxZ, other.maxZ));
+    }
+
+    /**
+     * Grows the region by the given number of blocks on every side, without extending it past the section's bounds.
+     */
+    public DirtyBlockRegion expand(int radius) {
+        return new DirtyBlockRegion(
+                Math.max(this.minX - radius, 0), Math.max(this.minY - radius, 0), Math.max(this.minZ - radius, 0),
+                Math.min(this.maxX + radius, MAX_COORD), Math.min(this.maxY + radius, MAX_COORD), Math.min(this.maxZ + radius, MAX_COORD));
+    }
+
+    public int getVolume() {
+        return (this.maxX - this.minX + 1) * (this.maxY - this.minY + 1) * (this.maxZ - this.minZ + 1);
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return x >= this.minX && x <= this.maxX &&
+                y >= this.minY && y <= this.maxY &&
+                z >= this.minZ && z <= this.maxZ;
+    }
+
+    /**
+     * @param index The local block index, as given by {@link me.jellysquid.mods.sodium.client.world.WorldSlice#getLocalBlockIndex(int, int, int)}
+     */
+    public boolean containsBlock(int index) {
+        return this.contains(index & 15, (index >> 8) & 15, (index >> 4) & 15);
+    }
+}
@@ -0,0 +1,89 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.incremental;
+
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.DefaultTerrainRenderPasses;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.client.texture.Sprite;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A copy of the geometry which was produced by the last build of a chunk section, along with enough bookkeeping about
+ * which block produced each range of vertices that the section can later be re-meshed by only rendering the blocks
+ * which have changed, and copying the vertices of every other block.
+ *
+ * <p>The vertex data is kept on the Java heap rather than in native memory, since a record may still be referenced by
+ * a build task which is cancelled or discarded at any point. Records are never modified after creation, and so they
+ * can be shared freely between the main thread and the worker threads.</p>
+ */
+public class SectionMeshRecord {
+    /**
+     * The number of vertex buffers which are recorded for each section, one for each render pass and quad facing.
+     */
+    public static final int BUFFER_COUNT = DefaultTerrainRenderPasses.ALL.length * ModelQuadFacing.COUNT;
+
+    // Each block range is packed into an integer, with the local block index in the upper bits
+    private static final int VERTEX_COUNT_BITS = 20;
+    private static final int VERTEX_COUNT_MASK = (1 << VERTEX_COUNT_BITS) - 1;
+
+    static final int MAX_VERTEX_COUNT = VERTEX_COUNT_MASK;
+
+    private final byte[][] vertexData;
+    private final int[][] blockRanges;
+
+    private final long[] opaqueBlocks;
+    private final RecordedBlockEntity[] blockEntities;
+    private final Sprite @Nullable[] animatedSprites;
+
+    SectionMeshRecord(byte[][] vertexData, int[][] blockRanges, long[] opaqueBlocks,
+                      RecordedBlockEntity[] blockEntities, Sprite @Nullable[] animatedSprites) {
+        this.vertexData = vertexData;
+        this.blockRanges = blockRanges;
+        this.opaqueBlocks = opaqueBlocks;
+        this.blockEntities = blockEntities;
+        this.animatedSprites = animatedSprites;
+    }
+
+    public static int getBufferIndex(int pass, int facing) {
+        return (pass * ModelQuadFacing.COUNT) + facing;
+    }
+
+    static int packRange(int blockIndex, int vertexCount) {
+        return (blockIndex << VERTEX_COUNT_BITS) | vertexCount;
+    }
+
+    static int unpackBlockIndex(int range) {
+        return range >>> VERTEX_COUNT_BITS;
+    }
+
+    static int unpackVertexCount(int range) {
+        return range & VERTEX_COUNT_MASK;
+    }
+
+    byte @Nullable[] getVertexData(int buffer) {
+        return this.vertexData[buffer];
+    }
+
+    int[] getBlockRanges(int buffer) {
+        return this.blockRanges[buffer];
+    }
+
+    public boolean isOpaque(int blockIndex) {
+        return (this.opaqueBlocks[blockIndex >> 6] & (1L << (blockIndex & 63))) != 0;
+    }
+
+    public RecordedBlockEntity[] getBlockEntities() {
+        return this.blockEntities;
+    }
+
+    public Sprite @Nullable[] getAnimatedSprites() {
+        return this.animatedSprites;
+    }
+
+    /**
+     * @param blockIndex The local index of the block which the block entity belongs to
+     * @param culled True if the block entity can be culled to the section's volume, otherwise false
+     */
+    public record RecordedBlockEntity(int blockIndex, BlockEntity entity, boolean culled) {
+
+    }
+}
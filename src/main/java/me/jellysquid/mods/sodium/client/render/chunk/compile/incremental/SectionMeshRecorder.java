@@ -0,0 +1,156 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.incremental;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildBuffers;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.DefaultTerrainRenderPasses;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.builder.ChunkMeshBufferBuilder;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.client.texture.Sprite;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks which block produced each range of vertices while a chunk section is being meshed, so that a
+ * {@link SectionMeshRecord} can be created from the finished build.
+ */
+public class SectionMeshRecorder {
+    private final ChunkMeshBufferBuilder[] buffers = new ChunkMeshBufferBuilder[SectionMeshRecord.BUFFER_COUNT];
+    private final IntArrayList[] blockRanges = new IntArrayList[SectionMeshRecord.BUFFER_COUNT];
+    private final int[] blockStart = new int[SectionMeshRecord.BUFFER_COUNT];
+
+    private final long[] opaqueBlocks = new long[4096 / 64];
+    private final List<SectionMeshRecord.RecordedBlockEntity> blockEntities = new ArrayList<>();
+
+    // Set when a block produced more vertices than can be recorded, in which case no record will be created
+    private boolean overflowed;
+
+    public SectionMeshRecorder(ChunkBuildBuffers buffers) {
+        for (int pass = 0; pass < DefaultTerrainRenderPasses.ALL.length; pass++) {
+            for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
+                int index = SectionMeshRecord.getBufferIndex(pass, facing);
+
+                this.buffers[index] = buffers.getVertexBuffer(DefaultTerrainRenderPasses.ALL[pass], ModelQuadFacing.VALUES[facing]);
+                this.blockRanges[index] = new IntArrayList();
+            }
+        }
+    }
+
+    /**
+     * Must be called before a block is rendered into the build buffers.
+     */
+    public void beginBlock() {
+        for (int i = 0; i < SectionMeshRecord.BUFFER_COUNT; i++) {
+            this.blockStart[i] = this.buffers[i].count();
+        }
+    }
+
+    /**
+     * Must be called after a block has been rendered into the build buffers.
+     * @param blockIndex The local index of the block which was rendered
+     */
+    public void endBlock(int blockIndex) {
+        for (int i = 0; i < SectionMeshRecord.BUFFER_COUNT; i++) {
+            int vertexCount = this.buffers[i].count() - this.blockStart[i];
+
+            if (vertexCount > 0) {
+                this.addRange(i, blockIndex, vertexCount);
+            }
+        }
+    }
+
+    public void markOpaque(int blockIndex) {
+        this.opaqueBlocks[blockIndex >> 6] |= 1L << (blockIndex & 63);
+    }
+
+    public void addBlockEntity(int blockIndex, BlockEntity entity, boolean culled) {
+        this.blockEntities.add(new SectionMeshRecord.RecordedBlockEntity(blockIndex, entity, culled));
+    }
+
+    /**
+     * Copies the vertices of every block in the previous record which is not contained by the dirty region into the
+     * build buffers, so that only the blocks inside the dirty region need to be rendered again.
+     */
+    public void copyRetainedGeometry(SectionMeshRecord previous, DirtyBlockRegion dirtyRegion) {
+        for (int i = 0; i < SectionMeshRecord.BUFFER_COUNT; i++) {
+            var data = previous.getVertexData(i);
+
+            if (data == null) {
+                continue;
+            }
+
+            var buffer = this.buffers[i];
+            var ranges = previous.getBlockRanges(i);
+
+            // Consecutive ranges which are all retained are copied using a single write
+            int vertexOffset = 0;
+            int copyStart = 0;
+            int copyCount = 0;
+
+            for (int range : ranges) {
+                int blockIndex = SectionMeshRecord.unpackBlockIndex(range);
+                int vertexCount = SectionMeshRecord.unpackVertexCount(range);
+
+                if (dirtyRegion.containsBlock(blockIndex)) {
+                    if (copyCount > 0) {
+                        buffer.pushRaw(data, copyStart, copyCount);
+                    }
+
+                    copyStart = vertexOffset + vertexCount;
+                    copyCount = 0;
+                } else {
+                    this.blockRanges[i].add(range);
+                    copyCount += vertexCount;
+                }
+
+                vertexOffset += vertexCount;
+            }
+
+            if (copyCount > 0) {
+                buffer.pushRaw(data, copyStart, copyCount);
+            }
+        }
+    }
+
+    private void addRange(int buffer, int blockIndex, int vertexCount) {
+        if (vertexCount > SectionMeshRecord.MAX_VERTEX_COUNT) {
+            this.overflowed = true;
+            return;
+        }
+
+        this.blockRanges[buffer].add(SectionMeshRecord.packRange(blockIndex, vertexCount));
+    }
+
+    /**
+     * Creates a record from the current contents of the build buffers. This must be called after all blocks have been
+     * rendered, and before the build buffers are reset.
+     * @return The record, or null if the geometry could not be recorded
+     */
+    public @Nullable SectionMeshRecord build(Sprite @Nullable[] animatedSprites) {
+        if (this.overflowed) {
+            return null;
+        }
+
+        byte[][] vertexData = new byte[SectionMeshRecord.BUFFER_COUNT][];
+        int[][] blockRanges = new int[SectionMeshRecord.BUFFER_COUNT][];
+
+        for (int i = 0; i < SectionMeshRecord.BUFFER_COUNT; i++) {
+            var buffer = this.buffers[i];
+
+            if (!buffer.isEmpty()) {
+                var slice = buffer.slice();
+                var data = new byte[slice.remaining()];
+                slice.get(data);
+
+                vertexData[i] = data;
+            }
+
+            blockRanges[i] = this.blockRanges[i].toIntArray();
+        }
+
+        return new SectionMeshRecord(vertexData, blockRanges, this.opaqueBlocks.clone(),
+                this.blockEntities.toArray(SectionMeshRecord.RecordedBlockEntity[]::new), animatedSprites);
+    }
+}
@@ -38,6 +38,13 @@ public class BlockOcclusionCache {
         if (selfState.isSideInvisible(adjState, facing)) {
             return false;
         } else if (adjState.isOpaque()) {
+            int result = SharedOcclusionCache.test(selfState, adjState, facing);
+
+            if (result != SharedOcclusionCache.DYNAMIC) {
+                return result == SharedOcclusionCache.DRAW;
+            }
+
+            // The shapes of blocks with dynamic bounds depend on their position, so the result can't be shared
             VoxelShape selfShape = selfState.getCullingFace(view, pos, facing);
             VoxelShape adjShape = adjState.getCullingFace(view, adjPos, facing.getOpposite());
 
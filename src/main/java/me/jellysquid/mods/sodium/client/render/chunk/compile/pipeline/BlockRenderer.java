@@ -1,5 +1,6 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline;
 
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
 import me.jellysquid.mods.sodium.client.model.color.ColorProvider;
 import me.jellysquid.mods.sodium.client.model.color.ColorProviderRegistry;
 import me.jellysquid.mods.sodium.client.model.light.LightMode;
@@ -25,6 +26,7 @@ import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.util.math.random.LocalRandom;
 import net.minecraft.util.math.random.Random;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.List;
@@ -45,18 +47,50 @@ public class BlockRenderer {
 
     private final int[] quadColors = new int[4];
 
+    private final @Nullable GreedyQuadMerger quadMerger;
+    private boolean mergeQuads;
+
+    // The facings of the current block which have a face waiting to be merged
+    private int mergedFaces;
+
     public BlockRenderer(ColorProviderRegistry colorRegistry, LightPipelineProvider lighters) {
         this.colorProviderRegistry = colorRegistry;
         this.lighters = lighters;
 
         this.occlusionCache = new BlockOcclusionCache();
         this.useAmbientOcclusion = MinecraftClient.isAmbientOcclusionEnabled();
+
+        this.quadMerger = SodiumClientMod.options().performance.useGreedyMeshing ? new GreedyQuadMerger() : null;
+    }
+
+    /**
+     * Prepares the renderer for the blocks of a new chunk section.
+     * @param mergeQuads True if the faces of neighboring blocks may be merged together, which requires that the
+     *                   geometry of each block does not need to be known individually
+     */
+    public void begin(boolean mergeQuads) {
+        this.mergeQuads = mergeQuads && this.quadMerger != null;
+
+        if (this.quadMerger != null) {
+            this.quadMerger.reset();
+        }
+    }
+
+    /**
+     * Writes any geometry which has been held back from the meshes while rendering the blocks of the chunk section.
+     */
+    public void end(ChunkBuildBuffers buffers) {
+        if (this.mergeQuads) {
+            this.quadMerger.flush(buffers.get(DefaultMaterials.SOLID_TILED));
+        }
     }
 
     public void renderModel(BlockRenderContext ctx, ChunkBuildBuffers buffers) {
         var material = DefaultMaterials.forBlockState(ctx.state());
         var meshBuilder = buffers.get(material);
 
+        this.mergedFaces = 0;
+
         ColorProvider<BlockState> colorizer = this.colorProviderRegistry.getColorProvider(ctx.state().getBlock());
 
         LightPipeline lighter = this.lighters.getLighter(this.getLightingMode(ctx.state(), ctx.model()));
@@ -163,10 +197,47 @@ public class BlockRenderer {
             out.light = light.lm[srcIndex];
         }
 
+        if (this.mergeQuads && material == DefaultMaterials.SOLID && this.tryMergeQuad(ctx, builder, offset, quad, normalFace)) {
+            return;
+        }
+
         var vertexBuffer = builder.getVertexBuffer(normalFace);
         vertexBuffer.push(vertices, material);
     }
 
+    private boolean tryMergeQuad(BlockRenderContext ctx, ChunkModelBuilder builder, Vec3d offset, BakedQuadView quad,
+                                 ModelQuadFacing normalFace) {
+        if (normalFace == ModelQuadFacing.UNASSIGNED) {
+            return false;
+        }
+
+        int x = (int) ctx.origin().x();
+        int y = (int) ctx.origin().y();
+        int z = (int) ctx.origin().z();
+
+        int faceBit = 1 << normalFace.ordinal();
+
+        // Quads which are drawn over a face waiting to be merged (such as the overlay of grass blocks) would end up
+        // below it, so the face is written out first to preserve the order in which they are drawn
+        if ((this.mergedFaces & faceBit) != 0) {
+            this.quadMerger.evict(normalFace, x, y, z, builder);
+            this.mergedFaces &= ~faceBit;
+
+            return false;
+        }
+
+        if (offset != Vec3d.ZERO || quad.getSprite() == null) {
+            return false;
+        }
+
+        if (this.quadMerger.add(normalFace, x, y, z, this.vertices, quad.getSprite())) {
+            this.mergedFaces |= faceBit;
+            return true;
+        }
+
+        return false;
+    }
+
     private LightMode getLightingMode(BlockState state, BakedModel model) {
         if (this.useAmbientOcclusion && model.useAmbientOcclusion() && state.getLuminance() == 0) {
             return LightMode.SMOOTH;
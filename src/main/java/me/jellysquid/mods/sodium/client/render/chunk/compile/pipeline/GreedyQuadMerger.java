@@ -0,0 +1,371 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline;
+
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuilder;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.material.DefaultMaterials;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexEncoder;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.util.math.MathHelper;
+
+import java.util.Arrays;
+
+/**
+ * Collects the full faces of blocks in a chunk section which have the same sprite, color, and light values at every
+ * corner, and merges the coplanar faces of neighboring blocks into larger quads. The merged quads use a tiled material,
+ * which repeats the sprite across the surface of the quad in the fragment shader.
+ *
+ * <p>Each face is stored in a cell which is identified by its facing, the layer of blocks along the facing's axis, and
+ * the position of the block within that layer. Faces are grouped into rectangles using a greedy search, which first
+ * extends each rectangle along the rows of a layer, and then extends it across as many rows as possible.</p>
+ */
+public class GreedyQuadMerger {
+    private static final int LAYER_SIZE = 16 * 16;
+    private static final int FACING_SIZE = 16 * LAYER_SIZE;
+
+    private static final int SLICE_COUNT = 6 * 16;
+
+    // The tolerance which is used when checking whether texture coordinates lie on the edges of their sprite, since
+    // the UVs of baked quads are shrunk slightly towards the center of the sprite
+    private static final float TEXTURE_EPSILON = 1.0f / 64.0f;
+    private static final float POSITION_EPSILON = 1.0e-4f;
+
+    // The bits of a face's texture mapping, which describes how the sprite is oriented on the face
+    private static final int MAPPING_U_ALONG_B = 1 << 0;
+    private static final int MAPPING_FLIP_U = 1 << 1;
+    private static final int MAPPING_FLIP_V = 1 << 2;
+    private static final int MAPPING_WINDING_SHIFT = 3;
+
+    // Texture coordinates which decrease across a quad are offset by the largest possible size of a merged quad, so
+    // that every tile coordinate can be stored as a positive integer
+    private static final int FLIPPED_TILE_OFFSET = 16 + 1;
+
+    private final Sprite[] sprites = new Sprite[6 * FACING_SIZE];
+    private final int[] colors = new int[6 * FACING_SIZE];
+    private final int[] lights = new int[6 * FACING_SIZE];
+    private final int[] mappings = new int[6 * FACING_SIZE];
+
+    // The number of faces in each layer of each facing, so that empty layers can be skipped
+    private final int[] sliceCounts = new int[SLICE_COUNT];
+
+    private final ChunkVertexEncoder.Vertex[] vertices = ChunkVertexEncoder.Vertex.uninitializedQuad();
+
+    private final int[] cornerTexU = new int[4];
+    private final int[] cornerTexV = new int[4];
+
+    /**
+     * Attempts to add a quad to the merger. The quad must be the full face of the block at the given local position,
+     * and its vertices must all have the same color and light values.
+     *
+     * @return True if the quad was added, otherwise false if it must be rendered as-is
+     */
+    public boolean add(ModelQuadFacing facing, int x, int y, int z, ChunkVertexEncoder.Vertex[] vertices, Sprite sprite) {
+        if (facing == ModelQuadFacing.UNASSIGNED || !isTileable(sprite)) {
+            return false;
+        }
+
+        int color = vertices[0].color;
+        int light = vertices[0].light;
+
+        for (int i = 1; i < 4; i++) {
+            if (vertices[i].color != color || vertices[i].light != light) {
+                return false;
+            }
+        }
+
+        int mapping = this.getMapping(facing, x, y, z, vertices, sprite);
+
+        if (mapping < 0) {
+            return false;
+        }
+
+        int cell = getCellIndex(facing, x, y, z);
+
+        if (this.sprites[cell] != null) {
+            return false;
+        }
+
+        this.sprites[cell] = sprite;
+        this.colors[cell] = color;
+        this.lights[cell] = light;
+        this.mappings[cell] = mapping;
+
+        this.sliceCounts[cell / LAYER_SIZE]++;
+
+        return true;
+    }
+
+    /**
+     * Removes the face of the block at the given local position from the merger, and writes it into the mesh as a
+     * single quad. This is used when another quad of the block is drawn over the face, as the face must then be drawn
+     * first.
+     */
+    public void evict(ModelQuadFacing facing, int x, int y, int z, ChunkModelBuilder builder) {
+        int cell = getCellIndex(facing, x, y, z);
+
+        if (this.sprites[cell] == null) {
+            return;
+        }
+
+        this.writeQuad(builder, facing, cell, 1, 1);
+        this.removeCell(cell);
+    }
+
+    /**
+     * Merges all the faces which have been added, and writes the resulting quads into the mesh. The merger is empty
+     * afterward.
+     */
+    public void flush(ChunkModelBuilder builder) {
+        for (int slice = 0; slice < SLICE_COUNT; slice++) {
+            if (this.sliceCounts[slice] == 0) {
+                continue;
+            }
+
+            var facing = ModelQuadFacing.VALUES[slice / 16];
+            int base = slice * LAYER_SIZE;
+
+            for (int b = 0; b < 16; b++) {
+                int a = 0;
+
+                while (a < 16) {
+                    int cell = base + (b << 4) + a;
+
+                    if (this.sprites[cell] == null) {
+                        a++;
+                        continue;
+                    }
+
+                    int width = 1;
+
+                    while (a + width < 16 && this.canMerge(cell, cell + width)) {
+                        width++;
+                    }
+
+                    int height = 1;
+
+                    while (b + height < 16 && this.canMergeRow(cell, cell + (height << 4), width)) {
+                        height++;
+                    }
+
+                    this.writeQuad(builder, facing, cell, width, height);
+
+                    for (int row = 0; row < height; row++) {
+                        for (int col = 0; col < width; col++) {
+                            this.removeCell(cell + (row << 4) + col);
+                        }
+                    }
+
+                    a += width;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all faces from the merger without writing them, such as when a build task is cancelled.
+     */
+    public void reset() {
+        for (int slice = 0; slice < SLICE_COUNT; slice++) {
+            if (this.sliceCounts[slice] != 0) {
+                int start = slice * LAYER_SIZE;
+                Arrays.fill(this.sprites, start, start + LAYER_SIZE, null);
+
+                this.sliceCounts[slice] = 0;
+            }
+        }
+    }
+
+    private boolean canMergeRow(int first, int start, int width) {
+        for (int col = 0; col < width; col++) {
+            if (!this.canMerge(first, start + col)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean canMerge(int first, int other) {
+        return this.sprites[other] == this.sprites[first] &&
+                this.colors[other] == this.colors[first] &&
+                this.lights[other] == this.lights[first] &&
+                this.mappings[other] == this.mappings[first];
+    }
+
+    private void removeCell(int cell) {
+        this.sprites[cell] = null;
+        this.sliceCounts[cell / LAYER_SIZE]--;
+    }
+
+    private void writeQuad(ChunkModelBuilder builder, ModelQuadFacing facing, int cell, int width, int height) {
+        var sprite = this.sprites[cell];
+        int mapping = this.mappings[cell];
+
+        int layer = (cell / LAYER_SIZE) & 15;
+        int a = cell & 15;
+        int b = (cell >> 4) & 15;
+
+        // Faces with a positive direction lie on the far side of their block
+        int plane = layer + (isPositive(facing) ? 1 : 0);
+
+        var vertices = this.vertices;
+
+        for (int i = 0; i < 4; i++) {
+            int corner = (mapping >> (MAPPING_WINDING_SHIFT + (i * 2))) & 3;
+
+            int extentA = (corner & 1) * width;
+            int extentB = (corner >> 1) * height;
+
+            var out = vertices[i];
+            setPosition(out, facing, plane, a + extentA, b + extentB);
+
+            out.color = this.colors[cell];
+            out.light = this.lights[cell];
+
+            int tileU = (mapping & MAPPING_U_ALONG_B) == 0 ? extentA : extentB;
+            int tileV = (mapping & MAPPING_U_ALONG_B) == 0 ? extentB : extentA;
+
+            out.u = (mapping & MAPPING_FLIP_U) != 0 ? FLIPPED_TILE_OFFSET - tileU : tileU;
+            out.v = (mapping & MAPPING_FLIP_V) != 0 ? FLIPPED_TILE_OFFSET - tileV : tileV;
+
+            out.spriteMinU = sprite.getMinU();
+            out.spriteMinV = sprite.getMinV();
+            out.spriteMaxU = sprite.getMaxU();
+            out.spriteMaxV = sprite.getMaxV();
+        }
+
+        builder.getVertexBuffer(facing)
+                .push(vertices, DefaultMaterials.SOLID_TILED);
+    }
+
+    /**
+     * Determines how the sprite is mapped onto a quad, and in which order its corners are wound.
+     *
+     * @return The packed texture mapping, or -1 if the quad is not the full face of the block, or its texture
+     * coordinates do not cover the whole sprite
+     */
+    private int getMapping(ModelQuadFacing facing, int x, int y, int z, ChunkVertexEncoder.Vertex[] vertices, Sprite sprite) {
+        float plane = isPositive(facing) ? 1.0f : 0.0f;
+
+        float spriteWidth = sprite.getMaxU() - sprite.getMinU();
+        float spriteHeight = sprite.getMaxV() - sprite.getMinV();
+
+        int corners = 0;
+        int winding = 0;
+
+        for (int i = 0; i < 4; i++) {
+            var vertex = vertices[i];
+
+            float localX = vertex.x - x;
+            float localY = vertex.y - y;
+            float localZ = vertex.z - z;
+
+            float n, a, b;
+
+            switch (facing) {
+                case POS_X, NEG_X -> { n = localX; a = localZ; b = localY; }
+                case POS_Y, NEG_Y -> { n = localY; a = localX; b = localZ; }
+                default -> { n = localZ; a = localX; b = localY; }
+            }
+
+            int cornerA = toUnitEdge(a, POSITION_EPSILON);
+            int cornerB = toUnitEdge(b, POSITION_EPSILON);
+
+            if (Math.abs(n - plane) > POSITION_EPSILON || cornerA < 0 || cornerB < 0) {
+                return -1;
+            }
+
+            int corner = cornerA | (cornerB << 1);
+
+            // Every corner of the face must be covered exactly once
+            if ((corners & (1 << corner)) != 0) {
+                return -1;
+            }
+
+            int texU = toUnitEdge((vertex.u - sprite.getMinU()) / spriteWidth, TEXTURE_EPSILON);
+            int texV = toUnitEdge((vertex.v - sprite.getMinV()) / spriteHeight, TEXTURE_EPSILON);
+
+            if (texU < 0 || texV < 0) {
+                return -1;
+            }
+
+            this.cornerTexU[corner] = texU;
+            this.cornerTexV[corner] = texV;
+
+            corners |= 1 << corner;
+            winding |= corner << (i * 2);
+        }
+
+        var texU = this.cornerTexU;
+        var texV = this.cornerTexV;
+
+        // Each texture axis must change along exactly one axis of the face, and not the same one
+        boolean uAlongA = texU[1] != texU[0];
+        boolean uAlongB = texU[2] != texU[0];
+        boolean vAlongA = texV[1] != texV[0];
+        boolean vAlongB = texV[2] != texV[0];
+
+        if (uAlongA == uAlongB || vAlongA == vAlongB || uAlongA == vAlongA ||
+                texU[3] != (texU[0] ^ texU[1] ^ texU[2]) || texV[3] != (texV[0] ^ texV[1] ^ texV[2])) {
+            return -1;
+        }
+
+        int mapping = winding << MAPPING_WINDING_SHIFT;
+
+        if (!uAlongA) {
+            mapping |= MAPPING_U_ALONG_B;
+        }
+
+        if (texU[0] != 0) {
+            mapping |= MAPPING_FLIP_U;
+        }
+
+        if (texV[0] != 0) {
+            mapping |= MAPPING_FLIP_V;
+        }
+
+        return mapping;
+    }
+
+    /**
+     * Sprites can only be tiled if their size in the block atlas can be stored as a power-of-two exponent.
+     */
+    private static boolean isTileable(Sprite sprite) {
+        var contents = sprite.getContents();
+
+        return MathHelper.isPowerOfTwo(contents.getWidth()) && MathHelper.isPowerOfTwo(contents.getHeight());
+    }
+
+    private static int toUnitEdge(float value, float epsilon) {
+        if (Math.abs(value) <= epsilon) {
+            return 0;
+        } else if (Math.abs(value - 1.0f) <= epsilon) {
+            return 1;
+        }
+
+        return -1;
+    }
+
+    private static void setPosition(ChunkVertexEncoder.Vertex vertex, ModelQuadFacing facing, int n, int a, int b) {
+        switch (facing) {
+            case POS_X, NEG_X -> { vertex.x = n; vertex.y = b; vertex.z = a; }
+            case POS_Y, NEG_Y -> { vertex.x = a; vertex.y = n; vertex.z = b; }
+            default -> { vertex.x = a; vertex.y = b; vertex.z = n; }
+        }
+    }
+
+    private static int getCellIndex(ModelQuadFacing facing, int x, int y, int z) {
+        int layer, a, b;
+
+        switch (facing) {
+            case POS_X, NEG_X -> { layer = x; a = z; b = y; }
+            case POS_Y, NEG_Y -> { layer = y; a = x; b = z; }
+            default -> { layer = z; a = x; b = y; }
+        }
+
+        return (facing.ordinal() * FACING_SIZE) + (layer * LAYER_SIZE) + (b << 4) + a;
+    }
+
+    private static boolean isPositive(ModelQuadFacing facing) {
+        return facing == ModelQuadFacing.POS_X || facing == ModelQuadFacing.POS_Y || facing == ModelQuadFacing.POS_Z;
+    }
+}
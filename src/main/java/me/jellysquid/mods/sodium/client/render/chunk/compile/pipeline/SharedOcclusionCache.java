@@ -0,0 +1,189 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import me.jellysquid.mods.sodium.client.util.BlockStateTable;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.SideShapeType;
+import net.minecraft.util.function.BooleanBiFunction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.util.shape.VoxelShapes;
+import net.minecraft.world.EmptyBlockView;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of face culling results which is shared by all the chunk builder's threads, keyed by the raw IDs of the two
+ * block states and the direction of the face.
+ *
+ * <p>The culling faces of a block without dynamic bounds are computed once by vanilla for each state, so they never
+ * depend on the block's position, and the result of testing them against each other can be reused anywhere. Tests
+ * involving a block with dynamic bounds can't be cached by state, and are left to the caller.</p>
+ *
+ * <p>The most common cases (where both faces are full squares, or the face is empty) are answered from a table of
+ * flags for each state. The remaining results are stored in a direct-mapped table, where each entry packs the key
+ * alongside the result into a single long, so that it can be read and written from any thread without locking.</p>
+ */
+public final class SharedOcclusionCache {
+    public static final int CULL = 0;
+    public static final int DRAW = 1;
+    public static final int DYNAMIC = -1;
+
+    private static final int CACHE_SIZE = 1 << 16;
+
+    // The largest value which can be packed into the 30 bits of a key used for each state
+    private static final int MAX_KEY_STATE_ID = (1 << 30) - 1;
+
+    // The flags of each state, with a bit for each direction in each of the face fields
+    private static final int FLAG_FULL_FACE = 0;
+    private static final int FLAG_EMPTY_FACE = 6;
+    private static final int FLAG_SOLID_SIDE = 12;
+    private static final int FLAG_COMPUTED = 1 << 30;
+    private static final int FLAG_DYNAMIC = 1 << 31;
+
+    private static final BlockStateTable STATE_FLAGS = new BlockStateTable(SharedOcclusionCache::computeStateFlags,
+            FLAG_COMPUTED | FLAG_DYNAMIC);
+    private static volatile AtomicLongArray results = new AtomicLongArray(CACHE_SIZE);
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    /**
+     * Tests whether the face of the given block is visible next to the adjacent block. The adjacent block must be
+     * opaque, and must not make the face invisible through {@link BlockState#isSideInvisible(BlockState, Direction)}.
+     *
+     * @return {@link #DRAW} if the face is visible, {@link #CULL} if it is hidden, or {@link #DYNAMIC} if the result
+     * depends on the position of the blocks and must be computed by the caller
+     */
+    public static int test(BlockState selfState, BlockState adjState, Direction facing) {
+        int selfFlags = STATE_FLAGS.get(selfState);
+        int adjFlags = STATE_FLAGS.get(adjState);
+
+        if (((selfFlags | adjFlags) & FLAG_DYNAMIC) != 0) {
+            return DYNAMIC;
+        }
+
+        int selfBit = 1 << facing.ordinal();
+        int adjBit = 1 << facing.getOpposite().ordinal();
+
+        if ((selfFlags & (selfBit << FLAG_FULL_FACE)) != 0 && (adjFlags & (adjBit << FLAG_FULL_FACE)) != 0) {
+            return CULL;
+        }
+
+        if ((selfFlags & (selfBit << FLAG_EMPTY_FACE)) != 0) {
+            if ((adjFlags & (adjBit << FLAG_EMPTY_FACE)) != 0) {
+                return DRAW; //example: top face of potted plants if top slab is placed above
+            } else if ((adjFlags & (adjBit << FLAG_SOLID_SIDE)) == 0) {
+                return DRAW; //example: face of potted plants rendered if top stair placed above
+            }
+        }
+
+        return getCachedResult(selfState, adjState, facing);
+    }
+
+    private static int getCachedResult(BlockState selfState, BlockState adjState, Direction facing) {
+        long key = createKey(selfState, adjState, facing);
+
+        if (key == 0L) {
+            return compute(selfState, adjState, facing);
+        }
+
+        AtomicLongArray results = SharedOcclusionCache.results;
+        int index = (int) HashCommon.mix(key) & (CACHE_SIZE - 1);
+
+        long entry = results.getOpaque(index);
+
+        if ((entry & ~1L) == key) {
+            hits.increment();
+
+            return (int) (entry & 1L);
+        }
+
+        misses.increment();
+
+        int result = compute(selfState, adjState, facing);
+        results.setOpaque(index, key | result);
+
+        return result;
+    }
+
+    private static int compute(BlockState selfState, BlockState adjState, Direction facing) {
+        VoxelShape selfShape = selfState.getCullingFace(EmptyBlockView.INSTANCE, BlockPos.ORIGIN, facing);
+        VoxelShape adjShape = adjState.getCullingFace(EmptyBlockView.INSTANCE, BlockPos.ORIGIN, facing.getOpposite());
+
+        return VoxelShapes.matchesAnywhere(selfShape, adjShape, BooleanBiFunction.ONLY_FIRST) ? DRAW : CULL;
+    }
+
+    /**
+     * @return The key of the test, with the lowest bit left clear for the result, or zero if the states can't be packed
+     */
+    private static long createKey(BlockState selfState, BlockState adjState, Direction facing) {
+        // IDs are offset by one so that a valid key is never zero, which is the value of an empty entry
+        int selfId = Block.getRawIdFromState(selfState) + 1;
+        int adjId = Block.getRawIdFromState(adjState) + 1;
+
+        if (selfId <= 0 || selfId > MAX_KEY_STATE_ID || adjId <= 0 || adjId > MAX_KEY_STATE_ID) {
+            return 0L;
+        }
+
+        return ((long) selfId << 34) | ((long) adjId << 4) | ((long) facing.ordinal() << 1);
+    }
+
+    private static int computeStateFlags(BlockState state) {
+        if (state.getBlock().hasDynamicBounds()) {
+            return FLAG_COMPUTED | FLAG_DYNAMIC;
+        }
+
+        int flags = FLAG_COMPUTED;
+
+        for (Direction direction : Direction.values()) {
+            int bit = 1 << direction.ordinal();
+
+            VoxelShape shape = state.getCullingFace(EmptyBlockView.INSTANCE, BlockPos.ORIGIN, direction);
+
+            if (shape == VoxelShapes.fullCube()) {
+                flags |= bit << FLAG_FULL_FACE;
+            }
+
+            if (shape.isEmpty()) {
+                flags |= bit << FLAG_EMPTY_FACE;
+            }
+
+            if (state.isSideSolid(EmptyBlockView.INSTANCE, BlockPos.ORIGIN, direction, SideShapeType.FULL)) {
+                flags |= bit << FLAG_SOLID_SIDE;
+            }
+        }
+
+        return flags;
+    }
+
+    /**
+     * Clears the face flags of every state and the direct-mapped results, along with the hit rate statistics. Both
+     * tables are derived from the culling faces of block states, which mods may replace in response to a resource
+     * reload, so this is called once each reload has finished.
+     */
+    public static void reset() {
+        STATE_FLAGS.reset();
+        results = new AtomicLongArray(CACHE_SIZE);
+
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * @return The percentage of tests which were answered by the cache of results since it was last reset
+     */
+    public static double getHitRate() {
+        long hits = SharedOcclusionCache.hits.sum();
+        long total = hits + SharedOcclusionCache.misses.sum();
+
+        return total == 0 ? 0.0 : (hits * 100.0) / total;
+    }
+
+    public static long getLookupCount() {
+        return hits.sum() + misses.sum();
+    }
+}
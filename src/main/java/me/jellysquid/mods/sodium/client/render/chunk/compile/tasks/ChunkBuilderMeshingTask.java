@@ -1,16 +1,30 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile.tasks;
 
+import it.unimi.dsi.fastutil.ints.Int2ReferenceMaps;
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkUpdateType;
 import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildBuffers;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildContext;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildOutput;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.SectionOccluderBuilder;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.cache.MeshCacheCodec;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.cache.MeshCacheHasher;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.cache.MeshCacheKey;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.cache.MeshDiskCache;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.incremental.DirtyBlockRegion;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.incremental.SectionMeshRecord;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.incremental.SectionMeshRecorder;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline.BlockRenderCache;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline.BlockRenderContext;
 import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionInfo;
 import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.DefaultTerrainRenderPasses;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
+import me.jellysquid.mods.sodium.client.render.chunk.translucent.TranslucentGeometry;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.util.DirectionUtil;
+import me.jellysquid.mods.sodium.client.util.NativeBuffer;
 import me.jellysquid.mods.sodium.client.util.task.CancellationToken;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import me.jellysquid.mods.sodium.client.world.cloned.ChunkRenderContext;
@@ -19,14 +33,21 @@ import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.block.entity.BlockEntityRenderer;
+import net.minecraft.client.render.chunk.ChunkOcclusionData;
 import net.minecraft.client.render.chunk.ChunkOcclusionDataBuilder;
 import net.minecraft.client.render.model.BakedModel;
+import net.minecraft.client.texture.Sprite;
 import net.minecraft.fluid.FluidState;
 import net.minecraft.util.crash.CrashException;
 import net.minecraft.util.crash.CrashReport;
 import net.minecraft.util.crash.CrashReportSection;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.random.Random;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.system.MemoryUtil;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 /**
@@ -37,21 +58,89 @@ import java.util.Map;
  * array allocations, they are pooled to ensure that the garbage collector doesn't become overloaded.
  */
 public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput> {
+    // The number of blocks around each changed block which are rendered again during an incremental build. This
+    // covers the neighbours whose face culling, smooth lighting, and fluid heights depend on the changed block.
+    private static final int DIRTY_REGION_PADDING = 1;
+
+    // The largest number of blocks which will be rendered again during an incremental build. Beyond this, copying the
+    // retained geometry no longer saves enough work to be worthwhile over rebuilding the whole section.
+    private static final int MAX_INCREMENTAL_VOLUME = 8 * 8 * 8;
+
+    // Returned by getExposedPlanes when every block of the section must be visited
+    private static final int ALL_BLOCKS = -1;
+
     private final RenderSection render;
     private final ChunkRenderContext renderContext;
+    private final ChunkUpdateType updateType;
 
     private final int buildTime;
 
-    public ChunkBuilderMeshingTask(RenderSection render, ChunkRenderContext renderContext, int time) {
+    private final @Nullable SectionMeshRecord previousMesh;
+    private final @Nullable DirtyBlockRegion dirtyRegion;
+
+    private @Nullable MeshDiskCache diskCache;
+    private int diskCacheGeneration;
+
+    private float cameraX, cameraY, cameraZ;
+
+    public ChunkBuilderMeshingTask(RenderSection render, ChunkRenderContext renderContext, ChunkUpdateType updateType, int time) {
+        this(render, renderContext, updateType, time, null, null);
+    }
+
+    /**
+     * Creates a task which will only render the blocks within the dirty region again, and copy the geometry of all other
+     * blocks from the previous build of the section. If the previous build was not recorded, or the dirty region is too
+     * large, then the whole section will be rebuilt instead.
+     *
+     * @param previousMesh The record of the section's current geometry, or null if it is not known
+     * @param dirtyRegion The region of blocks which have changed since the previous build, or null if the whole section
+     *                    has changed
+     */
+    public ChunkBuilderMeshingTask(RenderSection render, ChunkRenderContext renderContext, ChunkUpdateType updateType, int time,
+                                   @Nullable SectionMeshRecord previousMesh, @Nullable DirtyBlockRegion dirtyRegion) {
         this.render = render;
         this.renderContext = renderContext;
+        this.updateType = updateType;
         this.buildTime = time;
+
+        if (previousMesh != null && dirtyRegion != null) {
+            dirtyRegion = dirtyRegion.expand(DIRTY_REGION_PADDING);
+        }
+
+        if (previousMesh != null && dirtyRegion != null && dirtyRegion.getVolume() <= MAX_INCREMENTAL_VOLUME) {
+            this.previousMesh = previousMesh;
+            this.dirtyRegion = dirtyRegion;
+        } else {
+            this.previousMesh = null;
+            this.dirtyRegion = null;
+        }
+    }
+
+    /**
+     * Sets the disk cache which the output of this task will be loaded from if possible, and otherwise stored into.
+     */
+    public void setDiskCache(@Nullable MeshDiskCache diskCache) {
+        this.diskCache = diskCache;
+        this.diskCacheGeneration = diskCache != null ? diskCache.getGeneration() : 0;
+    }
+
+    /**
+     * Sets the position of the camera (in world space) which the translucent geometry of the section will initially be
+     * sorted for.
+     */
+    public void setCameraPosition(float x, float y, float z) {
+        this.cameraX = x;
+        this.cameraY = y;
+        this.cameraZ = z;
     }
 
     @Override
     public ChunkBuildOutput execute(ChunkBuildContext buildContext, CancellationToken cancellationToken) {
+        long startTime = System.nanoTime();
+
         BuiltSectionInfo.Builder renderData = new BuiltSectionInfo.Builder();
         ChunkOcclusionDataBuilder occluder = new ChunkOcclusionDataBuilder();
+        SectionOccluderBuilder occluderBounds = new SectionOccluderBuilder();
 
         ChunkBuildBuffers buffers = buildContext.buffers;
         buffers.init(renderData, this.render.getSectionIndex());
@@ -61,13 +150,54 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
 
         WorldSlice slice = cache.getWorldSlice();
 
-        int minX = this.render.getOriginX();
-        int minY = this.render.getOriginY();
-        int minZ = this.render.getOriginZ();
+        MeshCacheKey cacheKey = null;
 
-        int maxX = minX + 16;
-        int maxY = minY + 16;
-        int maxZ = minZ + 16;
+        if (this.diskCache != null) {
+            var hasher = new MeshCacheHasher();
+
+            if (slice.hashContents(hasher)) {
+                cacheKey = hasher.finish();
+
+                var cachedOutput = this.loadCachedOutput(this.diskCache, cacheKey, slice, buffers.getVertexType());
+
+                if (cachedOutput != null) {
+                    return cachedOutput;
+                }
+            }
+        }
+
+        // Sections which are being rebuilt have been modified before, and are likely to be modified again soon, so the
+        // geometry is recorded in order to allow the next build to be incremental
+        SectionMeshRecorder recorder = this.updateType != ChunkUpdateType.INITIAL_BUILD ? new SectionMeshRecorder(buffers) : null;
+
+        int originX = this.render.getOriginX();
+        int originY = this.render.getOriginY();
+        int originZ = this.render.getOriginZ();
+
+        int minX = originX, maxX = originX + 16;
+        int minY = originY, maxY = originY + 16;
+        int minZ = originZ, maxZ = originZ + 16;
+
+        if (this.previousMesh != null && recorder != null) {
+            var dirty = this.dirtyRegion;
+
+            recorder.copyRetainedGeometry(this.previousMesh, dirty);
+            this.restoreRetainedState(this.previousMesh, dirty, renderData, occluder, occluderBounds, recorder);
+
+            // Only the blocks in the dirty region need to be rendered, as everything else has been copied
+            minX = originX + dirty.minX();
+            minY = originY + dirty.minY();
+            minZ = originZ + dirty.minZ();
+
+            maxX = originX + dirty.maxX() + 1;
+            maxY = originY + dirty.maxY() + 1;
+            maxZ = originZ + dirty.maxZ() + 1;
+        }
+
+        // Sections which are filled entirely by a single block state only need the blocks on their boundary planes to be
+        // visited, if any at all
+        BlockState uniformState = this.previousMesh == null ? slice.getUniformBlockState(1, 1, 1) : null;
+        int exposedPlanes = uniformState != null ? this.getExposedPlanes(slice, uniformState, cache) : ALL_BLOCKS;
 
         // Initialise with minX/minY/minZ so initial getBlockState crash context is correct
         BlockPos.Mutable blockPos = new BlockPos.Mutable(minX, minY, minZ);
@@ -75,6 +205,10 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
 
         BlockRenderContext context = new BlockRenderContext(slice);
 
+        // Merging the faces of neighboring blocks would prevent the geometry of each block from being recorded
+        cache.getBlockRenderer()
+                .begin(recorder == null && buffers.getVertexType().supportsTiledMaterials());
+
         try {
             for (int y = minY; y < maxY; y++) {
                 if (cancellationToken.isCancelled()) {
@@ -83,6 +217,10 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
 
                 for (int z = minZ; z < maxZ; z++) {
                     for (int x = minX; x < maxX; x++) {
+                        if (exposedPlanes != ALL_BLOCKS && !isOnExposedPlane(x & 15, y & 15, z & 15, exposedPlanes)) {
+                            continue;
+                        }
+
                         BlockState blockState = slice.getBlockState(x, y, z);
 
                         if (blockState.isAir() && !blockState.hasBlockEntity()) {
@@ -92,6 +230,12 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
                         blockPos.set(x, y, z);
                         modelOffset.set(x & 15, y & 15, z & 15);
 
+                        int blockIndex = WorldSlice.getLocalBlockIndex(x & 15, y & 15, z & 15);
+
+                        if (recorder != null) {
+                            recorder.beginBlock();
+                        }
+
                         if (blockState.getRenderType() == BlockRenderType.MODEL) {
                             BakedModel model = cache.getBlockModels()
                                 .getModel(blockState);
@@ -109,6 +253,10 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
                             cache.getFluidRenderer().render(slice, fluidState, blockPos, modelOffset, buffers);
                         }
 
+                        if (recorder != null) {
+                            recorder.endBlock(blockIndex);
+                        }
+
                         if (blockState.hasBlockEntity()) {
                             BlockEntity entity = slice.getBlockEntity(blockPos);
 
@@ -116,17 +264,30 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
                                 BlockEntityRenderer<BlockEntity> renderer = MinecraftClient.getInstance().getBlockEntityRenderDispatcher().get(entity);
 
                                 if (renderer != null) {
-                                    renderData.addBlockEntity(entity, !renderer.rendersOutsideBoundingBox(entity));
+                                    boolean culled = !renderer.rendersOutsideBoundingBox(entity);
+                                    renderData.addBlockEntity(entity, culled);
+
+                                    if (recorder != null) {
+                                        recorder.addBlockEntity(blockIndex, entity, culled);
+                                    }
                                 }
                             }
                         }
 
                         if (blockState.isOpaqueFullCube(slice, blockPos)) {
                             occluder.markClosed(blockPos);
+                            occluderBounds.markOpaque(x & 15, y & 15, z & 15);
+
+                            if (recorder != null) {
+                                recorder.markOpaque(blockIndex);
+                            }
                         }
                     }
                 }
             }
+
+            cache.getBlockRenderer()
+                    .end(buffers);
         } catch (CrashException ex) {
             // Propagate existing crashes (add context)
             throw fillCrashInfo(ex.getReport(), slice, blockPos);
@@ -142,13 +303,239 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
 
             if (mesh != null) {
                 meshes.put(pass, mesh);
-                renderData.addRenderPass(pass);
+                renderData.addRenderPass(pass, mesh);
+            }
+        }
+
+        if (exposedPlanes != ALL_BLOCKS) {
+            this.setUniformOcclusionData(slice, uniformState, renderData, occluderBounds, recorder);
+        } else {
+            renderData.setOcclusionData(occluder.build());
+        }
+
+        renderData.setOccluderBounds(occluderBounds.build());
+
+        BuiltSectionInfo info = renderData.build();
+        SectionMeshRecord record = recorder != null ? recorder.build(info.animatedSprites) : null;
+
+        ChunkBuildOutput output = new ChunkBuildOutput(this.render, info, meshes, this.buildTime, record);
+        output.setBuildDuration(System.nanoTime() - startTime);
+
+        if (this.diskCache != null && cacheKey != null) {
+            this.storeCachedOutput(this.diskCache, cacheKey, output);
+        }
+
+        this.sortTranslucentMeshes(meshes, buffers.getVertexType());
+
+        return output;
+    }
+
+    private void sortTranslucentMeshes(Map<TerrainRenderPass, BuiltSectionMeshParts> meshes, ChunkVertexType vertexType) {
+        for (var entry : meshes.entrySet()) {
+            if (!entry.getKey().isSorted()) {
+                continue;
+            }
+
+            var mesh = entry.getValue();
+            var geometry = TranslucentGeometry.create(mesh, vertexType,
+                    this.render.getOriginX(), this.render.getOriginY(), this.render.getOriginZ());
+
+            if (geometry != null) {
+                mesh.setSortResult(geometry.sort(this.cameraX, this.cameraY, this.cameraZ, null));
+            }
+        }
+    }
+
+    private @Nullable ChunkBuildOutput loadCachedOutput(MeshDiskCache diskCache, MeshCacheKey key, WorldSlice slice,
+                                                        ChunkVertexType vertexType) {
+        NativeBuffer entry = diskCache.read(key);
+
+        if (entry == null) {
+            return null;
+        }
+
+        try {
+            BuiltSectionInfo.Builder renderData = new BuiltSectionInfo.Builder();
+            Map<TerrainRenderPass, BuiltSectionMeshParts> meshes = MeshCacheCodec.decode(key, entry, renderData, vertexType);
+
+            if (meshes == null) {
+                return null;
+            }
+
+            this.addBlockEntities(slice, renderData);
+            this.sortTranslucentMeshes(meshes, vertexType);
+
+            return new ChunkBuildOutput(this.render, renderData.build(), meshes, this.buildTime);
+        } finally {
+            entry.free();
+        }
+    }
+
+    private void storeCachedOutput(MeshDiskCache diskCache, MeshCacheKey key, ChunkBuildOutput output) {
+        ByteBuffer data = MeshCacheCodec.encode(key, output);
+
+        try {
+            diskCache.write(key, data, this.diskCacheGeneration);
+        } finally {
+            MemoryUtil.memFree(data);
+        }
+    }
+
+    /**
+     * Adds the block entities of the section to the render data, since these are not part of the cached meshes.
+     */
+    private void addBlockEntities(WorldSlice slice, BuiltSectionInfo.Builder renderData) {
+        var blockEntities = this.renderContext.getBlockEntities()
+                .getBlockEntities(WorldSlice.getLocalSectionIndex(1, 1, 1));
+
+        if (blockEntities == null) {
+            return;
+        }
+
+        BlockPos.Mutable blockPos = new BlockPos.Mutable();
+
+        for (var entry : Int2ReferenceMaps.fastIterable(blockEntities)) {
+            int blockIndex = entry.getIntKey();
+
+            blockPos.set(this.render.getOriginX() + (blockIndex & 15),
+                    this.render.getOriginY() + ((blockIndex >> 8) & 15),
+                    this.render.getOriginZ() + ((blockIndex >> 4) & 15));
+
+            if (!slice.getBlockState(blockPos).hasBlockEntity()) {
+                continue;
+            }
+
+            BlockEntity entity = entry.getValue();
+            BlockEntityRenderer<BlockEntity> renderer = MinecraftClient.getInstance().getBlockEntityRenderDispatcher().get(entity);
+
+            if (renderer != null) {
+                renderData.addBlockEntity(entity, !renderer.rendersOutsideBoundingBox(entity));
+            }
+        }
+    }
+
+    /**
+     * Restores the state of every block outside the dirty region from the previous build, since those blocks will not be
+     * visited again.
+     */
+    private void restoreRetainedState(SectionMeshRecord previous, DirtyBlockRegion dirty, BuiltSectionInfo.Builder renderData,
+                                      ChunkOcclusionDataBuilder occluder, SectionOccluderBuilder occluderBounds,
+                                      SectionMeshRecorder recorder) {
+        for (var entry : previous.getBlockEntities()) {
+            if (!dirty.containsBlock(entry.blockIndex())) {
+                renderData.addBlockEntity(entry.entity(), entry.culled());
+                recorder.addBlockEntity(entry.blockIndex(), entry.entity(), entry.culled());
+            }
+        }
+
+        // The sprites of blocks which have been removed may still be included, but this only causes them to be ticked
+        // for longer than necessary until the section is fully rebuilt
+        var sprites = previous.getAnimatedSprites();
+
+        if (sprites != null) {
+            for (Sprite sprite : sprites) {
+                renderData.addSprite(sprite);
+            }
+        }
+
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+
+        for (int blockIndex = 0; blockIndex < 4096; blockIndex++) {
+            if (previous.isOpaque(blockIndex) && !dirty.containsBlock(blockIndex)) {
+                occluder.markClosed(pos.set(blockIndex & 15, (blockIndex >> 8) & 15, (blockIndex >> 4) & 15));
+                occluderBounds.markOpaque(pos.getX(), pos.getY(), pos.getZ());
+                recorder.markOpaque(blockIndex);
             }
         }
+    }
+
+    /**
+     * Determines which boundary planes of a section filled entirely by the given block state may contain visible
+     * geometry. Blocks which never produce geometry don't need to be visited at all. For opaque full cubes, every face
+     * between two blocks of the section is culled, so only the blocks on a boundary plane which faces a neighboring
+     * section that isn't also filled by an opaque full cube need to be rendered.
+     *
+     * @return A bit mask of the exposed planes (indexed by {@link Direction#ordinal()}), or {@link #ALL_BLOCKS} if every
+     * block must be visited
+     */
+    private int getExposedPlanes(WorldSlice slice, BlockState state, BlockRenderCache cache) {
+        if (state.hasBlockEntity() || !state.getFluidState().isEmpty()) {
+            return ALL_BLOCKS;
+        }
+
+        if (state.getRenderType() != BlockRenderType.MODEL) {
+            return 0;
+        }
+
+        BlockPos origin = new BlockPos(this.render.getOriginX(), this.render.getOriginY(), this.render.getOriginZ());
 
-        renderData.setOcclusionData(occluder.build());
+        if (state.hasModelOffset() || !state.isOpaqueFullCube(slice, origin)) {
+            return ALL_BLOCKS;
+        }
+
+        // Quads which are not assigned to a face are never culled, and would be visible inside the section
+        BakedModel model = cache.getBlockModels()
+                .getModel(state);
+
+        if (!model.getQuads(state, null, Random.create(state.getRenderingSeed(origin))).isEmpty()) {
+            return ALL_BLOCKS;
+        }
+
+        int planes = 0;
+
+        for (Direction direction : DirectionUtil.ALL_DIRECTIONS) {
+            BlockState neighbor = slice.getUniformBlockState(1 + direction.getOffsetX(), 1 + direction.getOffsetY(), 1 + direction.getOffsetZ());
+
+            if (neighbor == null || !neighbor.isOpaqueFullCube(slice, origin.offset(direction, 16))) {
+                planes |= 1 << direction.ordinal();
+            }
+        }
+
+        return planes;
+    }
+
+    private static boolean isOnExposedPlane(int x, int y, int z, int planes) {
+        return (y == 0 && (planes & (1 << Direction.DOWN.ordinal())) != 0) ||
+                (y == 15 && (planes & (1 << Direction.UP.ordinal())) != 0) ||
+                (z == 0 && (planes & (1 << Direction.NORTH.ordinal())) != 0) ||
+                (z == 15 && (planes & (1 << Direction.SOUTH.ordinal())) != 0) ||
+                (x == 0 && (planes & (1 << Direction.WEST.ordinal())) != 0) ||
+                (x == 15 && (planes & (1 << Direction.EAST.ordinal())) != 0);
+    }
+
+    /**
+     * Sets the occlusion data of a section filled entirely by the given block state, which is either closed off in every
+     * direction (when the state is an opaque full cube), or otherwise open in every direction.
+     */
+    private void setUniformOcclusionData(WorldSlice slice, BlockState state, BuiltSectionInfo.Builder renderData,
+                                         SectionOccluderBuilder occluderBounds, @Nullable SectionMeshRecorder recorder) {
+        BlockPos origin = new BlockPos(this.render.getOriginX(), this.render.getOriginY(), this.render.getOriginZ());
+        boolean opaque = state.isOpaqueFullCube(slice, origin);
+
+        ChunkOcclusionData data = new ChunkOcclusionData();
+        data.fill(!opaque);
+
+        renderData.setOcclusionData(data);
+
+        if (opaque) {
+            occluderBounds.markFilled();
+        }
+
+        if (opaque && recorder != null) {
+            for (int blockIndex = 0; blockIndex < 4096; blockIndex++) {
+                recorder.markOpaque(blockIndex);
+            }
+        }
+    }
+
+    @Override
+    public float getPriority(float cameraX, float cameraY, float cameraZ, int frame) {
+        // Tasks are first ordered by their update type, and then by whether the section was visible in the last frame.
+        // Within each tier, the sections closest to the camera are built first.
+        int tier = (this.updateType.getPriorityTier() << 1) | (this.render.getLastVisibleFrame() == frame ? 0 : 1);
+        float distance = (float) Math.sqrt(this.render.getSquaredDistance(cameraX, cameraY, cameraZ));
 
-        return new ChunkBuildOutput(this.render, renderData.build(), meshes, this.buildTime);
+        return (tier * PRIORITY_TIER_SIZE) + Math.min(distance, PRIORITY_TIER_SIZE - 1.0f);
     }
 
     private CrashException fillCrashInfo(CrashReport report, WorldSlice slice, BlockPos pos) {
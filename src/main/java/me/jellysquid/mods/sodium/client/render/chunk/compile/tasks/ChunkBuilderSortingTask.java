@@ -0,0 +1,54 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.tasks;
+
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkUpdateType;
+import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildContext;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkSortOutput;
+import me.jellysquid.mods.sodium.client.render.chunk.translucent.TranslucentGeometry;
+import me.jellysquid.mods.sodium.client.util.task.CancellationToken;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Sorts the translucent geometry of a section for a new camera position, without building the section's meshes again.
+ */
+public class ChunkBuilderSortingTask extends ChunkBuilderTask<ChunkSortOutput> {
+    private final RenderSection render;
+    private final TranslucentGeometry geometry;
+
+    private final float cameraX, cameraY, cameraZ;
+    private final int @Nullable [] previousOrder;
+
+    /**
+     * @param previousOrder The order of the section's last sort, which is never modified by the task
+     */
+    public ChunkBuilderSortingTask(RenderSection render, TranslucentGeometry geometry,
+                                   float cameraX, float cameraY, float cameraZ, int @Nullable [] previousOrder) {
+        this.render = render;
+        this.geometry = geometry;
+        this.cameraX = cameraX;
+        this.cameraY = cameraY;
+        this.cameraZ = cameraZ;
+        this.previousOrder = previousOrder;
+    }
+
+    @Override
+    public ChunkSortOutput execute(ChunkBuildContext context, CancellationToken cancellationToken) {
+        if (cancellationToken.isCancelled()) {
+            return null;
+        }
+
+        var result = this.geometry.sort(this.cameraX, this.cameraY, this.cameraZ, this.previousOrder);
+
+        return new ChunkSortOutput(this.render, result);
+    }
+
+    @Override
+    public float getPriority(float cameraX, float cameraY, float cameraZ, int frame) {
+        // Sorting is only ever requested for visible sections, and is cheap compared to building a section, so it
+        // shares the tier of visible sections which are being rebuilt
+        int tier = ChunkUpdateType.REBUILD.getPriorityTier() << 1;
+        float distance = (float) Math.sqrt(this.render.getSquaredDistance(cameraX, cameraY, cameraZ));
+
+        return (tier * PRIORITY_TIER_SIZE) + Math.min(distance, PRIORITY_TIER_SIZE - 1.0f);
+    }
+}
@@ -14,6 +14,10 @@ import me.jellysquid.mods.sodium.client.util.task.CancellationToken;
  * on the main thread.
  */
 public abstract class ChunkBuilderTask<OUTPUT> {
+    // The range of priority values which is used for each tier of tasks. This is larger than any possible distance
+    // between the camera and a chunk section, so that the tiers never overlap.
+    protected static final float PRIORITY_TIER_SIZE = 65536.0f;
+
     /**
      * Executes the given build task asynchronously from the calling thread. The implementation should be careful not
      * to access or modify global mutable state.
@@ -24,4 +28,17 @@ public abstract class ChunkBuilderTask<OUTPUT> {
      *         if the task was cancelled.
      */
     public abstract OUTPUT execute(ChunkBuildContext context, CancellationToken cancellationToken);
+
+    /**
+     * Computes the scheduling priority of this task for the given camera position. Tasks with a lower value will be
+     * executed before others. This is only ever called from the main thread, and will be called again for tasks which
+     * are still waiting to be executed once the camera has moved far enough.
+     *
+     * @param cameraX The x-coordinate of the camera in world space
+     * @param cameraY The y-coordinate of the camera in world space
+     * @param cameraZ The z-coordinate of the camera in world space
+     * @param frame   The index of the last frame for which the visible sections were determined
+     * @return The priority of this task
+     */
+    public abstract float getPriority(float cameraX, float cameraY, float cameraZ, int frame);
 }
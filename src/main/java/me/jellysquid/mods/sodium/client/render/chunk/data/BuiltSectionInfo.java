@@ -25,6 +25,12 @@ public class BuiltSectionInfo {
     public final int flags;
     public final long visibilityData;
 
+    // The bounds of everything which is rendered for the section, packed with SectionBounds
+    public final int bounds;
+
+    // The bounds of a box within the section which is entirely filled by opaque blocks, packed with SectionBounds
+    public final int occluderBounds;
+
     public final BlockEntity @Nullable[] globalBlockEntities;
     public final BlockEntity @Nullable[] culledBlockEntities;
     public final Sprite @Nullable[] animatedSprites;
@@ -33,7 +39,9 @@ public class BuiltSectionInfo {
                              @NotNull Collection<BlockEntity> globalBlockEntities,
                              @NotNull Collection<BlockEntity> culledBlockEntities,
                              @NotNull Collection<Sprite> animatedSprites,
-                             @NotNull ChunkOcclusionData occlusionData) {
+                             long visibilityData,
+                             int geometryBounds,
+                             int occluderBounds) {
         this.globalBlockEntities = toArray(globalBlockEntities, BlockEntity[]::new);
         this.culledBlockEntities = toArray(culledBlockEntities, BlockEntity[]::new);
         this.animatedSprites = toArray(animatedSprites, Sprite[]::new);
@@ -54,7 +62,11 @@ public class BuiltSectionInfo {
 
         this.flags = flags;
 
-        this.visibilityData = VisibilityEncoding.encode(occlusionData);
+        this.visibilityData = visibilityData;
+
+        // Block entities can render far outside their block, so only the bounds of the section itself are used for them
+        this.bounds = culledBlockEntities.isEmpty() ? geometryBounds : SectionBounds.FULL;
+        this.occluderBounds = occluderBounds;
     }
 
     public static class Builder {
@@ -63,14 +75,28 @@ public class BuiltSectionInfo {
         private final List<BlockEntity> culledBlockEntities = new ArrayList<>();
         private final Set<Sprite> animatedSprites = new ObjectOpenHashSet<>();
 
-        private ChunkOcclusionData occlusionData;
+        private long visibilityData = VisibilityEncoding.NULL;
+        private int geometryBounds = SectionBounds.EMPTY;
+        private int occluderBounds = SectionBounds.EMPTY;
 
-        public void addRenderPass(TerrainRenderPass pass) {
+        public void addRenderPass(TerrainRenderPass pass, BuiltSectionMeshParts mesh) {
             this.blockRenderPasses.add(pass);
+            this.geometryBounds = SectionBounds.union(this.geometryBounds, SectionBounds.union(mesh.getFacingBounds()));
         }
 
         public void setOcclusionData(ChunkOcclusionData data) {
-            this.occlusionData = data;
+            this.visibilityData = VisibilityEncoding.encode(data);
+        }
+
+        public void setOccluderBounds(int bounds) {
+            this.occluderBounds = bounds;
+        }
+
+        /**
+         * Sets the visibility data directly, in the form returned by {@link VisibilityEncoding#encode(ChunkOcclusionData)}.
+         */
+        public void setVisibilityData(long visibilityData) {
+            this.visibilityData = visibilityData;
         }
 
         /**
@@ -94,7 +120,7 @@ public class BuiltSectionInfo {
         }
 
         public BuiltSectionInfo build() {
-            return new BuiltSectionInfo(this.blockRenderPasses, this.globalBlockEntities, this.culledBlockEntities, this.animatedSprites, this.occlusionData);
+            return new BuiltSectionInfo(this.blockRenderPasses, this.globalBlockEntities, this.culledBlockEntities, this.animatedSprites, this.visibilityData, this.geometryBounds, this.occluderBounds);
         }
     }
 
@@ -1,15 +1,25 @@
 package me.jellysquid.mods.sodium.client.render.chunk.data;
 
 import me.jellysquid.mods.sodium.client.gl.util.VertexRange;
+import me.jellysquid.mods.sodium.client.render.chunk.translucent.TranslucentSortResult;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
 import me.jellysquid.mods.sodium.client.util.NativeBuffer;
+import org.jetbrains.annotations.Nullable;
 
 public class BuiltSectionMeshParts {
     private final VertexRange[] ranges;
     private final NativeBuffer buffer;
 
-    public BuiltSectionMeshParts(NativeBuffer buffer, VertexRange[] ranges) {
+    // The bounds of the geometry in each facing, packed with SectionBounds
+    private final int[] facingBounds;
+
+    // The sorted order of the quads, for meshes which are drawn with their own index data
+    private @Nullable TranslucentSortResult sortResult;
+
+    public BuiltSectionMeshParts(NativeBuffer buffer, VertexRange[] ranges, ChunkVertexType vertexType) {
         this.ranges = ranges;
         this.buffer = buffer;
+        this.facingBounds = SectionBounds.compute(buffer, ranges, vertexType);
     }
 
     public NativeBuffer getVertexData() {
@@ -19,4 +29,25 @@ public class BuiltSectionMeshParts {
     public VertexRange[] getVertexRanges() {
         return this.ranges;
     }
+
+    public int[] getFacingBounds() {
+        return this.facingBounds;
+    }
+
+    public @Nullable TranslucentSortResult getSortResult() {
+        return this.sortResult;
+    }
+
+    public void setSortResult(@Nullable TranslucentSortResult sortResult) {
+        this.sortResult = sortResult;
+    }
+
+    public void free() {
+        this.buffer.free();
+
+        if (this.sortResult != null) {
+            this.sortResult.indexData()
+                    .free();
+        }
+    }
 }
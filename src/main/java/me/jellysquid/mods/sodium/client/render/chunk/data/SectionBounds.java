@@ -0,0 +1,148 @@
+package me.jellysquid.mods.sodium.client.render.chunk.data;
+
+import me.jellysquid.mods.sodium.client.gl.util.VertexRange;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.util.NativeBuffer;
+import org.joml.Vector3f;
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * Packs the bounding box of the geometry in a section into a single integer. The bounds are stored in whole blocks
+ * relative to the origin of the section, and since block models can extend outside their block by up to one block,
+ * each coordinate is in the range of [-1, 17].
+ *
+ * <p>Each of the six coordinates is stored in 5 bits, offset by one so that it is never negative. The bounds are empty
+ * if the minimum is greater than the maximum on any axis.</p>
+ */
+public class SectionBounds {
+    private static final int MIN_VALUE = -1;
+    private static final int MAX_VALUE = 17;
+
+    private static final int FIELD_BITS = 5;
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+
+    private static final int MIN_X = 0, MIN_Y = 1, MIN_Z = 2, MAX_X = 3, MAX_Y = 4, MAX_Z = 5;
+
+    public static final int EMPTY = pack(MAX_VALUE, MAX_VALUE, MAX_VALUE, MIN_VALUE, MIN_VALUE, MIN_VALUE);
+    public static final int FULL = pack(MIN_VALUE, MIN_VALUE, MIN_VALUE, MAX_VALUE, MAX_VALUE, MAX_VALUE);
+
+    // The bounds of exactly the volume of the section, without the space around it which models can extend into
+    public static final int SECTION = pack(0, 0, 0, 16, 16, 16);
+
+    public static int pack(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        return encode(MIN_X, minX) | encode(MIN_Y, minY) | encode(MIN_Z, minZ) |
+                encode(MAX_X, maxX) | encode(MAX_Y, maxY) | encode(MAX_Z, maxZ);
+    }
+
+    private static int encode(int field, int value) {
+        return (Math.max(MIN_VALUE, Math.min(MAX_VALUE, value)) - MIN_VALUE) << (field * FIELD_BITS);
+    }
+
+    private static int decode(int bounds, int field) {
+        return ((bounds >>> (field * FIELD_BITS)) & FIELD_MASK) + MIN_VALUE;
+    }
+
+    public static int getMinX(int bounds) {
+        return decode(bounds, MIN_X);
+    }
+
+    public static int getMinY(int bounds) {
+        return decode(bounds, MIN_Y);
+    }
+
+    public static int getMinZ(int bounds) {
+        return decode(bounds, MIN_Z);
+    }
+
+    public static int getMaxX(int bounds) {
+        return decode(bounds, MAX_X);
+    }
+
+    public static int getMaxY(int bounds) {
+        return decode(bounds, MAX_Y);
+    }
+
+    public static int getMaxZ(int bounds) {
+        return decode(bounds, MAX_Z);
+    }
+
+    public static boolean isEmpty(int bounds) {
+        return getMinX(bounds) > getMaxX(bounds) ||
+                getMinY(bounds) > getMaxY(bounds) ||
+                getMinZ(bounds) > getMaxZ(bounds);
+    }
+
+    /**
+     * @return The smallest bounds which contain both of the given bounds
+     */
+    public static int union(int a, int b) {
+        if (isEmpty(a)) {
+            return b;
+        }
+
+        if (isEmpty(b)) {
+            return a;
+        }
+
+        return pack(Math.min(getMinX(a), getMinX(b)), Math.min(getMinY(a), getMinY(b)), Math.min(getMinZ(a), getMinZ(b)),
+                Math.max(getMaxX(a), getMaxX(b)), Math.max(getMaxY(a), getMaxY(b)), Math.max(getMaxZ(a), getMaxZ(b)));
+    }
+
+    /**
+     * @return The smallest bounds which contain all of the given bounds
+     */
+    public static int union(int[] bounds) {
+        int result = EMPTY;
+
+        for (int value : bounds) {
+            result = union(result, value);
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the bounds of the vertices in each facing of a mesh. The bounds are rounded outwards to whole blocks, so
+     * they always contain the geometry they were created from.
+     *
+     * @return The bounds of each facing, indexed by {@link ModelQuadFacing#ordinal()}
+     */
+    public static int[] compute(NativeBuffer buffer, VertexRange[] ranges, ChunkVertexType vertexType) {
+        int[] bounds = new int[ModelQuadFacing.COUNT];
+
+        long ptr = MemoryUtil.memAddress(buffer.getDirectBuffer());
+        int stride = vertexType.getVertexFormat().getStride();
+
+        Vector3f position = new Vector3f();
+
+        for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
+            VertexRange range = ranges[facing];
+
+            if (range == null || range.vertexCount() == 0) {
+                bounds[facing] = EMPTY;
+                continue;
+            }
+
+            float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+            float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+
+            for (int vertex = range.vertexStart(); vertex < range.vertexStart() + range.vertexCount(); vertex++) {
+                vertexType.readPosition(ptr + ((long) vertex * stride), position);
+
+                minX = Math.min(minX, position.x);
+                minY = Math.min(minY, position.y);
+                minZ = Math.min(minZ, position.z);
+
+                maxX = Math.max(maxX, position.x);
+                maxY = Math.max(maxY, position.y);
+                maxZ = Math.max(maxZ, position.z);
+            }
+
+            bounds[facing] = pack((int) Math.floor(minX), (int) Math.floor(minY), (int) Math.floor(minZ),
+                    (int) Math.ceil(maxX), (int) Math.ceil(maxY), (int) Math.ceil(maxZ));
+        }
+
+        return bounds;
+    }
+}
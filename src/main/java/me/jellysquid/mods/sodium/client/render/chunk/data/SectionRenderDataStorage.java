@@ -9,6 +9,7 @@ import java.util.Arrays;
 
 public class SectionRenderDataStorage {
     private final GlBufferSegment[] allocations = new GlBufferSegment[RenderRegion.REGION_SIZE];
+    private final GlBufferSegment[] indexAllocations = new GlBufferSegment[RenderRegion.REGION_SIZE];
 
     private final long pMeshDataArray;
 
@@ -17,7 +18,7 @@ public class SectionRenderDataStorage {
     }
 
     public void setMeshes(int localSectionIndex,
-                          GlBufferSegment allocation, VertexRange[] ranges) {
+                          GlBufferSegment allocation, VertexRange[] ranges, int[] facingBounds) {
         if (this.allocations[localSectionIndex] != null) {
             this.allocations[localSectionIndex].delete();
             this.allocations[localSectionIndex] = null;
@@ -42,6 +43,7 @@ public class SectionRenderDataStorage {
 
             SectionRenderDataUnsafe.setVertexOffset(pMeshData, facingIndex, vertexOffset);
             SectionRenderDataUnsafe.setElementCount(pMeshData, facingIndex, (vertexCount >> 2) * 6);
+            SectionRenderDataUnsafe.setFacingPlane(pMeshData, facingIndex, getFacingPlane(facingIndex, facingBounds[facingIndex]));
 
             if (vertexCount > 0) {
                 sliceMask |= 1 << facingIndex;
@@ -51,6 +53,54 @@ public class SectionRenderDataStorage {
         }
 
         SectionRenderDataUnsafe.setSliceMask(pMeshData, sliceMask);
+
+        this.removeIndexData(localSectionIndex);
+    }
+
+    private static int getFacingPlane(int facing, int bounds) {
+        if (SectionBounds.isEmpty(bounds)) {
+            return 0;
+        }
+
+        return switch (ModelQuadFacing.VALUES[facing]) {
+            case POS_X -> SectionBounds.getMinX(bounds);
+            case POS_Y -> SectionBounds.getMinY(bounds);
+            case POS_Z -> SectionBounds.getMinZ(bounds);
+            case NEG_X -> SectionBounds.getMaxX(bounds);
+            case NEG_Y -> SectionBounds.getMaxY(bounds);
+            case NEG_Z -> SectionBounds.getMaxZ(bounds);
+            case UNASSIGNED -> 0;
+        };
+    }
+
+    /**
+     * Sets the index data which the section's geometry is drawn with, replacing any previous index data. This must be
+     * called after the section's meshes have been set.
+     */
+    public void setIndexData(int localSectionIndex, GlBufferSegment allocation) {
+        if (this.allocations[localSectionIndex] == null) {
+            throw new IllegalStateException("Section has no meshes");
+        }
+
+        this.removeIndexData(localSectionIndex);
+        this.indexAllocations[localSectionIndex] = allocation;
+
+        SectionRenderDataUnsafe.setIndexOffset(this.getDataPointer(localSectionIndex), allocation.getOffset());
+    }
+
+    public boolean hasMeshes(int localSectionIndex) {
+        return this.allocations[localSectionIndex] != null;
+    }
+
+    private void removeIndexData(int localSectionIndex) {
+        if (this.indexAllocations[localSectionIndex] == null) {
+            return;
+        }
+
+        this.indexAllocations[localSectionIndex].delete();
+        this.indexAllocations[localSectionIndex] = null;
+
+        SectionRenderDataUnsafe.clearIndexOffset(this.getDataPointer(localSectionIndex));
     }
 
     public void removeMeshes(int localSectionIndex) {
@@ -61,6 +111,11 @@ public class SectionRenderDataStorage {
         this.allocations[localSectionIndex].delete();
         this.allocations[localSectionIndex] = null;
 
+        if (this.indexAllocations[localSectionIndex] != null) {
+            this.indexAllocations[localSectionIndex].delete();
+            this.indexAllocations[localSectionIndex] = null;
+        }
+
         SectionRenderDataUnsafe.clear(this.getDataPointer(localSectionIndex));
     }
 
@@ -86,6 +141,12 @@ public class SectionRenderDataStorage {
             var count = SectionRenderDataUnsafe.getElementCount(data, facing);
             offset += (count / 6) * 4; // convert elements back into vertices
         }
+
+        var indexAllocation = this.indexAllocations[sectionIndex];
+
+        if (indexAllocation != null) {
+            SectionRenderDataUnsafe.setIndexOffset(data, indexAllocation.getOffset());
+        }
     }
 
     public long getDataPointer(int sectionIndex) {
@@ -99,7 +160,14 @@ public class SectionRenderDataStorage {
             }
         }
 
+        for (var allocation : this.indexAllocations) {
+            if (allocation != null) {
+                allocation.delete();
+            }
+        }
+
         Arrays.fill(this.allocations, null);
+        Arrays.fill(this.indexAllocations, null);
 
         SectionRenderDataUnsafe.freeHeap(this.pMeshDataArray);
     }
@@ -1,5 +1,6 @@
 package me.jellysquid.mods.sodium.client.render.chunk.data;
 
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import org.lwjgl.system.MemoryUtil;
 
 // This code is a terrible hack to get around the fact that we are so incredibly memory bound, and that we
@@ -16,9 +17,14 @@ import org.lwjgl.system.MemoryUtil;
 // three times slower than the most naive solution in literally any other language that LLVM can compile.
 public class SectionRenderDataUnsafe {
     private static final long OFFSET_SLICE_MASK = 0;
+    private static final long OFFSET_INDEX_OFFSET = 4;
     private static final long OFFSET_SLICE_RANGES = 8;
+    private static final long OFFSET_FACING_PLANES = 64;
 
-    private static final long STRIDE = 64;
+    // Stored in the slice mask (above the bits of each facing) when the section has its own index data
+    private static final int FLAG_HAS_INDEX_DATA = 1 << 31;
+
+    private static final long STRIDE = 72;
 
     public static long allocateHeap(int count) {
         return MemoryUtil.nmemCalloc(count, STRIDE);
@@ -44,6 +50,40 @@ public class SectionRenderDataUnsafe {
         return MemoryUtil.memGetInt(ptr + OFFSET_SLICE_MASK);
     }
 
+    public static void setIndexOffset(long ptr, int value) {
+        MemoryUtil.memPutInt(ptr + OFFSET_INDEX_OFFSET, value);
+        MemoryUtil.memPutInt(ptr + OFFSET_SLICE_MASK, getSliceMask(ptr) | FLAG_HAS_INDEX_DATA);
+    }
+
+    public static void clearIndexOffset(long ptr) {
+        MemoryUtil.memPutInt(ptr + OFFSET_INDEX_OFFSET, 0);
+        MemoryUtil.memPutInt(ptr + OFFSET_SLICE_MASK, getSliceMask(ptr) & ~FLAG_HAS_INDEX_DATA);
+    }
+
+    public static boolean hasIndexData(long ptr) {
+        return (getSliceMask(ptr) & FLAG_HAS_INDEX_DATA) != 0;
+    }
+
+    /**
+     * @return The offset (in elements) of the section's index data within the region's index buffer
+     */
+    public static int getIndexOffset(long ptr) {
+        return MemoryUtil.memGetInt(ptr + OFFSET_INDEX_OFFSET);
+    }
+
+    /**
+     * @return The total number of elements across all facings, which is also the length of the section's index data
+     */
+    public static int getTotalElementCount(long ptr) {
+        int count = 0;
+
+        for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
+            count += getElementCount(ptr, facing);
+        }
+
+        return count;
+    }
+
     public static void setVertexOffset(long ptr, int facing, int value) {
         MemoryUtil.memPutInt(ptr + OFFSET_SLICE_RANGES + (facing * 8L) + 0L, value);
     }
@@ -59,4 +99,17 @@ public class SectionRenderDataUnsafe {
     public static int getElementCount(long ptr, int facing) {
         return MemoryUtil.memGetInt(ptr + OFFSET_SLICE_RANGES + (facing * 8L) + 4L);
     }
+
+    /**
+     * Sets the position (in blocks, relative to the section's origin) of the plane which the geometry of a facing can
+     * be seen from. This is the lowest coordinate of the geometry for the positive facings, and the highest
+     * coordinate for the negative facings.
+     */
+    public static void setFacingPlane(long ptr, int facing, int value) {
+        MemoryUtil.memPutByte(ptr + OFFSET_FACING_PLANES + facing, (byte) value);
+    }
+
+    public static int getFacingPlane(long ptr, int facing) {
+        return MemoryUtil.memGetByte(ptr + OFFSET_FACING_PLANES + facing);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,159 @@
+package me.jellysquid.mods.sodium.client.render.chunk.occlusion;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.World;
+
+/**
+ * Culls sections which are hidden below solid layers of terrain, such as the caves beneath the ground when the camera is
+ * above the surface. For each column of sections, a bit mask is kept of which sections are entirely filled with opaque
+ * blocks.
+ *
+ * <p>Every ray from the camera to a box must pass through all the heights between them, and while doing so, it stays
+ * within the rectangle of columns which contains both the camera and the box. So if there is a section height (between
+ * the camera and the top of the box) at which every column in that rectangle is solid, the box can't be seen. To make
+ * this test cheap, the masks of every rectangle which starts at the camera's column are combined once per frame, in a
+ * grid around the camera.</p>
+ *
+ * <p>Only the first 64 sections above the bottom of the world are tracked, and sections above them are never treated as
+ * solid.</p>
+ */
+public class HorizonCuller {
+    // Each column's mask of solid sections, indexed by the section's height above the bottom of the world
+    private final Long2LongOpenHashMap columns = new Long2LongOpenHashMap();
+
+    private final int bottomSectionCoord;
+
+    // The combined masks of the rectangle between the camera's column and each column in the grid
+    private long[] grid = new long[0];
+    private int gridRadius = -1;
+    private int gridSize;
+
+    private int originX, originY, originZ;
+    private boolean dirty = true;
+
+    public HorizonCuller(World world) {
+        this.bottomSectionCoord = world.getBottomSectionCoord();
+    }
+
+    /**
+     * Updates whether the section at the given position is entirely filled with opaque blocks.
+     */
+    public void setSectionSolid(int x, int y, int z, boolean solid) {
+        int index = y - this.bottomSectionCoord;
+
+        if (index < 0 || index >= Long.SIZE) {
+            return;
+        }
+
+        long key = ChunkPos.toLong(x, z);
+        long prev = this.columns.get(key);
+        long mask = solid ? (prev | (1L << index)) : (prev & ~(1L << index));
+
+        if (mask == prev) {
+            return;
+        }
+
+        if (mask == 0L) {
+            this.columns.remove(key);
+        } else {
+            this.columns.put(key, mask);
+        }
+
+        this.dirty = true;
+    }
+
+    /**
+     * Combines the masks of the columns within the given radius (in sections) of the camera. This must be called before
+     * any boxes are tested, and is skipped if nothing has changed since the last call.
+     */
+    public void update(ChunkSectionPos origin, int radius) {
+        if (!this.dirty && this.gridRadius == radius &&
+                this.originX == origin.getX() && this.originY == origin.getY() && this.originZ == origin.getZ()) {
+            return;
+        }
+
+        this.originX = origin.getX();
+        this.originY = origin.getY();
+        this.originZ = origin.getZ();
+
+        if (this.gridRadius != radius) {
+            this.gridRadius = radius;
+            this.gridSize = (radius * 2) + 1;
+            this.grid = new long[this.gridSize * this.gridSize];
+        }
+
+        // The rectangle between the camera and a column is the union of the column itself, and the rectangles of the
+        // two columns next to it which are one step closer to the camera. So each quadrant can be built outwards from
+        // the camera, and the columns along each axis are simply computed twice.
+        for (int signZ = -1; signZ <= 1; signZ += 2) {
+            for (int signX = -1; signX <= 1; signX += 2) {
+                for (int dz = 0; dz <= radius; dz++) {
+                    for (int dx = 0; dx <= radius; dx++) {
+                        int x = signX * dx;
+                        int z = signZ * dz;
+
+                        long mask = this.columns.get(ChunkPos.toLong(this.originX + x, this.originZ + z));
+
+                        if (dx > 0) {
+                            mask &= this.grid[this.getGridIndex(x - signX, z)];
+                        }
+
+                        if (dz > 0) {
+                            mask &= this.grid[this.getGridIndex(x, z - signZ)];
+                        }
+
+                        this.grid[this.getGridIndex(x, z)] = mask;
+                    }
+                }
+            }
+        }
+
+        this.dirty = false;
+    }
+
+    private int getGridIndex(int x, int z) {
+        return ((z + this.gridRadius) * this.gridSize) + (x + this.gridRadius);
+    }
+
+    /**
+     * Tests whether the box of sections between the given coordinates is hidden below a solid layer of terrain. The box
+     * is expanded by one column on each side, since block models can extend outside their section. This may be called
+     * from multiple threads at once.
+     *
+     * @return True if the box can't be seen from the camera, otherwise false
+     */
+    public boolean isBelowHorizon(int minX, int minZ, int maxX, int maxY, int maxZ) {
+        // Only solid sections which are above the box and entirely below the camera can hide it
+        int lowestIndex = Math.max(0, (maxY + 1) - this.bottomSectionCoord);
+        int highestIndex = Math.min(Long.SIZE - 1, (this.originY - 1) - this.bottomSectionCoord);
+
+        if (lowestIndex > highestIndex) {
+            return false;
+        }
+
+        long mask = (-1L << lowestIndex) & (-1L >>> (Long.SIZE - 1 - highestIndex));
+
+        int radius = this.gridRadius;
+
+        int x0 = (minX - 1) - this.originX, x1 = (maxX + 1) - this.originX;
+        int z0 = (minZ - 1) - this.originZ, z1 = (maxZ + 1) - this.originZ;
+
+        if (x0 < -radius || x1 > radius || z0 < -radius || z1 > radius) {
+            return false;
+        }
+
+        for (int z = z0; z <= z1; z++) {
+            for (int x = x0; x <= x1; x++) {
+                mask &= this.grid[this.getGridIndex(x, z)];
+
+                if (mask == 0L) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+}
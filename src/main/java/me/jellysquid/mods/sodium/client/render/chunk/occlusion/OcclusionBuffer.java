@@ -0,0 +1,304 @@
+package me.jellysquid.mods.sodium.client.render.chunk.occlusion;
+
+import org.joml.Matrix4fc;
+
+import java.util.Arrays;
+
+/**
+ * A low-resolution depth buffer which large occluders are rasterized into on the CPU, so that the sections behind them
+ * can be culled without help from the graphics card. The buffer stores the view-space depth of the nearest occluder
+ * covering each pixel, and a pyramid of lower-resolution levels is built from it where each texel holds the farthest
+ * depth of the texels beneath it. This allows any box to be tested against a small, fixed number of texels.
+ *
+ * <p>Every operation is conservative: occluders only cover the pixels which they cover entirely, and use the depth of
+ * their farthest point, while the boxes which are tested use the depth of their nearest point. Geometry which crosses
+ * the near plane is never rasterized, and boxes which cross it are never occluded.</p>
+ *
+ * <p>The buffer has no dependencies on the game or graphics state, so it can be filled and tested from any thread.
+ * Once the pyramid has been built, it may be tested from multiple threads at once.</p>
+ */
+public class OcclusionBuffer {
+    // The resolution of the full-size level of the buffer
+    private static final int WIDTH = 256;
+    private static final int HEIGHT = 128;
+
+    // Points which are closer than this (in view-space) are treated as crossing the near plane
+    private static final float NEAR_DEPTH = 0.05f;
+
+    // The depth of pixels which are not covered by any occluder
+    private static final float EMPTY_DEPTH = Float.POSITIVE_INFINITY;
+
+    private final float[][] levels;
+    private final int[] levelWidths;
+    private final int[] levelHeights;
+
+    private final float[] matrix = new float[16];
+
+    // The projected corners of the face which is being rasterized, as (x, y, depth) triplets
+    private final float[] corners = new float[4 * 3];
+
+    // The edge functions of the face which is being rasterized, as (a, b, c) triplets
+    private final float[] edges = new float[4 * 3];
+
+    private int occluderCount;
+
+    public OcclusionBuffer() {
+        int levelCount = 32 - Integer.numberOfLeadingZeros(Math.max(WIDTH, HEIGHT));
+
+        this.levels = new float[levelCount][];
+        this.levelWidths = new int[levelCount];
+        this.levelHeights = new int[levelCount];
+
+        for (int level = 0; level < levelCount; level++) {
+            this.levelWidths[level] = Math.max(1, WIDTH >> level);
+            this.levelHeights[level] = Math.max(1, HEIGHT >> level);
+            this.levels[level] = new float[this.levelWidths[level] * this.levelHeights[level]];
+        }
+    }
+
+    /**
+     * Clears the buffer and prepares it for a new frame. All coordinates which are later given to the buffer are
+     * relative to the camera's position.
+     *
+     * @param viewProjection The matrix which transforms camera-relative positions into clip space
+     */
+    public void begin(Matrix4fc viewProjection) {
+        viewProjection.get(this.matrix);
+
+        Arrays.fill(this.levels[0], EMPTY_DEPTH);
+
+        this.occluderCount = 0;
+    }
+
+    /**
+     * Rasterizes the faces of an occluding box which face towards the camera.
+     */
+    public void addOccluder(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        // The camera is inside the box, so it would cover everything
+        if (minX < 0.0f && maxX > 0.0f && minY < 0.0f && maxY > 0.0f && minZ < 0.0f && maxZ > 0.0f) {
+            return;
+        }
+
+        if (maxX < 0.0f) {
+            this.rasterizeFace(maxX, minY, minZ, maxX, maxY, minZ, maxX, maxY, maxZ, maxX, minY, maxZ);
+        } else if (minX > 0.0f) {
+            this.rasterizeFace(minX, minY, minZ, minX, maxY, minZ, minX, maxY, maxZ, minX, minY, maxZ);
+        }
+
+        if (maxY < 0.0f) {
+            this.rasterizeFace(minX, maxY, minZ, maxX, maxY, minZ, maxX, maxY, maxZ, minX, maxY, maxZ);
+        } else if (minY > 0.0f) {
+            this.rasterizeFace(minX, minY, minZ, maxX, minY, minZ, maxX, minY, maxZ, minX, minY, maxZ);
+        }
+
+        if (maxZ < 0.0f) {
+            this.rasterizeFace(minX, minY, maxZ, maxX, minY, maxZ, maxX, maxY, maxZ, minX, maxY, maxZ);
+        } else if (minZ > 0.0f) {
+            this.rasterizeFace(minX, minY, minZ, maxX, minY, minZ, maxX, maxY, minZ, minX, maxY, minZ);
+        }
+
+        this.occluderCount++;
+    }
+
+    private void rasterizeFace(float x0, float y0, float z0, float x1, float y1, float z1,
+                               float x2, float y2, float z2, float x3, float y3, float z3) {
+        final float[] c = this.corners;
+
+        if (!this.project(x0, y0, z0, 0) || !this.project(x1, y1, z1, 1) ||
+                !this.project(x2, y2, z2, 2) || !this.project(x3, y3, z3, 3)) {
+            return;
+        }
+
+        float depth = Math.max(Math.max(c[2], c[5]), Math.max(c[8], c[11]));
+
+        // The winding of the projected face depends on which side it is viewed from
+        float area = 0.0f;
+
+        for (int i = 0; i < 4; i++) {
+            int j = (i + 1) & 3;
+            area += (c[(i * 3) + 0] * c[(j * 3) + 1]) - (c[(j * 3) + 0] * c[(i * 3) + 1]);
+        }
+
+        if (area == 0.0f) {
+            return;
+        }
+
+        float sign = Math.signum(area);
+
+        int minPixelX = Math.max(0, (int) Math.floor(Math.min(Math.min(c[0], c[3]), Math.min(c[6], c[9]))));
+        int minPixelY = Math.max(0, (int) Math.floor(Math.min(Math.min(c[1], c[4]), Math.min(c[7], c[10]))));
+        int maxPixelX = Math.min(WIDTH - 1, (int) Math.ceil(Math.max(Math.max(c[0], c[3]), Math.max(c[6], c[9]))));
+        int maxPixelY = Math.min(HEIGHT - 1, (int) Math.ceil(Math.max(Math.max(c[1], c[4]), Math.max(c[7], c[10]))));
+
+        if (minPixelX > maxPixelX || minPixelY > maxPixelY) {
+            return;
+        }
+
+        // Each edge is described by the function (a * x) + (b * y) + c, which is positive on the inner side. The
+        // function is offset by the largest amount it can change within half of a pixel, so that it is only positive
+        // at the centers of pixels which are entirely inside the edge.
+        final float[] edges = this.edges;
+
+        for (int i = 0; i < 4; i++) {
+            int j = (i + 1) & 3;
+
+            float ax = c[(i * 3) + 0], ay = c[(i * 3) + 1];
+            float bx = c[(j * 3) + 0], by = c[(j * 3) + 1];
+
+            float ea = -(by - ay) * sign;
+            float eb = (bx - ax) * sign;
+            float ec = -((ea * ax) + (eb * ay)) - (0.5f * (Math.abs(ea) + Math.abs(eb)));
+
+            edges[(i * 3) + 0] = ea;
+            edges[(i * 3) + 1] = eb;
+            edges[(i * 3) + 2] = ec;
+        }
+
+        final float[] buffer = this.levels[0];
+
+        for (int py = minPixelY; py <= maxPixelY; py++) {
+            float cy = py + 0.5f;
+            int row = py * WIDTH;
+
+            for (int px = minPixelX; px <= maxPixelX; px++) {
+                float cx = px + 0.5f;
+
+                boolean inside = true;
+
+                for (int i = 0; i < 4; i++) {
+                    inside &= ((edges[(i * 3) + 0] * cx) + (edges[(i * 3) + 1] * cy) + edges[(i * 3) + 2]) >= 0.0f;
+                }
+
+                if (inside) {
+                    buffer[row + px] = Math.min(buffer[row + px], depth);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the lower-resolution levels of the buffer. This must be called after all occluders have been added, and
+     * before any boxes are tested.
+     */
+    public void finish() {
+        for (int level = 1; level < this.levels.length; level++) {
+            float[] src = this.levels[level - 1];
+            int srcWidth = this.levelWidths[level - 1];
+            int srcHeight = this.levelHeights[level - 1];
+
+            float[] dst = this.levels[level];
+            int dstWidth = this.levelWidths[level];
+            int dstHeight = this.levelHeights[level];
+
+            for (int y = 0; y < dstHeight; y++) {
+                int y0 = Math.min(y * 2, srcHeight - 1);
+                int y1 = Math.min((y * 2) + 1, srcHeight - 1);
+
+                for (int x = 0; x < dstWidth; x++) {
+                    int x0 = Math.min(x * 2, srcWidth - 1);
+                    int x1 = Math.min((x * 2) + 1, srcWidth - 1);
+
+                    dst[(y * dstWidth) + x] = Math.max(
+                            Math.max(src[(y0 * srcWidth) + x0], src[(y0 * srcWidth) + x1]),
+                            Math.max(src[(y1 * srcWidth) + x0], src[(y1 * srcWidth) + x1]));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return True if any occluders have been added since the buffer was last cleared
+     */
+    public boolean hasOccluders() {
+        return this.occluderCount > 0;
+    }
+
+    /**
+     * Tests whether a box is entirely hidden behind the occluders in the buffer. This is safe to call from multiple
+     * threads at once, but only after {@link #finish()} has been called.
+     */
+    public boolean isBoxOccluded(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        final float[] m = this.matrix;
+
+        float minScreenX = Float.POSITIVE_INFINITY, minScreenY = Float.POSITIVE_INFINITY;
+        float maxScreenX = Float.NEGATIVE_INFINITY, maxScreenY = Float.NEGATIVE_INFINITY;
+        float minDepth = Float.POSITIVE_INFINITY;
+
+        for (int corner = 0; corner < 8; corner++) {
+            float x = (corner & 1) == 0 ? minX : maxX;
+            float y = (corner & 2) == 0 ? minY : maxY;
+            float z = (corner & 4) == 0 ? minZ : maxZ;
+
+            float w = (m[3] * x) + (m[7] * y) + (m[11] * z) + m[15];
+
+            if (w < NEAR_DEPTH) {
+                return false;
+            }
+
+            float screenX = toScreenX(((m[0] * x) + (m[4] * y) + (m[8] * z) + m[12]) / w);
+            float screenY = toScreenY(((m[1] * x) + (m[5] * y) + (m[9] * z) + m[13]) / w);
+
+            minScreenX = Math.min(minScreenX, screenX);
+            minScreenY = Math.min(minScreenY, screenY);
+            maxScreenX = Math.max(maxScreenX, screenX);
+            maxScreenY = Math.max(maxScreenY, screenY);
+
+            minDepth = Math.min(minDepth, w);
+        }
+
+        int minPixelX = Math.max(0, (int) Math.floor(minScreenX));
+        int minPixelY = Math.max(0, (int) Math.floor(minScreenY));
+        int maxPixelX = Math.min(WIDTH - 1, (int) Math.floor(maxScreenX));
+        int maxPixelY = Math.min(HEIGHT - 1, (int) Math.floor(maxScreenY));
+
+        // The box is outside the screen, which is left to the frustum test
+        if (minPixelX > maxPixelX || minPixelY > maxPixelY) {
+            return false;
+        }
+
+        // Pick the level where the box covers at most two texels in each direction
+        int size = Math.max(maxPixelX - minPixelX, maxPixelY - minPixelY);
+        int level = Math.min(this.levels.length - 1, 32 - Integer.numberOfLeadingZeros(size));
+
+        float[] texels = this.levels[level];
+        int levelWidth = this.levelWidths[level];
+        int levelHeight = this.levelHeights[level];
+
+        int maxTexelX = Math.min(levelWidth - 1, maxPixelX >> level);
+        int maxTexelY = Math.min(levelHeight - 1, maxPixelY >> level);
+
+        for (int y = Math.min(levelHeight - 1, minPixelY >> level); y <= maxTexelY; y++) {
+            for (int x = Math.min(levelWidth - 1, minPixelX >> level); x <= maxTexelX; x++) {
+                if (texels[(y * levelWidth) + x] >= minDepth) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private boolean project(float x, float y, float z, int index) {
+        final float[] m = this.matrix;
+
+        float w = (m[3] * x) + (m[7] * y) + (m[11] * z) + m[15];
+
+        if (w < NEAR_DEPTH) {
+            return false;
+        }
+
+        this.corners[(index * 3) + 0] = toScreenX(((m[0] * x) + (m[4] * y) + (m[8] * z) + m[12]) / w);
+        this.corners[(index * 3) + 1] = toScreenY(((m[1] * x) + (m[5] * y) + (m[9] * z) + m[13]) / w);
+        this.corners[(index * 3) + 2] = w;
+
+        return true;
+    }
+
+    private static float toScreenX(float ndc) {
+        return ((ndc * 0.5f) + 0.5f) * WIDTH;
+    }
+
+    private static float toScreenY(float ndc) {
+        return ((ndc * 0.5f) + 0.5f) * HEIGHT;
+    }
+}
@@ -2,26 +2,86 @@ package me.jellysquid.mods.sodium.client.render.chunk.occlusion;
 
 import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
 import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
+import me.jellysquid.mods.sodium.client.render.chunk.data.SectionBounds;
+import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
+import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegionManager;
 import me.jellysquid.mods.sodium.client.render.viewport.CameraTransform;
-import me.jellysquid.mods.sodium.client.util.collections.DoubleBufferedQueue;
-import me.jellysquid.mods.sodium.client.util.collections.ReadQueue;
-import me.jellysquid.mods.sodium.client.util.collections.WriteQueue;
 import me.jellysquid.mods.sodium.client.render.viewport.Viewport;
+import me.jellysquid.mods.sodium.client.render.viewport.frustum.Frustum;
 import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
-import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Consumer;
 
+/**
+ * Searches the visibility graph for the sections which are visible from the camera, one breadth-first layer at a
+ * time. The graph is stored in a {@link SectionGraph}, so the search only works with node indices and flat arrays.
+ *
+ * <p>The distance and frustum tests of each layer are independent of each other, so large layers are tested in
+ * parallel on the common fork-join pool. The sections which pass are then visited and their neighbors enqueued on
+ * the calling thread, in the same order as the layer, so the order in which sections are found (and therefore the
+ * order of the render lists) doesn't depend on how the tests were split between threads.</p>
+ *
+ * <p>Before the search starts, the bounds of each region are tested against the viewport. The sections of regions which
+ * are entirely outside of it are culled without any further tests, and those of regions which are entirely inside of
+ * it skip their own frustum tests.</p>
+ *
+ * <p>When enabled, the solid parts of the sections near the camera are also rasterized into an {@link OcclusionBuffer},
+ * and sections which are entirely hidden behind them are culled along with everything that can only be reached through
+ * them.</p>
+ *
+ * <p>Sections which are hidden below solid layers of terrain are also culled using a {@link HorizonCuller}, which is
+ * much cheaper but only works with whole sections of opaque blocks.</p>
+ */
 public class OcclusionCuller {
+    // Layers smaller than this are tested on the calling thread, since the cost of forking would outweigh the gains
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    // The number of sections tested by each fork-join task
+    private static final int PARALLEL_BATCH_SIZE = 256;
+
+    // The distance (in sections) from the camera within which sections are rasterized into the occlusion buffer
+    private static final int OCCLUDER_RADIUS = 6;
+
     private final Long2ReferenceMap<RenderSection> sections;
+    private final SectionGraph graph;
+    private final RenderRegionManager regions;
+    private final HorizonCuller horizonCuller;
     private final World world;
 
-    private final DoubleBufferedQueue<RenderSection> queue = new DoubleBufferedQueue<>();
+    // Created the first time it is used, since it is disabled by default
+    private OcclusionBuffer occlusionBuffer;
+
+    // The nodes of the layer which is being processed, and the nodes of the next layer
+    private int[] currentLayer = new int[256];
+    private int currentLayerSize;
+
+    private int[] nextLayer = new int[256];
+    private int nextLayerSize;
+
+    // The result of the distance and frustum tests for each node in the current layer
+    private byte[] results = new byte[256];
 
-    public OcclusionCuller(Long2ReferenceMap<RenderSection> sections, World world) {
+    // The section passed the tests, and its contents may be visible
+    private static final byte RESULT_VISIBLE = 0;
+
+    // The section is within the frustum, but the bounds of its contents are not, so it only needs to be searched through
+    private static final byte RESULT_CONTENTS_CULLED = 1;
+
+    // The section failed the distance or frustum tests, so neither it nor anything behind it needs to be searched
+    private static final byte RESULT_CULLED = 2;
+
+    public OcclusionCuller(Long2ReferenceMap<RenderSection> sections, SectionGraph graph, RenderRegionManager regions,
+                           HorizonCuller horizonCuller, World world) {
         this.sections = sections;
+        this.graph = graph;
+        this.regions = regions;
+        this.horizonCuller = horizonCuller;
         this.world = world;
     }
 
@@ -29,38 +89,173 @@ public class OcclusionCuller {
                             Viewport viewport,
                             float searchDistance,
                             boolean useOcclusionCulling,
+                            boolean useOcclusionBuffer,
                             int frame)
     {
-        final var queues = this.queue;
-        queues.reset();
+        this.currentLayerSize = 0;
+        this.nextLayerSize = 0;
 
-        this.init(visitor, queues.write(), viewport, searchDistance, useOcclusionCulling, frame);
+        // The horizon is only valid when the visibility of sections is respected, since it assumes solid sections can't
+        // be seen through
+        HorizonCuller horizonCuller = null;
 
-        while (queues.flip()) {
-            processQueue(visitor, viewport, searchDistance, useOcclusionCulling, frame, queues.read(), queues.write());
+        if (useOcclusionCulling) {
+            horizonCuller = this.horizonCuller;
+            horizonCuller.update(viewport.getChunkCoord(), MathHelper.ceil(searchDistance / 16.0f) + 1);
+        }
+
+        this.testRegions(viewport, searchDistance, horizonCuller);
+
+        var occlusionBuffer = useOcclusionBuffer ? this.prepareOcclusionBuffer(viewport) : null;
+
+        this.init(visitor, viewport, searchDistance, useOcclusionCulling, frame);
+
+        while (this.flip()) {
+            this.testLayer(viewport, searchDistance, horizonCuller, occlusionBuffer);
+            this.processLayer(visitor, viewport, useOcclusionCulling, frame);
         }
     }
 
-    private static void processQueue(Consumer<RenderSection> visitor,
-                                     Viewport viewport,
-                                     float searchDistance,
-                                     boolean useOcclusionCulling,
-                                     int frame,
-                                     ReadQueue<RenderSection> readQueue,
-                                     WriteQueue<RenderSection> writeQueue)
-    {
-        RenderSection section;
+    /**
+     * Tests the bounds of every region against the viewport, so that the sections within regions which are entirely
+     * outside (or entirely inside) it don't need to be tested individually. This is much cheaper than testing each
+     * section, since there are far fewer regions than sections.
+     */
+    private void testRegions(Viewport viewport, float searchDistance, @Nullable HorizonCuller horizonCuller) {
+        final var camera = viewport.getTransform();
+
+        for (RenderRegion region : this.regions.getLoadedRegions()) {
+            int result;
+
+            if (isOutsideRenderDistance(camera, region.getOriginX(), region.getOriginY(), region.getOriginZ(),
+                    REGION_WIDTH_BLOCKS, REGION_HEIGHT_BLOCKS, REGION_LENGTH_BLOCKS, searchDistance)) {
+                result = Frustum.OUTSIDE;
+            } else if (horizonCuller != null && horizonCuller.isBelowHorizon(region.getChunkX(), region.getChunkZ(),
+                    region.getChunkX() + RenderRegion.REGION_WIDTH - 1, region.getChunkY() + RenderRegion.REGION_HEIGHT - 1,
+                    region.getChunkZ() + RenderRegion.REGION_LENGTH - 1)) {
+                result = Frustum.OUTSIDE;
+            } else {
+                // The region's bounds are expanded by the same margin as each section's, so that the sections in a
+                // region which is entirely inside the frustum would also pass their own tests
+                result = viewport.getBoxIntersection(region.getOriginX(), region.getOriginY(), region.getOriginZ(),
+                        region.getOriginX() + REGION_WIDTH_BLOCKS, region.getOriginY() + REGION_HEIGHT_BLOCKS,
+                        region.getOriginZ() + REGION_LENGTH_BLOCKS, CHUNK_SECTION_SIZE - 8.0f);
+            }
 
-        while ((section = readQueue.dequeue()) != null) {
-            if (isOutsideRenderDistance(viewport.getTransform(), section, searchDistance)) {
-                continue;
+            region.setCullingResult(result);
+        }
+    }
+
+    /**
+     * Rasterizes the occluders of the sections around the camera into the occlusion buffer. Only sections which are
+     * within the frustum and up-to-date are used, since the occluders of sections waiting to be rebuilt may no longer
+     * be solid.
+     *
+     * @return The occlusion buffer, or null if there is nothing in it which could occlude other sections
+     */
+    private @Nullable OcclusionBuffer prepareOcclusionBuffer(Viewport viewport) {
+        var viewProjection = viewport.getViewProjectionMatrix();
+
+        if (viewProjection == null) {
+            return null;
+        }
+
+        if (this.occlusionBuffer == null) {
+            this.occlusionBuffer = new OcclusionBuffer();
+        }
+
+        final var buffer = this.occlusionBuffer;
+        buffer.begin(viewProjection);
+
+        final var origin = viewport.getChunkCoord();
+        final var camera = viewport.getTransform();
+
+        for (int chunkY = origin.getY() - OCCLUDER_RADIUS; chunkY <= origin.getY() + OCCLUDER_RADIUS; chunkY++) {
+            for (int chunkZ = origin.getZ() - OCCLUDER_RADIUS; chunkZ <= origin.getZ() + OCCLUDER_RADIUS; chunkZ++) {
+                for (int chunkX = origin.getX() - OCCLUDER_RADIUS; chunkX <= origin.getX() + OCCLUDER_RADIUS; chunkX++) {
+                    RenderSection section = this.getRenderSection(chunkX, chunkY, chunkZ);
+
+                    if (section == null || section.getPendingUpdate() != null) {
+                        continue;
+                    }
+
+                    int bounds = this.graph.getOccluder(section.getGraphNode());
+
+                    if (SectionBounds.isEmpty(bounds) || isOutsideFrustum(viewport, chunkX, chunkY, chunkZ)) {
+                        continue;
+                    }
+
+                    float originX = ((chunkX << 4) - camera.intX) - camera.fracX;
+                    float originY = ((chunkY << 4) - camera.intY) - camera.fracY;
+                    float originZ = ((chunkZ << 4) - camera.intZ) - camera.fracZ;
+
+                    buffer.addOccluder(
+                            originX + SectionBounds.getMinX(bounds), originY + SectionBounds.getMinY(bounds), originZ + SectionBounds.getMinZ(bounds),
+                            originX + SectionBounds.getMaxX(bounds), originY + SectionBounds.getMaxY(bounds), originZ + SectionBounds.getMaxZ(bounds));
+                }
             }
+        }
+
+        buffer.finish();
+
+        return buffer.hasOccluders() ? buffer : null;
+    }
+
+    private boolean flip() {
+        if (this.nextLayerSize == 0) {
+            return false;
+        }
+
+        var layer = this.currentLayer;
+        this.currentLayer = this.nextLayer;
+        this.currentLayerSize = this.nextLayerSize;
+
+        this.nextLayer = layer;
+        this.nextLayerSize = 0;
+
+        return true;
+    }
+
+    private void testLayer(Viewport viewport, float searchDistance, @Nullable HorizonCuller horizonCuller,
+                           @Nullable OcclusionBuffer occlusionBuffer) {
+        int size = this.currentLayerSize;
+
+        if (this.results.length < size) {
+            this.results = new byte[this.currentLayer.length];
+        }
 
-            if (isOutsideFrustum(viewport, section)) {
+        if (size < PARALLEL_THRESHOLD) {
+            testRange(this.graph, viewport, searchDistance, horizonCuller, occlusionBuffer, this.currentLayer, this.results, 0, size);
+        } else {
+            ForkJoinPool.commonPool()
+                    .invoke(new CullingTask(this.graph, viewport, searchDistance, horizonCuller, occlusionBuffer, this.currentLayer, this.results, 0, size));
+        }
+    }
+
+    private void processLayer(Consumer<RenderSection> visitor,
+                              Viewport viewport,
+                              boolean useOcclusionCulling,
+                              int frame)
+    {
+        final var graph = this.graph;
+        final var layer = this.currentLayer;
+        final var results = this.results;
+
+        for (int index = 0; index < this.currentLayerSize; index++) {
+            byte result = results[index];
+
+            if (result == RESULT_CULLED) {
                 continue;
             }
 
-            visitor.accept(section);
+            int node = layer[index];
+            RenderSection section = graph.getSection(node);
+
+            // Sections which are waiting to be rebuilt are always visited, since the bounds of their contents are out
+            // of date, and they must be added to the rebuild lists
+            if (result == RESULT_VISIBLE || section.getPendingUpdate() != null) {
+                visitor.accept(section);
+            }
 
             int connections;
 
@@ -69,7 +264,7 @@ public class OcclusionCuller {
                     // When using occlusion culling, we can only traverse into neighbors for which there is a path of
                     // visibility through this chunk. This is determined by taking all the incoming paths to this chunk and
                     // creating a union of the outgoing paths from those.
-                    connections = VisibilityEncoding.getConnections(section.getVisibilityData(), section.getIncomingDirections());
+                    connections = VisibilityEncoding.getConnections(graph.getVisibilityData(node), graph.getIncomingDirections(node));
                 } else {
                     // Not using any occlusion culling, so traversing in any direction is legal.
                     connections = GraphDirectionSet.ALL;
@@ -77,18 +272,18 @@ public class OcclusionCuller {
 
                 // We can only traverse *outwards* from the center of the graph search, so mask off any invalid
                 // directions.
-                connections &= getOutwardDirections(viewport.getChunkCoord(), section);
+                connections &= getOutwardDirections(viewport.getChunkCoord(), graph, node);
             }
 
-            visitNeighbors(writeQueue, section, connections, frame);
+            this.visitNeighbors(node, connections, frame);
         }
     }
 
-    private static void visitNeighbors(final WriteQueue<RenderSection> queue, RenderSection section, int outgoing, int frame) {
+    private void visitNeighbors(int node, int outgoing, int frame) {
+        final var graph = this.graph;
+
         // Only traverse into neighbors which are actually present.
-        // This avoids a null-check on each invocation to enqueue, and since the compiler will see that a null
-        // is never encountered (after profiling), it will optimize it away.
-        outgoing &= section.getAdjacentMask();
+        outgoing &= graph.getAdjacentMask(node);
 
         // Check if there are any valid connections left, and if not, early-exit.
         if (outgoing == GraphDirectionSet.NONE) {
@@ -96,72 +291,89 @@ public class OcclusionCuller {
         }
 
         // This helps the compiler move the checks for some invariants upwards.
-        queue.ensureCapacity(6);
+        this.ensureNextLayerCapacity(GraphDirection.COUNT);
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.DOWN)) {
-            visitNode(queue, section.adjacentDown, GraphDirectionSet.of(GraphDirection.UP), frame);
+            this.visitNode(graph.getAdjacent(node, GraphDirection.DOWN), GraphDirectionSet.of(GraphDirection.UP), frame);
         }
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.UP)) {
-            visitNode(queue, section.adjacentUp, GraphDirectionSet.of(GraphDirection.DOWN), frame);
+            this.visitNode(graph.getAdjacent(node, GraphDirection.UP), GraphDirectionSet.of(GraphDirection.DOWN), frame);
         }
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.NORTH)) {
-            visitNode(queue, section.adjacentNorth, GraphDirectionSet.of(GraphDirection.SOUTH), frame);
+            this.visitNode(graph.getAdjacent(node, GraphDirection.NORTH), GraphDirectionSet.of(GraphDirection.SOUTH), frame);
         }
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.SOUTH)) {
-            visitNode(queue, section.adjacentSouth, GraphDirectionSet.of(GraphDirection.NORTH), frame);
+            this.visitNode(graph.getAdjacent(node, GraphDirection.SOUTH), GraphDirectionSet.of(GraphDirection.NORTH), frame);
         }
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.WEST)) {
-            visitNode(queue, section.adjacentWest, GraphDirectionSet.of(GraphDirection.EAST), frame);
+            this.visitNode(graph.getAdjacent(node, GraphDirection.WEST), GraphDirectionSet.of(GraphDirection.EAST), frame);
         }
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.EAST)) {
-            visitNode(queue, section.adjacentEast, GraphDirectionSet.of(GraphDirection.WEST), frame);
+            this.visitNode(graph.getAdjacent(node, GraphDirection.EAST), GraphDirectionSet.of(GraphDirection.WEST), frame);
         }
     }
 
-    private static void visitNode(final WriteQueue<RenderSection> queue, @NotNull RenderSection render, int incoming, int frame) {
-        if (render.getLastVisibleFrame() != frame) {
+    private void visitNode(int node, int incoming, int frame) {
+        final var graph = this.graph;
+
+        if (graph.getLastVisibleFrame(node) != frame) {
             // This is the first time we are visiting this section during the given frame, so we must
             // reset the state.
-            render.setLastVisibleFrame(frame);
-            render.setIncomingDirections(GraphDirectionSet.NONE);
+            graph.setLastVisibleFrame(node, frame);
+            graph.setIncomingDirections(node, GraphDirectionSet.NONE);
 
-            queue.enqueue(render);
+            this.nextLayer[this.nextLayerSize++] = node;
         }
 
-        render.addIncomingDirections(incoming);
+        graph.addIncomingDirections(node, incoming);
     }
 
-    private static int getOutwardDirections(ChunkSectionPos origin, RenderSection section) {
+    private void ensureNextLayerCapacity(int count) {
+        if (this.nextLayerSize + count > this.nextLayer.length) {
+            this.nextLayer = Arrays.copyOf(this.nextLayer, Math.max(this.nextLayer.length * 2, this.nextLayerSize + count));
+        }
+    }
+
+    private static int getOutwardDirections(ChunkSectionPos origin, SectionGraph graph, int node) {
         int planes = 0;
 
-        planes |= section.getChunkX() <= origin.getX() ? 1 << GraphDirection.WEST  : 0;
-        planes |= section.getChunkX() >= origin.getX() ? 1 << GraphDirection.EAST  : 0;
+        int chunkX = graph.getChunkX(node);
+        int chunkY = graph.getChunkY(node);
+        int chunkZ = graph.getChunkZ(node);
+
+        planes |= chunkX <= origin.getX() ? 1 << GraphDirection.WEST  : 0;
+        planes |= chunkX >= origin.getX() ? 1 << GraphDirection.EAST  : 0;
 
-        planes |= section.getChunkY() <= origin.getY() ? 1 << GraphDirection.DOWN  : 0;
-        planes |= section.getChunkY() >= origin.getY() ? 1 << GraphDirection.UP    : 0;
+        planes |= chunkY <= origin.getY() ? 1 << GraphDirection.DOWN  : 0;
+        planes |= chunkY >= origin.getY() ? 1 << GraphDirection.UP    : 0;
 
-        planes |= section.getChunkZ() <= origin.getZ() ? 1 << GraphDirection.NORTH : 0;
-        planes |= section.getChunkZ() >= origin.getZ() ? 1 << GraphDirection.SOUTH : 0;
+        planes |= chunkZ <= origin.getZ() ? 1 << GraphDirection.NORTH : 0;
+        planes |= chunkZ >= origin.getZ() ? 1 << GraphDirection.SOUTH : 0;
 
         return planes;
     }
 
-    private static boolean isOutsideRenderDistance(CameraTransform camera, RenderSection section, float maxDistance) {
-        // origin point of the chunk's bounding box (in view space)
-        int ox = section.getOriginX() - camera.intX;
-        int oy = section.getOriginY() - camera.intY;
-        int oz = section.getOriginZ() - camera.intZ;
+    private static boolean isOutsideRenderDistance(CameraTransform camera, int chunkX, int chunkY, int chunkZ, float maxDistance) {
+        return isOutsideRenderDistance(camera, chunkX << 4, chunkY << 4, chunkZ << 4, 16, 16, 16, maxDistance);
+    }
+
+    private static boolean isOutsideRenderDistance(CameraTransform camera, int blockX, int blockY, int blockZ,
+                                                   int width, int height, int length, float maxDistance) {
+        // origin point of the bounding box (in view space)
+        int ox = blockX - camera.intX;
+        int oy = blockY - camera.intY;
+        int oz = blockZ - camera.intZ;
 
         // coordinates of the point to compare (in view space)
         // this is the closest point within the bounding box to the center (0, 0, 0)
-        float dx = nearestToZero(ox, ox + 16) - camera.fracX;
-        float dy = nearestToZero(oy, oy + 16) - camera.fracY;
-        float dz = nearestToZero(oz, oz + 16) - camera.fracZ;
+        float dx = nearestToZero(ox, ox + width) - camera.fracX;
+        float dy = nearestToZero(oy, oy + height) - camera.fracY;
+        float dz = nearestToZero(oz, oz + length) - camera.fracZ;
 
         // vanilla's "cylindrical fog" algorithm
         // max(length(distance.xz), abs(distance.y))
@@ -182,12 +394,130 @@ public class OcclusionCuller {
     // to deal with floating point imprecision during a frustum check (see GH#2132).
     private static final float CHUNK_SECTION_SIZE = 8.0f /* chunk bounds */ + 1.0f /* maximum model extent */ + 0.125f /* epsilon */;
 
+    private static final int REGION_WIDTH_BLOCKS = RenderRegion.REGION_WIDTH * 16;
+    private static final int REGION_HEIGHT_BLOCKS = RenderRegion.REGION_HEIGHT * 16;
+    private static final int REGION_LENGTH_BLOCKS = RenderRegion.REGION_LENGTH * 16;
+
     public static boolean isOutsideFrustum(Viewport viewport, RenderSection section) {
-        return !viewport.isBoxVisible(section.getCenterX(), section.getCenterY(), section.getCenterZ(), CHUNK_SECTION_SIZE);
+        return isOutsideFrustum(viewport, section.getChunkX(), section.getChunkY(), section.getChunkZ());
+    }
+
+    private static boolean isOutsideFrustum(Viewport viewport, int chunkX, int chunkY, int chunkZ) {
+        return !viewport.isBoxVisible((chunkX << 4) + 8, (chunkY << 4) + 8, (chunkZ << 4) + 8, CHUNK_SECTION_SIZE);
+    }
+
+    // The bounds of a section's contents are rounded outwards to whole blocks, so only a small epsilon is needed here
+    private static final float CONTENTS_BOUNDS_EPSILON = 0.125f;
+
+    private static boolean isContentsOutsideFrustum(Viewport viewport, int chunkX, int chunkY, int chunkZ, int bounds) {
+        if (SectionBounds.isEmpty(bounds)) {
+            return true;
+        }
+
+        int originX = chunkX << 4;
+        int originY = chunkY << 4;
+        int originZ = chunkZ << 4;
+
+        return !viewport.isBoxVisible(
+                originX + SectionBounds.getMinX(bounds), originY + SectionBounds.getMinY(bounds), originZ + SectionBounds.getMinZ(bounds),
+                originX + SectionBounds.getMaxX(bounds), originY + SectionBounds.getMaxY(bounds), originZ + SectionBounds.getMaxZ(bounds),
+                CONTENTS_BOUNDS_EPSILON);
+    }
+
+    private static boolean isOccluded(OcclusionBuffer occlusionBuffer, CameraTransform camera, int chunkX, int chunkY, int chunkZ) {
+        // The box is expanded by one block on each side, since block models can extend outside the section
+        float minX = (((chunkX << 4) - camera.intX) - camera.fracX) - 1.0f;
+        float minY = (((chunkY << 4) - camera.intY) - camera.fracY) - 1.0f;
+        float minZ = (((chunkZ << 4) - camera.intZ) - camera.fracZ) - 1.0f;
+
+        return occlusionBuffer.isBoxOccluded(minX, minY, minZ, minX + 18.0f, minY + 18.0f, minZ + 18.0f);
+    }
+
+    private static void testRange(SectionGraph graph, Viewport viewport, float searchDistance,
+                                  @Nullable HorizonCuller horizonCuller, @Nullable OcclusionBuffer occlusionBuffer,
+                                  int[] nodes, byte[] results,
+                                  int start, int end) {
+        final var camera = viewport.getTransform();
+
+        for (int index = start; index < end; index++) {
+            int node = nodes[index];
+
+            int chunkX = graph.getChunkX(node);
+            int chunkY = graph.getChunkY(node);
+            int chunkZ = graph.getChunkZ(node);
+
+            int regionResult = graph.getRegion(node).getCullingResult();
+            byte result;
+
+            if (regionResult == Frustum.OUTSIDE || isOutsideRenderDistance(camera, chunkX, chunkY, chunkZ, searchDistance)) {
+                result = RESULT_CULLED;
+            } else if (horizonCuller != null && horizonCuller.isBelowHorizon(chunkX, chunkZ, chunkX, chunkY, chunkZ)) {
+                result = RESULT_CULLED;
+            } else if (regionResult == Frustum.INSIDE) {
+                // Everything in the section is also inside the frustum, so only the emptiness of its contents matters
+                result = SectionBounds.isEmpty(graph.getBounds(node)) ? RESULT_CONTENTS_CULLED : RESULT_VISIBLE;
+            } else if (isOutsideFrustum(viewport, chunkX, chunkY, chunkZ)) {
+                result = RESULT_CULLED;
+            } else if (isContentsOutsideFrustum(viewport, chunkX, chunkY, chunkZ, graph.getBounds(node))) {
+                result = RESULT_CONTENTS_CULLED;
+            } else {
+                result = RESULT_VISIBLE;
+            }
+
+            if (result != RESULT_CULLED && occlusionBuffer != null && isOccluded(occlusionBuffer, camera, chunkX, chunkY, chunkZ)) {
+                result = RESULT_CULLED;
+            }
+
+            results[index] = result;
+        }
+    }
+
+    /**
+     * Runs the distance and frustum tests for a range of the nodes in a layer, splitting the range between fork-join
+     * tasks if it is large. Each task only writes to its own range of the results, and only reads from the graph.
+     */
+    private static class CullingTask extends RecursiveAction {
+        private final SectionGraph graph;
+        private final Viewport viewport;
+        private final float searchDistance;
+        private final HorizonCuller horizonCuller;
+        private final OcclusionBuffer occlusionBuffer;
+
+        private final int[] nodes;
+        private final byte[] results;
+        private final int start, end;
+
+        private CullingTask(SectionGraph graph, Viewport viewport, float searchDistance,
+                            @Nullable HorizonCuller horizonCuller, @Nullable OcclusionBuffer occlusionBuffer,
+                            int[] nodes, byte[] results, int start, int end) {
+            this.graph = graph;
+            this.viewport = viewport;
+            this.searchDistance = searchDistance;
+            this.horizonCuller = horizonCuller;
+            this.occlusionBuffer = occlusionBuffer;
+            this.nodes = nodes;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if ((this.end - this.start) > PARALLEL_BATCH_SIZE) {
+                int middle = (this.start + this.end) >>> 1;
+
+                invokeAll(this.split(this.start, middle), this.split(middle, this.end));
+            } else {
+                testRange(this.graph, this.viewport, this.searchDistance, this.horizonCuller, this.occlusionBuffer, this.nodes, this.results, this.start, this.end);
+            }
+        }
+
+        private CullingTask split(int start, int end) {
+            return new CullingTask(this.graph, this.viewport, this.searchDistance, this.horizonCuller, this.occlusionBuffer, this.nodes, this.results, start, end);
+        }
     }
 
     private void init(Consumer<RenderSection> visitor,
-                      WriteQueue<RenderSection> queue,
                       Viewport viewport,
                       float searchDistance,
                       boolean useOcclusionCulling,
@@ -197,18 +527,18 @@ public class OcclusionCuller {
 
         if (origin.getY() < this.world.getBottomSectionCoord()) {
             // below the world
-            this.initOutsideWorldHeight(queue, viewport, searchDistance, frame,
+            this.initOutsideWorldHeight(viewport, searchDistance, frame,
                     this.world.getBottomSectionCoord(), GraphDirection.DOWN);
         } else if (origin.getY() >= this.world.getTopSectionCoord()) {
             // above the world
-            this.initOutsideWorldHeight(queue, viewport, searchDistance, frame,
+            this.initOutsideWorldHeight(viewport, searchDistance, frame,
                     this.world.getTopSectionCoord() - 1, GraphDirection.UP);
         } else {
-            this.initWithinWorld(visitor, queue, viewport, useOcclusionCulling, frame);
+            this.initWithinWorld(visitor, viewport, useOcclusionCulling, frame);
         }
     }
 
-    private void initWithinWorld(Consumer<RenderSection> visitor, WriteQueue<RenderSection> queue, Viewport viewport, boolean useOcclusionCulling, int frame) {
+    private void initWithinWorld(Consumer<RenderSection> visitor, Viewport viewport, boolean useOcclusionCulling, int frame) {
         var origin = viewport.getChunkCoord();
         var section = this.getRenderSection(origin.getX(), origin.getY(), origin.getZ());
 
@@ -216,8 +546,10 @@ public class OcclusionCuller {
             return;
         }
 
-        section.setLastVisibleFrame(frame);
-        section.setIncomingDirections(GraphDirectionSet.NONE);
+        int node = section.getGraphNode();
+
+        this.graph.setLastVisibleFrame(node, frame);
+        this.graph.setIncomingDirections(node, GraphDirectionSet.NONE);
 
         visitor.accept(section);
 
@@ -226,20 +558,19 @@ public class OcclusionCuller {
         if (useOcclusionCulling) {
             // Since the camera is located inside this chunk, there are no "incoming" directions. So we need to instead
             // find any possible paths out of this chunk and enqueue those neighbors.
-            outgoing = VisibilityEncoding.getConnections(section.getVisibilityData());
+            outgoing = VisibilityEncoding.getConnections(this.graph.getVisibilityData(node));
         } else {
             // Occlusion culling is disabled, so we can traverse into any neighbor.
             outgoing = GraphDirectionSet.ALL;
         }
 
-        visitNeighbors(queue, section, outgoing, frame);
+        this.visitNeighbors(node, outgoing, frame);
     }
 
     // Enqueues sections that are inside the viewport using diamond spiral iteration to avoid sorting and ensure a
     // consistent order. Innermost layers are enqueued first. Within each layer, iteration starts at the northernmost
     // section and proceeds counterclockwise (N->W->S->E).
-    private void initOutsideWorldHeight(WriteQueue<RenderSection> queue,
-                                        Viewport viewport,
+    private void initOutsideWorldHeight(Viewport viewport,
                                         float searchDistance,
                                         int frame,
                                         int height,
@@ -249,18 +580,18 @@ public class OcclusionCuller {
         var radius = MathHelper.floor(searchDistance / 16.0f);
 
         // Layer 0
-        this.tryVisitNode(queue, origin.getX(), height, origin.getZ(), direction, frame, viewport);
+        this.tryVisitNode(origin.getX(), height, origin.getZ(), direction, frame, viewport);
 
         // Complete layers, excluding layer 0
         for (int layer = 1; layer <= radius; layer++) {
             for (int z = -layer; z < layer; z++) {
                 int x = Math.abs(z) - layer;
-                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
+                this.tryVisitNode(origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
             }
 
             for (int z = layer; z > -layer; z--) {
                 int x = layer - Math.abs(z);
-                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
+                this.tryVisitNode(origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
             }
         }
 
@@ -270,34 +601,35 @@ public class OcclusionCuller {
 
             for (int z = -radius; z <= -l; z++) {
                 int x = -z - layer;
-                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
+                this.tryVisitNode(origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
             }
 
             for (int z = l; z <= radius; z++) {
                 int x = z - layer;
-                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
+                this.tryVisitNode(origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
             }
 
             for (int z = radius; z >= l; z--) {
                 int x = layer - z;
-                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
+                this.tryVisitNode(origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
             }
 
             for (int z = -l; z >= -radius; z--) {
                 int x = layer + z;
-                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
+                this.tryVisitNode(origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
             }
         }
     }
 
-    private void tryVisitNode(WriteQueue<RenderSection> queue, int x, int y, int z, int direction, int frame, Viewport viewport) {
+    private void tryVisitNode(int x, int y, int z, int direction, int frame, Viewport viewport) {
         RenderSection section = this.getRenderSection(x, y, z);
 
         if (section == null || isOutsideFrustum(viewport, section)) {
             return;
         }
 
-        visitNode(queue, section, GraphDirectionSet.of(direction), frame);
+        this.ensureNextLayerCapacity(1);
+        this.visitNode(section.getGraphNode(), GraphDirectionSet.of(direction), frame);
     }
 
     private RenderSection getRenderSection(int x, int y, int z) {
@@ -0,0 +1,208 @@
+package me.jellysquid.mods.sodium.client.render.chunk.occlusion;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
+import me.jellysquid.mods.sodium.client.render.chunk.data.SectionBounds;
+import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
+
+import java.util.Arrays;
+
+/**
+ * Stores the state of each section in the visibility graph in flat arrays, so that the graph can be searched without
+ * chasing references between {@link RenderSection} objects. Each section is identified by a node index, which is
+ * re-used after the section is removed.
+ *
+ * <p>The graph is only modified on the main thread. It may be read by other threads while the main thread is waiting
+ * for them to finish, such as during the search for visible sections.</p>
+ */
+public class SectionGraph {
+    public static final int NULL = -1;
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private RenderSection[] sections;
+    private RenderRegion[] regions;
+
+    // The chunk coordinates of each node, stored as consecutive (x, y, z) triplets
+    private int[] positions;
+
+    private long[] visibilityData;
+
+    // The bounds of the geometry in each node, packed with SectionBounds
+    private int[] bounds;
+
+    // The bounds of the opaque box in each node which can occlude other nodes, packed with SectionBounds
+    private int[] occluders;
+
+    // The neighbor of each node in every direction, stored as consecutive groups of GraphDirection.COUNT indices
+    private int[] adjacent;
+    private byte[] adjacentMask;
+
+    private int[] lastVisibleFrame;
+    private byte[] incomingDirections;
+
+    private final IntArrayList freeNodes = new IntArrayList();
+    private int nodeCount;
+
+    public SectionGraph() {
+        this.allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        this.sections = new RenderSection[capacity];
+        this.regions = new RenderRegion[capacity];
+        this.positions = new int[capacity * 3];
+        this.visibilityData = new long[capacity];
+        this.bounds = new int[capacity];
+        this.occluders = new int[capacity];
+        this.adjacent = new int[capacity * GraphDirection.COUNT];
+        this.adjacentMask = new byte[capacity];
+        this.lastVisibleFrame = new int[capacity];
+        this.incomingDirections = new byte[capacity];
+    }
+
+    private void grow(int capacity) {
+        this.sections = Arrays.copyOf(this.sections, capacity);
+        this.regions = Arrays.copyOf(this.regions, capacity);
+        this.positions = Arrays.copyOf(this.positions, capacity * 3);
+        this.visibilityData = Arrays.copyOf(this.visibilityData, capacity);
+        this.bounds = Arrays.copyOf(this.bounds, capacity);
+        this.occluders = Arrays.copyOf(this.occluders, capacity);
+        this.adjacent = Arrays.copyOf(this.adjacent, capacity * GraphDirection.COUNT);
+        this.adjacentMask = Arrays.copyOf(this.adjacentMask, capacity);
+        this.lastVisibleFrame = Arrays.copyOf(this.lastVisibleFrame, capacity);
+        this.incomingDirections = Arrays.copyOf(this.incomingDirections, capacity);
+    }
+
+    /**
+     * Adds a node for the given section, which initially has no neighbors and no visibility data.
+     * @return The index of the new node
+     */
+    public int add(RenderSection section) {
+        int node;
+
+        if (!this.freeNodes.isEmpty()) {
+            node = this.freeNodes.popInt();
+        } else {
+            if (this.nodeCount >= this.sections.length) {
+                this.grow(this.sections.length * 2);
+            }
+
+            node = this.nodeCount++;
+        }
+
+        this.sections[node] = section;
+        this.regions[node] = section.getRegion();
+
+        this.positions[(node * 3) + 0] = section.getChunkX();
+        this.positions[(node * 3) + 1] = section.getChunkY();
+        this.positions[(node * 3) + 2] = section.getChunkZ();
+
+        this.visibilityData[node] = VisibilityEncoding.NULL;
+        this.bounds[node] = SectionBounds.EMPTY;
+        this.occluders[node] = SectionBounds.EMPTY;
+
+        Arrays.fill(this.adjacent, node * GraphDirection.COUNT, (node + 1) * GraphDirection.COUNT, NULL);
+        this.adjacentMask[node] = GraphDirectionSet.NONE;
+
+        this.lastVisibleFrame[node] = -1;
+        this.incomingDirections[node] = GraphDirectionSet.NONE;
+
+        return node;
+    }
+
+    /**
+     * Removes the node, which must have already been disconnected from all of its neighbors.
+     */
+    public void remove(int node) {
+        if (this.adjacentMask[node] != GraphDirectionSet.NONE) {
+            throw new IllegalStateException("Node is still connected to its neighbors");
+        }
+
+        this.sections[node] = null;
+        this.regions[node] = null;
+        this.freeNodes.add(node);
+    }
+
+    public RenderSection getSection(int node) {
+        return this.sections[node];
+    }
+
+    public RenderRegion getRegion(int node) {
+        return this.regions[node];
+    }
+
+    public int getChunkX(int node) {
+        return this.positions[(node * 3) + 0];
+    }
+
+    public int getChunkY(int node) {
+        return this.positions[(node * 3) + 1];
+    }
+
+    public int getChunkZ(int node) {
+        return this.positions[(node * 3) + 2];
+    }
+
+    public long getVisibilityData(int node) {
+        return this.visibilityData[node];
+    }
+
+    public void setVisibilityData(int node, long data) {
+        this.visibilityData[node] = data;
+    }
+
+    public int getBounds(int node) {
+        return this.bounds[node];
+    }
+
+    public void setBounds(int node, int bounds) {
+        this.bounds[node] = bounds;
+    }
+
+    public int getOccluder(int node) {
+        return this.occluders[node];
+    }
+
+    public void setOccluder(int node, int bounds) {
+        this.occluders[node] = bounds;
+    }
+
+    public int getAdjacent(int node, int direction) {
+        return this.adjacent[(node * GraphDirection.COUNT) + direction];
+    }
+
+    public void setAdjacent(int node, int direction, int neighbor) {
+        this.adjacent[(node * GraphDirection.COUNT) + direction] = neighbor;
+
+        if (neighbor == NULL) {
+            this.adjacentMask[node] &= (byte) ~GraphDirectionSet.of(direction);
+        } else {
+            this.adjacentMask[node] |= (byte) GraphDirectionSet.of(direction);
+        }
+    }
+
+    public int getAdjacentMask(int node) {
+        return this.adjacentMask[node];
+    }
+
+    public int getLastVisibleFrame(int node) {
+        return this.lastVisibleFrame[node];
+    }
+
+    public void setLastVisibleFrame(int node, int frame) {
+        this.lastVisibleFrame[node] = frame;
+    }
+
+    public int getIncomingDirections(int node) {
+        return this.incomingDirections[node];
+    }
+
+    public void setIncomingDirections(int node, int directions) {
+        this.incomingDirections[node] = (byte) directions;
+    }
+
+    public void addIncomingDirections(int node, int directions) {
+        this.incomingDirections[node] |= (byte) directions;
+    }
+}
@@ -10,10 +10,12 @@ import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
 import me.jellysquid.mods.sodium.client.render.chunk.data.SectionRenderDataStorage;
 import me.jellysquid.mods.sodium.client.render.chunk.lists.ChunkRenderList;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
-import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkMeshFormats;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.viewport.frustum.Frustum;
 import me.jellysquid.mods.sodium.client.util.MathUtil;
 import net.minecraft.util.math.ChunkSectionPos;
 import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.Map;
@@ -40,6 +42,7 @@ public class RenderRegion {
     }
 
     private final StagingBuffer stagingBuffer;
+    private final ChunkVertexType vertexType;
     private final int x, y, z;
 
     private final ChunkRenderList renderList;
@@ -50,12 +53,17 @@ public class RenderRegion {
     private final Map<TerrainRenderPass, SectionRenderDataStorage> sectionRenderData = new Reference2ReferenceOpenHashMap<>();
     private DeviceResources resources;
 
-    public RenderRegion(int x, int y, int z, StagingBuffer stagingBuffer) {
+    // The result of testing the region's bounds against the viewport, which is updated by the occlusion culler at the
+    // start of each search
+    private int cullingResult = Frustum.INTERSECT;
+
+    public RenderRegion(int x, int y, int z, StagingBuffer stagingBuffer, ChunkVertexType vertexType) {
         this.x = x;
         this.y = y;
         this.z = z;
 
         this.stagingBuffer = stagingBuffer;
+        this.vertexType = vertexType;
         this.renderList = new ChunkRenderList(this);
     }
 
@@ -88,6 +96,16 @@ public class RenderRegion {
     }
 
     public void delete(CommandList commandList) {
+        this.deleteMeshes(commandList);
+
+        Arrays.fill(this.sections, null);
+    }
+
+    /**
+     * Deletes the meshes of every section in the region, and releases the device resources which held them. The
+     * sections remain in the region.
+     */
+    public void deleteMeshes(CommandList commandList) {
         for (var storage : this.sectionRenderData.values()) {
             storage.delete();
         }
@@ -98,8 +116,31 @@ public class RenderRegion {
             this.resources.delete(commandList);
             this.resources = null;
         }
+    }
 
-        Arrays.fill(this.sections, null);
+    /**
+     * @return True if the section has meshes in any render pass
+     */
+    public boolean hasMeshes(int sectionIndex) {
+        for (var storage : this.sectionRenderData.values()) {
+            if (storage.hasMeshes(sectionIndex)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public int getCenterX() {
+        return this.getOriginX() + ((REGION_WIDTH << 4) / 2);
+    }
+
+    public int getCenterY() {
+        return this.getOriginY() + ((REGION_HEIGHT << 4) / 2);
+    }
+
+    public int getCenterZ() {
+        return this.getOriginZ() + ((REGION_LENGTH << 4) / 2);
     }
 
     public boolean isEmpty() {
@@ -130,6 +171,32 @@ public class RenderRegion {
         }
     }
 
+    /**
+     * Incrementally compacts the region's buffers, and updates the offsets of any sections which were moved.
+     * @param maxBytes The maximum number of bytes which should be copied
+     * @return The number of bytes which were copied
+     */
+    public int compact(CommandList commandList, int maxBytes) {
+        if (this.resources == null) {
+            return 0;
+        }
+
+        var resources = this.resources;
+
+        // Shrinking an arena replaces its buffer object even if nothing was copied (such as when the arena is empty), so
+        // the buffer objects need to be compared as well
+        GlBuffer vertexBuffer = resources.getVertexBuffer();
+        GlBuffer indexBuffer = resources.getIndexBufferIfPresent();
+
+        int bytes = resources.compact(commandList, maxBytes);
+
+        if (bytes > 0 || resources.getVertexBuffer() != vertexBuffer || resources.getIndexBufferIfPresent() != indexBuffer) {
+            this.refresh(commandList);
+        }
+
+        return bytes;
+    }
+
     public void addSection(RenderSection section) {
         var sectionIndex = section.getSectionIndex();
         var prev = this.sections[sectionIndex];
@@ -170,7 +237,7 @@ public class RenderRegion {
 
     public DeviceResources createResources(CommandList commandList) {
         if (this.resources == null) {
-            this.resources = new DeviceResources(commandList, this.stagingBuffer);
+            this.resources = new DeviceResources(commandList, this.stagingBuffer, this.vertexType);
         }
 
         return this.resources;
@@ -183,6 +250,14 @@ public class RenderRegion {
         }
     }
 
+    public int getCullingResult() {
+        return this.cullingResult;
+    }
+
+    public void setCullingResult(int result) {
+        this.cullingResult = result;
+    }
+
     public ChunkRenderList getRenderList() {
         return this.renderList;
     }
@@ -191,9 +266,15 @@ public class RenderRegion {
         private final GlBufferArena geometryArena;
         private GlTessellation tessellation;
 
-        public DeviceResources(CommandList commandList, StagingBuffer stagingBuffer) {
-            int stride = ChunkMeshFormats.COMPACT.getVertexFormat().getStride();
+        // Holds the index data of sections with sorted translucent geometry, and is only created once it's needed
+        private final StagingBuffer stagingBuffer;
+        private GlBufferArena indexArena;
+        private GlTessellation indexedTessellation;
+
+        public DeviceResources(CommandList commandList, StagingBuffer stagingBuffer, ChunkVertexType vertexType) {
+            int stride = vertexType.getVertexFormat().getStride();
             this.geometryArena = new GlBufferArena(commandList, REGION_SIZE * 756, stride, stagingBuffer);
+            this.stagingBuffer = stagingBuffer;
         }
 
         public void updateTessellation(CommandList commandList, GlTessellation tessellation) {
@@ -208,26 +289,90 @@ public class RenderRegion {
             return this.tessellation;
         }
 
+        public void updateIndexedTessellation(CommandList commandList, GlTessellation tessellation) {
+            if (this.indexedTessellation != null) {
+                this.indexedTessellation.delete(commandList);
+            }
+
+            this.indexedTessellation = tessellation;
+        }
+
+        public GlTessellation getIndexedTessellation() {
+            return this.indexedTessellation;
+        }
+
         public void deleteTessellations(CommandList commandList) {
             if (this.tessellation != null) {
                 this.tessellation.delete(commandList);
                 this.tessellation = null;
             }
+
+            if (this.indexedTessellation != null) {
+                this.indexedTessellation.delete(commandList);
+                this.indexedTessellation = null;
+            }
         }
 
         public GlBuffer getVertexBuffer() {
             return this.geometryArena.getBufferObject();
         }
 
+        public GlBuffer getIndexBuffer() {
+            if (this.indexArena == null) {
+                throw new IllegalStateException("Region has no index data");
+            }
+
+            return this.indexArena.getBufferObject();
+        }
+
+        public @Nullable GlBuffer getIndexBufferIfPresent() {
+            return this.indexArena != null ? this.indexArena.getBufferObject() : null;
+        }
+
         public void delete(CommandList commandList) {
             this.deleteTessellations(commandList);
             this.geometryArena.delete(commandList);
+
+            if (this.indexArena != null) {
+                this.indexArena.delete(commandList);
+            }
+        }
+
+        public int compact(CommandList commandList, int maxBytes) {
+            int bytes = this.geometryArena.compact(commandList, maxBytes);
+
+            if (this.indexArena != null && bytes < maxBytes) {
+                bytes += this.indexArena.compact(commandList, maxBytes - bytes);
+            }
+
+            return bytes;
+        }
+
+        /**
+         * @return The amount of device memory (in bytes) which is allocated by the region's buffers
+         */
+        public long getDeviceAllocatedMemory() {
+            long bytes = this.geometryArena.getDeviceAllocatedMemory();
+
+            if (this.indexArena != null) {
+                bytes += this.indexArena.getDeviceAllocatedMemory();
+            }
+
+            return bytes;
         }
 
         public GlBufferArena getGeometryArena() {
             return this.geometryArena;
         }
 
+        public GlBufferArena getOrCreateIndexArena(CommandList commandList) {
+            if (this.indexArena == null) {
+                this.indexArena = new GlBufferArena(commandList, REGION_SIZE * 384, Integer.BYTES, this.stagingBuffer);
+            }
+
+            return this.indexArena;
+        }
+
         public boolean shouldDelete() {
             return this.geometryArena.isEmpty();
         }
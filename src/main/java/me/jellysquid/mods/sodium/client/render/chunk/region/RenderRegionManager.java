@@ -10,28 +10,42 @@ import me.jellysquid.mods.sodium.client.gl.arena.staging.MappedStagingBuffer;
 import me.jellysquid.mods.sodium.client.gl.arena.staging.StagingBuffer;
 import me.jellysquid.mods.sodium.client.gl.device.CommandList;
 import me.jellysquid.mods.sodium.client.gl.device.RenderDevice;
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkUpdateType;
 import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildOutput;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkSortOutput;
 import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.DefaultTerrainRenderPasses;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
 public class RenderRegionManager {
+    // The maximum number of bytes which are copied each frame to compact the buffers of regions
+    private static final int COMPACTION_BUDGET = 4 * 1024 * 1024; // 4 MiB
+
     private final Long2ReferenceOpenHashMap<RenderRegion> regions = new Long2ReferenceOpenHashMap<>();
 
     private final StagingBuffer stagingBuffer;
+    private final ChunkVertexType vertexType;
+
+    private long compactedBytes;
 
-    public RenderRegionManager(CommandList commandList) {
+    private long deviceAllocatedMemory;
+    private long evictedRegions, evictedSections;
+
+    public RenderRegionManager(CommandList commandList, ChunkVertexType vertexType) {
         this.stagingBuffer = createStagingBuffer(commandList);
+        this.vertexType = vertexType;
     }
 
     public void update() {
-        this.stagingBuffer.flip();
-
         try (CommandList commandList = RenderDevice.INSTANCE.createCommandList()) {
+            this.stagingBuffer.flip(commandList);
+
             Iterator<RenderRegion> it = this.regions.values()
                     .iterator();
 
@@ -45,7 +59,129 @@ public class RenderRegionManager {
                     it.remove();
                 }
             }
+
+            this.compactRegions(commandList);
+        }
+    }
+
+    private void compactRegions(CommandList commandList) {
+        int budget = COMPACTION_BUDGET;
+
+        for (RenderRegion region : this.regions.values()) {
+            budget -= region.compact(commandList, budget);
+
+            if (budget <= 0) {
+                break;
+            }
+        }
+
+        this.compactedBytes += COMPACTION_BUDGET - budget;
+    }
+
+    /**
+     * Evicts the meshes of regions until the device memory held by all regions fits within the budget. Regions which
+     * have not been visible for the longest time are evicted first, and then those furthest from the camera. Regions
+     * which are visible in the current frame are never evicted, so the budget can be exceeded if they alone need more.
+     *
+     * <p>The sections of an evicted region are scheduled to be built again, which happens once they are visible.</p>
+     *
+     * @param budget The maximum amount of device memory (in bytes) which should be held, or zero for no limit
+     */
+    public void evictRegions(long budget, int frame, float cameraX, float cameraY, float cameraZ) {
+        var candidates = new ArrayList<RenderRegion>();
+        long allocated = 0;
+
+        for (RenderRegion region : this.regions.values()) {
+            var resources = region.getResources();
+
+            if (resources == null) {
+                continue;
+            }
+
+            allocated += resources.getDeviceAllocatedMemory();
+
+            if (region.getRenderList().getLastVisibleFrame() != frame) {
+                candidates.add(region);
+            }
+        }
+
+        this.deviceAllocatedMemory = allocated;
+
+        if (budget <= 0 || allocated <= budget || candidates.isEmpty()) {
+            return;
+        }
+
+        candidates.sort(Comparator.<RenderRegion>comparingInt(region -> region.getRenderList().getLastVisibleFrame())
+                .thenComparing(Comparator.<RenderRegion>comparingDouble(region -> getDistanceSq(region, cameraX, cameraY, cameraZ)).reversed()));
+
+        try (CommandList commandList = RenderDevice.INSTANCE.createCommandList()) {
+            for (RenderRegion region : candidates) {
+                if (allocated <= budget) {
+                    break;
+                }
+
+                allocated -= region.getResources()
+                        .getDeviceAllocatedMemory();
+
+                this.evictRegion(commandList, region);
+            }
         }
+
+        this.deviceAllocatedMemory = allocated;
+    }
+
+    private void evictRegion(CommandList commandList, RenderRegion region) {
+        for (int sectionIndex = 0; sectionIndex < RenderRegion.REGION_SIZE; sectionIndex++) {
+            var section = region.getSection(sectionIndex);
+
+            if (section == null || !region.hasMeshes(sectionIndex)) {
+                continue;
+            }
+
+            // The index data of the section is about to be deleted
+            section.setTranslucentSortState(null);
+
+            // Initial builds can be restored from the mesh cache, if it is enabled
+            if (section.getPendingUpdate() == null) {
+                section.setPendingUpdate(ChunkUpdateType.INITIAL_BUILD);
+            }
+
+            this.evictedSections++;
+        }
+
+        region.deleteMeshes(commandList);
+
+        this.evictedRegions++;
+    }
+
+    private static float getDistanceSq(RenderRegion region, float cameraX, float cameraY, float cameraZ) {
+        float dx = region.getCenterX() - cameraX;
+        float dy = region.getCenterY() - cameraY;
+        float dz = region.getCenterZ() - cameraZ;
+
+        return (dx * dx) + (dy * dy) + (dz * dz);
+    }
+
+    /**
+     * @return The amount of device memory (in bytes) which was held by all regions after the last eviction pass
+     */
+    public long getDeviceAllocatedMemory() {
+        return this.deviceAllocatedMemory;
+    }
+
+    public long getEvictedRegions() {
+        return this.evictedRegions;
+    }
+
+    public long getEvictedSections() {
+        return this.evictedSections;
+    }
+
+    /**
+     * @return The total number of bytes which have been copied to compact the buffers of regions
+     */
+    public long getCompactedBytes() {
+        return this.compactedBytes;
     }
 
     public void uploadMeshes(CommandList commandList, Collection<ChunkBuildOutput> results) {
@@ -68,8 +204,11 @@ public class RenderRegionManager {
                 BuiltSectionMeshParts mesh = result.getMesh(pass);
 
                 if (mesh != null) {
+                    var sortResult = mesh.getSortResult();
+
                     uploads.add(new PendingSectionUpload(result.render, mesh, pass,
-                            new PendingUpload(mesh.getVertexData())));
+                            new PendingUpload(mesh.getVertexData()),
+                            sortResult != null ? new PendingUpload(sortResult.indexData()) : null));
                 }
             }
         }
@@ -83,7 +222,20 @@ public class RenderRegionManager {
         var arena = resources.getGeometryArena();
 
         boolean bufferChanged = arena.upload(commandList, uploads.stream()
-                .map(upload -> upload.vertexUpload));
+                .map(upload -> upload.vertexUpload)
+                .toList());
+
+        var indexUploads = new ArrayList<PendingSectionUpload>();
+
+        for (PendingSectionUpload upload : uploads) {
+            if (upload.indexUpload != null) {
+                indexUploads.add(upload);
+            }
+        }
+
+        if (!indexUploads.isEmpty() && this.uploadIndexData(commandList, region, indexUploads)) {
+            bufferChanged = true;
+        }
 
         // If any of the buffers changed, the tessellation will need to be updated
         // Once invalidated the tessellation will be re-created on the next attempted use
@@ -95,7 +247,68 @@ public class RenderRegionManager {
         for (PendingSectionUpload upload : uploads) {
             var storage = region.createStorage(upload.pass);
             storage.setMeshes(upload.section.getSectionIndex(),
-                    upload.vertexUpload.getResult(), upload.meshData.getVertexRanges());
+                    upload.vertexUpload.getResult(), upload.meshData.getVertexRanges(), upload.meshData.getFacingBounds());
+
+            if (upload.indexUpload != null) {
+                storage.setIndexData(upload.section.getSectionIndex(), upload.indexUpload.getResult());
+            }
+        }
+    }
+
+    private boolean uploadIndexData(CommandList commandList, RenderRegion region, Collection<PendingSectionUpload> uploads) {
+        var arena = region.createResources(commandList)
+                .getOrCreateIndexArena(commandList);
+
+        return arena.upload(commandList, uploads.stream()
+                .map(upload -> upload.indexUpload)
+                .toList());
+    }
+
+    /**
+     * Replaces the index data of sections which have been re-sorted. Results for sections which no longer have
+     * translucent geometry in the region are ignored.
+     */
+    public void uploadSortResults(CommandList commandList, Collection<ChunkSortOutput> results) {
+        var queues = new Reference2ReferenceOpenHashMap<RenderRegion, List<ChunkSortOutput>>();
+
+        for (var result : results) {
+            queues.computeIfAbsent(result.render.getRegion(), k -> new ArrayList<>())
+                    .add(result);
+        }
+
+        for (var entry : queues.reference2ReferenceEntrySet()) {
+            this.uploadSortResults(commandList, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void uploadSortResults(CommandList commandList, RenderRegion region, Collection<ChunkSortOutput> results) {
+        var storage = region.getStorage(DefaultTerrainRenderPasses.TRANSLUCENT);
+
+        if (storage == null || region.getResources() == null) {
+            return;
+        }
+
+        var uploads = new ArrayList<PendingSortUpload>();
+
+        for (ChunkSortOutput result : results) {
+            if (storage.hasMeshes(result.render.getSectionIndex())) {
+                uploads.add(new PendingSortUpload(result.render, new PendingUpload(result.result.indexData())));
+            }
+        }
+
+        if (uploads.isEmpty()) {
+            return;
+        }
+
+        var arena = region.getResources()
+                .getOrCreateIndexArena(commandList);
+
+        if (arena.upload(commandList, uploads.stream().map(upload -> upload.indexUpload).toList())) {
+            region.refresh(commandList);
+        }
+
+        for (PendingSortUpload upload : uploads) {
+            storage.setIndexData(upload.section.getSectionIndex(), upload.indexUpload.getResult());
         }
     }
 
@@ -139,13 +352,16 @@ public class RenderRegionManager {
         var instance = this.regions.get(key);
 
         if (instance == null) {
-            this.regions.put(key, instance = new RenderRegion(x, y, z, this.stagingBuffer));
+            this.regions.put(key, instance = new RenderRegion(x, y, z, this.stagingBuffer, this.vertexType));
         }
 
         return instance;
     }
 
-    private record PendingSectionUpload(RenderSection section, BuiltSectionMeshParts meshData, TerrainRenderPass pass, PendingUpload vertexUpload) {
+    private record PendingSectionUpload(RenderSection section, BuiltSectionMeshParts meshData, TerrainRenderPass pass, PendingUpload vertexUpload, @Nullable PendingUpload indexUpload) {
+    }
+
+    private record PendingSortUpload(RenderSection section, PendingUpload indexUpload) {
     }
 
 
@@ -27,7 +27,9 @@ public class ChunkShaderInterface {
     public ChunkShaderInterface(ShaderBindingContext context, ChunkShaderOptions options) {
         this.uniformModelViewMatrix = context.bindUniform("u_ModelViewMatrix", GlUniformMatrix4f::new);
         this.uniformProjectionMatrix = context.bindUniform("u_ProjectionMatrix", GlUniformMatrix4f::new);
-        this.uniformRegionOffset = context.bindUniform("u_RegionOffset", GlUniformFloat3v::new);
+
+        // The region offset is provided as a vertex attribute when drawing multiple regions at once
+        this.uniformRegionOffset = options.regionOffsetAttribute() ? null : context.bindUniform("u_RegionOffset", GlUniformFloat3v::new);
 
         this.uniformTextures = new EnumMap<>(ChunkShaderTextureSlot.class);
         this.uniformTextures.put(ChunkShaderTextureSlot.BLOCK, context.bindUniform("u_BlockTex", GlUniformInt::new));
@@ -62,6 +64,10 @@ public class ChunkShaderInterface {
     }
 
     public void setRegionOffset(float x, float y, float z) {
+        if (this.uniformRegionOffset == null) {
+            throw new IllegalStateException("Shader reads the region offset from a vertex attribute");
+        }
+
         this.uniformRegionOffset.set(x, y, z);
     }
 }
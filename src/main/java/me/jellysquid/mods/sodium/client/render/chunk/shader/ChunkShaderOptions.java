@@ -2,16 +2,30 @@ package me.jellysquid.mods.sodium.client.render.chunk.shader;
 
 import me.jellysquid.mods.sodium.client.gl.shader.ShaderConstants;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+
+/**
+ * @param regionOffsetAttribute If true, the offset of each region is read from an instanced vertex attribute instead
+ *                              of a uniform, so that the geometry of many regions can be drawn without changing state
+ */
+public record ChunkShaderOptions(ChunkFogMode fog, TerrainRenderPass pass, ChunkVertexType vertexType, boolean regionOffsetAttribute) {
+    public ChunkShaderOptions(ChunkFogMode fog, TerrainRenderPass pass, ChunkVertexType vertexType) {
+        this(fog, pass, vertexType, false);
+    }
 
-public record ChunkShaderOptions(ChunkFogMode fog, TerrainRenderPass pass) {
     public ShaderConstants constants() {
         ShaderConstants.Builder constants = ShaderConstants.builder();
         constants.addAll(this.fog.getDefines());
+        constants.add(this.vertexType.getShaderDefine());
 
         if (this.pass.supportsFragmentDiscard()) {
             constants.add("USE_FRAGMENT_DISCARD");
         }
 
+        if (this.regionOffsetAttribute) {
+            constants.add("USE_REGION_OFFSET_ATTRIBUTE");
+        }
+
         return constants.build();
     }
 }
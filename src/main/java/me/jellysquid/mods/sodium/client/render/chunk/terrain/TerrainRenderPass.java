@@ -20,6 +20,13 @@ public class TerrainRenderPass {
         return this.useReverseOrder;
     }
 
+    /**
+     * @return True if the quads of each section must be drawn back-to-front, using the sorted index data of the section
+     */
+    public boolean isSorted() {
+        return this.useReverseOrder;
+    }
+
     @Deprecated
     public void startDrawing() {
         this.layer.startDrawing();
@@ -9,6 +9,7 @@ import net.minecraft.fluid.FluidState;
 
 public class DefaultMaterials {
     public static final Material SOLID = new Material(DefaultTerrainRenderPasses.SOLID, AlphaCutoffParameter.ZERO, true);
+    public static final Material SOLID_TILED = new Material(DefaultTerrainRenderPasses.SOLID, AlphaCutoffParameter.ZERO, true, true);
     public static final Material CUTOUT = new Material(DefaultTerrainRenderPasses.CUTOUT, AlphaCutoffParameter.ONE_TENTH, false);
     public static final Material CUTOUT_MIPPED = new Material(DefaultTerrainRenderPasses.CUTOUT, AlphaCutoffParameter.ONE_TENTH, true);
     public static final Material TRANSLUCENT = new Material(DefaultTerrainRenderPasses.TRANSLUCENT, AlphaCutoffParameter.ZERO, true);
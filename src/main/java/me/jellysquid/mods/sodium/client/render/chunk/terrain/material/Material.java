@@ -11,12 +11,23 @@ public class Material {
     public final AlphaCutoffParameter alphaCutoff;
     public final boolean mipped;
 
+    /**
+     * True if the texture of each quad is repeated across its surface, which allows for the quads of neighboring block
+     * faces to be merged together.
+     */
+    public final boolean tiled;
+
     public Material(TerrainRenderPass pass, AlphaCutoffParameter alphaCutoff, boolean mipped) {
+        this(pass, alphaCutoff, mipped, false);
+    }
+
+    public Material(TerrainRenderPass pass, AlphaCutoffParameter alphaCutoff, boolean mipped, boolean tiled) {
         this.pass = pass;
-        this.packed = MaterialParameters.pack(alphaCutoff, mipped);
+        this.packed = MaterialParameters.pack(alphaCutoff, mipped, tiled);
 
         this.alphaCutoff = alphaCutoff;
         this.mipped = mipped;
+        this.tiled = tiled;
     }
 
     public int bits() {
@@ -3,9 +3,15 @@ package me.jellysquid.mods.sodium.client.render.chunk.terrain.material.parameter
 public class MaterialParameters {
     public static final int OFFSET_USE_MIP = 0;
     public static final int OFFSET_ALPHA_CUTOFF = 1;
+    public static final int OFFSET_TILED = 3;
 
     public static int pack(AlphaCutoffParameter alphaCutoff, boolean useMipmaps) {
+        return pack(alphaCutoff, useMipmaps, false);
+    }
+
+    public static int pack(AlphaCutoffParameter alphaCutoff, boolean useMipmaps, boolean tiled) {
         return (((useMipmaps ? 1 : 0) << OFFSET_USE_MIP) |
-                ((alphaCutoff.ordinal()) << OFFSET_ALPHA_CUTOFF));
+                ((alphaCutoff.ordinal()) << OFFSET_ALPHA_CUTOFF) |
+                ((tiled ? 1 : 0) << OFFSET_TILED));
     }
 }
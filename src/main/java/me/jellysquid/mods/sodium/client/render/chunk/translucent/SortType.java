@@ -0,0 +1,23 @@
+package me.jellysquid.mods.sodium.client.render.chunk.translucent;
+
+/**
+ * Describes how the translucent quads of a section need to be ordered so that they are drawn back-to-front.
+ */
+public enum SortType {
+    /**
+     * The section does not contain enough quads for their order to matter.
+     */
+    NONE,
+
+    /**
+     * All quads face the same direction, so they can be sorted along their shared normal once when the section is
+     * built. Since back-facing quads are culled, this order is correct from every position they are visible from.
+     */
+    STATIC,
+
+    /**
+     * The quads must be sorted by their distance to the camera, and sorted again whenever the camera has moved far
+     * enough that the order could have changed.
+     */
+    DYNAMIC
+}
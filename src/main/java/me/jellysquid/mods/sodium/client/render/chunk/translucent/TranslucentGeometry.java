@@ -0,0 +1,213 @@
+package me.jellysquid.mods.sodium.client.render.chunk.translucent;
+
+import me.jellysquid.mods.sodium.client.gl.util.VertexRange;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.util.NativeBuffer;
+import me.jellysquid.mods.sodium.client.util.sorting.InsertionSort;
+import me.jellysquid.mods.sodium.client.util.sorting.MergeSort;
+import org.jetbrains.annotations.Nullable;
+import org.joml.Vector3f;
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * The positions of the translucent quads in a section, which are needed in order to sort them. This is created once
+ * when the section is built, and is never modified afterwards, so it can be shared with sorting tasks on other threads.
+ *
+ * <p>Quads are identified by their index in the section's mesh, which stores the vertices of each facing one after
+ * another. The index data which is created from a sorted order is relative to the first vertex of the mesh.</p>
+ */
+public class TranslucentGeometry {
+    private static final int VERTICES_PER_QUAD = 4;
+    private static final int ELEMENTS_PER_QUAD = 6;
+
+    private final int originX, originY, originZ;
+
+    // The center of each quad (relative to the section's origin), stored as consecutive (x, y, z) triplets
+    private final float[] centroids;
+    private final int quadCount;
+
+    private final SortType sortType;
+
+    // The facing which all quads belong to, only used when the sort type is STATIC
+    private final ModelQuadFacing facing;
+
+    private TranslucentGeometry(int originX, int originY, int originZ, float[] centroids, int quadCount,
+                                SortType sortType, ModelQuadFacing facing) {
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        this.centroids = centroids;
+        this.quadCount = quadCount;
+        this.sortType = sortType;
+        this.facing = facing;
+    }
+
+    /**
+     * Reads the positions of the quads in the given mesh.
+     *
+     * @param originX The x-coordinate of the section's origin in world space
+     * @param originY The y-coordinate of the section's origin in world space
+     * @param originZ The z-coordinate of the section's origin in world space
+     * @return The geometry of the mesh, or null if it contains no quads
+     */
+    public static @Nullable TranslucentGeometry create(BuiltSectionMeshParts mesh, ChunkVertexType vertexType,
+                                                       int originX, int originY, int originZ) {
+        int vertexCount = 0;
+        int facingCount = 0;
+
+        ModelQuadFacing facing = ModelQuadFacing.UNASSIGNED;
+
+        for (ModelQuadFacing candidate : ModelQuadFacing.VALUES) {
+            VertexRange range = mesh.getVertexRanges()[candidate.ordinal()];
+
+            if (range != null) {
+                vertexCount += range.vertexCount();
+                facingCount++;
+                facing = candidate;
+            }
+        }
+
+        int quadCount = vertexCount / VERTICES_PER_QUAD;
+
+        if (quadCount == 0) {
+            return null;
+        }
+
+        int stride = vertexType.getVertexFormat().getStride();
+        long pVertex = MemoryUtil.memAddress(mesh.getVertexData().getDirectBuffer());
+
+        float[] centroids = new float[quadCount * 3];
+        Vector3f position = new Vector3f();
+
+        for (int quad = 0; quad < quadCount; quad++) {
+            float x = 0.0f, y = 0.0f, z = 0.0f;
+
+            for (int vertex = 0; vertex < VERTICES_PER_QUAD; vertex++) {
+                vertexType.readPosition(pVertex, position);
+                pVertex += stride;
+
+                x += position.x;
+                y += position.y;
+                z += position.z;
+            }
+
+            centroids[(quad * 3) + 0] = x * (1.0f / VERTICES_PER_QUAD);
+            centroids[(quad * 3) + 1] = y * (1.0f / VERTICES_PER_QUAD);
+            centroids[(quad * 3) + 2] = z * (1.0f / VERTICES_PER_QUAD);
+        }
+
+        SortType sortType;
+
+        if (quadCount == 1) {
+            sortType = SortType.NONE;
+        } else if (facingCount == 1 && facing != ModelQuadFacing.UNASSIGNED) {
+            sortType = SortType.STATIC;
+        } else {
+            sortType = SortType.DYNAMIC;
+        }
+
+        return new TranslucentGeometry(originX, originY, originZ, centroids, quadCount, sortType, facing);
+    }
+
+    /**
+     * Sorts the quads for the given camera position. Static and unsorted geometry ignores the camera position.
+     *
+     * @param previousOrder The order of the last sort of this geometry, which will be used as the starting point of the
+     *                      sort. This should only be provided when the camera has not moved far since, as the cost of
+     *                      the sort grows with the number of quads which are out of order.
+     */
+    public TranslucentSortResult sort(float cameraX, float cameraY, float cameraZ, int @Nullable [] previousOrder) {
+        int[] order = switch (this.sortType) {
+            case NONE -> createIdentityOrder(this.quadCount);
+            case STATIC -> MergeSort.mergeSort(this.getPlaneKeys());
+            case DYNAMIC -> {
+                float[] keys = this.getDistanceKeys(cameraX, cameraY, cameraZ);
+
+                if (previousOrder != null && previousOrder.length == this.quadCount) {
+                    int[] indices = previousOrder.clone();
+                    InsertionSort.insertionSort(indices, 0, indices.length, keys);
+
+                    yield indices;
+                }
+
+                yield MergeSort.mergeSort(keys);
+            }
+        };
+
+        return new TranslucentSortResult(this, order, createIndexData(order), cameraX, cameraY, cameraZ);
+    }
+
+    // Quads are sorted in descending order of their keys, so the quads furthest behind the shared plane come first
+    private float[] getPlaneKeys() {
+        int axis = this.facing.ordinal() % 3;
+        float sign = this.facing.ordinal() < 3 ? -1.0f : 1.0f;
+
+        float[] keys = new float[this.quadCount];
+
+        for (int quad = 0; quad < this.quadCount; quad++) {
+            keys[quad] = this.centroids[(quad * 3) + axis] * sign;
+        }
+
+        return keys;
+    }
+
+    // Quads are sorted in descending order of their keys, so the quads furthest from the camera come first
+    private float[] getDistanceKeys(float cameraX, float cameraY, float cameraZ) {
+        float x = cameraX - this.originX;
+        float y = cameraY - this.originY;
+        float z = cameraZ - this.originZ;
+
+        float[] keys = new float[this.quadCount];
+
+        for (int quad = 0; quad < this.quadCount; quad++) {
+            float dx = this.centroids[(quad * 3) + 0] - x;
+            float dy = this.centroids[(quad * 3) + 1] - y;
+            float dz = this.centroids[(quad * 3) + 2] - z;
+
+            keys[quad] = (dx * dx) + (dy * dy) + (dz * dz);
+        }
+
+        return keys;
+    }
+
+    private static int[] createIdentityOrder(int length) {
+        int[] order = new int[length];
+
+        for (int i = 0; i < length; i++) {
+            order[i] = i;
+        }
+
+        return order;
+    }
+
+    private static NativeBuffer createIndexData(int[] order) {
+        var buffer = new NativeBuffer(order.length * ELEMENTS_PER_QUAD * Integer.BYTES);
+        long ptr = MemoryUtil.memAddress(buffer.getDirectBuffer());
+
+        for (int quad : order) {
+            int vertex = quad * VERTICES_PER_QUAD;
+
+            MemoryUtil.memPutInt(ptr +  0, vertex + 0);
+            MemoryUtil.memPutInt(ptr +  4, vertex + 1);
+            MemoryUtil.memPutInt(ptr +  8, vertex + 2);
+
+            MemoryUtil.memPutInt(ptr + 12, vertex + 2);
+            MemoryUtil.memPutInt(ptr + 16, vertex + 3);
+            MemoryUtil.memPutInt(ptr + 20, vertex + 0);
+
+            ptr += ELEMENTS_PER_QUAD * Integer.BYTES;
+        }
+
+        return buffer;
+    }
+
+    public SortType getSortType() {
+        return this.sortType;
+    }
+
+    public int getQuadCount() {
+        return this.quadCount;
+    }
+}
@@ -0,0 +1,17 @@
+package me.jellysquid.mods.sodium.client.render.chunk.translucent;
+
+import me.jellysquid.mods.sodium.client.util.NativeBuffer;
+
+/**
+ * The result of sorting the translucent quads of a section.
+ *
+ * @param geometry The geometry which was sorted
+ * @param order The indices of the quads in the order they should be drawn
+ * @param indexData The element data which draws the quads in the sorted order, to be uploaded to the graphics card
+ * @param cameraX The x-coordinate of the camera (in world space) which the quads were sorted for
+ * @param cameraY The y-coordinate of the camera (in world space) which the quads were sorted for
+ * @param cameraZ The z-coordinate of the camera (in world space) which the quads were sorted for
+ */
+public record TranslucentSortResult(TranslucentGeometry geometry, int[] order, NativeBuffer indexData,
+                                    float cameraX, float cameraY, float cameraZ) {
+}
@@ -0,0 +1,94 @@
+package me.jellysquid.mods.sodium.client.render.chunk.translucent;
+
+import me.jellysquid.mods.sodium.client.util.task.CancellationToken;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Tracks the order which the translucent quads of a section were last sorted into, and decides when they need to be
+ * sorted again. This is only accessed from the main thread.
+ */
+public class TranslucentSortState {
+    // The distance which the camera must move before the section is sorted again. The threshold grows with the
+    // distance to the section, since the order of quads which are further away changes more slowly.
+    private static final float MIN_RESORT_DISTANCE = 1.0f;
+    private static final float RESORT_DISTANCE_SCALE = 1.0f / 8.0f;
+
+    // Beyond this distance, the previous order is too different from the new one to be a useful starting point
+    private static final float MAX_INCREMENTAL_SORT_DISTANCE = 4.0f;
+
+    private final TranslucentGeometry geometry;
+
+    private int[] order;
+    private float cameraX, cameraY, cameraZ;
+
+    @Nullable
+    private CancellationToken pendingSort;
+
+    public TranslucentSortState(TranslucentSortResult result) {
+        this.geometry = result.geometry();
+        this.apply(result);
+    }
+
+    public void apply(TranslucentSortResult result) {
+        if (result.geometry() != this.geometry) {
+            throw new IllegalStateException("Sort result belongs to different geometry");
+        }
+
+        this.order = result.order();
+        this.cameraX = result.cameraX();
+        this.cameraY = result.cameraY();
+        this.cameraZ = result.cameraZ();
+    }
+
+    /**
+     * @param distance The distance from the camera to the center of the section
+     * @return True if the camera has moved far enough since the last sort that the order may have changed
+     */
+    public boolean needsResort(float cameraX, float cameraY, float cameraZ, float distance) {
+        if (this.geometry.getSortType() != SortType.DYNAMIC || this.pendingSort != null) {
+            return false;
+        }
+
+        float threshold = Math.max(MIN_RESORT_DISTANCE, distance * RESORT_DISTANCE_SCALE);
+
+        return this.getSquaredDistanceMoved(cameraX, cameraY, cameraZ) >= threshold * threshold;
+    }
+
+    /**
+     * @return The order to start the next sort from, or null if the camera has moved too far for it to be useful
+     */
+    public int @Nullable [] getIncrementalOrder(float cameraX, float cameraY, float cameraZ) {
+        if (this.getSquaredDistanceMoved(cameraX, cameraY, cameraZ) > MAX_INCREMENTAL_SORT_DISTANCE * MAX_INCREMENTAL_SORT_DISTANCE) {
+            return null;
+        }
+
+        return this.order;
+    }
+
+    private float getSquaredDistanceMoved(float cameraX, float cameraY, float cameraZ) {
+        float dx = cameraX - this.cameraX;
+        float dy = cameraY - this.cameraY;
+        float dz = cameraZ - this.cameraZ;
+
+        return (dx * dx) + (dy * dy) + (dz * dz);
+    }
+
+    public TranslucentGeometry getGeometry() {
+        return this.geometry;
+    }
+
+    public @Nullable CancellationToken getPendingSort() {
+        return this.pendingSort;
+    }
+
+    public void setPendingSort(@Nullable CancellationToken pendingSort) {
+        this.pendingSort = pendingSort;
+    }
+
+    public void cancelPendingSort() {
+        if (this.pendingSort != null) {
+            this.pendingSort.setCancelled();
+            this.pendingSort = null;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package me.jellysquid.mods.sodium.client.render.chunk.vertex.builder;
 
+import it.unimi.dsi.fastutil.HashCommon;
 import me.jellysquid.mods.sodium.client.render.chunk.terrain.material.Material;
 import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexEncoder;
 import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
@@ -7,7 +8,16 @@ import org.lwjgl.system.MemoryUtil;
 
 import java.nio.ByteBuffer;
 
+/**
+ * A scratch buffer which vertices are written into while a chunk section is being meshed. The buffer is re-used for
+ * every section which is built by its worker thread, and only grows when a section needs more space. Since a section
+ * with a lot of geometry would otherwise leave the buffer larger than it needs to be, the largest number of vertices
+ * which were written by recent builds is tracked, and the buffer is periodically shrunk to fit.
+ */
 public class ChunkMeshBufferBuilder {
+    // The number of builds after which the buffer will be shrunk to fit the largest of them
+    private static final int TRIM_INTERVAL = 256;
+
     private final ChunkVertexEncoder encoder;
     private final int stride;
 
@@ -18,6 +28,10 @@ public class ChunkMeshBufferBuilder {
     private int capacity;
     private int sectionIndex;
 
+    // The largest number of vertices which have been written by a build since the buffer was last trimmed
+    private int highWaterMark;
+    private int buildsSinceTrim;
+
     public ChunkMeshBufferBuilder(ChunkVertexType vertexType, int initialCapacity) {
         this.encoder = vertexType.getEncoder();
         this.stride = vertexType.getVertexFormat().getStride();
@@ -33,7 +47,7 @@ public class ChunkMeshBufferBuilder {
         var vertexCount = vertices.length;
 
         if (this.count + vertexCount >= this.capacity) {
-            this.grow(this.stride * vertexCount);
+            this.grow(vertexCount);
         }
 
         long ptr = MemoryUtil.memAddress(this.buffer, this.count * this.stride);
@@ -45,12 +59,28 @@ public class ChunkMeshBufferBuilder {
         this.count += vertexCount;
     }
 
-    private void grow(int len) {
+    /**
+     * Appends vertices which have already been encoded in this buffer's vertex format.
+     * @param data The encoded vertex data
+     * @param vertexOffset The index of the first vertex in {@code data} to copy
+     * @param vertexCount The number of vertices to copy
+     */
+    public void pushRaw(byte[] data, int vertexOffset, int vertexCount) {
+        if (this.count + vertexCount >= this.capacity) {
+            this.grow(vertexCount);
+        }
+
+        this.buffer.put(this.count * this.stride, data, vertexOffset * this.stride, vertexCount * this.stride);
+
+        this.count += vertexCount;
+    }
+
+    private void grow(int vertexCount) {
         // The new capacity will at least as large as the write it needs to service
-        int cap = Math.max(this.capacity * 2, this.capacity + len);
+        int cap = Math.max(this.capacity * 2, this.capacity + vertexCount);
 
         // Update the buffer and capacity now
-        this.setBufferSize(cap * this.stride);
+        this.setBufferSize(cap);
     }
 
     private void setBufferSize(int capacity) {
@@ -59,10 +89,28 @@ public class ChunkMeshBufferBuilder {
     }
 
     public void start(int sectionIndex) {
+        // The vertices of the previous build are still in the buffer, as the mesh is copied out after the build
+        this.highWaterMark = Math.max(this.highWaterMark, this.count);
+
+        if (this.buffer == null) {
+            this.setBufferSize(this.initialCapacity);
+        } else if (++this.buildsSinceTrim >= TRIM_INTERVAL) {
+            this.trim();
+        }
+
         this.count = 0;
         this.sectionIndex = sectionIndex;
+    }
+
+    private void trim() {
+        int capacity = Math.max(this.initialCapacity, HashCommon.nextPowerOfTwo(this.highWaterMark + 1));
 
-        this.setBufferSize(this.initialCapacity);
+        if (capacity < this.capacity) {
+            this.setBufferSize(capacity);
+        }
+
+        this.highWaterMark = 0;
+        this.buildsSinceTrim = 0;
     }
 
     public void destroy() {
@@ -71,6 +119,11 @@ public class ChunkMeshBufferBuilder {
         }
 
         this.buffer = null;
+
+        this.count = 0;
+        this.capacity = this.initialCapacity;
+        this.highWaterMark = 0;
+        this.buildsSinceTrim = 0;
     }
 
     public boolean isEmpty() {
@@ -1,7 +1,9 @@
 package me.jellysquid.mods.sodium.client.render.chunk.vertex.format;
 
 import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.impl.CompactChunkVertex;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.impl.DenseChunkVertex;
 
 public class ChunkMeshFormats {
     public static final ChunkVertexType COMPACT = new CompactChunkVertex();
+    public static final ChunkVertexType DENSE = new DenseChunkVertex();
 }
@@ -14,6 +14,13 @@ public interface ChunkVertexEncoder {
         public float v;
         public int light;
 
+        // The bounds of the sprite which is repeated across the quad, only used by vertices with a tiled material. The
+        // texture coordinates (u, v) of these vertices are instead given in units of the sprite's size.
+        public float spriteMinU;
+        public float spriteMinV;
+        public float spriteMaxU;
+        public float spriteMaxV;
+
         public static Vertex[] uninitializedQuad() {
             Vertex[] vertices = new Vertex[4];
 
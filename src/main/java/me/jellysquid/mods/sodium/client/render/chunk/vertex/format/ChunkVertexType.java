@@ -1,9 +1,30 @@
 package me.jellysquid.mods.sodium.client.render.chunk.vertex.format;
 
 import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexFormat;
+import org.joml.Vector3f;
 
 public interface ChunkVertexType {
     GlVertexFormat<ChunkMeshAttribute> getVertexFormat();
 
     ChunkVertexEncoder getEncoder();
+
+    /**
+     * Reads the position of a vertex which was written by this type's encoder.
+     *
+     * @param ptr The address of the vertex
+     * @param dest The vector to store the position (relative to the origin of the vertex's section) into
+     */
+    void readPosition(long ptr, Vector3f dest);
+
+    /**
+     * @return True if the vertices of quads with a tiled material can be encoded, otherwise quads will not be merged
+     */
+    default boolean supportsTiledMaterials() {
+        return true;
+    }
+
+    /**
+     * @return The name of the shader constant which selects the code for decoding this type's vertices
+     */
+    String getShaderDefine();
 }
@@ -8,6 +8,7 @@ import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexEn
 import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
 import net.caffeinemc.mods.sodium.api.util.ColorABGR;
 import net.caffeinemc.mods.sodium.api.util.ColorU8;
+import org.joml.Vector3f;
 import org.lwjgl.system.MemoryUtil;
 
 public class CompactChunkVertex implements ChunkVertexType {
@@ -23,6 +24,10 @@ public class CompactChunkVertex implements ChunkVertexType {
     private static final float MODEL_ORIGIN = 8.0f;
     private static final float MODEL_SCALE = 32.0f;
 
+    // Vertices with a tiled material are always aligned to the block grid, so the low bits of their positions are
+    // unused, and instead hold the size of the repeated sprite (X) and the tile coordinates of the vertex (Y)
+    private static final int TILE_DATA_MASK = 0x7FF;
+
     @Override
     public GlVertexFormat<ChunkMeshAttribute> getVertexFormat() {
         return VERTEX_FORMAT;
@@ -31,19 +36,62 @@ public class CompactChunkVertex implements ChunkVertexType {
     @Override
     public ChunkVertexEncoder getEncoder() {
         return (ptr, material, vertex, sectionIndex) -> {
-            MemoryUtil.memPutInt(ptr + 0, (encodePosition(vertex.x) << 0) | (encodePosition(vertex.y) << 16));
-            MemoryUtil.memPutInt(ptr + 4, (encodePosition(vertex.z) << 0) | (encodeDrawParameters(material, sectionIndex) << 16));
+            int x = encodePosition(vertex.x);
+            int y = encodePosition(vertex.y);
+            int z = encodePosition(vertex.z);
+            int texture;
+
+            if (material.tiled) {
+                x = (x & ~TILE_DATA_MASK) | encodeSpriteSize(vertex);
+                y = (y & ~TILE_DATA_MASK) | encodeTileCoords(vertex.u, vertex.v);
+                texture = encodeTexture(vertex.spriteMinU, vertex.spriteMinV);
+            } else {
+                texture = encodeTexture(vertex.u, vertex.v);
+            }
+
+            MemoryUtil.memPutInt(ptr + 0, (x << 0) | (y << 16));
+            MemoryUtil.memPutInt(ptr + 4, (z << 0) | (encodeDrawParameters(material, sectionIndex) << 16));
             MemoryUtil.memPutInt(ptr + 8, (encodeColor(vertex.color) << 0) | (encodeLight(vertex.light) << 24));
-            MemoryUtil.memPutInt(ptr + 12, encodeTexture(vertex.u, vertex.v));
+            MemoryUtil.memPutInt(ptr + 12, texture);
 
             return ptr + STRIDE;
         };
     }
 
+    @Override
+    public void readPosition(long ptr, Vector3f dest) {
+        int xy = MemoryUtil.memGetInt(ptr + 0);
+        int z = MemoryUtil.memGetInt(ptr + 4);
+
+        // The tiling parameters in the low bits of tiled vertices are small enough to be ignored here
+        dest.set(decodePosition(xy & 0xFFFF), decodePosition(xy >>> 16), decodePosition(z & 0xFFFF));
+    }
+
+    @Override
+    public String getShaderDefine() {
+        return "VERTEX_FORMAT_COMPACT";
+    }
+
+    private static int encodeSpriteSize(ChunkVertexEncoder.Vertex vertex) {
+        // The size of the sprite must be a power-of-two in texture units, so only the exponent is stored
+        int width = Integer.numberOfTrailingZeros(Math.round((vertex.spriteMaxU - vertex.spriteMinU) * TEXTURE_MAX_VALUE));
+        int height = Integer.numberOfTrailingZeros(Math.round((vertex.spriteMaxV - vertex.spriteMinV) * TEXTURE_MAX_VALUE));
+
+        return ((width & 0xF) << 0) | ((height & 0xF) << 4);
+    }
+
+    private static int encodeTileCoords(float u, float v) {
+        return (((int) u & 0x1F) << 0) | (((int) v & 0x1F) << 5);
+    }
+
     private static int encodePosition(float value) {
         return (int) ((MODEL_ORIGIN + value) * (POSITION_MAX_VALUE / MODEL_SCALE));
     }
 
+    private static float decodePosition(int value) {
+        return (value * (MODEL_SCALE / POSITION_MAX_VALUE)) - MODEL_ORIGIN;
+    }
+
     private static int encodeDrawParameters(Material material, int sectionIndex) {
         return (((sectionIndex & 0xFF) << 8) | ((material.bits() & 0xFF) << 0));
     }
@@ -0,0 +1,118 @@
+package me.jellysquid.mods.sodium.client.render.chunk.vertex.format.impl;
+
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttributeFormat;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexFormat;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkMeshAttribute;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexEncoder;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+import net.caffeinemc.mods.sodium.api.util.ColorABGR;
+import net.caffeinemc.mods.sodium.api.util.ColorU8;
+import org.joml.Vector3f;
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * A 12-byte vertex format which trades precision for memory, compared to {@link CompactChunkVertex}.
+ *
+ * <ul>
+ *     <li>Word 0: position (3x 10-bit, 1/32 of a block), material bits 0-1</li>
+ *     <li>Word 1: texture coordinates (2x 15-bit), material bits 2-3</li>
+ *     <li>Word 2: color (RGB565, with ambient occlusion applied), light (2x 4-bit), section index (8-bit)</li>
+ * </ul>
+ *
+ * <p>Block models are defined on a grid of 1/16 of a block, so the positions of most geometry can be represented
+ * exactly. There is no room to store the parameters of tiled materials, so meshes using this format are built without
+ * merging quads.</p>
+ */
+public class DenseChunkVertex implements ChunkVertexType {
+    public static final GlVertexFormat<ChunkMeshAttribute> VERTEX_FORMAT = GlVertexFormat.builder(ChunkMeshAttribute.class, 12)
+            .addElement(ChunkMeshAttribute.VERTEX_DATA, 0, GlVertexAttributeFormat.UNSIGNED_INT, 3, false, true)
+            .build();
+
+    public static final int STRIDE = 12;
+
+    private static final int POSITION_MAX_VALUE = 0x3FF;
+    private static final int TEXTURE_MAX_VALUE = 0x7FFF;
+
+    private static final float MODEL_ORIGIN = 8.0f;
+    private static final float MODEL_SCALE = 32.0f;
+
+    @Override
+    public GlVertexFormat<ChunkMeshAttribute> getVertexFormat() {
+        return VERTEX_FORMAT;
+    }
+
+    @Override
+    public ChunkVertexEncoder getEncoder() {
+        return (ptr, material, vertex, sectionIndex) -> {
+            if (material.tiled) {
+                throw new IllegalArgumentException("Tiled materials are not supported by this vertex format");
+            }
+
+            int x = encodePosition(vertex.x);
+            int y = encodePosition(vertex.y);
+            int z = encodePosition(vertex.z);
+
+            int u = encodeTexture(vertex.u);
+            int v = encodeTexture(vertex.v);
+
+            int materialBits = material.bits();
+
+            MemoryUtil.memPutInt(ptr + 0, (x << 0) | (y << 10) | (z << 20) | ((materialBits & 0x3) << 30));
+            MemoryUtil.memPutInt(ptr + 4, (u << 0) | (v << 15) | (((materialBits >> 2) & 0x3) << 30));
+            MemoryUtil.memPutInt(ptr + 8, (encodeColor(vertex.color) << 0) | (encodeLight(vertex.light) << 16) | ((sectionIndex & 0xFF) << 24));
+
+            return ptr + STRIDE;
+        };
+    }
+
+    @Override
+    public void readPosition(long ptr, Vector3f dest) {
+        int position = MemoryUtil.memGetInt(ptr + 0);
+
+        dest.set(decodePosition((position >>> 0) & POSITION_MAX_VALUE),
+                decodePosition((position >>> 10) & POSITION_MAX_VALUE),
+                decodePosition((position >>> 20) & POSITION_MAX_VALUE));
+    }
+
+    @Override
+    public boolean supportsTiledMaterials() {
+        return false;
+    }
+
+    @Override
+    public String getShaderDefine() {
+        return "VERTEX_FORMAT_DENSE";
+    }
+
+    private static int encodePosition(float value) {
+        int position = Math.round((MODEL_ORIGIN + value) * ((POSITION_MAX_VALUE + 1) / MODEL_SCALE));
+
+        // Geometry outside the range of the format is clamped, rather than overflowing into the neighboring fields
+        return Math.max(0, Math.min(POSITION_MAX_VALUE, position));
+    }
+
+    private static float decodePosition(int value) {
+        return (value * (MODEL_SCALE / (POSITION_MAX_VALUE + 1))) - MODEL_ORIGIN;
+    }
+
+    private static int encodeTexture(float value) {
+        return Math.max(0, Math.min(TEXTURE_MAX_VALUE, Math.round(value * TEXTURE_MAX_VALUE)));
+    }
+
+    private static int encodeColor(int color) {
+        var brightness = ColorU8.byteToNormalizedFloat(ColorABGR.unpackAlpha(color));
+
+        int r = Math.round(ColorU8.byteToNormalizedFloat(ColorABGR.unpackRed(color)) * brightness * 31.0f);
+        int g = Math.round(ColorU8.byteToNormalizedFloat(ColorABGR.unpackGreen(color)) * brightness * 63.0f);
+        int b = Math.round(ColorU8.byteToNormalizedFloat(ColorABGR.unpackBlue(color)) * brightness * 31.0f);
+
+        return (r << 0) | (g << 5) | (b << 11);
+    }
+
+    private static int encodeLight(int light) {
+        int block = (light >> 4) & 0xF;
+        int sky = (light >> 20) & 0xF;
+
+        return ((block << 0) | (sky << 4));
+    }
+}
@@ -3,6 +3,8 @@ package me.jellysquid.mods.sodium.client.render.viewport;
 import me.jellysquid.mods.sodium.client.render.viewport.frustum.Frustum;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkSectionPos;
+import org.jetbrains.annotations.Nullable;
+import org.joml.Matrix4fc;
 import org.joml.Vector3d;
 
 public final class Viewport {
@@ -12,8 +14,15 @@ public final class Viewport {
     private final ChunkSectionPos chunkCoords;
     private final BlockPos blockCoords;
 
+    private final @Nullable Matrix4fc viewProjectionMatrix;
+
     public Viewport(Frustum frustum, Vector3d position) {
+        this(frustum, position, null);
+    }
+
+    public Viewport(Frustum frustum, Vector3d position, @Nullable Matrix4fc viewProjectionMatrix) {
         this.frustum = frustum;
+        this.viewProjectionMatrix = viewProjectionMatrix;
         this.transform = new CameraTransform(position.x, position.y, position.z);
 
         this.chunkCoords = ChunkSectionPos.from(
@@ -41,6 +50,40 @@ public final class Viewport {
         );
     }
 
+    /**
+     * Tests whether the box between the given block coordinates is visible. The box is expanded by the given epsilon
+     * on all sides to account for floating point imprecision.
+     */
+    public boolean isBoxVisible(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, float epsilon) {
+        return this.frustum.testAab(
+                ((minX - this.transform.intX) - this.transform.fracX) - epsilon,
+                ((minY - this.transform.intY) - this.transform.fracY) - epsilon,
+                ((minZ - this.transform.intZ) - this.transform.fracZ) - epsilon,
+
+                ((maxX - this.transform.intX) - this.transform.fracX) + epsilon,
+                ((maxY - this.transform.intY) - this.transform.fracY) + epsilon,
+                ((maxZ - this.transform.intZ) - this.transform.fracZ) + epsilon
+        );
+    }
+
+    /**
+     * Tests how the box between the given block coordinates intersects the frustum, after expanding it by the given
+     * epsilon on all sides.
+     *
+     * @return One of {@link Frustum#OUTSIDE}, {@link Frustum#INTERSECT}, or {@link Frustum#INSIDE}
+     */
+    public int getBoxIntersection(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, float epsilon) {
+        return this.frustum.intersectAab(
+                ((minX - this.transform.intX) - this.transform.fracX) - epsilon,
+                ((minY - this.transform.intY) - this.transform.fracY) - epsilon,
+                ((minZ - this.transform.intZ) - this.transform.fracZ) - epsilon,
+
+                ((maxX - this.transform.intX) - this.transform.fracX) + epsilon,
+                ((maxY - this.transform.intY) - this.transform.fracY) + epsilon,
+                ((maxZ - this.transform.intZ) - this.transform.fracZ) + epsilon
+        );
+    }
+
     public CameraTransform getTransform() {
         return this.transform;
     }
@@ -52,4 +95,11 @@ public final class Viewport {
     public BlockPos getBlockCoord() {
         return this.blockCoords;
     }
+
+    /**
+     * @return The matrix which transforms camera-relative positions into clip space, or null if it is not known
+     */
+    public @Nullable Matrix4fc getViewProjectionMatrix() {
+        return this.viewProjectionMatrix;
+    }
 }
@@ -1,5 +1,15 @@
 package me.jellysquid.mods.sodium.client.render.viewport.frustum;
 
 public interface Frustum {
+    int OUTSIDE = 0;
+    int INTERSECT = 1;
+    int INSIDE = 2;
+
     boolean testAab(float minX, float minY, float minZ, float maxX, float maxY, float maxZ);
+
+    /**
+     * @return {@link #INSIDE} if the box is entirely within the frustum, {@link #OUTSIDE} if it is entirely outside,
+     *         and otherwise {@link #INTERSECT}
+     */
+    int intersectAab(float minX, float minY, float minZ, float maxX, float maxY, float maxZ);
 }
@@ -0,0 +1,60 @@
+package me.jellysquid.mods.sodium.client.util;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * A table which stores a value computed from each block state, indexed by the state's raw ID. Each entry is computed
+ * the first time it is needed, and an entry of zero is treated as not having been computed yet, so the function which
+ * computes the values must never return zero.
+ *
+ * <p>The table may be read and written from any thread without locking. The function must always return the same value
+ * for a state until the table is reset, so that threads which race to compute the same entry write the same value.</p>
+ */
+public final class BlockStateTable {
+    private final ToIntFunction<BlockState> function;
+    private final int defaultValue;
+
+    private volatile int[] values;
+
+    /**
+     * @param function The function which computes the value of a state
+     * @param defaultValue The value returned for states which don't have a raw ID, or were registered after the table
+     *                     was last reset
+     */
+    public BlockStateTable(ToIntFunction<BlockState> function, int defaultValue) {
+        this.function = function;
+        this.defaultValue = defaultValue;
+        this.values = createValues();
+    }
+
+    public int get(BlockState state) {
+        int[] values = this.values;
+        int id = Block.getRawIdFromState(state);
+
+        if (id < 0 || id >= values.length) {
+            return this.defaultValue;
+        }
+
+        int value = values[id];
+
+        if (value == 0) {
+            values[id] = value = this.function.applyAsInt(state);
+        }
+
+        return value;
+    }
+
+    /**
+     * Discards every entry in the table, so that they will be computed again when they are next used.
+     */
+    public void reset() {
+        this.values = createValues();
+    }
+
+    private static int[] createValues() {
+        return new int[Block.STATE_IDS.size()];
+    }
+}
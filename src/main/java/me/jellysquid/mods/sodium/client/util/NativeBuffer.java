@@ -22,7 +22,9 @@ public class NativeBuffer {
     private static final Reference2ReferenceMap<Reference<NativeBuffer>, BufferReference> ACTIVE_BUFFERS =
             Reference2ReferenceMaps.synchronize(new Reference2ReferenceOpenHashMap<>());
 
-    private static long ALLOCATED = 0L;
+    // Vertex buffers for chunk meshes are created and destroyed at a very high rate, so up to 64 MiB of freed memory
+    // is kept around for re-use
+    private static final NativeMemoryPool POOL = new NativeMemoryPool(64L * 1024L * 1024L);
 
     private final BufferReference ref;
 
@@ -82,7 +84,15 @@ public class NativeBuffer {
     }
 
     public static long getTotalAllocated() {
-        return ALLOCATED;
+        return POOL.getUsedBytes();
+    }
+
+    public static long getPeakAllocated() {
+        return POOL.getPeakUsedBytes();
+    }
+
+    public static long getTotalPooled() {
+        return POOL.getIdleBytes();
     }
 
     private static StackTraceElement[] getStackTrace() {
@@ -93,20 +103,23 @@ public class NativeBuffer {
     private static final int MAX_ALLOCATION_ATTEMPTS = 3;
 
     private static BufferReference allocate(int bytes) {
+        int capacity = NativeMemoryPool.getCapacity(bytes);
+
         long address = 0;
         int attempts = 0;
 
         while (++attempts <= MAX_ALLOCATION_ATTEMPTS) {
-            address = MemoryUtil.nmemAlloc(bytes);
+            address = POOL.allocate(capacity);
 
             if (address != MemoryUtil.NULL) {
                 break;
             }
 
-            LOGGER.error("EMERGENCY: Tried to allocate {} bytes but the allocator reports failure", bytes);
+            LOGGER.error("EMERGENCY: Tried to allocate {} bytes but the allocator reports failure", capacity);
             LOGGER.error("EMERGENCY: ... Attempting to force a garbage collection cycle (attempt {}/{})", attempts, MAX_ALLOCATION_ATTEMPTS);
 
-            // If memory allocation fails, force a garbage collection
+            // If memory allocation fails, release any pooled memory and force a garbage collection
+            POOL.trim();
             reclaim(true);
         }
 
@@ -116,32 +129,29 @@ public class NativeBuffer {
 
         StackTraceElement[] stackTrace = getStackTrace();
 
-        BufferReference ref = new BufferReference(address, bytes, stackTrace);
-        ALLOCATED += ref.length;
-
-        return ref;
+        return new BufferReference(address, bytes, capacity, stackTrace);
     }
 
     private static void deallocate(BufferReference ref) {
         ref.checkFreed();
         ref.freed = true;
 
-        MemoryUtil.nmemFree(ref.address);
-
-        ALLOCATED -= ref.length;
+        POOL.free(ref.address, ref.capacity);
     }
 
     private static class BufferReference {
         public final long address;
         public final int length;
+        public final int capacity;
 
         public final StackTraceElement[] allocationSite;
 
         public boolean freed;
 
-        private BufferReference(long address, int length, StackTraceElement[] allocationSite) {
+        private BufferReference(long address, int length, int capacity, StackTraceElement[] allocationSite) {
             this.address = address;
             this.length = length;
+            this.capacity = capacity;
             this.allocationSite = allocationSite;
         }
 
@@ -0,0 +1,155 @@
+package me.jellysquid.mods.sodium.client.util;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.lwjgl.system.MemoryUtil;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An allocator for native memory which rounds each allocation up to a power-of-two size class. Freed allocations are
+ * kept in a free list for their size class (up to a limit on the total amount of idle memory), so that buffers which
+ * are created and destroyed at a high rate, such as the meshes of chunk sections, can re-use memory instead of going
+ * through the system allocator each time.
+ *
+ * <p>The free lists are shared between all threads, since buffers are usually allocated on the chunk builder threads
+ * and then freed on the main thread after they have been uploaded.</p>
+ */
+public class NativeMemoryPool {
+    // The smallest and largest size classes, allocations larger than this are never pooled
+    private static final int MIN_CLASS_SHIFT = 12; // 4 KiB
+    private static final int MAX_CLASS_SHIFT = 23; // 8 MiB
+
+    private final LongArrayList[] freeLists = new LongArrayList[MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1];
+
+    private final long maxIdleBytes;
+
+    private final AtomicLong idleBytes = new AtomicLong();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final AtomicLong peakUsedBytes = new AtomicLong();
+
+    public NativeMemoryPool(long maxIdleBytes) {
+        this.maxIdleBytes = maxIdleBytes;
+
+        for (int i = 0; i < this.freeLists.length; i++) {
+            this.freeLists[i] = new LongArrayList();
+        }
+    }
+
+    /**
+     * @return The number of bytes which are actually allocated for a request of the given size
+     */
+    public static int getCapacity(int size) {
+        if (size > (1 << MAX_CLASS_SHIFT)) {
+            return size;
+        }
+
+        return Math.max(1 << MIN_CLASS_SHIFT, HashCommon.nextPowerOfTwo(size));
+    }
+
+    /**
+     * Allocates memory with the given capacity, which must have been returned by {@link #getCapacity(int)}.
+     * @return The address of the memory, or {@link MemoryUtil#NULL} if the system allocator reports failure
+     */
+    public long allocate(int capacity) {
+        long address = MemoryUtil.NULL;
+
+        var freeList = this.getFreeList(capacity);
+
+        if (freeList != null) {
+            synchronized (freeList) {
+                if (!freeList.isEmpty()) {
+                    address = freeList.popLong();
+                }
+            }
+        }
+
+        if (address != MemoryUtil.NULL) {
+            this.idleBytes.addAndGet(-capacity);
+        } else {
+            address = MemoryUtil.nmemAlloc(capacity);
+
+            if (address == MemoryUtil.NULL) {
+                return MemoryUtil.NULL;
+            }
+        }
+
+        this.peakUsedBytes.accumulateAndGet(this.usedBytes.addAndGet(capacity), Math::max);
+
+        return address;
+    }
+
+    /**
+     * Frees memory which was allocated by this pool with the given capacity. The memory is kept for re-use if there is
+     * room in the pool, otherwise it is returned to the system allocator.
+     */
+    public void free(long address, int capacity) {
+        this.usedBytes.addAndGet(-capacity);
+
+        var freeList = this.getFreeList(capacity);
+
+        if (freeList != null && this.idleBytes.addAndGet(capacity) <= this.maxIdleBytes) {
+            synchronized (freeList) {
+                freeList.add(address);
+            }
+
+            return;
+        }
+
+        if (freeList != null) {
+            this.idleBytes.addAndGet(-capacity);
+        }
+
+        MemoryUtil.nmemFree(address);
+    }
+
+    /**
+     * Returns all idle memory in the pool to the system allocator.
+     */
+    public void trim() {
+        for (int i = 0; i < this.freeLists.length; i++) {
+            var freeList = this.freeLists[i];
+            long[] addresses;
+
+            synchronized (freeList) {
+                addresses = freeList.toLongArray();
+                freeList.clear();
+            }
+
+            for (long address : addresses) {
+                MemoryUtil.nmemFree(address);
+            }
+
+            this.idleBytes.addAndGet(-((long) addresses.length << (MIN_CLASS_SHIFT + i)));
+        }
+    }
+
+    private LongArrayList getFreeList(int capacity) {
+        if (capacity > (1 << MAX_CLASS_SHIFT) || Integer.bitCount(capacity) != 1) {
+            return null;
+        }
+
+        return this.freeLists[Integer.numberOfTrailingZeros(capacity) - MIN_CLASS_SHIFT];
+    }
+
+    /**
+     * @return The number of bytes which are held by allocations that are still in use
+     */
+    public long getUsedBytes() {
+        return this.usedBytes.get();
+    }
+
+    /**
+     * @return The largest number of bytes which have been in use at once
+     */
+    public long getPeakUsedBytes() {
+        return this.peakUsedBytes.get();
+    }
+
+    /**
+     * @return The number of bytes which are held by the pool for re-use
+     */
+    public long getIdleBytes() {
+        return this.idleBytes.get();
+    }
+}
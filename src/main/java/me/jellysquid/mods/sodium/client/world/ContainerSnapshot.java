@@ -0,0 +1,136 @@
+package me.jellysquid.mods.sodium.client.world;
+
+import net.minecraft.world.chunk.ReadableContainer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A copy-on-write snapshot of a container's contents. Taking a snapshot doesn't copy anything, and the snapshot reads
+ * directly from the live container until that container is about to be modified. At that point, the container is only
+ * copied if a reader is still waiting to use the snapshot. Otherwise, the snapshot is invalidated, and must not be
+ * used again.
+ *
+ * <p>The contents must only be accessed while holding the snapshot's monitor, since the container calls
+ * {@link #detach()} on its own thread before it is modified, and that must not happen in the middle of a read.</p>
+ *
+ * <p>Snapshots may be taken from any thread. To make sure that a snapshot is never taken while its container is in the
+ * middle of being modified, the container holds its {@link #getModificationLock(Object) modification lock} for the
+ * whole modification, and snapshots are only taken while holding the same lock. Only modifications on the render thread
+ * take the lock, since snapshots are only taken of the client world's containers, which aren't modified on any other
+ * thread.</p>
+ */
+public final class ContainerSnapshot<T> {
+    // Containers are only modified on a few threads at a time, so a small set of locks is shared between all of them,
+    // rather than allocating one for every container
+    private static final ReentrantLock[] MODIFICATION_LOCKS = new ReentrantLock[64];
+
+    static {
+        for (int i = 0; i < MODIFICATION_LOCKS.length; i++) {
+            MODIFICATION_LOCKS[i] = new ReentrantLock();
+        }
+    }
+
+    private @Nullable ReadableContainer<T> container;
+
+    // Whether the container is still the live container which the snapshot was taken from
+    private boolean shared;
+
+    // The number of readers which have acquired the snapshot, but not finished using it yet
+    private int readers;
+
+    /**
+     * @return The lock which must be held while the given container is modified, or while a snapshot is taken of it
+     */
+    public static ReentrantLock getModificationLock(Object container) {
+        return MODIFICATION_LOCKS[System.identityHashCode(container) & (MODIFICATION_LOCKS.length - 1)];
+    }
+
+    private ContainerSnapshot(ReadableContainer<T> container, boolean shared) {
+        this.container = container;
+        this.shared = shared;
+    }
+
+    /**
+     * Creates a snapshot which reads from the given live container. The container must call {@link #detach()} on the
+     * snapshot before it is modified.
+     */
+    public static <T> ContainerSnapshot<T> ofLive(ReadableContainer<T> container) {
+        return new ContainerSnapshot<>(container, true);
+    }
+
+    /**
+     * Creates a snapshot of a container which will never be modified.
+     */
+    public static <T> ContainerSnapshot<T> ofImmutable(ReadableContainer<T> container) {
+        return new ContainerSnapshot<>(container, false);
+    }
+
+    /**
+     * Separates the snapshot from the live container, which is about to be modified. The contents are only copied if
+     * there are readers which still need them.
+     */
+    public synchronized void detach() {
+        if (!this.shared) {
+            return;
+        }
+
+        if (this.readers > 0) {
+            this.container = ReadableContainerExtended.clone(this.container);
+        } else {
+            this.container = null;
+        }
+
+        this.shared = false;
+    }
+
+    /**
+     * Registers a reader of the snapshot, which guarantees that its contents are kept until {@link #release()} is
+     * called, even if the live container is modified.
+     */
+    public synchronized void acquire() {
+        if (this.container == null) {
+            throw new IllegalStateException("Snapshot has been invalidated");
+        }
+
+        this.readers++;
+    }
+
+    /**
+     * Registers a reader of the snapshot if it is still valid.
+     *
+     * @return True if the snapshot was acquired, or false if it has been invalidated
+     */
+    public synchronized boolean tryAcquire() {
+        if (this.container == null) {
+            return false;
+        }
+
+        this.readers++;
+
+        return true;
+    }
+
+    public synchronized void release() {
+        if (this.readers <= 0) {
+            throw new IllegalStateException("Snapshot has not been acquired");
+        }
+
+        this.readers--;
+    }
+
+    /**
+     * @return The contents of the snapshot, which may only be used while holding the snapshot's monitor
+     */
+    public ReadableContainer<T> get() {
+        if (!Thread.holdsLock(this)) {
+            throw new IllegalStateException("Snapshot must be locked while it is read");
+        }
+
+        if (this.container == null) {
+            throw new IllegalStateException("Snapshot has been invalidated");
+        }
+
+        return this.container;
+    }
+}
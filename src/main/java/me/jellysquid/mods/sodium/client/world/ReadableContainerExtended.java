@@ -1,6 +1,7 @@
 package me.jellysquid.mods.sodium.client.world;
 
 import net.minecraft.world.chunk.ReadableContainer;
+import org.jetbrains.annotations.Nullable;
 
 public interface ReadableContainerExtended<T> {
     @SuppressWarnings("unchecked")
@@ -16,8 +17,35 @@ public interface ReadableContainerExtended<T> {
         return of(container).sodium$copy();
     }
 
+    static <T> ContainerSnapshot<T> acquireSnapshot(ReadableContainer<T> container) {
+        if (container == null) {
+            return null;
+        }
+
+        return of(container).sodium$acquireSnapshot();
+    }
+
     void sodium$unpack(T[] values);
-    void sodium$unpack(T[] values, int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
+
+    /**
+     * Unpacks the elements within the given local bounds (inclusive) into an array which holds a cube of elements with
+     * the given side length. The element at local coordinates (x, y, z) is stored at the index
+     * {@code offset + (((y * length) + z) * length) + x}.
+     */
+    void sodium$unpack(T[] values, int offset, int length, int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
 
     ReadableContainer<T> sodium$copy();
+
+    /**
+     * Takes a copy-on-write snapshot of the container's current contents, and acquires it on behalf of the caller. This
+     * may be called from any thread.
+     *
+     * @return The acquired snapshot, which must be released once the caller is finished with it
+     */
+    ContainerSnapshot<T> sodium$acquireSnapshot();
+
+    /**
+     * @return The value of every element in the container if they are all the same, otherwise null
+     */
+    @Nullable T sodium$getUniformValue();
 }
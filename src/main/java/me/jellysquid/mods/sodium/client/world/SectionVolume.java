@@ -0,0 +1,123 @@
+package me.jellysquid.mods.sodium.client.world;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * A cube of values which covers an origin section and a border of blocks around it, copied from the origin section
+ * and its neighbors. Only the parts of the neighboring sections which are within the border are stored, alongside the
+ * origin section in one dense array, rather than in arrays of their own.
+ *
+ * @param <T> The type of the values which are stored
+ */
+public class SectionVolume<T> {
+    // The number of blocks in a section.
+    private static final int SECTION_BLOCK_COUNT = 16 * 16 * 16;
+
+    // The number of blocks around the origin section which are included in the volume.
+    private final int border;
+
+    // The number of blocks on each axis of the volume.
+    private final int length;
+
+    // The values within the volume, indexed by getIndex.
+    private final T[] values;
+
+    // Scratch array which sections entirely within the volume are unpacked into, before being copied into the volume.
+    private final T[] sectionValues;
+
+    /**
+     * @param factory The function which creates arrays of the value type
+     * @param border The number of blocks around the origin section to include, which must be at most 16
+     */
+    public SectionVolume(IntFunction<T[]> factory, int border) {
+        if (border < 0 || border > 16) {
+            throw new IllegalArgumentException("Border must be between 0 and 16 blocks");
+        }
+
+        this.border = border;
+        this.length = 16 + (border * 2);
+
+        this.values = factory.apply(this.length * this.length * this.length);
+        this.sectionValues = factory.apply(SECTION_BLOCK_COUNT);
+    }
+
+    /**
+     * Copies the part of a section which is within the volume.
+     *
+     * @param sectionX The section X-coordinate relative to the origin section, between -1 and 1
+     * @param sectionY The section Y-coordinate relative to the origin section
+     * @param sectionZ The section Z-coordinate relative to the origin section
+     * @param container The section's values, or null if it has none
+     * @param defaultValue The value to fill the section's part of the volume with, if it has no values
+     */
+    public void copySection(int sectionX, int sectionY, int sectionZ, @Nullable ReadableContainerExtended<T> container,
+                            T defaultValue) {
+        // The position within the volume which the first block of the section would be stored at, which is outside the
+        // volume for the neighboring sections on the negative side
+        int originX = this.border + (sectionX << 4);
+        int originY = this.border + (sectionY << 4);
+        int originZ = this.border + (sectionZ << 4);
+
+        int minX = Math.max(0, -originX), maxX = Math.min(15, this.length - 1 - originX);
+        int minY = Math.max(0, -originY), maxY = Math.min(15, this.length - 1 - originY);
+        int minZ = Math.max(0, -originZ), maxZ = Math.min(15, this.length - 1 - originZ);
+
+        if (minX > maxX || minY > maxY || minZ > maxZ) {
+            return;
+        }
+
+        // The index of the first block of the section, which may be negative
+        int offset = this.getIndex(originX, originY, originZ);
+
+        if (container == null) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    int rowOffset = offset + this.getIndex(0, y, z);
+
+                    Arrays.fill(this.values, rowOffset + minX, rowOffset + maxX + 1, defaultValue);
+                }
+            }
+        } else if (minX == 0 && minY == 0 && minZ == 0 && maxX == 15 && maxY == 15 && maxZ == 15) {
+            // The section is entirely within the volume, so it's faster to unpack all of it at once, and then copy each
+            // row into the volume
+            container.sodium$unpack(this.sectionValues);
+
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    System.arraycopy(this.sectionValues, (y << 8) | (z << 4),
+                            this.values, offset + this.getIndex(0, y, z), 16);
+                }
+            }
+        } else {
+            container.sodium$unpack(this.values, offset, this.length, minX, minY, minZ, maxX, maxY, maxZ);
+        }
+    }
+
+    /**
+     * @param x The X-coordinate relative to the minimum corner of the volume
+     * @param y The Y-coordinate relative to the minimum corner of the volume
+     * @param z The Z-coordinate relative to the minimum corner of the volume
+     * @return The value at the given position, which must be within the volume
+     */
+    public T get(int x, int y, int z) {
+        return this.values[this.getIndex(x, y, z)];
+    }
+
+    public void fill(T value) {
+        Arrays.fill(this.values, value);
+    }
+
+    /**
+     * @return The number of blocks on each axis of the volume
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    private int getIndex(int x, int y, int z) {
+        return (((y * this.length) + z) * this.length) + x;
+    }
+}
@@ -1,14 +1,17 @@
 package me.jellysquid.mods.sodium.client.world;
 
 import it.unimi.dsi.fastutil.ints.Int2ReferenceMap;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.cache.MeshCacheHasher;
 import me.jellysquid.mods.sodium.client.world.biome.BiomeColorCache;
 import me.jellysquid.mods.sodium.client.world.biome.BiomeColorSource;
 import me.jellysquid.mods.sodium.client.world.biome.BiomeColorView;
 import me.jellysquid.mods.sodium.client.world.biome.BiomeSlice;
 import me.jellysquid.mods.sodium.client.world.cloned.ChunkRenderContext;
+import me.jellysquid.mods.sodium.client.world.cloned.ClonedBlockEntities;
 import me.jellysquid.mods.sodium.client.world.cloned.ClonedChunkSection;
 import me.jellysquid.mods.sodium.client.world.cloned.ClonedChunkSectionCache;
 import net.fabricmc.fabric.api.rendering.data.v1.RenderAttachedBlockView;
+import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.block.entity.BlockEntity;
@@ -44,9 +47,6 @@ import java.util.Objects;
 public final class WorldSlice implements BlockRenderView, BiomeColorView, RenderAttachedBlockView {
     private static final LightType[] LIGHT_TYPES = LightType.values();
 
-    // The number of blocks in a section.
-    private static final int SECTION_BLOCK_COUNT = 16 * 16 * 16;
-
     // The radius of blocks around the origin chunk that should be copied.
     private static final int NEIGHBOR_BLOCK_RADIUS = 2;
 
@@ -74,8 +74,11 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
     // The biome blend cache
     private final BiomeColorCache biomeColors;
 
-    // (Local Section -> Block States) table.
-    private final BlockState[][] blockArrays;
+    // The block states within the volume of this slice.
+    private final SectionVolume<BlockState> blockStates;
+
+    // (Local Section -> Uniform Block State) table, which is null for sections containing more than one block state.
+    private final @Nullable BlockState[] uniformBlockStates;
 
     // (Local Section -> Light Arrays) table.
     private final @Nullable ChunkNibbleArray[][] lightArrays;
@@ -119,25 +122,40 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
         final int maxChunkY = origin.getY() + NEIGHBOR_CHUNK_RADIUS;
         final int maxChunkZ = origin.getZ() + NEIGHBOR_CHUNK_RADIUS;
 
+        // Only the block entities need to be captured on the main thread. Everything else is captured from the section
+        // cache when the build starts.
+        var blockEntities = ClonedBlockEntities.capture(world, minChunkX, minChunkY, minChunkZ, maxChunkX, maxChunkY, maxChunkZ);
+
+        return new ChunkRenderContext(origin, volume, blockEntities, sectionCache);
+    }
+
+    private static ClonedChunkSection[] acquireSections(ChunkRenderContext context) {
+        var origin = context.getOrigin();
+        var sectionCache = context.getSectionCache();
+
+        final int minChunkX = origin.getX() - NEIGHBOR_CHUNK_RADIUS;
+        final int minChunkY = origin.getY() - NEIGHBOR_CHUNK_RADIUS;
+        final int minChunkZ = origin.getZ() - NEIGHBOR_CHUNK_RADIUS;
+
         ClonedChunkSection[] sections = new ClonedChunkSection[SECTION_ARRAY_SIZE];
 
-        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
-            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
-                for (int chunkY = minChunkY; chunkY <= maxChunkY; chunkY++) {
-                    sections[getLocalSectionIndex(chunkX - minChunkX, chunkY - minChunkY, chunkZ - minChunkZ)] =
-                            sectionCache.acquire(chunkX, chunkY, chunkZ);
+        for (int x = 0; x < SECTION_ARRAY_LENGTH; x++) {
+            for (int y = 0; y < SECTION_ARRAY_LENGTH; y++) {
+                for (int z = 0; z < SECTION_ARRAY_LENGTH; z++) {
+                    sections[getLocalSectionIndex(x, y, z)] = sectionCache.acquire(minChunkX + x, minChunkY + y, minChunkZ + z);
                 }
             }
         }
 
-        return new ChunkRenderContext(origin, sections, volume);
+        return sections;
     }
 
     @SuppressWarnings("unchecked")
     public WorldSlice(ClientWorld world) {
         this.world = world;
 
-        this.blockArrays = new BlockState[SECTION_ARRAY_SIZE][SECTION_BLOCK_COUNT];
+        this.blockStates = new SectionVolume<>(BlockState[]::new, NEIGHBOR_BLOCK_RADIUS);
+        this.uniformBlockStates = new BlockState[SECTION_ARRAY_SIZE];
         this.lightArrays = new ChunkNibbleArray[SECTION_ARRAY_SIZE][LIGHT_TYPES.length];
 
         this.blockEntityArrays = new Int2ReferenceMap[SECTION_ARRAY_SIZE];
@@ -146,9 +164,7 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
         this.biomeSlice = new BiomeSlice();
         this.biomeColors = new BiomeColorCache(this.biomeSlice, MinecraftClient.getInstance().options.getBiomeBlendRadius().getValue());
 
-        for (BlockState[] blockArray : this.blockArrays) {
-            Arrays.fill(blockArray, EMPTY_BLOCK_STATE);
-        }
+        this.blockStates.fill(EMPTY_BLOCK_STATE);
     }
 
     public void copyData(ChunkRenderContext context) {
@@ -157,6 +173,8 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
         this.originZ = (context.getOrigin().getZ() - NEIGHBOR_CHUNK_RADIUS) << 4;
         this.volume = context.getVolume();
 
+        context.setSections(acquireSections(context));
+
         for (int x = 0; x < SECTION_ARRAY_LENGTH; x++) {
             for (int y = 0; y < SECTION_ARRAY_LENGTH; y++) {
                 for (int z = 0; z < SECTION_ARRAY_LENGTH; z++) {
@@ -167,6 +185,8 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
 
         this.biomeSlice.update(this.world, context);
         this.biomeColors.update(context);
+
+        context.releaseSections();
     }
 
     private void copySectionData(ChunkRenderContext context, int sectionIndex) {
@@ -174,43 +194,95 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
 
         Objects.requireNonNull(section, "Chunk section must be non-null");
 
-        this.unpackBlockData(this.blockArrays[sectionIndex], context, section);
+        var blockData = section.getBlockData();
+
+        if (blockData == null) {
+            this.unpackBlockData(context, section, null);
+            this.uniformBlockStates[sectionIndex] = EMPTY_BLOCK_STATE;
+        } else {
+            synchronized (blockData) {
+                var container = ReadableContainerExtended.of(blockData.get());
+
+                this.unpackBlockData(context, section, container);
+                this.uniformBlockStates[sectionIndex] = container.sodium$getUniformValue();
+            }
+        }
 
         this.lightArrays[sectionIndex][LightType.BLOCK.ordinal()] = section.getLightArray(LightType.BLOCK);
         this.lightArrays[sectionIndex][LightType.SKY.ordinal()] = section.getLightArray(LightType.SKY);
 
-        this.blockEntityArrays[sectionIndex] = section.getBlockEntityMap();
-        this.blockEntityRenderDataArrays[sectionIndex] = section.getBlockEntityRenderDataMap();
+        this.blockEntityArrays[sectionIndex] = context.getBlockEntities().getBlockEntities(sectionIndex);
+        this.blockEntityRenderDataArrays[sectionIndex] = context.getBlockEntities().getRenderData(sectionIndex);
     }
 
-    private void unpackBlockData(BlockState[] blockArray, ChunkRenderContext context, ClonedChunkSection section) {
-        if (section.getBlockData() == null) {
-            Arrays.fill(blockArray, EMPTY_BLOCK_STATE);
-            return;
+    private void unpackBlockData(ChunkRenderContext context, ClonedChunkSection section,
+                                 @Nullable ReadableContainerExtended<BlockState> container) {
+        ChunkSectionPos origin = context.getOrigin();
+        ChunkSectionPos pos = section.getPosition();
+
+        this.blockStates.copySection(pos.getX() - origin.getX(), pos.getY() - origin.getY(), pos.getZ() - origin.getZ(),
+                container, EMPTY_BLOCK_STATE);
+    }
+
+    /**
+     * Adds all the data in this slice which can affect how the origin section is meshed to the hasher. This includes
+     * the block states and light levels within the slice's volume, the biomes which are used for color blending, and
+     * the position of the slice in the world.
+     *
+     * @return False if the slice contains data which can't be hashed (such as block entity render data provided by
+     * other mods), otherwise true
+     */
+    public boolean hashContents(MeshCacheHasher hasher) {
+        for (var renderDataMap : this.blockEntityRenderDataArrays) {
+            if (renderDataMap != null) {
+                return false;
+            }
         }
 
-        var container = ReadableContainerExtended.of(section.getBlockData());
+        hasher.putString(this.world.getRegistryKey().getValue().toString());
+        hasher.putInt(this.originX).putInt(this.originY).putInt(this.originZ);
 
-        ChunkSectionPos origin = context.getOrigin();
-        ChunkSectionPos pos = section.getPosition();
+        BlockState lastState = null;
+        int lastStateId = 0;
 
-        if (origin.equals(pos))  {
-            container.sodium$unpack(blockArray);
-        } else {
-            var bounds = context.getVolume();
+        for (int y = this.volume.getMinY(); y <= this.volume.getMaxY(); y++) {
+            for (int z = this.volume.getMinZ(); z <= this.volume.getMaxZ(); z++) {
+                for (int x = this.volume.getMinX(); x <= this.volume.getMaxX(); x++) {
+                    int relX = x - this.originX;
+                    int relY = y - this.originY;
+                    int relZ = z - this.originZ;
+
+                    int sectionIndex = getLocalSectionIndex(relX >> 4, relY >> 4, relZ >> 4);
+
+                    int localX = relX & 15;
+                    int localY = relY & 15;
+                    int localZ = relZ & 15;
+
+                    BlockState state = this.blockStates.get(x - this.volume.getMinX(),
+                            y - this.volume.getMinY(), z - this.volume.getMinZ());
+
+                    // Neighboring blocks usually share the same state, so avoid looking up the ID again
+                    if (state != lastState) {
+                        lastState = state;
+                        lastStateId = Block.getRawIdFromState(state);
+                    }
 
-            int minBlockX = Math.max(bounds.getMinX(), pos.getMinX());
-            int maxBlockX = Math.min(bounds.getMaxX(), pos.getMaxX());
+                    var lightArrays = this.lightArrays[sectionIndex];
 
-            int minBlockY = Math.max(bounds.getMinY(), pos.getMinY());
-            int maxBlockY = Math.min(bounds.getMaxY(), pos.getMaxY());
+                    var blockLightArray = lightArrays[LightType.BLOCK.ordinal()];
+                    var skyLightArray = lightArrays[LightType.SKY.ordinal()];
 
-            int minBlockZ = Math.max(bounds.getMinZ(), pos.getMinZ());
-            int maxBlockZ = Math.min(bounds.getMaxZ(), pos.getMaxZ());
+                    int blockLight = blockLightArray == null ? 0 : blockLightArray.get(localX, localY, localZ);
+                    int skyLight = skyLightArray == null ? 0 : skyLightArray.get(localX, localY, localZ);
 
-            container.sodium$unpack(blockArray, minBlockX & 15, minBlockY & 15, minBlockZ & 15,
-                    maxBlockX & 15, maxBlockY & 15, maxBlockZ & 15);
+                    hasher.putInt((lastStateId << 8) | (blockLight << 4) | skyLight);
+                }
+            }
         }
+
+        this.biomeSlice.hashContents(hasher);
+
+        return true;
     }
 
     public void reset() {
@@ -235,12 +307,8 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
             return EMPTY_BLOCK_STATE;
         }
 
-        int relX = x - this.originX;
-        int relY = y - this.originY;
-        int relZ = z - this.originZ;
-
-        return this.blockArrays[getLocalSectionIndex(relX >> 4, relY >> 4, relZ >> 4)]
-                [getLocalBlockIndex(relX & 15, relY & 15, relZ & 15)];
+        return this.blockStates.get(x - this.volume.getMinX(), y - this.volume.getMinY(),
+                z - this.volume.getMinZ());
     }
 
     @Override
@@ -381,6 +449,17 @@ public final class WorldSlice implements BlockRenderView, BiomeColorView, Render
         return (y << LOCAL_XYZ_BITS << LOCAL_XYZ_BITS) | (z << LOCAL_XYZ_BITS) | x;
     }
 
+    /**
+     * @param x The local section X-coordinate, where the origin section of this slice is at (1, 1, 1)
+     * @param y The local section Y-coordinate
+     * @param z The local section Z-coordinate
+     * @return The block state which fills the section entirely, or null if the section contains more than one block
+     * state
+     */
+    public @Nullable BlockState getUniformBlockState(int x, int y, int z) {
+        return this.uniformBlockStates[getLocalSectionIndex(x, y, z)];
+    }
+
     public static int getLocalSectionIndex(int x, int y, int z) {
         return (y * SECTION_ARRAY_LENGTH * SECTION_ARRAY_LENGTH) + (z * SECTION_ARRAY_LENGTH) + x;
     }
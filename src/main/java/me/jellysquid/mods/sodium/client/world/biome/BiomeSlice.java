@@ -1,5 +1,6 @@
 package me.jellysquid.mods.sodium.client.world.biome;
 
+import me.jellysquid.mods.sodium.client.render.chunk.compile.cache.MeshCacheHasher;
 import me.jellysquid.mods.sodium.client.world.BiomeSeedProvider;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import me.jellysquid.mods.sodium.client.world.cloned.ChunkRenderContext;
@@ -12,6 +13,8 @@ import net.minecraft.world.biome.Biome;
 import net.minecraft.world.biome.BiomeKeys;
 import net.minecraft.world.biome.source.BiomeCoords;
 import net.minecraft.world.biome.source.SeedMixer;
+import net.minecraft.world.chunk.ReadableContainer;
+import org.jetbrains.annotations.Nullable;
 
 public class BiomeSlice {
     private static final int SIZE = 3 * 4; // 3 chunks * 4 biomes per chunk
@@ -57,6 +60,17 @@ public class BiomeSlice {
         var section = context.getSections()[WorldSlice.getLocalSectionIndex(sectionX, sectionY, sectionZ)];
         var biomeData = section.getBiomeData();
 
+        if (biomeData == null) {
+            this.copySectionBiomeData(sectionX, sectionY, sectionZ, null, defaultBiome);
+        } else {
+            synchronized (biomeData) {
+                this.copySectionBiomeData(sectionX, sectionY, sectionZ, biomeData.get(), defaultBiome);
+            }
+        }
+    }
+
+    private void copySectionBiomeData(int sectionX, int sectionY, int sectionZ, @Nullable ReadableContainer<RegistryEntry<Biome>> biomeData,
+                                      RegistryEntry<Biome> defaultBiome) {
         for (int x = 0; x < 4; x++) {
             for (int y = 0; y < 4; y++) {
                 for (int z = 0; z < 4; z++) {
@@ -145,6 +159,37 @@ public class BiomeSlice {
         return true;
     }
 
+    /**
+     * Adds the biomes and seed of this slice to the hasher. Biomes are identified by their registry key, along with the
+     * colors they define, since the same key can refer to different biomes on different servers.
+     */
+    public void hashContents(MeshCacheHasher hasher) {
+        hasher.putLong(this.biomeSeed);
+
+        RegistryEntry<Biome> lastEntry = null;
+
+        for (RegistryEntry<Biome> entry : this.biomes) {
+            if (entry == lastEntry) {
+                hasher.putInt(-1);
+                continue;
+            }
+
+            var key = entry.getKey();
+            var biome = entry.value();
+
+            hasher.putString(key.isPresent() ? key.get().getValue().toString() : "");
+            hasher.putInt(biome.getWaterColor());
+            hasher.putInt(biome.getFoliageColor());
+
+            var effects = biome.getEffects();
+            hasher.putInt(effects.getGrassColor().isPresent() ? 1 : 0);
+            hasher.putInt(effects.getGrassColor().orElse(0));
+            hasher.putInt(effects.getGrassColorModifier().ordinal());
+
+            lastEntry = entry;
+        }
+    }
+
     public RegistryEntry<Biome> getBiome(int x, int y, int z) {
         int relX = x - this.worldX;
         int relY = y - this.worldY;
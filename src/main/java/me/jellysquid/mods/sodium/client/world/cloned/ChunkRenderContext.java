@@ -4,21 +4,65 @@ import net.minecraft.util.math.BlockBox;
 import net.minecraft.util.math.ChunkSectionPos;
 import org.jetbrains.annotations.Nullable;
 
+/**
+ * Everything which is needed to build a section. This is created on the main thread when the build is scheduled, but
+ * only records the position of the section and captures its block entities. The rest of the data is captured from the
+ * section cache when the build starts, on one of the chunk builder's threads.
+ */
 public class ChunkRenderContext {
     private final ChunkSectionPos origin;
-    private final ClonedChunkSection[] sections;
     private final BlockBox volume;
 
-    public ChunkRenderContext(ChunkSectionPos origin, ClonedChunkSection[] sections, BlockBox volume) {
+    private final ClonedBlockEntities blockEntities;
+    private final ClonedChunkSectionCache sectionCache;
+
+    private ClonedChunkSection @Nullable [] sections;
+
+    public ChunkRenderContext(ChunkSectionPos origin, BlockBox volume, ClonedBlockEntities blockEntities,
+                              ClonedChunkSectionCache sectionCache) {
         this.origin = origin;
-        this.sections = sections;
         this.volume = volume;
+        this.blockEntities = blockEntities;
+        this.sectionCache = sectionCache;
+    }
+
+    public ClonedChunkSectionCache getSectionCache() {
+        return this.sectionCache;
+    }
+
+    /**
+     * Sets the sections which were acquired from the section cache for this build.
+     */
+    public void setSections(ClonedChunkSection[] sections) {
+        if (this.sections != null) {
+            throw new IllegalStateException("Sections have already been acquired");
+        }
+
+        this.sections = sections;
     }
 
     public ClonedChunkSection[] getSections() {
+        if (this.sections == null) {
+            throw new IllegalStateException("Sections have not been acquired yet");
+        }
+
         return this.sections;
     }
 
+    /**
+     * Releases the sections once all of their data has been copied, so that they no longer need to keep their
+     * contents if they are modified.
+     */
+    public void releaseSections() {
+        for (ClonedChunkSection section : this.getSections()) {
+            section.release();
+        }
+    }
+
+    public ClonedBlockEntities getBlockEntities() {
+        return this.blockEntities;
+    }
+
     public ChunkSectionPos getOrigin() {
         return this.origin;
     }
@@ -0,0 +1,123 @@
+package me.jellysquid.mods.sodium.client.world.cloned;
+
+import it.unimi.dsi.fastutil.ints.Int2ReferenceMap;
+import it.unimi.dsi.fastutil.ints.Int2ReferenceMaps;
+import it.unimi.dsi.fastutil.ints.Int2ReferenceOpenHashMap;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+/**
+ * The block entities in each of the sections around a section which is being built. Unlike the rest of the data which
+ * is needed to build a section, these must be captured on the main thread, since the block entities of a chunk are
+ * stored in a map which isn't safe to read from other threads, and retrieving their render data calls into the code of
+ * other mods.
+ */
+public class ClonedBlockEntities {
+    private final @Nullable Int2ReferenceMap<BlockEntity>[] blockEntities;
+    private final @Nullable Int2ReferenceMap<Object>[] renderData;
+
+    private ClonedBlockEntities(Int2ReferenceMap<BlockEntity>[] blockEntities, Int2ReferenceMap<Object>[] renderData) {
+        this.blockEntities = blockEntities;
+        this.renderData = renderData;
+    }
+
+    /**
+     * Captures the block entities of every section between the given section coordinates (inclusive). The sections are
+     * indexed by {@link WorldSlice#getLocalSectionIndex(int, int, int)}, relative to the minimum coordinates.
+     */
+    @SuppressWarnings("unchecked")
+    public static ClonedBlockEntities capture(World world, int minChunkX, int minChunkY, int minChunkZ,
+                                              int maxChunkX, int maxChunkY, int maxChunkZ) {
+        int count = (maxChunkX - minChunkX + 1) * (maxChunkY - minChunkY + 1) * (maxChunkZ - minChunkZ + 1);
+
+        Int2ReferenceMap<BlockEntity>[] blockEntities = new Int2ReferenceMap[count];
+        Int2ReferenceMap<Object>[] renderData = new Int2ReferenceMap[count];
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                WorldChunk chunk = world.getChunk(chunkX, chunkZ);
+
+                // Most chunks don't contain any block entities, so they can be skipped without looking at any sections
+                if (chunk.getBlockEntities().isEmpty()) {
+                    continue;
+                }
+
+                copyBlockEntities(chunk, minChunkX, minChunkY, minChunkZ, maxChunkY, blockEntities);
+            }
+        }
+
+        for (int index = 0; index < count; index++) {
+            if (blockEntities[index] != null) {
+                renderData[index] = copyBlockEntityRenderData(blockEntities[index]);
+            }
+        }
+
+        return new ClonedBlockEntities(blockEntities, renderData);
+    }
+
+    private static void copyBlockEntities(WorldChunk chunk, int minChunkX, int minChunkY, int minChunkZ, int maxChunkY,
+                                          Int2ReferenceMap<BlockEntity>[] blockEntities) {
+        int localX = chunk.getPos().x - minChunkX;
+        int localZ = chunk.getPos().z - minChunkZ;
+
+        // Copy the block entities from the chunk into the section which contains them, with a single pass over the
+        // chunk's block entities for all the sections in it
+        for (Map.Entry<BlockPos, BlockEntity> entry : chunk.getBlockEntities().entrySet()) {
+            BlockPos pos = entry.getKey();
+            int chunkY = ChunkSectionPos.getSectionCoord(pos.getY());
+
+            if (chunkY < minChunkY || chunkY > maxChunkY) {
+                continue;
+            }
+
+            int sectionIndex = WorldSlice.getLocalSectionIndex(localX, chunkY - minChunkY, localZ);
+
+            if (blockEntities[sectionIndex] == null) {
+                blockEntities[sectionIndex] = new Int2ReferenceOpenHashMap<>();
+            }
+
+            blockEntities[sectionIndex].put(WorldSlice.getLocalBlockIndex(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15), entry.getValue());
+        }
+    }
+
+    private static @Nullable Int2ReferenceMap<Object> copyBlockEntityRenderData(Int2ReferenceMap<BlockEntity> blockEntities) {
+        Int2ReferenceOpenHashMap<Object> blockEntityRenderDataMap = null;
+
+        // Retrieve any render data after we have copied all block entities, as this will call into the code of
+        // other mods. This could potentially result in the chunk being modified, which would cause problems if we
+        // were iterating over any data in that chunk.
+        // See https://github.com/CaffeineMC/sodium-fabric/issues/942 for more info.
+        for (var entry : Int2ReferenceMaps.fastIterable(blockEntities)) {
+            Object data = entry.getValue().getRenderData();
+
+            if (data != null) {
+                if (blockEntityRenderDataMap == null) {
+                    blockEntityRenderDataMap = new Int2ReferenceOpenHashMap<>();
+                }
+
+                blockEntityRenderDataMap.put(entry.getIntKey(), data);
+            }
+        }
+
+        if (blockEntityRenderDataMap != null) {
+            blockEntityRenderDataMap.trim();
+        }
+
+        return blockEntityRenderDataMap;
+    }
+
+    public @Nullable Int2ReferenceMap<BlockEntity> getBlockEntities(int sectionIndex) {
+        return this.blockEntities[sectionIndex];
+    }
+
+    public @Nullable Int2ReferenceMap<Object> getRenderData(int sectionIndex) {
+        return this.renderData[sectionIndex];
+    }
+}
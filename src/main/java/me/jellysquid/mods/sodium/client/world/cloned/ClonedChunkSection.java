@@ -1,17 +1,11 @@
 package me.jellysquid.mods.sodium.client.world.cloned;
 
-import it.unimi.dsi.fastutil.ints.Int2ReferenceMap;
-import it.unimi.dsi.fastutil.ints.Int2ReferenceMaps;
-import it.unimi.dsi.fastutil.ints.Int2ReferenceOpenHashMap;
+import me.jellysquid.mods.sodium.client.world.ContainerSnapshot;
 import me.jellysquid.mods.sodium.client.world.ReadableContainerExtended;
-import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
-import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.registry.entry.RegistryEntry;
-import net.minecraft.util.math.BlockBox;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.world.LightType;
 import net.minecraft.world.World;
@@ -21,8 +15,19 @@ import net.minecraft.world.gen.chunk.DebugChunkGenerator;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Map;
-
+/**
+ * The data of a chunk section which is needed to mesh it. The block and biome data are copy-on-write snapshots of the
+ * section's containers, so capturing them is cheap, and they are only copied if the section is modified while a build
+ * is still waiting to read them.
+ *
+ * <p>Sections are captured on the chunk builder's threads, so only data which can be safely read from other threads is
+ * included here. The block entities of a section are captured separately on the main thread, by
+ * {@link ClonedBlockEntities}.</p>
+ *
+ * <p>A newly captured section has already been acquired on behalf of its first build. Further builds must
+ * {@link #tryAcquire()} it, and every build must {@link #release()} it once the block and biome data have been
+ * read.</p>
+ */
 public class ClonedChunkSection {
     private static final ChunkNibbleArray DEFAULT_SKY_LIGHT_ARRAY = new ChunkNibbleArray(15);
     private static final ChunkNibbleArray DEFAULT_BLOCK_LIGHT_ARRAY = new ChunkNibbleArray(0);
@@ -30,49 +35,36 @@ public class ClonedChunkSection {
 
     private final ChunkSectionPos pos;
 
-    private final @Nullable Int2ReferenceMap<BlockEntity> blockEntityMap;
-    private final @Nullable Int2ReferenceMap<Object> blockEntityRenderDataMap;
-
     private final @Nullable ChunkNibbleArray[] lightDataArrays;
 
-    private final @Nullable ReadableContainer<BlockState> blockData;
+    private final @Nullable ContainerSnapshot<BlockState> blockData;
 
-    private final @Nullable ReadableContainer<RegistryEntry<Biome>> biomeData;
+    private final @Nullable ContainerSnapshot<RegistryEntry<Biome>> biomeData;
 
     private long lastUsedTimestamp = Long.MAX_VALUE;
 
-    public ClonedChunkSection(World world, WorldChunk chunk, @Nullable ChunkSection section, ChunkSectionPos pos) {
+    public ClonedChunkSection(World world, @Nullable ChunkSection section, ChunkSectionPos pos) {
         this.pos = pos;
 
-        ReadableContainer<BlockState> blockData = null;
-        ReadableContainer<RegistryEntry<Biome>> biomeData = null;
-
-        Int2ReferenceMap<BlockEntity> blockEntityMap = null;
-        Int2ReferenceMap<Object> blockEntityRenderDataMap = null;
+        ContainerSnapshot<BlockState> blockData = null;
+        ContainerSnapshot<RegistryEntry<Biome>> biomeData = null;
 
         if (section != null) {
             if (!section.isEmpty()) {
                 if (!world.isDebugWorld()) {
-                    blockData = ReadableContainerExtended.clone(section.getBlockStateContainer());
+                    blockData = ReadableContainerExtended.acquireSnapshot(section.getBlockStateContainer());
                 } else {
-                    blockData = constructDebugWorldContainer(pos);
-                }
-                blockEntityMap = copyBlockEntities(chunk, pos);
-
-                if (blockEntityMap != null) {
-                    blockEntityRenderDataMap = copyBlockEntityRenderData(blockEntityMap);
+                    blockData = ContainerSnapshot.ofImmutable(constructDebugWorldContainer(pos));
+                    blockData.acquire();
                 }
             }
 
-            biomeData = ReadableContainerExtended.clone(section.getBiomeContainer());
+            biomeData = ReadableContainerExtended.acquireSnapshot(section.getBiomeContainer());
         }
 
         this.blockData = blockData;
         this.biomeData = biomeData;
 
-        this.blockEntityMap = blockEntityMap;
-        this.blockEntityRenderDataMap = blockEntityRenderDataMap;
-
         this.lightDataArrays = copyLightData(world, pos);
     }
 
@@ -140,79 +132,48 @@ public class ClonedChunkSection {
         return array;
     }
 
-    @Nullable
-    private static Int2ReferenceMap<BlockEntity> copyBlockEntities(WorldChunk chunk, ChunkSectionPos chunkCoord) {
-        BlockBox box = new BlockBox(chunkCoord.getMinX(), chunkCoord.getMinY(), chunkCoord.getMinZ(),
-                chunkCoord.getMaxX(), chunkCoord.getMaxY(), chunkCoord.getMaxZ());
+    public ChunkSectionPos getPosition() {
+        return this.pos;
+    }
 
-        Int2ReferenceOpenHashMap<BlockEntity> blockEntities = null;
+    public @Nullable ContainerSnapshot<BlockState> getBlockData() {
+        return this.blockData;
+    }
 
-        // Copy the block entities from the chunk into our cloned section
-        for (Map.Entry<BlockPos, BlockEntity> entry : chunk.getBlockEntities().entrySet()) {
-            BlockPos pos = entry.getKey();
-            BlockEntity entity = entry.getValue();
+    public @Nullable ContainerSnapshot<RegistryEntry<Biome>> getBiomeData() {
+        return this.biomeData;
+    }
 
-            if (box.contains(pos)) {
-                if (blockEntities == null) {
-                    blockEntities = new Int2ReferenceOpenHashMap<>();
-                }
+    /**
+     * Ensures that the block and biome data of the section are kept until {@link #release()} is called, even if the
+     * section is modified in the meantime.
+     *
+     * @return False if the section was modified since it was captured, and so it can't be acquired, otherwise true
+     */
+    public boolean tryAcquire() {
+        if (this.blockData != null && !this.blockData.tryAcquire()) {
+            return false;
+        }
 
-                blockEntities.put(WorldSlice.getLocalBlockIndex(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15), entity);
+        if (this.biomeData != null && !this.biomeData.tryAcquire()) {
+            if (this.blockData != null) {
+                this.blockData.release();
             }
-        }
 
-        if (blockEntities != null) {
-            blockEntities.trim();
+            return false;
         }
 
-        return blockEntities;
+        return true;
     }
 
-    @Nullable
-    private static Int2ReferenceMap<Object> copyBlockEntityRenderData(Int2ReferenceMap<BlockEntity> blockEntities) {
-        Int2ReferenceOpenHashMap<Object> blockEntityRenderDataMap = null;
-
-        // Retrieve any render data after we have copied all block entities, as this will call into the code of
-        // other mods. This could potentially result in the chunk being modified, which would cause problems if we
-        // were iterating over any data in that chunk.
-        // See https://github.com/CaffeineMC/sodium-fabric/issues/942 for more info.
-        for (var entry : Int2ReferenceMaps.fastIterable(blockEntities)) {
-            Object data = entry.getValue().getRenderData();
-
-            if (data != null) {
-                if (blockEntityRenderDataMap == null) {
-                    blockEntityRenderDataMap = new Int2ReferenceOpenHashMap<>();
-                }
-
-                blockEntityRenderDataMap.put(entry.getIntKey(), data);
-            }
+    public void release() {
+        if (this.blockData != null) {
+            this.blockData.release();
         }
 
-        if (blockEntityRenderDataMap != null) {
-            blockEntityRenderDataMap.trim();
+        if (this.biomeData != null) {
+            this.biomeData.release();
         }
-
-        return blockEntityRenderDataMap;
-    }
-
-    public ChunkSectionPos getPosition() {
-        return this.pos;
-    }
-
-    public @Nullable ReadableContainer<BlockState> getBlockData() {
-        return this.blockData;
-    }
-
-    public @Nullable ReadableContainer<RegistryEntry<Biome>> getBiomeData() {
-        return this.biomeData;
-    }
-
-    public @Nullable Int2ReferenceMap<BlockEntity> getBlockEntityMap() {
-        return this.blockEntityMap;
-    }
-
-    public @Nullable Int2ReferenceMap<Object> getBlockEntityRenderDataMap() {
-        return this.blockEntityRenderDataMap;
     }
 
     public @Nullable ChunkNibbleArray getLightArray(LightType lightType) {
@@ -1,5 +1,6 @@
 package me.jellysquid.mods.sodium.client.world.cloned;
 
+import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceLinkedOpenHashMap;
 import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.world.World;
@@ -10,70 +11,127 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Caches the sections which were recently captured for builds, since each section is needed by the builds of all its
+ * neighbors. Sections are acquired from the chunk builder's threads, so the cache is split into stripes which are each
+ * guarded by their own lock.
+ *
+ * <p>Each stripe has a version which is incremented whenever one of its sections is invalidated. A section is only
+ * added to the cache if the version of its stripe didn't change while it was being captured, since otherwise it may
+ * have been captured before the invalidation and be out of date.</p>
+ */
 public class ClonedChunkSectionCache {
-    private static final int MAX_CACHE_SIZE = 512; /* number of entries */
+    private static final int STRIPE_COUNT = 16;
+
+    private static final int MAX_CACHE_SIZE = 512 / STRIPE_COUNT; /* number of entries in each stripe */
     private static final long MAX_CACHE_DURATION = TimeUnit.SECONDS.toNanos(5); /* number of nanoseconds */
 
     private final World world;
 
-    private final Long2ReferenceLinkedOpenHashMap<ClonedChunkSection> positionToEntry = new Long2ReferenceLinkedOpenHashMap<>();
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
 
-    private long time; // updated once per frame to be the elapsed time since application start
+    private volatile long time; // updated once per frame to be the elapsed time since application start
 
     public ClonedChunkSectionCache(World world) {
         this.world = world;
         this.time = getMonotonicTimeSource();
+
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            this.stripes[i] = new Stripe();
+        }
     }
 
     public void cleanup() {
-        this.time = getMonotonicTimeSource();
-        this.positionToEntry.values()
-                .removeIf(entry -> this.time > (entry.getLastUsedTimestamp() + MAX_CACHE_DURATION));
+        long time = this.time = getMonotonicTimeSource();
+
+        for (Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                stripe.positionToEntry.values()
+                        .removeIf(entry -> time > (entry.getLastUsedTimestamp() + MAX_CACHE_DURATION));
+            }
+        }
     }
 
-    @Nullable
+    /**
+     * Returns the section at the given position, capturing it if it isn't already in the cache. This may be called from
+     * any thread.
+     *
+     * @return The section, which has been acquired on behalf of the caller and must be released once it has been used
+     */
     public ClonedChunkSection acquire(int x, int y, int z) {
         var pos = ChunkSectionPos.asLong(x, y, z);
-        var section = this.positionToEntry.getAndMoveToLast(pos);
+        var stripe = this.getStripe(pos);
+
+        int version;
+
+        synchronized (stripe) {
+            var section = stripe.positionToEntry.getAndMoveToLast(pos);
 
-        if (section == null) {
-            section = this.clone(x, y, z);
+            // The section can't be acquired if it was modified after it was captured, and no build needed the old
+            // contents
+            if (section != null && section.tryAcquire()) {
+                section.setLastUsedTimestamp(this.time);
 
-            while (this.positionToEntry.size() >= MAX_CACHE_SIZE) {
-                this.positionToEntry.removeFirst();
+                return section;
             }
 
-            this.positionToEntry.putAndMoveToLast(pos, section);
+            version = stripe.version;
         }
 
+        // Capture the section without holding the lock, so that other threads can use the stripe in the meantime
+        var section = this.clone(x, y, z);
         section.setLastUsedTimestamp(this.time);
 
+        synchronized (stripe) {
+            if (stripe.version == version) {
+                while (stripe.positionToEntry.size() >= MAX_CACHE_SIZE) {
+                    stripe.positionToEntry.removeFirst();
+                }
+
+                stripe.positionToEntry.putAndMoveToLast(pos, section);
+            }
+        }
+
         return section;
     }
 
     @NotNull
     private ClonedChunkSection clone(int x, int y, int z) {
+        // If the chunk has been unloaded since the build was scheduled, this returns an empty chunk, and the result of
+        // the build will be discarded anyway
         WorldChunk chunk = this.world.getChunk(x, z);
 
-        if (chunk == null) {
-            throw new RuntimeException("Chunk is not loaded at: " + ChunkSectionPos.asLong(x, y, z));
-        }
-
         @Nullable ChunkSection section = null;
 
         if (!this.world.isOutOfHeightLimit(ChunkSectionPos.getBlockCoord(y))) {
             section = chunk.getSectionArray()[this.world.sectionCoordToIndex(y)];
         }
 
-        return new ClonedChunkSection(this.world, chunk, section, ChunkSectionPos.from(x, y, z));
+        return new ClonedChunkSection(this.world, section, ChunkSectionPos.from(x, y, z));
     }
 
     public void invalidate(int x, int y, int z) {
-        this.positionToEntry.remove(ChunkSectionPos.asLong(x, y, z));
+        var pos = ChunkSectionPos.asLong(x, y, z);
+        var stripe = this.getStripe(pos);
+
+        synchronized (stripe) {
+            stripe.positionToEntry.remove(pos);
+            stripe.version++;
+        }
+    }
+
+    private Stripe getStripe(long pos) {
+        return this.stripes[(int) HashCommon.mix(pos) & (STRIPE_COUNT - 1)];
     }
 
     private static long getMonotonicTimeSource() {
         // Should be monotonic in JDK 17 on sane platforms...
         return System.nanoTime();
     }
+
+    private static class Stripe {
+        private final Long2ReferenceLinkedOpenHashMap<ClonedChunkSection> positionToEntry = new Long2ReferenceLinkedOpenHashMap<>();
+
+        private int version;
+    }
 }
@@ -4,6 +4,9 @@ import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
 import me.jellysquid.mods.sodium.client.SodiumClientMod;
 import me.jellysquid.mods.sodium.client.gui.screen.ConfigCorruptedScreen;
 import me.jellysquid.mods.sodium.client.compatibility.checks.ResourcePackScanner;
+import me.jellysquid.mods.sodium.client.model.light.data.BlockStateLightData;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.cache.MeshDiskCache;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.pipeline.SharedOcclusionCache;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.RunArgs;
 import net.minecraft.resource.ReloadableResourceManagerImpl;
@@ -95,6 +98,16 @@ public class MinecraftClientMixin {
     @Inject(method = "reloadResources()Ljava/util/concurrent/CompletableFuture;", at = @At("TAIL"))
     private void postResourceReload(CallbackInfoReturnable<CompletableFuture<Void>> cir) {
         ResourcePackScanner.checkIfCoreShaderLoaded(this.resourceManager);
+
+        // The contents of resource packs may have changed, so any cached meshes can no longer be trusted. Meshes which
+        // are built while the reload is in progress may also use a mix of old and new resources, so the cache is
+        // cleared again once the reload has finished.
+        MeshDiskCache.invalidateAll();
+        cir.getReturnValue().thenRun(MeshDiskCache::invalidateAll);
+
+        // Mods may change the properties and shapes of blocks when their resources are reloaded
+        cir.getReturnValue().thenRun(BlockStateLightData::reset);
+        cir.getReturnValue().thenRun(SharedOcclusionCache::reset);
     }
 
 }
@@ -5,6 +5,7 @@ import me.jellysquid.mods.sodium.client.render.viewport.Viewport;
 import me.jellysquid.mods.sodium.client.render.viewport.ViewportProvider;
 import net.minecraft.client.render.Frustum;
 import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
 import org.joml.Vector3d;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
@@ -25,8 +26,12 @@ public class FrustumMixin implements ViewportProvider {
     @Final
     private FrustumIntersection frustumIntersection;
 
+    @Shadow
+    @Final
+    private Matrix4f positionProjectionMatrix;
+
     @Override
     public Viewport sodium$createViewport() {
-        return new Viewport(new SimpleFrustum(this.frustumIntersection), new Vector3d(this.x, this.y, this.z));
+        return new Viewport(new SimpleFrustum(this.frustumIntersection), new Vector3d(this.x, this.y, this.z), this.positionProjectionMatrix);
     }
 }
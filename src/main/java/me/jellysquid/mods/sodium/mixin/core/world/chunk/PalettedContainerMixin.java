@@ -1,12 +1,21 @@
 package me.jellysquid.mods.sodium.mixin.core.world.chunk;
 
+import com.mojang.blaze3d.systems.RenderSystem;
+import me.jellysquid.mods.sodium.client.world.ContainerSnapshot;
 import me.jellysquid.mods.sodium.client.world.PaletteStorageExtended;
 import me.jellysquid.mods.sodium.client.world.ReadableContainerExtended;
+import net.minecraft.network.PacketByteBuf;
 import net.minecraft.world.chunk.PalettedContainer;
 import net.minecraft.world.chunk.ReadableContainer;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import java.util.Objects;
 
@@ -23,6 +32,78 @@ public abstract class PalettedContainerMixin<T> implements ReadableContainerExte
     @Shadow
     public abstract PalettedContainer<T> copy();
 
+    // The snapshot of the container's current contents, which must be detached before the contents are modified
+    @Unique
+    private ContainerSnapshot<T> snapshot;
+
+    // The client only modifies containers through these methods, so other modifications (such as those made by world
+    // generation, which are much more frequent) don't need to pay for taking the lock. The server's own modifications
+    // also go through swap (from ChunkSection#setBlockState) when playing on the integrated server, but only
+    // containers which belong to the client world are ever snapshotted, and those are only modified on the render
+    // thread. Modifications on any other thread skip the lock, so that the server thread never contends with the chunk
+    // builder threads for it.
+    //
+    // Both methods already hold the container's own lock for the modification, and release it in a finally block. The
+    // modification lock is taken right after the container's lock, and released right before it, which also covers the
+    // copy of the finally block that runs when the method throws. Otherwise, the lock would never be released, and
+    // every thread which later takes a snapshot of a container in the same stripe would wait forever.
+    @Inject(method = "swap(IIILjava/lang/Object;)Ljava/lang/Object;",
+            at = @At(value = "INVOKE", target = "Lnet/minecraft/world/chunk/PalettedContainer;lock()V", shift = At.Shift.AFTER))
+    private void beforeSwap(int x, int y, int z, T value, CallbackInfoReturnable<T> cir) {
+        this.beginModification();
+    }
+
+    @Inject(method = "swap(IIILjava/lang/Object;)Ljava/lang/Object;",
+            at = @At(value = "INVOKE", target = "Lnet/minecraft/world/chunk/PalettedContainer;unlock()V"))
+    private void afterSwap(int x, int y, int z, T value, CallbackInfoReturnable<T> cir) {
+        this.endModification();
+    }
+
+    @Inject(method = "readPacket",
+            at = @At(value = "INVOKE", target = "Lnet/minecraft/world/chunk/PalettedContainer;lock()V", shift = At.Shift.AFTER))
+    private void beforeReadPacket(PacketByteBuf buf, CallbackInfo ci) {
+        this.beginModification();
+    }
+
+    @Inject(method = "readPacket",
+            at = @At(value = "INVOKE", target = "Lnet/minecraft/world/chunk/PalettedContainer;unlock()V"))
+    private void afterReadPacket(PacketByteBuf buf, CallbackInfo ci) {
+        this.endModification();
+    }
+
+    @Unique
+    private void beginModification() {
+        if (!RenderSystem.isOnRenderThread()) {
+            return;
+        }
+
+        var lock = ContainerSnapshot.getModificationLock(this);
+        lock.lock();
+
+        try {
+            var snapshot = this.snapshot;
+
+            if (snapshot != null) {
+                snapshot.detach();
+                this.snapshot = null;
+            }
+        } catch (Throwable t) {
+            // The modification won't happen, so the lock must not be left held
+            lock.unlock();
+            throw t;
+        }
+    }
+
+    @Unique
+    private void endModification() {
+        var lock = ContainerSnapshot.getModificationLock(this);
+
+        // The lock isn't held if the modification failed before it could be taken, or if it's not on the render thread
+        if (lock.isHeldByCurrentThread()) {
+            lock.unlock();
+        }
+    }
+
     @Override
     public void sodium$unpack(T[] values) {
         var indexer = Objects.requireNonNull(this.paletteProvider);
@@ -38,13 +119,8 @@ public abstract class PalettedContainerMixin<T> implements ReadableContainerExte
     }
 
     @Override
-    public void sodium$unpack(T[] values, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+    public void sodium$unpack(T[] values, int offset, int length, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
         var indexer = Objects.requireNonNull(this.paletteProvider);
-
-        if (values.length != indexer.getContainerSize()) {
-            throw new IllegalArgumentException("Array is wrong size");
-        }
-
         var data = Objects.requireNonNull(this.data, "PalettedContainer must have data");
 
         var storage = data.storage();
@@ -52,13 +128,15 @@ public abstract class PalettedContainerMixin<T> implements ReadableContainerExte
 
         for (int y = minY; y <= maxY; y++) {
             for (int z = minZ; z <= maxZ; z++) {
+                int rowOffset = offset + (((y * length) + z) * length);
+
                 for (int x = minX; x <= maxX; x++) {
                     int localBlockIndex = indexer.computeIndex(x, y, z);
 
                     int paletteIndex = storage.get(localBlockIndex);
                     var paletteValue =  palette.get(paletteIndex);
 
-                    values[localBlockIndex] = paletteValue;
+                    values[rowOffset + x] = paletteValue;
                 }
             }
         }
@@ -68,4 +146,39 @@ public abstract class PalettedContainerMixin<T> implements ReadableContainerExte
     public ReadableContainer<T> sodium$copy() {
         return this.copy();
     }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ContainerSnapshot<T> sodium$acquireSnapshot() {
+        var lock = ContainerSnapshot.getModificationLock(this);
+        lock.lock();
+
+        try {
+            var snapshot = this.snapshot;
+
+            if (snapshot == null) {
+                this.snapshot = snapshot = ContainerSnapshot.ofLive((ReadableContainer<T>) this);
+            }
+
+            snapshot.acquire();
+
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public @Nullable T sodium$getUniformValue() {
+        var data = Objects.requireNonNull(this.data, "PalettedContainer must have data");
+        var palette = data.palette();
+
+        // The storage can only reference entries which are in the palette, so every element must have the same value
+        // when the palette only contains a single entry
+        if (palette.getSize() != 1) {
+            return null;
+        }
+
+        return palette.get(0);
+    }
 }
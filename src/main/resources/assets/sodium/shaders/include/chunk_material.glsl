@@ -1,5 +1,6 @@
 const uint MATERIAL_USE_MIP_OFFSET = 0u;
 const uint MATERIAL_ALPHA_CUTOFF_OFFSET = 1u;
+const uint MATERIAL_TILED_OFFSET = 3u;
 
 const float[4] ALPHA_CUTOFF = float[4](0.0, 0.1, 0.5, 1.0);
 
@@ -9,4 +10,8 @@ float _material_mip_bias(uint material) {
 
 float _material_alpha_cutoff(uint material) {
     return ALPHA_CUTOFF[(material >> MATERIAL_ALPHA_CUTOFF_OFFSET) & 3u];
+}
+
+bool _material_tiled(uint material) {
+    return ((material >> MATERIAL_TILED_OFFSET) & 1u) != 0u;
 }
\ No newline at end of file
@@ -1,19 +1,35 @@
-#define MODEL_SCALE        32.0 / 65536.0
 #define MODEL_ORIGIN       8.0
 
+#ifdef VERTEX_FORMAT_DENSE
+#define MODEL_SCALE        32.0 / 1024.0
+
+#define TEX_COORD_SCALE    1.0 / 32767.0
+
+// The packed vertex data which is read from the vertex buffer
+in uvec3 in_VertexData;
+#else
+#define MODEL_SCALE        32.0 / 65536.0
+
 #define COLOR_SCALE        1.0 / 255.0
 
 #define TEX_COORD_SCALE    1.0 / 32768.0
 
+#define TILE_DATA_MASK     0x7FFu
+
 // The packed vertex data which is read from the vertex buffer
 in uvec4 in_VertexData;
+#endif
 
 // The position of the vertex around the model origin
 vec3 _vert_position;
 
-// The block texture coordinate of the vertex
+// The block texture coordinate of the vertex, or the coordinate in units of the sprite's size if the texture is tiled
 vec2 _vert_tex_coord;
 
+// The origin and size of the sprite in the block texture, if the texture is tiled across the primitive
+vec2 _vert_tex_origin;
+vec2 _vert_tex_size;
+
 // The color of the vertex
 vec3 _vert_color;
 
@@ -26,17 +42,54 @@ uint _vert_material;
 // The index of the draw command which this vertex belongs to
 uint _vert_mesh_id;
 
+#ifdef VERTEX_FORMAT_DENSE
 void _vert_init() {
+    // Vertex Material (the low and high bits are stored in the unused top bits of the first two words)
+    _vert_material = ((in_VertexData[0] >> 30) & 0x3u) | (((in_VertexData[1] >> 30) & 0x3u) << 2);
+
+    // Vertex Position
+    uvec3 packed_position = (uvec3(in_VertexData[0]) >> uvec3(0, 10, 20)) & uvec3(0x3FFu);
+    _vert_position = (vec3(packed_position) * MODEL_SCALE) - MODEL_ORIGIN;
+
+    // Vertex Mesh ID
+    _vert_mesh_id  = (in_VertexData[2] >> 24) & 0xFFu;
+
+    // Vertex Color
+    uvec3 packed_color = (uvec3(in_VertexData[2]) >> uvec3(0, 5, 11)) & uvec3(0x1Fu, 0x3Fu, 0x1Fu);
+    _vert_color = vec3(packed_color) / vec3(31.0, 63.0, 31.0);
+
+    // Vertex Light
+    uvec2 packed_light = (uvec2(in_VertexData[2]) >> uvec2(16, 20)) & uvec2(0xFu);
+    _vert_light = packed_light;
+
+    // Vertex Texture Coords
+    uvec2 packed_tex_coord = (uvec2(in_VertexData[1]) >> uvec2(0, 15)) & uvec2(0x7FFFu);
+    _vert_tex_coord = vec2(packed_tex_coord) * TEX_COORD_SCALE;
+
+    // Tiled materials are never used with this format
+    _vert_tex_origin = vec2(0.0);
+    _vert_tex_size = vec2(0.0);
+}
+#else
+void _vert_init() {
+    // Vertex Material
+    _vert_material = (in_VertexData[1] >> 16) & 0xFFu;
+
     // Vertex Position
     uvec3 packed_position = uvec3(
         (in_VertexData[0] >>  0) & 0xFFFFu,
         (in_VertexData[0] >> 16) & 0xFFFFu,
         (in_VertexData[1] >>  0) & 0xFFFFu
     );
-    _vert_position = (vec3(packed_position) * MODEL_SCALE) - MODEL_ORIGIN;
 
-    // Vertex Material
-    _vert_material = (in_VertexData[1] >> 16) & 0xFFu;
+    // Tiled vertices are always aligned to the block grid, so the low bits of the position store the tiling parameters
+    uvec3 packed_tile_data = packed_position & uvec3(TILE_DATA_MASK);
+
+    if (_material_tiled(_vert_material)) {
+        packed_position &= uvec3(~TILE_DATA_MASK);
+    }
+
+    _vert_position = (vec3(packed_position) * MODEL_SCALE) - MODEL_ORIGIN;
 
     // Vertex Mesh ID
     _vert_mesh_id  = (in_VertexData[1] >> 24) & 0xFFu;
@@ -52,4 +105,15 @@ void _vert_init() {
     // Vertex Texture Coords
     uvec2 packed_tex_coord = (uvec2(in_VertexData[3]) >> uvec2(0, 16)) & uvec2(0xFFFFu);
     _vert_tex_coord = vec2(packed_tex_coord) * TEX_COORD_SCALE;
-}
\ No newline at end of file
+
+    if (_material_tiled(_vert_material)) {
+        // The texture coordinates give the origin of the sprite, and its size is stored as a power-of-two exponent
+        _vert_tex_origin = _vert_tex_coord;
+        _vert_tex_size = exp2(vec2((uvec2(packed_tile_data.x) >> uvec2(0u, 4u)) & uvec2(0xFu))) * TEX_COORD_SCALE;
+        _vert_tex_coord = vec2((uvec2(packed_tile_data.y) >> uvec2(0u, 5u)) & uvec2(0x1Fu));
+    } else {
+        _vert_tex_origin = vec2(0.0);
+        _vert_tex_size = vec2(0.0);
+    }
+}
+#endif
\ No newline at end of file
@@ -0,0 +1,103 @@
+package me.jellysquid.mods.sodium.client.gl.arena;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A sequence of allocations and frees made against a buffer arena, which can be replayed by the tests and benchmarks.
+ * Traces can either be generated, or loaded from a text file where each line is either {@code a <id> <length>} to
+ * allocate a segment of the given number of elements, or {@code f <id>} to free the segment which was allocated with
+ * that ID.
+ */
+record ArenaTrace(String name, List<Operation> operations) {
+    record Operation(boolean alloc, int id, int length) {
+
+    }
+
+    /**
+     * Generates a trace which resembles the uploads made to a region's geometry arena over a long session. Each section
+     * is uploaded once when it is loaded, and then rebuilt many times, where every rebuild frees the section's previous
+     * mesh after uploading the new one. The size of each mesh varies between rebuilds, which fragments the arena.
+     */
+    static ArenaTrace generateRegion(long seed, int sections, int rebuilds) {
+        var random = new Random(seed);
+        var operations = new ArrayList<Operation>();
+
+        int[] current = new int[sections];
+        int[] lengths = new int[sections];
+        int nextId = 0;
+
+        for (int section = 0; section < sections; section++) {
+            // Most sections are small (such as those containing only a few plants), while some are very large
+            lengths[section] = random.nextInt(8) == 0 ? 2048 + random.nextInt(8192) : 16 + random.nextInt(512);
+            current[section] = nextId++;
+
+            operations.add(new Operation(true, current[section], lengths[section]));
+        }
+
+        for (int i = 0; i < rebuilds; i++) {
+            int section = random.nextInt(sections);
+            int previous = current[section];
+
+            // Block updates usually only change the size of a mesh slightly
+            lengths[section] = Math.max(4, lengths[section] + random.nextInt(65) - 32);
+            current[section] = nextId++;
+
+            operations.add(new Operation(true, current[section], lengths[section]));
+            operations.add(new Operation(false, previous, 0));
+        }
+
+        for (int section = 0; section < sections; section++) {
+            operations.add(new Operation(false, current[section], 0));
+        }
+
+        return new ArenaTrace("region-" + seed, operations);
+    }
+
+    static ArenaTrace load(Path path) throws IOException {
+        var operations = new ArrayList<Operation>();
+
+        for (String line : Files.readAllLines(path)) {
+            line = line.trim();
+
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] parts = line.split("\\s+");
+
+            switch (parts[0]) {
+                case "a" -> operations.add(new Operation(true, Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+                case "f" -> operations.add(new Operation(false, Integer.parseInt(parts[1]), 0));
+                default -> throw new IOException("Unknown operation: " + line);
+            }
+        }
+
+        return new ArenaTrace(path.getFileName().toString(), operations);
+    }
+
+    /**
+     * Loads the traces listed in the {@code sodium.arenaTraces} system property (separated by the path separator), or
+     * generates some traces if none are given.
+     */
+    static List<ArenaTrace> getTraces() throws IOException {
+        String paths = System.getProperty("sodium.arenaTraces");
+
+        if (paths == null || paths.isBlank()) {
+            return List.of(generateRegion(1, 256, 20000), generateRegion(2, 64, 50000));
+        }
+
+        var traces = new ArrayList<ArenaTrace>();
+
+        for (String path : paths.split(File.pathSeparator)) {
+            traces.add(load(Path.of(path)));
+        }
+
+        return traces;
+    }
+}
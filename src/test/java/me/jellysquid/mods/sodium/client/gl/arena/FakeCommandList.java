@@ -0,0 +1,207 @@
+package me.jellysquid.mods.sodium.client.gl.arena;
+
+import me.jellysquid.mods.sodium.client.gl.arena.staging.StagingBuffer;
+import me.jellysquid.mods.sodium.client.gl.array.GlVertexArray;
+import me.jellysquid.mods.sodium.client.gl.buffer.*;
+import me.jellysquid.mods.sodium.client.gl.device.CommandList;
+import me.jellysquid.mods.sodium.client.gl.device.DrawCommandList;
+import me.jellysquid.mods.sodium.client.gl.sync.GlFence;
+import me.jellysquid.mods.sodium.client.gl.tessellation.GlPrimitiveType;
+import me.jellysquid.mods.sodium.client.gl.tessellation.GlTessellation;
+import me.jellysquid.mods.sodium.client.gl.tessellation.TessellationBinding;
+import me.jellysquid.mods.sodium.client.gl.util.EnumBitField;
+import org.mockito.Mockito;
+
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A command list which keeps the contents of buffers in memory instead of on the graphics card, so that the buffer
+ * arena can be tested without an OpenGL context. Only the commands used by the arena are supported, and any misuse of
+ * buffers (such as using a deleted buffer, or copying between overlapping ranges) fails the test.
+ *
+ * <p>The contents of buffers can also be discarded, so that benchmarks only measure the arena itself.</p>
+ */
+class FakeCommandList implements CommandList, StagingBuffer {
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Map<GlBuffer, byte[]> buffers = new IdentityHashMap<>();
+    private final boolean trackContents;
+
+    private long copiedBytes;
+
+    FakeCommandList(boolean trackContents) {
+        this.trackContents = trackContents;
+    }
+
+    public byte[] getContents(GlBuffer buffer) {
+        byte[] contents = this.buffers.get(buffer);
+
+        if (contents == null) {
+            throw new IllegalStateException("Buffer does not exist");
+        }
+
+        return contents;
+    }
+
+    public boolean exists(GlBuffer buffer) {
+        return this.buffers.containsKey(buffer);
+    }
+
+    public int getBufferCount() {
+        return this.buffers.size();
+    }
+
+    /**
+     * @return The number of bytes which have been copied between buffers
+     */
+    public long getCopiedBytes() {
+        return this.copiedBytes;
+    }
+
+    @Override
+    public GlMutableBuffer createMutableBuffer() {
+        // Creating a real buffer object requires an OpenGL context
+        var buffer = Mockito.mock(GlMutableBuffer.class);
+        this.buffers.put(buffer, EMPTY);
+
+        return buffer;
+    }
+
+    @Override
+    public void allocateStorage(GlMutableBuffer buffer, long bufferSize, GlBufferUsage usage) {
+        this.getContents(buffer);
+        this.buffers.put(buffer, this.trackContents ? new byte[Math.toIntExact(bufferSize)] : EMPTY);
+    }
+
+    @Override
+    public void copyBufferSubData(GlBuffer src, GlBuffer dst, long readOffset, long writeOffset, long bytes) {
+        byte[] srcContents = this.getContents(src);
+        byte[] dstContents = this.getContents(dst);
+
+        this.copiedBytes += bytes;
+
+        if (!this.trackContents) {
+            return;
+        }
+
+        if (readOffset < 0 || writeOffset < 0 || bytes < 0 ||
+                readOffset + bytes > srcContents.length || writeOffset + bytes > dstContents.length) {
+            throw new IllegalArgumentException("Copy is out of bounds");
+        }
+
+        if (src == dst && readOffset < writeOffset + bytes && writeOffset < readOffset + bytes) {
+            throw new IllegalArgumentException("Source and destination ranges overlap");
+        }
+
+        System.arraycopy(srcContents, (int) readOffset, dstContents, (int) writeOffset, (int) bytes);
+    }
+
+    @Override
+    public void deleteBuffer(GlBuffer buffer) {
+        this.getContents(buffer);
+        this.buffers.remove(buffer);
+    }
+
+    @Override
+    public void enqueueCopy(CommandList commandList, ByteBuffer data, GlBuffer dst, long writeOffset) {
+        byte[] dstContents = this.getContents(dst);
+
+        if (!this.trackContents) {
+            return;
+        }
+
+        if (writeOffset < 0 || writeOffset + data.remaining() > dstContents.length) {
+            throw new IllegalArgumentException("Upload is out of bounds");
+        }
+
+        data.duplicate()
+                .get(dstContents, (int) writeOffset, data.remaining());
+    }
+
+    @Override
+    public void flush(CommandList commandList) {
+
+    }
+
+    @Override
+    public void delete(CommandList commandList) {
+
+    }
+
+    @Override
+    public void flip(CommandList commandList) {
+
+    }
+
+    @Override
+    public void flush() {
+
+    }
+
+    @Override
+    public GlImmutableBuffer createImmutableBuffer(long bufferSize, EnumBitField<GlBufferStorageFlags> flags) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public GlTessellation createTessellation(GlPrimitiveType primitiveType, TessellationBinding[] bindings) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void bindVertexArray(GlVertexArray array) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void uploadData(GlMutableBuffer glBuffer, ByteBuffer byteBuffer, GlBufferUsage usage) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void bindBuffer(GlBufferTarget target, GlBuffer buffer) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void unbindVertexArray() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteVertexArray(GlVertexArray vertexArray) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DrawCommandList beginTessellating(GlTessellation tessellation) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteTessellation(GlTessellation tessellation) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public GlBufferMapping mapBuffer(GlBuffer buffer, long offset, long length, EnumBitField<GlBufferMapFlags> flags) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void unmap(GlBufferMapping map) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void flushMappedRange(GlBufferMapping map, int offset, int length) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public GlFence createFence() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,104 @@
+package me.jellysquid.mods.sodium.client.gl.arena;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import me.jellysquid.mods.sodium.client.util.BenchmarkRunner;
+import me.jellysquid.mods.sodium.client.util.NativeBuffer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Replays alloc/free traces against the buffer arena, and reports the time taken by each operation along with how well
+ * the arena kept its memory usage down. Recorded traces can be passed with {@code -Dsodium.arenaTraces=<paths>}.
+ */
+@Tag("benchmark")
+class GlBufferArenaBenchmark {
+    private static final int STRIDE = 4;
+    private static final int INITIAL_CAPACITY = 256 * 756;
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    @Test
+    void replayTraces() throws IOException {
+        var runner = new BenchmarkRunner(WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+
+        for (ArenaTrace trace : ArenaTrace.getTraces()) {
+            var buffers = createBuffers(trace);
+            int operationCount = trace.operations().size();
+
+            double nanosPerReplay = runner.measure(i -> replay(trace, buffers).compactedBytes);
+
+            // Every replay of the trace gives the same result, so the arena's memory usage only needs to be read once
+            var result = replay(trace, buffers);
+
+            runner.report(trace.name(),
+                    "%d operations, %.1f ns/op, peak capacity %d KiB, peak fragmentation %d KiB, %d KiB compacted",
+                    operationCount, nanosPerReplay / operationCount,
+                    result.peakCapacity / 1024, result.peakFragmented / 1024, result.compactedBytes / 1024);
+        }
+
+        runner.finish();
+    }
+
+    private static Result replay(ArenaTrace trace, Int2ObjectOpenHashMap<NativeBuffer> buffers) {
+        var commands = new FakeCommandList(false);
+        var arena = new GlBufferArena(commands, INITIAL_CAPACITY, STRIDE, commands);
+
+        var allocations = new Int2ObjectOpenHashMap<GlBufferSegment>();
+        var result = new Result();
+
+        int index = 0;
+
+        for (var operation : trace.operations()) {
+            if (operation.alloc()) {
+                var upload = new PendingUpload(buffers.get(operation.length()));
+                arena.upload(commands, List.of(upload));
+
+                allocations.put(operation.id(), upload.getResult());
+            } else {
+                allocations.remove(operation.id())
+                        .delete();
+            }
+
+            if (++index % 16 == 0) {
+                result.compactedBytes += arena.compact(commands, 64 * 1024);
+            }
+
+            result.peakCapacity = Math.max(result.peakCapacity, arena.getDeviceAllocatedMemory());
+            result.peakFragmented = Math.max(result.peakFragmented, arena.getDeviceFragmentedMemory());
+        }
+
+        return result;
+    }
+
+    private static Int2ObjectOpenHashMap<NativeBuffer> createBuffers(ArenaTrace trace) {
+        // The buffers are created ahead of time, since creating them is much slower than the arena's operations
+        var buffers = new Int2ObjectOpenHashMap<NativeBuffer>();
+
+        for (var operation : trace.operations()) {
+            if (operation.alloc() && !buffers.containsKey(operation.length())) {
+                int length = operation.length() * STRIDE;
+                ByteBuffer data = ByteBuffer.allocate(length);
+
+                var buffer = Mockito.mock(NativeBuffer.class);
+                Mockito.when(buffer.getDirectBuffer()).thenReturn(data);
+                Mockito.when(buffer.getLength()).thenReturn(length);
+
+                buffers.put(operation.length(), buffer);
+            }
+        }
+
+        return buffers;
+    }
+
+    private static class Result {
+        private int peakCapacity;
+        private int peakFragmented;
+        private long compactedBytes;
+    }
+}
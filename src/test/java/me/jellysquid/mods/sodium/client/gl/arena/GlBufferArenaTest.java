@@ -0,0 +1,275 @@
+package me.jellysquid.mods.sodium.client.gl.arena;
+
+import me.jellysquid.mods.sodium.client.util.NativeBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mockito;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the invariants of the buffer arena's allocator after every operation, using a command list which simulates
+ * the contents of buffers in memory.
+ */
+class GlBufferArenaTest {
+    private static final int STRIDE = 4;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private FakeCommandList commands;
+    private GlBufferArena arena;
+
+    // The contents which were uploaded into each segment which hasn't been freed yet
+    private Map<GlBufferSegment, byte[]> segments;
+
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        this.commands = new FakeCommandList(true);
+        this.arena = new GlBufferArena(this.commands, INITIAL_CAPACITY, STRIDE, this.commands);
+        this.segments = new IdentityHashMap<>();
+        this.random = new Random(0);
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = { 1, 2, 3, 4, 5, 6, 7, 8 })
+    void randomOperationsPreserveInvariants(long seed) {
+        this.random = new Random(seed);
+
+        List<GlBufferSegment> live = new ArrayList<>();
+
+        for (int op = 0; op < 2000; op++) {
+            int action = this.random.nextInt(10);
+
+            if (action < 5 || live.isEmpty()) {
+                int count = 1 + this.random.nextInt(4);
+                int[] lengths = new int[count];
+
+                for (int i = 0; i < count; i++) {
+                    lengths[i] = 1 + this.random.nextInt(this.random.nextBoolean() ? 32 : 512);
+                }
+
+                live.addAll(this.upload(lengths));
+            } else if (action < 9) {
+                this.free(live.remove(this.random.nextInt(live.size())));
+            } else {
+                int budget = STRIDE * this.random.nextInt(2048);
+                long copied = this.commands.getCopiedBytes();
+
+                int bytes = this.arena.compact(this.commands, budget);
+
+                assertTrue(bytes <= budget, "Compaction exceeded its budget");
+                assertEquals(this.commands.getCopiedBytes() - copied, bytes, "Compaction misreported the bytes copied");
+            }
+
+            this.verify();
+        }
+
+        for (GlBufferSegment segment : live) {
+            this.free(segment);
+        }
+
+        this.verify();
+        assertTrue(this.arena.isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = { 1, 2, 3, 4 })
+    void replayedTracesPreserveInvariants(long seed) {
+        var trace = ArenaTrace.generateRegion(seed, 64, 2000);
+        Map<Integer, GlBufferSegment> allocations = new HashMap<>();
+
+        int index = 0;
+
+        for (var operation : trace.operations()) {
+            if (operation.alloc()) {
+                allocations.put(operation.id(), this.upload(operation.length()).get(0));
+            } else {
+                this.free(allocations.remove(operation.id()));
+            }
+
+            // Regions are compacted with a small budget after every frame's uploads
+            if (++index % 16 == 0) {
+                this.arena.compact(this.commands, 64 * 1024);
+            }
+
+            // Checking the contents of every segment is slow, so only the arena's own invariants are checked each time
+            if (index % 256 == 0) {
+                this.verify();
+            } else {
+                this.arena.checkAssertions0();
+            }
+        }
+
+        this.verify();
+        assertTrue(this.arena.isEmpty());
+    }
+
+    @Test
+    void uploadsUseBestFittingFreeSegment() {
+        var segments = this.upload(100, 10, 100, 30, 100);
+
+        var small = segments.get(1);
+        var medium = segments.get(3);
+
+        int smallOffset = small.getOffset();
+        int mediumOffset = medium.getOffset();
+
+        this.free(small);
+        this.free(medium);
+
+        var first = this.upload(25).get(0);
+        assertTrue(first.getOffset() >= mediumOffset && first.getOffset() + 25 <= mediumOffset + 30,
+                "Upload was not placed in the smallest free segment which fits it");
+
+        var second = this.upload(8).get(0);
+        assertTrue(second.getOffset() >= smallOffset && second.getOffset() + 8 <= smallOffset + 10,
+                "Upload was not placed in the smallest free segment which fits it");
+
+        this.verify();
+    }
+
+    @Test
+    void growingPreservesContents() {
+        this.upload(INITIAL_CAPACITY / 2, INITIAL_CAPACITY / 2);
+
+        var buffer = this.arena.getBufferObject();
+
+        this.upload(INITIAL_CAPACITY);
+
+        assertNotSame(buffer, this.arena.getBufferObject());
+        assertFalse(this.commands.exists(buffer), "The old buffer was not deleted");
+        assertTrue(this.arena.getDeviceAllocatedMemory() >= 2 * INITIAL_CAPACITY * STRIDE);
+
+        this.verify();
+    }
+
+    @Test
+    void compactionCollectsFreeSpace() {
+        List<GlBufferSegment> live = new ArrayList<>();
+
+        for (int i = 0; i < 64; i++) {
+            live.add(this.upload(16).get(0));
+        }
+
+        // Free every other segment, which leaves the free space spread over many small segments
+        for (int i = 0; i < live.size(); i += 2) {
+            this.free(live.get(i));
+        }
+
+        assertTrue(this.arena.getDeviceFragmentedMemory() > this.arena.getDeviceAllocatedMemory() / 16);
+
+        for (int i = 0; i < 64; i++) {
+            this.arena.compact(this.commands, 64 * STRIDE);
+            this.verify();
+        }
+
+        assertTrue(this.arena.getDeviceFragmentedMemory() <= this.arena.getDeviceAllocatedMemory() / 16,
+                "Compaction did not collect the free space");
+    }
+
+    @Test
+    void shrinkingEmptyArenaReplacesBuffer() {
+        var segments = this.upload(INITIAL_CAPACITY, INITIAL_CAPACITY, INITIAL_CAPACITY);
+
+        for (var segment : segments) {
+            this.free(segment);
+        }
+
+        var buffer = this.arena.getBufferObject();
+
+        // Nothing needs to be copied, but the buffer must still be replaced with a smaller one
+        assertEquals(0, this.arena.compact(this.commands, INITIAL_CAPACITY * STRIDE));
+        assertNotSame(buffer, this.arena.getBufferObject());
+        assertFalse(this.commands.exists(buffer), "The old buffer was not deleted");
+        assertEquals(INITIAL_CAPACITY * STRIDE, this.arena.getDeviceAllocatedMemory());
+
+        this.verify();
+    }
+
+    @Test
+    void freeingTwiceFails() {
+        var segment = this.upload(16).get(0);
+        this.free(segment);
+
+        assertThrows(IllegalStateException.class, segment::delete);
+    }
+
+    private List<GlBufferSegment> upload(int... lengths) {
+        List<PendingUpload> uploads = new ArrayList<>();
+        List<byte[]> contents = new ArrayList<>();
+
+        for (int length : lengths) {
+            byte[] bytes = new byte[length * STRIDE];
+            this.random.nextBytes(bytes);
+
+            uploads.add(new PendingUpload(createNativeBuffer(bytes)));
+            contents.add(bytes);
+        }
+
+        this.arena.upload(this.commands, uploads);
+
+        List<GlBufferSegment> results = new ArrayList<>();
+
+        for (int i = 0; i < uploads.size(); i++) {
+            var segment = uploads.get(i).getResult();
+
+            assertEquals(lengths[i], segment.getLength());
+            assertNull(this.segments.put(segment, contents.get(i)), "Segment was allocated twice");
+
+            results.add(segment);
+        }
+
+        return results;
+    }
+
+    private void free(GlBufferSegment segment) {
+        assertNotNull(this.segments.remove(segment), "Segment was not allocated");
+
+        segment.delete();
+    }
+
+    private void verify() {
+        this.arena.checkAssertions0();
+
+        // Every buffer except the arena's current buffer must have been deleted
+        assertEquals(1, this.commands.getBufferCount());
+
+        byte[] buffer = this.commands.getContents(this.arena.getBufferObject());
+        int used = 0;
+
+        for (var entry : this.segments.entrySet()) {
+            var segment = entry.getKey();
+            var expected = entry.getValue();
+
+            int start = segment.getOffset() * STRIDE;
+
+            assertArrayEquals(expected, Arrays.copyOfRange(buffer, start, start + expected.length),
+                    "Contents of segment were not preserved");
+
+            used += segment.getLength();
+        }
+
+        assertEquals(used * STRIDE, this.arena.getDeviceUsedMemory());
+    }
+
+    private static NativeBuffer createNativeBuffer(byte[] bytes) {
+        // Allocating a real native buffer requires the mod's configuration to be loaded
+        var buffer = Mockito.mock(NativeBuffer.class);
+        Mockito.when(buffer.getDirectBuffer()).thenAnswer(invocation -> ByteBuffer.wrap(bytes));
+        Mockito.when(buffer.getLength()).thenReturn(bytes.length);
+
+        return buffer;
+    }
+}
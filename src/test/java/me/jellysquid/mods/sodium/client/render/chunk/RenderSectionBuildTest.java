@@ -0,0 +1,147 @@
+package me.jellysquid.mods.sodium.client.render.chunk;
+
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildOutput;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkUploadQueue;
+import me.jellysquid.mods.sodium.client.render.chunk.occlusion.SectionGraph;
+import me.jellysquid.mods.sodium.client.util.task.CancellationToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Follows the builds of a section through submission and upload in the same way as the render section manager, and
+ * checks that a build can only start from the section's recorded geometry when no earlier build is still pending.
+ * Otherwise, the changes made by the earlier build would be lost.
+ */
+class RenderSectionBuildTest {
+    private static final int FRAME = 10;
+
+    private RenderSection section;
+    private ChunkUploadQueue uploadQueue;
+
+    @BeforeEach
+    void setUp() {
+        this.section = new RenderSection(null, new SectionGraph(), 0, 0, 0);
+        this.uploadQueue = new ChunkUploadQueue();
+
+        // The section starts out with a finished build, which its geometry has been recorded from
+        var initial = this.submit();
+        this.upload(initial);
+
+        assertFalse(this.section.hasPendingBuild());
+    }
+
+    @Test
+    void editsBackToBackInOneFrame() {
+        // The first edit can re-use the recorded geometry
+        assertFalse(this.section.hasPendingBuild());
+        var first = this.submit();
+
+        // The second edit happens before the first build has finished, so it must rebuild the whole section
+        assertTrue(this.section.hasPendingBuild());
+        var second = this.submit();
+
+        assertTrue(second.buildTime > first.buildTime, "Builds in the same frame must be ordered");
+        assertTrue(first.token.isCancelled(), "The superseded build should have been cancelled");
+        assertFalse(second.token.isCancelled());
+
+        // The second build finishes first, and the first build's result (had it finished anyway) must not replace it
+        this.uploadQueue.add(second.output(), false);
+        this.uploadQueue.add(first.output(), false);
+
+        var results = this.uploadQueue.take(Long.MAX_VALUE, FRAME, 0.0f, 0.0f, 0.0f);
+
+        assertEquals(1, results.size());
+        assertEquals(second.buildTime, results.get(0).buildTime);
+
+        this.section.onBuildUploaded(results.get(0).buildTime);
+
+        assertFalse(this.section.hasPendingBuild());
+        assertNull(this.section.getBuildCancellationToken());
+    }
+
+    @Test
+    void editWhileResultIsWaitingForUpload() {
+        var first = this.submit();
+
+        // The first build has finished, but its result is still waiting in the upload queue
+        this.uploadQueue.add(first.output(), false);
+
+        assertTrue(this.section.hasPendingBuild());
+        var second = this.submit();
+
+        // The first result is uploaded on its own, which doesn't yet make the second build's geometry current
+        this.uploadQueued();
+
+        assertTrue(this.section.hasPendingBuild());
+        assertSame(second.token, this.section.getBuildCancellationToken());
+
+        this.upload(second);
+
+        assertFalse(this.section.hasPendingBuild());
+        assertNull(this.section.getBuildCancellationToken());
+    }
+
+    @Test
+    void staleResultAfterNewerUploadIsDiscarded() {
+        var first = this.submit();
+        var second = this.submit();
+
+        this.upload(second);
+
+        // The first build's result arrives after the newer one has already been uploaded
+        this.uploadQueue.add(first.output(), false);
+
+        assertEquals(0, this.uploadQueue.size());
+        assertFalse(this.section.hasPendingBuild());
+    }
+
+    private Build submit() {
+        var build = new Build(this.section.getNextBuildTime(FRAME), new Token());
+        this.section.onBuildSubmitted(build.token, build.buildTime);
+
+        return build;
+    }
+
+    private void upload(Build build) {
+        this.uploadQueue.add(build.output(), false);
+        this.uploadQueued();
+    }
+
+    private void uploadQueued() {
+        for (var result : this.uploadQueue.take(Long.MAX_VALUE, FRAME, 0.0f, 0.0f, 0.0f)) {
+            this.section.onBuildUploaded(result.buildTime);
+        }
+    }
+
+    private class Build {
+        private final int buildTime;
+        private final Token token;
+
+        private Build(int buildTime, Token token) {
+            this.buildTime = buildTime;
+            this.token = token;
+        }
+
+        private ChunkBuildOutput output() {
+            return new ChunkBuildOutput(RenderSectionBuildTest.this.section, null, Collections.emptyMap(), this.buildTime);
+        }
+    }
+
+    private static class Token implements CancellationToken {
+        private boolean cancelled;
+
+        @Override
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        @Override
+        public void setCancelled() {
+            this.cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.cache;
+
+import me.jellysquid.mods.sodium.client.gl.util.VertexRange;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the validation which decoded entries must pass before their vertex data is read through raw pointers.
+ */
+class MeshCacheCodecTest {
+    private static final int STRIDE = 16;
+
+    @Test
+    void acceptsMeshesLaidOutByBuildBuffers() {
+        var ranges = new VertexRange[ModelQuadFacing.COUNT];
+        ranges[ModelQuadFacing.POS_X.ordinal()] = new VertexRange(0, 8);
+        ranges[ModelQuadFacing.NEG_Y.ordinal()] = new VertexRange(8, 4);
+        ranges[ModelQuadFacing.UNASSIGNED.ordinal()] = new VertexRange(12, 16);
+
+        assertTrue(MeshCacheCodec.isValidMesh(28 * STRIDE, ranges, STRIDE));
+    }
+
+    @Test
+    void rejectsRangesOutsideVertexData() {
+        var ranges = new VertexRange[ModelQuadFacing.COUNT];
+        ranges[0] = new VertexRange(0, 8);
+
+        // The range would read past the end of the vertex data
+        assertFalse(MeshCacheCodec.isValidMesh(4 * STRIDE, ranges, STRIDE));
+
+        // The range doesn't cover all the vertex data
+        assertFalse(MeshCacheCodec.isValidMesh(12 * STRIDE, ranges, STRIDE));
+
+        // Large values must not overflow into a valid-looking length
+        ranges[0] = new VertexRange(0, Integer.MAX_VALUE & ~3);
+        ranges[1] = new VertexRange(Integer.MAX_VALUE & ~3, 4);
+        assertFalse(MeshCacheCodec.isValidMesh(4 * STRIDE, ranges, STRIDE));
+    }
+
+    @Test
+    void rejectsRangesWhichAreNotContiguous() {
+        var ranges = new VertexRange[ModelQuadFacing.COUNT];
+        ranges[0] = new VertexRange(4, 4);
+        ranges[1] = new VertexRange(0, 4);
+
+        assertFalse(MeshCacheCodec.isValidMesh(8 * STRIDE, ranges, STRIDE));
+
+        ranges[0] = new VertexRange(-4, 8);
+        ranges[1] = null;
+
+        assertFalse(MeshCacheCodec.isValidMesh(4 * STRIDE, ranges, STRIDE));
+    }
+
+    @Test
+    void rejectsPartialVerticesAndQuads() {
+        var ranges = new VertexRange[ModelQuadFacing.COUNT];
+        ranges[0] = new VertexRange(0, 4);
+
+        assertFalse(MeshCacheCodec.isValidMesh((4 * STRIDE) + 1, ranges, STRIDE));
+        assertFalse(MeshCacheCodec.isValidMesh(0, new VertexRange[ModelQuadFacing.COUNT], STRIDE));
+
+        ranges[0] = new VertexRange(0, 6);
+
+        assertFalse(MeshCacheCodec.isValidMesh(6 * STRIDE, ranges, STRIDE));
+    }
+
+    @Test
+    void checksumDetectsChangedBytes() {
+        var buffer = ByteBuffer.allocateDirect(256);
+
+        for (int i = 0; i < buffer.capacity(); i++) {
+            buffer.put(i, (byte) i);
+        }
+
+        int checksum = MeshCacheCodec.computeChecksum(buffer, 16);
+
+        // Bytes before the checksummed region aren't covered by it
+        buffer.put(0, (byte) 0xFF);
+        assertEquals(checksum, MeshCacheCodec.computeChecksum(buffer, 16));
+
+        buffer.put(200, (byte) 0xFF);
+        assertNotEquals(checksum, MeshCacheCodec.computeChecksum(buffer, 16));
+
+        // A torn entry is shorter than the one which the checksum was computed for
+        buffer.put(200, (byte) 200);
+        buffer.limit(128);
+        assertNotEquals(checksum, MeshCacheCodec.computeChecksum(buffer, 16));
+    }
+}
@@ -0,0 +1,104 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.executor;
+
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildContext;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that a worker takes jobs in priority order across all worker queues, rather than draining its own queue
+ * before looking at the others.
+ */
+class ChunkJobQueueTest {
+    private static final int WORKER_COUNT = 4;
+
+    @Test
+    void takesJobsInPriorityOrderAcrossQueues() throws InterruptedException {
+        var queue = new ChunkJobQueue(WORKER_COUNT);
+
+        // Jobs are dealt to the queues in turn, so each queue holds a mix of urgent and non-urgent jobs
+        for (int priority = 15; priority >= 0; priority--) {
+            queue.add(new Job(priority));
+        }
+
+        for (int priority = 0; priority < 16; priority++) {
+            var job = queue.waitForNextJob(0);
+
+            assertNotNull(job);
+            assertEquals(priority, job.getPriority());
+        }
+
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void prefersLocalQueueWhenEquallyUrgent() throws InterruptedException {
+        var queue = new ChunkJobQueue(WORKER_COUNT);
+        var jobs = new Job[WORKER_COUNT];
+
+        for (int i = 0; i < WORKER_COUNT; i++) {
+            jobs[i] = new Job(1.0f);
+            queue.add(jobs[i]);
+        }
+
+        // The first job was dealt to the first worker's queue
+        assertSame(jobs[0], queue.waitForNextJob(0));
+    }
+
+    @Test
+    void reordersJobsWhenPrioritiesChange() throws InterruptedException {
+        var queue = new ChunkJobQueue(WORKER_COUNT);
+
+        for (int priority = 1; priority <= 8; priority++) {
+            queue.add(new Job(priority));
+        }
+
+        // The jobs which were the most urgent now become the least urgent
+        queue.updatePriorities(0.0f, 0.0f, 0.0f, 0);
+
+        for (int priority = 8; priority >= 1; priority--) {
+            var job = queue.waitForNextJob(0);
+
+            assertNotNull(job);
+            assertEquals(-priority, job.getPriority());
+        }
+    }
+
+    private static class Job implements ChunkJob {
+        private float priority;
+
+        private Job(float priority) {
+            this.priority = priority;
+        }
+
+        @Override
+        public void execute(ChunkBuildContext context) {
+
+        }
+
+        @Override
+        public boolean isStarted() {
+            return false;
+        }
+
+        @Override
+        public float getPriority() {
+            return this.priority;
+        }
+
+        @Override
+        public void updatePriority(float cameraX, float cameraY, float cameraZ, int frame) {
+            this.priority = -this.priority;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public void setCancelled() {
+
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package me.jellysquid.mods.sodium.client.render.chunk.occlusion;
+
+import me.jellysquid.mods.sodium.client.util.BenchmarkRunner;
+import org.joml.Matrix4f;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Fills the occlusion buffer with section-sized occluders around the camera and tests every section within the render
+ * distance against it, reporting the time taken by each step and how many sections were culled.
+ */
+@Tag("benchmark")
+class OcclusionBufferBenchmark {
+    private static final int RADIUS = 6;
+    private static final int SECTION_SIZE = 16;
+
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    @Test
+    void cullSections() {
+        var random = new Random(0);
+        var buffer = new OcclusionBuffer();
+        var runner = new BenchmarkRunner(WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+
+        // The ground is made up of solid sections starting one section below the camera, with some columns raised by
+        // another section, so that the sections nearest to the ground hide those beneath them
+        float cameraX = 8.5f, cameraY = 3.0f, cameraZ = 8.5f;
+
+        int diameter = (RADIUS * 2) + 1;
+        boolean[] solid = new boolean[diameter * diameter * diameter];
+
+        for (int x = 0; x < diameter; x++) {
+            for (int z = 0; z < diameter; z++) {
+                int height = RADIUS - 1 + (random.nextInt(4) == 0 ? 1 : 0);
+
+                for (int y = 0; y < height; y++) {
+                    solid[index(diameter, x, y, z)] = true;
+                }
+            }
+        }
+
+        for (int view = 0; view < 4; view++) {
+            var viewProjection = new Matrix4f()
+                    .perspective((float) Math.toRadians(70.0f), 16.0f / 9.0f, 0.05f, 1000.0f)
+                    .rotateX((float) Math.toRadians(view * 15.0f))
+                    .rotateY((float) Math.toRadians(view * 90.0f));
+
+            double fillTime = runner.measure(i -> fill(buffer, viewProjection, solid, diameter, cameraX, cameraY, cameraZ));
+
+            // The buffer holds the occluders of the last fill, which are the same for every fill of this view
+            double testTime = runner.measure(i -> test(buffer, diameter, cameraX, cameraY, cameraZ));
+            int culled = test(buffer, diameter, cameraX, cameraY, cameraZ);
+
+            int sectionCount = solid.length;
+
+            runner.report("view " + view, "fill %.1f us/frame, test %.1f ns/section, %d of %d sections culled",
+                    fillTime / 1000.0, testTime / sectionCount, culled, sectionCount);
+        }
+
+        runner.finish();
+    }
+
+    private static int fill(OcclusionBuffer buffer, Matrix4f viewProjection, boolean[] solid, int diameter,
+                             float cameraX, float cameraY, float cameraZ) {
+        int occluders = 0;
+
+        buffer.begin(viewProjection);
+
+        for (int x = 0; x < diameter; x++) {
+            for (int y = 0; y < diameter; y++) {
+                for (int z = 0; z < diameter; z++) {
+                    if (solid[index(diameter, x, y, z)]) {
+                        float minX = ((x - RADIUS) * SECTION_SIZE) - cameraX;
+                        float minY = ((y - RADIUS) * SECTION_SIZE) - cameraY;
+                        float minZ = ((z - RADIUS) * SECTION_SIZE) - cameraZ;
+
+                        buffer.addOccluder(minX, minY, minZ, minX + SECTION_SIZE, minY + SECTION_SIZE, minZ + SECTION_SIZE);
+                        occluders++;
+                    }
+                }
+            }
+        }
+
+        buffer.finish();
+
+        return occluders;
+    }
+
+    private static int test(OcclusionBuffer buffer, int diameter, float cameraX, float cameraY, float cameraZ) {
+        int culled = 0;
+
+        for (int x = 0; x < diameter; x++) {
+            for (int y = 0; y < diameter; y++) {
+                for (int z = 0; z < diameter; z++) {
+                    float minX = ((x - RADIUS) * SECTION_SIZE) - cameraX;
+                    float minY = ((y - RADIUS) * SECTION_SIZE) - cameraY;
+                    float minZ = ((z - RADIUS) * SECTION_SIZE) - cameraZ;
+
+                    if (buffer.isBoxOccluded(minX, minY, minZ, minX + SECTION_SIZE, minY + SECTION_SIZE, minZ + SECTION_SIZE)) {
+                        culled++;
+                    }
+                }
+            }
+        }
+
+        return culled;
+    }
+
+    private static int index(int diameter, int x, int y, int z) {
+        return (((y * diameter) + z) * diameter) + x;
+    }
+}
@@ -0,0 +1,230 @@
+package me.jellysquid.mods.sodium.client.render.chunk.occlusion;
+
+import org.joml.Matrix4f;
+import org.joml.Vector4f;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the occlusion buffer only ever culls boxes which are hidden. The camera is placed at the origin, and
+ * unless stated otherwise looks down the negative Z axis, so the view-space depth of a point is its negated Z.
+ */
+class OcclusionBufferTest {
+    private static final Matrix4f PROJECTION = new Matrix4f()
+            .perspective((float) Math.toRadians(70.0f), 2.0f, 0.05f, 1000.0f);
+
+    private final OcclusionBuffer buffer = new OcclusionBuffer();
+
+    @Test
+    void boxBehindOccluderIsCulled() {
+        this.addWall();
+
+        assertTrue(this.buffer.isBoxOccluded(-1.0f, -1.0f, -21.0f, 1.0f, 1.0f, -20.0f));
+    }
+
+    @Test
+    void boxInFrontOfOccluderIsNotCulled() {
+        this.addWall();
+
+        assertFalse(this.buffer.isBoxOccluded(-1.0f, -1.0f, -6.0f, 1.0f, 1.0f, -5.0f));
+    }
+
+    @Test
+    void boxPartlyInFrontOfOccluderIsNotCulled() {
+        this.addWall();
+
+        assertFalse(this.buffer.isBoxOccluded(-1.0f, -1.0f, -12.0f, 1.0f, 1.0f, -9.0f));
+        assertFalse(this.buffer.isBoxOccluded(-1.0f, -1.0f, -21.0f, 1.0f, 1.0f, -9.99f));
+    }
+
+    @Test
+    void boxPartlyOutsideOccluderIsNotCulled() {
+        this.addWall();
+
+        assertFalse(this.buffer.isBoxOccluded(8.0f, -1.0f, -21.0f, 14.0f, 1.0f, -20.0f));
+        assertFalse(this.buffer.isBoxOccluded(-1.0f, -14.0f, -21.0f, 1.0f, -8.0f, -20.0f));
+    }
+
+    @Test
+    void boxCrossingNearPlaneIsNotCulled() {
+        this.addWall();
+
+        // The box surrounds the camera
+        assertFalse(this.buffer.isBoxOccluded(-1.0f, -1.0f, -1.0f, 1.0f, 1.0f, 1.0f));
+
+        // The box reaches behind the occluder, but also past the near plane
+        assertFalse(this.buffer.isBoxOccluded(-1.0f, -1.0f, -21.0f, 1.0f, 1.0f, -0.01f));
+    }
+
+    @Test
+    void boxBehindCameraIsNotCulled() {
+        this.addWall();
+
+        assertFalse(this.buffer.isBoxOccluded(-1.0f, -1.0f, 20.0f, 1.0f, 1.0f, 21.0f));
+    }
+
+    @Test
+    void occluderCrossingNearPlaneIsIgnored() {
+        this.buffer.begin(PROJECTION);
+        this.buffer.addOccluder(-5.0f, -5.0f, -3.0f, 5.0f, 5.0f, -0.01f);
+        this.buffer.finish();
+
+        assertFalse(this.buffer.isBoxOccluded(-1.0f, -1.0f, -21.0f, 1.0f, 1.0f, -20.0f));
+    }
+
+    @Test
+    void occluderSurroundingCameraIsIgnored() {
+        this.buffer.begin(PROJECTION);
+        this.buffer.addOccluder(-5.0f, -5.0f, -5.0f, 5.0f, 5.0f, 5.0f);
+        this.buffer.finish();
+
+        assertFalse(this.buffer.hasOccluders());
+        assertFalse(this.buffer.isBoxOccluded(-1.0f, -1.0f, -21.0f, 1.0f, 1.0f, -20.0f));
+    }
+
+    @Test
+    void emptyBufferCullsNothing() {
+        this.buffer.begin(PROJECTION);
+        this.buffer.finish();
+
+        assertFalse(this.buffer.hasOccluders());
+        assertFalse(this.buffer.isBoxOccluded(-1.0f, -1.0f, -21.0f, 1.0f, 1.0f, -20.0f));
+    }
+
+    @Test
+    void beginClearsPreviousOccluders() {
+        this.addWall();
+
+        this.buffer.begin(PROJECTION);
+        this.buffer.finish();
+
+        assertFalse(this.buffer.isBoxOccluded(-1.0f, -1.0f, -21.0f, 1.0f, 1.0f, -20.0f));
+    }
+
+    /**
+     * Fills the buffer with random occluders and tests random boxes, viewed from random directions. For every box which
+     * is culled, points sampled throughout the box must be hidden from the camera by an occluder.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 3, 4, 5, 6, 7, 8 })
+    void culledBoxesAreHidden(int seed) {
+        var random = new Random(seed);
+
+        int culled = 0;
+
+        for (int scene = 0; scene < 20; scene++) {
+            var viewProjection = new Matrix4f(PROJECTION)
+                    .rotateX((random.nextFloat() - 0.5f) * (float) Math.PI)
+                    .rotateY(random.nextFloat() * 2.0f * (float) Math.PI);
+
+            var occluders = new float[16][];
+
+            this.buffer.begin(viewProjection);
+
+            for (int i = 0; i < occluders.length; i++) {
+                occluders[i] = createBox(random, 1.0f, 12.0f);
+                this.buffer.addOccluder(occluders[i][0], occluders[i][1], occluders[i][2],
+                        occluders[i][3], occluders[i][4], occluders[i][5]);
+            }
+
+            this.buffer.finish();
+
+            for (int i = 0; i < 500; i++) {
+                var box = createBox(random, 0.5f, 4.0f);
+
+                if (this.buffer.isBoxOccluded(box[0], box[1], box[2], box[3], box[4], box[5])) {
+                    assertHidden(random, viewProjection, occluders, box);
+                    culled++;
+                }
+            }
+        }
+
+        // Make sure that the test isn't passing by never culling anything
+        assertTrue(culled > 0);
+    }
+
+    private void addWall() {
+        this.buffer.begin(PROJECTION);
+        this.buffer.addOccluder(-5.0f, -5.0f, -11.0f, 5.0f, 5.0f, -10.0f);
+        this.buffer.finish();
+
+        assertTrue(this.buffer.hasOccluders());
+    }
+
+    private static float[] createBox(Random random, float minSize, float maxSize) {
+        float x = (random.nextFloat() - 0.5f) * 80.0f;
+        float y = (random.nextFloat() - 0.5f) * 80.0f;
+        float z = (random.nextFloat() - 0.5f) * 80.0f;
+
+        float width = minSize + (random.nextFloat() * (maxSize - minSize));
+        float height = minSize + (random.nextFloat() * (maxSize - minSize));
+        float depth = minSize + (random.nextFloat() * (maxSize - minSize));
+
+        return new float[] { x, y, z, x + width, y + height, z + depth };
+    }
+
+    private static void assertHidden(Random random, Matrix4f viewProjection, float[][] occluders, float[] box) {
+        var clip = new Vector4f();
+
+        for (int i = 0; i < 64; i++) {
+            // The corners of the box are always checked, followed by random points inside it
+            float x = i < 8 ? ((i & 1) == 0 ? box[0] : box[3]) : box[0] + (random.nextFloat() * (box[3] - box[0]));
+            float y = i < 8 ? ((i & 2) == 0 ? box[1] : box[4]) : box[1] + (random.nextFloat() * (box[4] - box[1]));
+            float z = i < 8 ? ((i & 4) == 0 ? box[2] : box[5]) : box[2] + (random.nextFloat() * (box[5] - box[2]));
+
+            viewProjection.transform(clip.set(x, y, z, 1.0f));
+
+            // Points outside the screen can't be seen anyway
+            if (Math.abs(clip.x) > clip.w || Math.abs(clip.y) > clip.w) {
+                continue;
+            }
+
+            boolean hidden = false;
+
+            for (float[] occluder : occluders) {
+                hidden |= intersectsSegment(occluder, x, y, z);
+            }
+
+            assertTrue(hidden, () -> "Point (%s, %s, %s) of a culled box is visible".formatted(x, y, z));
+        }
+    }
+
+    /**
+     * @return True if the segment from the camera to the given point passes through the box
+     */
+    private static boolean intersectsSegment(float[] box, float x, float y, float z) {
+        // The box is grown slightly, so that rounding errors at its edges don't cause false failures
+        final float epsilon = 1.0e-3f;
+
+        float enter = 0.0f;
+        float exit = 1.0f;
+
+        float[] direction = { x, y, z };
+
+        for (int axis = 0; axis < 3; axis++) {
+            float min = box[axis] - epsilon;
+            float max = box[axis + 3] + epsilon;
+
+            if (direction[axis] == 0.0f) {
+                if (min > 0.0f || max < 0.0f) {
+                    return false;
+                }
+
+                continue;
+            }
+
+            float t0 = min / direction[axis];
+            float t1 = max / direction[axis];
+
+            enter = Math.max(enter, Math.min(t0, t1));
+            exit = Math.min(exit, Math.max(t0, t1));
+        }
+
+        return enter <= exit;
+    }
+}
@@ -0,0 +1,154 @@
+package me.jellysquid.mods.sodium.client.render.chunk.vertex.format.impl;
+
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.material.Material;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.material.parameters.AlphaCutoffParameter;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexEncoder;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.util.BenchmarkRunner;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Encodes the geometry of synthetic sections (a height-mapped terrain surface with plants on top of it) with both the
+ * compact and the dense vertex formats, and reports how long encoding takes along with the precision lost by each
+ * format. The geometry isn't captured from the game, so the results only compare the two encoders.
+ */
+@Tag("benchmark")
+class DenseChunkVertexBenchmark {
+    private static final Material MATERIAL = new Material(null, AlphaCutoffParameter.ZERO, true);
+
+    private static final int SECTION_COUNT = 64;
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 50;
+
+    @Test
+    void encodeSections() {
+        var random = new Random(0);
+        var sections = new ArrayList<List<ChunkVertexEncoder.Vertex>>();
+
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            sections.add(createSection(random));
+        }
+
+        int vertexCount = sections.stream()
+                .mapToInt(List::size)
+                .sum();
+
+        var runner = new BenchmarkRunner(WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+
+        System.out.printf("%d sections, %d vertices%n", SECTION_COUNT, vertexCount);
+
+        report(runner, "compact", new CompactChunkVertex(), CompactChunkVertex.STRIDE, sections, vertexCount);
+        report(runner, "dense", new DenseChunkVertex(), DenseChunkVertex.STRIDE, sections, vertexCount);
+
+        runner.finish();
+    }
+
+    private static void report(BenchmarkRunner runner, String name, ChunkVertexType type, int stride,
+                               List<List<ChunkVertexEncoder.Vertex>> sections, int vertexCount) {
+        var buffer = ByteBuffer.allocateDirect(vertexCount * stride)
+                .order(ByteOrder.nativeOrder());
+        var encoder = type.getEncoder();
+
+        long ptr = MemoryUtil.memAddress(buffer);
+
+        double nanosPerEncode = runner.measure(i -> encode(encoder, ptr, sections));
+
+        // The largest distance between a vertex and its encoded position, which is mostly due to the diagonal plant quads
+        float maxError = 0.0f;
+
+        var position = new Vector3f();
+        long vertexPtr = ptr;
+
+        for (var section : sections) {
+            for (var vertex : section) {
+                type.readPosition(vertexPtr, position);
+                maxError = Math.max(maxError, position.distance(vertex.x, vertex.y, vertex.z));
+
+                vertexPtr += stride;
+            }
+        }
+
+        runner.report(name, "%.2f ns/vertex, max position error %.5f blocks",
+                nanosPerEncode / vertexCount, maxError);
+    }
+
+    private static long encode(ChunkVertexEncoder encoder, long ptr, List<List<ChunkVertexEncoder.Vertex>> sections) {
+        for (int sectionIndex = 0; sectionIndex < sections.size(); sectionIndex++) {
+            for (var vertex : sections.get(sectionIndex)) {
+                ptr = encoder.write(ptr, MATERIAL, vertex, sectionIndex);
+            }
+        }
+
+        return ptr;
+    }
+
+    private static List<ChunkVertexEncoder.Vertex> createSection(Random random) {
+        var vertices = new ArrayList<ChunkVertexEncoder.Vertex>();
+        var heights = new int[16 * 16];
+
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = 4 + random.nextInt(8);
+        }
+
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                int height = heights[(x * 16) + z];
+
+                addQuad(vertices, random, x, height, z, x + 1, height, z + 1);
+
+                // The sides of each column which are exposed by a lower neighbor
+                if (x < 15 && heights[((x + 1) * 16) + z] < height) {
+                    addQuad(vertices, random, x + 1, heights[((x + 1) * 16) + z], z, x + 1, height, z + 1);
+                }
+
+                if (z < 15 && heights[(x * 16) + z + 1] < height) {
+                    addQuad(vertices, random, x, heights[(x * 16) + z + 1], z + 1, x + 1, height, z + 1);
+                }
+
+                // Plants are drawn as two crossed quads, which are inset from the block's corners
+                if (random.nextInt(4) == 0) {
+                    float min = 0.5f - 0.45f * (float) Math.sqrt(0.5f);
+                    float max = 0.5f + 0.45f * (float) Math.sqrt(0.5f);
+
+                    addQuad(vertices, random, x + min, height, z + min, x + max, height + 1, z + max);
+                    addQuad(vertices, random, x + min, height, z + max, x + max, height + 1, z + min);
+                }
+            }
+        }
+
+        return vertices;
+    }
+
+    private static void addQuad(List<ChunkVertexEncoder.Vertex> vertices, Random random,
+                                float x0, float y0, float z0, float x1, float y1, float z1) {
+        boolean vertical = y0 != y1;
+        int color = random.nextInt();
+        int light = (random.nextInt(16) << 4) | (random.nextInt(16) << 20);
+
+        for (int i = 0; i < 4; i++) {
+            boolean u = i == 1 || i == 2;
+            boolean v = i >= 2;
+
+            var vertex = new ChunkVertexEncoder.Vertex();
+            vertex.x = u ? x1 : x0;
+            vertex.y = vertical ? (v ? y1 : y0) : y0;
+            vertex.z = vertical ? (u ? z1 : z0) : (v ? z1 : z0);
+            vertex.u = u ? 0.5f : 0.25f;
+            vertex.v = v ? 0.5f : 0.25f;
+            vertex.color = color;
+            vertex.light = light;
+
+            vertices.add(vertex);
+        }
+    }
+}
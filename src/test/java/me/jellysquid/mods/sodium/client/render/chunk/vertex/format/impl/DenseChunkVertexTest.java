@@ -0,0 +1,217 @@
+package me.jellysquid.mods.sodium.client.render.chunk.vertex.format.impl;
+
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.material.Material;
+import me.jellysquid.mods.sodium.client.render.chunk.terrain.material.parameters.AlphaCutoffParameter;
+import me.jellysquid.mods.sodium.client.render.chunk.vertex.format.ChunkVertexEncoder;
+import net.caffeinemc.mods.sodium.api.util.ColorABGR;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Encodes vertices with both the dense and the default (compact) vertex formats, and checks that the values decoded
+ * from the dense format (in the same way as the shader decodes them) match the inputs and the compact format to within
+ * the precision of the dense format.
+ */
+class DenseChunkVertexTest {
+    private static final Material MATERIAL = new Material(null, AlphaCutoffParameter.HALF, true);
+
+    // The largest error allowed for each quantized value, which is half of one step plus some slack for float rounding
+    // (the compact format truncates its positions, so comparisons against it allow for one more of its own steps)
+    private static final float FLOAT_EPSILON = 1.0e-5f;
+
+    private static final float POSITION_EPSILON = ((32.0f / 1024.0f) * 0.5f) + FLOAT_EPSILON;
+    private static final float COMPACT_POSITION_EPSILON = POSITION_EPSILON + (32.0f / 65536.0f);
+    private static final float TEXTURE_EPSILON = ((1.0f / 32767.0f) * 0.5f) + FLOAT_EPSILON;
+    private static final float COLOR_EPSILON = (1.0f / 31.0f) * 0.5f + (1.0f / 255.0f);
+
+    private final DenseChunkVertex dense = new DenseChunkVertex();
+    private final CompactChunkVertex compact = new CompactChunkVertex();
+
+    private final ByteBuffer denseBuffer = ByteBuffer.allocateDirect(DenseChunkVertex.STRIDE).order(ByteOrder.nativeOrder());
+    private final ByteBuffer compactBuffer = ByteBuffer.allocateDirect(CompactChunkVertex.STRIDE).order(ByteOrder.nativeOrder());
+
+    @Test
+    void randomVerticesRoundTrip() {
+        var random = new Random(0);
+
+        for (int i = 0; i < 100_000; i++) {
+            var vertex = new ChunkVertexEncoder.Vertex();
+            vertex.x = -8.0f + (random.nextFloat() * 31.96f);
+            vertex.y = -8.0f + (random.nextFloat() * 31.96f);
+            vertex.z = -8.0f + (random.nextFloat() * 31.96f);
+            vertex.u = random.nextFloat();
+            vertex.v = random.nextFloat();
+            vertex.color = random.nextInt();
+            vertex.light = (random.nextInt(16) << 4) | (random.nextInt(16) << 20);
+
+            this.checkRoundTrip(vertex, random.nextInt(256));
+        }
+    }
+
+    @Test
+    void blockGridPositionsAreExact() {
+        var vertex = new ChunkVertexEncoder.Vertex();
+
+        // Block models are defined on a grid of 1/16 of a block, which covers the whole range of the format
+        for (int i = -8 * 16; i < 24 * 16; i++) {
+            vertex.x = i / 16.0f;
+            vertex.y = 16.0f - ((i + 1) / 16.0f);
+            vertex.z = i / 16.0f;
+
+            long ptr = this.encodeDense(vertex, 0);
+
+            var position = new Vector3f();
+            this.dense.readPosition(ptr, position);
+
+            assertEquals(vertex.x, position.x, 0.0f);
+            assertEquals(vertex.y, position.y, 0.0f);
+            assertEquals(vertex.z, position.z, 0.0f);
+        }
+    }
+
+    @Test
+    void outOfRangeValuesAreClamped() {
+        var vertex = new ChunkVertexEncoder.Vertex();
+        vertex.x = -100.0f;
+        vertex.y = 100.0f;
+        vertex.z = 24.0f;
+        vertex.u = -0.5f;
+        vertex.v = 1.5f;
+        vertex.color = 0xFFFFFFFF;
+        vertex.light = (15 << 4) | (15 << 20);
+
+        var material = new Material(null, AlphaCutoffParameter.ONE, true);
+        long ptr = this.encodeDense(vertex, material, 255);
+
+        var position = new Vector3f();
+        this.dense.readPosition(ptr, position);
+
+        assertEquals(-8.0f, position.x, 0.0f);
+        assertEquals(24.0f - (32.0f / 1024.0f), position.y, 0.0f);
+        assertEquals(24.0f - (32.0f / 1024.0f), position.z, 0.0f);
+
+        assertEquals(0.0f, decodeTexture(ptr, 0), 0.0f);
+        assertEquals(1.0f, decodeTexture(ptr, 15), 0.0f);
+
+        // The clamped values must not overflow into the fields stored next to them
+        assertEquals(material.bits(), decodeMaterial(ptr));
+        assertEquals(255, decodeSectionIndex(ptr));
+        assertEquals(15, decodeBlockLight(ptr));
+        assertEquals(15, decodeSkyLight(ptr));
+    }
+
+    @Test
+    void textureCoordinateBoundsAreExact() {
+        var vertex = new ChunkVertexEncoder.Vertex();
+
+        for (float value : new float[] { 0.0f, 1.0f }) {
+            vertex.u = value;
+            vertex.v = value;
+
+            long ptr = this.encodeDense(vertex, 0);
+
+            assertEquals(value, decodeTexture(ptr, 0), 0.0f);
+            assertEquals(value, decodeTexture(ptr, 15), 0.0f);
+        }
+    }
+
+    @Test
+    void tiledMaterialsAreRejected() {
+        var vertex = new ChunkVertexEncoder.Vertex();
+        var material = new Material(null, AlphaCutoffParameter.ZERO, false, true);
+
+        assertFalse(this.dense.supportsTiledMaterials());
+        assertThrows(IllegalArgumentException.class, () -> this.encodeDense(vertex, material, 0));
+    }
+
+    private void checkRoundTrip(ChunkVertexEncoder.Vertex vertex, int sectionIndex) {
+        long densePtr = this.encodeDense(vertex, sectionIndex);
+        long compactPtr = this.encodeCompact(vertex, sectionIndex);
+
+        var densePosition = new Vector3f();
+        var compactPosition = new Vector3f();
+
+        this.dense.readPosition(densePtr, densePosition);
+        this.compact.readPosition(compactPtr, compactPosition);
+
+        assertEquals(vertex.x, densePosition.x, POSITION_EPSILON);
+        assertEquals(vertex.y, densePosition.y, POSITION_EPSILON);
+        assertEquals(vertex.z, densePosition.z, POSITION_EPSILON);
+
+        assertEquals(compactPosition.x, densePosition.x, COMPACT_POSITION_EPSILON);
+        assertEquals(compactPosition.y, densePosition.y, COMPACT_POSITION_EPSILON);
+        assertEquals(compactPosition.z, densePosition.z, COMPACT_POSITION_EPSILON);
+
+        assertEquals(vertex.u, decodeTexture(densePtr, 0), TEXTURE_EPSILON);
+        assertEquals(vertex.v, decodeTexture(densePtr, 15), TEXTURE_EPSILON);
+
+        // The compact format stores the color with ambient occlusion applied as 8-bit channels
+        int compactColor = MemoryUtil.memGetInt(compactPtr + 8);
+
+        assertEquals(ColorABGR.unpackRed(compactColor) / 255.0f, decodeColor(densePtr, 0, 31), COLOR_EPSILON);
+        assertEquals(ColorABGR.unpackGreen(compactColor) / 255.0f, decodeColor(densePtr, 5, 63), COLOR_EPSILON);
+        assertEquals(ColorABGR.unpackBlue(compactColor) / 255.0f, decodeColor(densePtr, 11, 31), COLOR_EPSILON);
+
+        assertEquals((vertex.light >> 4) & 0xF, decodeBlockLight(densePtr));
+        assertEquals((vertex.light >> 20) & 0xF, decodeSkyLight(densePtr));
+        assertEquals((compactColor >>> 24) & 0xF, decodeBlockLight(densePtr));
+        assertEquals((compactColor >>> 28) & 0xF, decodeSkyLight(densePtr));
+
+        assertEquals(MATERIAL.bits(), decodeMaterial(densePtr));
+        assertEquals((MemoryUtil.memGetInt(compactPtr + 4) >>> 16) & 0xFF, decodeMaterial(densePtr));
+
+        assertEquals(sectionIndex, decodeSectionIndex(densePtr));
+        assertEquals((MemoryUtil.memGetInt(compactPtr + 4) >>> 24) & 0xFF, decodeSectionIndex(densePtr));
+    }
+
+    private long encodeDense(ChunkVertexEncoder.Vertex vertex, int sectionIndex) {
+        return this.encodeDense(vertex, MATERIAL, sectionIndex);
+    }
+
+    private long encodeDense(ChunkVertexEncoder.Vertex vertex, Material material, int sectionIndex) {
+        long ptr = MemoryUtil.memAddress(this.denseBuffer);
+        assertEquals(ptr + DenseChunkVertex.STRIDE, this.dense.getEncoder().write(ptr, material, vertex, sectionIndex));
+
+        return ptr;
+    }
+
+    private long encodeCompact(ChunkVertexEncoder.Vertex vertex, int sectionIndex) {
+        long ptr = MemoryUtil.memAddress(this.compactBuffer);
+        assertEquals(ptr + CompactChunkVertex.STRIDE, this.compact.getEncoder().write(ptr, MATERIAL, vertex, sectionIndex));
+
+        return ptr;
+    }
+
+    // The methods below decode the fields of the dense format in the same way as the shader (chunk_vertex.glsl)
+
+    private static float decodeTexture(long ptr, int shift) {
+        return ((MemoryUtil.memGetInt(ptr + 4) >>> shift) & 0x7FFF) / 32767.0f;
+    }
+
+    private static float decodeColor(long ptr, int shift, int max) {
+        return ((MemoryUtil.memGetInt(ptr + 8) >>> shift) & max) / (float) max;
+    }
+
+    private static int decodeBlockLight(long ptr) {
+        return (MemoryUtil.memGetInt(ptr + 8) >>> 16) & 0xF;
+    }
+
+    private static int decodeSkyLight(long ptr) {
+        return (MemoryUtil.memGetInt(ptr + 8) >>> 20) & 0xF;
+    }
+
+    private static int decodeSectionIndex(long ptr) {
+        return (MemoryUtil.memGetInt(ptr + 8) >>> 24) & 0xFF;
+    }
+
+    private static int decodeMaterial(long ptr) {
+        return ((MemoryUtil.memGetInt(ptr + 0) >>> 30) & 0x3) | (((MemoryUtil.memGetInt(ptr + 4) >>> 30) & 0x3) << 2);
+    }
+}
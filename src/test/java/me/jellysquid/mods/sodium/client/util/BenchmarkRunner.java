@@ -0,0 +1,61 @@
+package me.jellysquid.mods.sodium.client.util;
+
+import java.util.function.IntToLongFunction;
+
+/**
+ * Times the code measured by the benchmarks, which are the tests tagged "benchmark". They are only run with
+ * {@code ./gradlew benchmark}, and print their results to the console.
+ *
+ * <p>Every measurement runs the code for a number of warmup iterations first, so that it has been compiled by the JIT
+ * before it's timed. The values returned by the code are added to a checksum, which is printed once the benchmark
+ * finishes, so that the JIT can't remove work whose results are otherwise unused.</p>
+ */
+public class BenchmarkRunner {
+    private final int warmupIterations;
+    private final int measuredIterations;
+
+    private long checksum;
+
+    public BenchmarkRunner(int warmupIterations, int measuredIterations) {
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+    }
+
+    /**
+     * Runs the code for every warmup iteration, and then for every measured iteration.
+     *
+     * @param body The code to measure, which is given the index of the iteration, and returns a value to add to the
+     *             checksum
+     * @return The average time taken by each measured iteration, in nanoseconds
+     */
+    public double measure(IntToLongFunction body) {
+        for (int i = 0; i < this.warmupIterations; i++) {
+            this.checksum += body.applyAsLong(i);
+        }
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < this.measuredIterations; i++) {
+            this.checksum += body.applyAsLong(i);
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        return (double) elapsed / this.measuredIterations;
+    }
+
+    /**
+     * Prints a line of results, prefixed with the name of what was measured.
+     */
+    public void report(String name, String format, Object... args) {
+        System.out.println(name + ": " + String.format(format, args));
+    }
+
+    /**
+     * Prints the checksum of every value returned by the measured code. This must be called after the last
+     * measurement.
+     */
+    public void finish() {
+        System.out.println("(checksum " + this.checksum + ")");
+    }
+}
@@ -0,0 +1,81 @@
+package me.jellysquid.mods.sodium.client.world;
+
+import net.minecraft.world.chunk.ReadableContainer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Random;
+
+/**
+ * A container of values which are stored as indices into a palette, like the containers of chunk sections, so that the
+ * world slice's volume can be tested without the game. Only the methods used to unpack values are supported.
+ */
+class FakeContainer implements ReadableContainerExtended<Integer> {
+    private final Integer[] palette;
+    private final int[] indices;
+
+    private FakeContainer(Integer[] palette, int[] indices) {
+        this.palette = palette;
+        this.indices = indices;
+    }
+
+    /**
+     * Creates a container which holds random values from a palette of random values with the given size.
+     */
+    static FakeContainer random(Random random, int paletteSize) {
+        var palette = new Integer[paletteSize];
+
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = random.nextInt();
+        }
+
+        var indices = new int[4096];
+
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = random.nextInt(paletteSize);
+        }
+
+        return new FakeContainer(palette, indices);
+    }
+
+    @Override
+    public void sodium$unpack(Integer[] values) {
+        for (int i = 0; i < this.indices.length; i++) {
+            values[i] = this.palette[this.indices[i]];
+        }
+    }
+
+    @Override
+    public void sodium$unpack(Integer[] values, int offset, int length, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                int rowOffset = offset + (((y * length) + z) * length);
+
+                for (int x = minX; x <= maxX; x++) {
+                    values[rowOffset + x] = this.palette[this.indices[(y << 8) | (z << 4) | x]];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The value of the block at the given local coordinates
+     */
+    Integer get(int x, int y, int z) {
+        return this.palette[this.indices[(y << 8) | (z << 4) | x]];
+    }
+
+    @Override
+    public ReadableContainer<Integer> sodium$copy() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ContainerSnapshot<Integer> sodium$acquireSnapshot() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public @Nullable Integer sodium$getUniformValue() {
+        return null;
+    }
+}
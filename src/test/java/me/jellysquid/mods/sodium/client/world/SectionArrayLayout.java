@@ -0,0 +1,54 @@
+package me.jellysquid.mods.sodium.client.world;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * The layout which the world slice stored its block states in before {@link SectionVolume}, where each of the 27
+ * sections around the origin section has a full array of its own. This is kept as a reference for the tests, and as the
+ * baseline for the benchmarks.
+ */
+class SectionArrayLayout {
+    private final int border;
+    private final Integer[][] sections = new Integer[27][4096];
+
+    SectionArrayLayout(int border) {
+        this.border = border;
+    }
+
+    void copySection(int sectionX, int sectionY, int sectionZ, @Nullable ReadableContainerExtended<Integer> container,
+                     Integer defaultValue) {
+        Integer[] values = this.sections[getSectionIndex(sectionX + 1, sectionY + 1, sectionZ + 1)];
+
+        if (container == null) {
+            Arrays.fill(values, defaultValue);
+        } else if (sectionX == 0 && sectionY == 0 && sectionZ == 0) {
+            container.sodium$unpack(values);
+        } else {
+            // Only the blocks of the neighboring sections which are within the border were unpacked
+            int minX = sectionX < 0 ? 16 - this.border : 0, maxX = sectionX > 0 ? this.border - 1 : 15;
+            int minY = sectionY < 0 ? 16 - this.border : 0, maxY = sectionY > 0 ? this.border - 1 : 15;
+            int minZ = sectionZ < 0 ? 16 - this.border : 0, maxZ = sectionZ > 0 ? this.border - 1 : 15;
+
+            if (minX <= maxX && minY <= maxY && minZ <= maxZ) {
+                container.sodium$unpack(values, 0, 16, minX, minY, minZ, maxX, maxY, maxZ);
+            }
+        }
+    }
+
+    /**
+     * @return The value at the given position, which is relative to the minimum corner of the volume
+     */
+    Integer get(int x, int y, int z) {
+        int relX = x - this.border + 16;
+        int relY = y - this.border + 16;
+        int relZ = z - this.border + 16;
+
+        return this.sections[getSectionIndex(relX >> 4, relY >> 4, relZ >> 4)][(relY & 15) << 8 | (relZ & 15) << 4 | (relX & 15)];
+    }
+
+    private static int getSectionIndex(int x, int y, int z) {
+        return (y * 9) + (z * 3) + x;
+    }
+}
@@ -0,0 +1,105 @@
+package me.jellysquid.mods.sodium.client.world;
+
+import me.jellysquid.mods.sodium.client.util.BenchmarkRunner;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Compares copying the sections around an origin section into the previous layout (a full array for each section) and
+ * into a {@link SectionVolume}, along with reading every block of the volume back from each. The sections are fake
+ * containers which unpack through a palette like the real ones, but without their packed storage, so the absolute
+ * numbers are lower than in the game.
+ */
+@Tag("benchmark")
+class SectionVolumeBenchmark {
+    // The same border as the world slice uses
+    private static final int BORDER = 2;
+
+    private static final int SLICE_COUNT = 64;
+
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 1000;
+
+    @Test
+    void copyAndRead() {
+        var random = new Random(0);
+        var slices = new FakeContainer[SLICE_COUNT][27];
+
+        for (var slice : slices) {
+            for (int i = 0; i < slice.length; i++) {
+                // Most sections in the world are made up of a handful of block states
+                slice[i] = random.nextInt(8) == 0 ? null : FakeContainer.random(random, 1 + random.nextInt(16));
+            }
+        }
+
+        var before = new SectionArrayLayout(BORDER);
+        var after = new SectionVolume<>(Integer[]::new, BORDER);
+
+        int length = after.getLength();
+        int blockCount = length * length * length;
+
+        var runner = new BenchmarkRunner(WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+
+        double copyBeforeTime = runner.measure(i -> {
+            copyBefore(before, slices[i % SLICE_COUNT]);
+            return 0;
+        });
+        double readBeforeTime = runner.measure(i -> read(before, length));
+
+        runner.report("section arrays", "copy %.1f us/slice, read %.2f ns/block, %d KiB of references per slice",
+                copyBeforeTime / 1000.0, readBeforeTime / blockCount, (27 * 4096 * 4) / 1024);
+
+        double copyAfterTime = runner.measure(i -> {
+            copyAfter(after, slices[i % SLICE_COUNT]);
+            return 0;
+        });
+        double readAfterTime = runner.measure(i -> read(after, length));
+
+        runner.report("section volume", "copy %.1f us/slice, read %.2f ns/block, %d KiB of references per slice",
+                copyAfterTime / 1000.0, readAfterTime / blockCount, ((blockCount + 4096) * 4) / 1024);
+
+        runner.finish();
+    }
+
+    private static void copyBefore(SectionArrayLayout layout, FakeContainer[] slice) {
+        for (int i = 0; i < slice.length; i++) {
+            layout.copySection((i % 3) - 1, (i / 9) - 1, ((i / 3) % 3) - 1, slice[i], 0);
+        }
+    }
+
+    private static void copyAfter(SectionVolume<Integer> volume, FakeContainer[] slice) {
+        for (int i = 0; i < slice.length; i++) {
+            volume.copySection((i % 3) - 1, (i / 9) - 1, ((i / 3) % 3) - 1, slice[i], 0);
+        }
+    }
+
+    private static long read(SectionArrayLayout layout, int length) {
+        long sum = 0;
+
+        for (int y = 0; y < length; y++) {
+            for (int z = 0; z < length; z++) {
+                for (int x = 0; x < length; x++) {
+                    sum += layout.get(x, y, z);
+                }
+            }
+        }
+
+        return sum;
+    }
+
+    private static long read(SectionVolume<Integer> volume, int length) {
+        long sum = 0;
+
+        for (int y = 0; y < length; y++) {
+            for (int z = 0; z < length; z++) {
+                for (int x = 0; x < length; x++) {
+                    sum += volume.get(x, y, z);
+                }
+            }
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,86 @@
+package me.jellysquid.mods.sodium.client.world;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that every position within the volume holds the same value as the previous layout, where each section was
+ * stored in an array of its own. The neighboring sections on the negative side of the origin are stored at negative
+ * offsets into the volume, so every combination of sections is covered.
+ */
+class SectionVolumeTest {
+    private static final Integer DEFAULT_VALUE = -1;
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 2, 8, 15, 16 })
+    void matchesSectionArrayLayout(int border) {
+        var random = new Random(border);
+        var volume = new SectionVolume<>(Integer[]::new, border);
+
+        assertEquals(16 + (border * 2), volume.getLength());
+
+        volume.fill(null);
+
+        // The volume is reused with new sections, like the world slice is, so any stale values would be caught
+        for (int round = 0; round < 8; round++) {
+            var reference = new SectionArrayLayout(border);
+
+            for (int x = -1; x <= 1; x++) {
+                for (int y = -1; y <= 1; y++) {
+                    for (int z = -1; z <= 1; z++) {
+                        var container = createContainer(random);
+
+                        volume.copySection(x, y, z, container, DEFAULT_VALUE);
+                        reference.copySection(x, y, z, container, DEFAULT_VALUE);
+                    }
+                }
+            }
+
+            for (int x = 0; x < volume.getLength(); x++) {
+                for (int y = 0; y < volume.getLength(); y++) {
+                    for (int z = 0; z < volume.getLength(); z++) {
+                        var value = volume.get(x, y, z);
+
+                        assertNotNull(value);
+                        assertEquals(reference.get(x, y, z), value, "Mismatch at (%d, %d, %d)".formatted(x, y, z));
+                    }
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 2, 16 })
+    void sectionsOutsideBorderAreIgnored(int border) {
+        var random = new Random(border);
+        var volume = new SectionVolume<>(Integer[]::new, border);
+
+        volume.fill(DEFAULT_VALUE);
+
+        // These sections are too far away to overlap the volume at all
+        volume.copySection(2, 0, 0, FakeContainer.random(random, 16), 0);
+        volume.copySection(0, -2, 0, FakeContainer.random(random, 16), 0);
+        volume.copySection(0, 0, 2, null, 0);
+
+        for (int x = 0; x < volume.getLength(); x++) {
+            for (int y = 0; y < volume.getLength(); y++) {
+                for (int z = 0; z < volume.getLength(); z++) {
+                    assertEquals(DEFAULT_VALUE, volume.get(x, y, z));
+                }
+            }
+        }
+    }
+
+    private static FakeContainer createContainer(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> null;
+            case 1 -> FakeContainer.random(random, 1);
+            case 2 -> FakeContainer.random(random, 16);
+            default -> FakeContainer.random(random, 4096);
+        };
+    }
+}